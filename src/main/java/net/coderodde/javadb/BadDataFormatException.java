@@ -0,0 +1,21 @@
+package net.coderodde.javadb;
+
+/**
+ * This exception is thrown whenever the binary data being deserialized does
+ * not conform to the expected format.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Jul 13, 2017)
+ */
+public class BadDataFormatException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BadDataFormatException(String message) {
+        super(message);
+    }
+
+    public BadDataFormatException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,216 @@
+package net.coderodde.javadb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * This class implements a writer that serializes data through a single
+ * reusable direct byte buffer, which is flushed to a file channel whenever it
+ * cannot accommodate the next chunk of data. This way the memory needed for
+ * writing is proportional to the buffer capacity and not to the amount of data
+ * written. The writer may compute the checksum of a range of the data written
+ * through it, such as a table block.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class BufferedChannelWriter implements Closeable, TableBlockWriter {
+
+    /**
+     * The default capacity of the write buffer.
+     */
+    static final int DEFAULT_BUFFER_CAPACITY = 1 << 20;
+
+    /**
+     * The channel to write to.
+     */
+    private final FileChannel fileChannel;
+
+    /**
+     * The reusable write buffer.
+     */
+    private final ByteBuffer byteBuffer;
+
+    /**
+     * The buffer for chunks that do not fit in {@code byteBuffer}, or
+     * {@code null} if there is no such chunk pending.
+     */
+    private ByteBuffer oversizedByteBuffer;
+
+    /**
+     * The number of bytes flushed to the channel so far.
+     */
+    private long bytesFlushed;
+
+    /**
+     * Computes the checksum of the data written since the last call to
+     * {@link #beginChecksum()}, or is {@code null} if no checksum is being
+     * computed.
+     */
+    private CRC32 crc32;
+
+    /**
+     * The position up to which the data is fed to {@code crc32}.
+     */
+    private long checksummedPosition;
+
+    BufferedChannelWriter(FileChannel fileChannel) {
+        this(fileChannel, DEFAULT_BUFFER_CAPACITY);
+    }
+
+    BufferedChannelWriter(FileChannel fileChannel, int bufferCapacity) {
+        this.fileChannel = Objects.requireNonNull(fileChannel,
+                                                  "The file channel is null.");
+        this.byteBuffer = ByteBuffer.allocateDirect(bufferCapacity)
+                                    .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns a byte buffer that has room for at least {@code length} bytes.
+     * The caller is expected to put exactly {@code length} bytes into the
+     * returned buffer before requesting the next one.
+     *
+     * @param length the number of bytes to be written.
+     * @return a byte buffer to write to.
+     * @throws IOException if flushing fails.
+     */
+    @Override
+    public ByteBuffer getBuffer(int length) throws IOException {
+        if (length > byteBuffer.remaining() || oversizedByteBuffer != null) {
+            flush();
+        }
+
+        if (length > byteBuffer.capacity()) {
+            oversizedByteBuffer = ByteBuffer.allocate(length)
+                                            .order(ByteOrder.LITTLE_ENDIAN);
+            return oversizedByteBuffer;
+        }
+
+        return byteBuffer;
+    }
+
+    /**
+     * Writes the given bytes in chunks that fit in the write buffer.
+     *
+     * @param data   the array holding the bytes.
+     * @param offset the index of the first byte to write.
+     * @param length the number of bytes to write.
+     * @throws IOException if flushing fails.
+     */
+    @Override
+    public void write(byte[] data, int offset, int length)
+            throws IOException {
+        while (length > 0) {
+            int chunkLength = Math.min(length, byteBuffer.capacity());
+            getBuffer(chunkLength).put(data, offset, chunkLength);
+            offset += chunkLength;
+            length -= chunkLength;
+        }
+    }
+
+    /**
+     * Returns the number of bytes written so far, including the bytes that
+     * are not yet flushed.
+     *
+     * @return the number of bytes written.
+     */
+    long getPosition() {
+        return bytesFlushed
+                + byteBuffer.position()
+                + (oversizedByteBuffer == null ?
+                        0 :
+                        oversizedByteBuffer.position());
+    }
+
+    /**
+     * Starts computing the checksum of the data written from now on.
+     */
+    void beginChecksum() {
+        crc32 = new CRC32();
+        checksummedPosition = getPosition();
+    }
+
+    /**
+     * Returns the CRC32 of the data written since the last call to
+     * {@link #beginChecksum()}.
+     *
+     * @return the checksum.
+     */
+    int endChecksum() {
+        updateChecksum();
+        int checksum = (int) crc32.getValue();
+        crc32 = null;
+        return checksum;
+    }
+
+    /**
+     * Writes all the buffered data to the channel.
+     *
+     * @throws IOException if writing fails.
+     */
+    void flush() throws IOException {
+        updateChecksum();
+        writeFully(byteBuffer);
+
+        if (oversizedByteBuffer != null) {
+            writeFully(oversizedByteBuffer);
+            oversizedByteBuffer = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * Feeds the data written but not yet checksummed to {@code crc32}.
+     */
+    private void updateChecksum() {
+        if (crc32 != null) {
+            long end = updateChecksum(byteBuffer, bytesFlushed);
+
+            if (oversizedByteBuffer != null) {
+                updateChecksum(oversizedByteBuffer, end);
+            }
+        }
+    }
+
+    /**
+     * Feeds the part of the given buffer not yet checksummed to
+     * {@code crc32}.
+     *
+     * @param buffer         the buffer whose data is from position zero to
+     *                       its position.
+     * @param bufferPosition the position of the buffer data in the output.
+     * @return the position of the end of the buffer data in the output.
+     */
+    private long updateChecksum(ByteBuffer buffer, long bufferPosition) {
+        long end = bufferPosition + buffer.position();
+
+        if (checksummedPosition < end) {
+            ByteBuffer data = buffer.duplicate();
+            data.limit(buffer.position());
+            data.position((int) (checksummedPosition - bufferPosition));
+            crc32.update(data);
+            checksummedPosition = end;
+        }
+
+        return end;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            bytesFlushed += fileChannel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+}
@@ -0,0 +1,94 @@
+package net.coderodde.javadb;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class implements a table row of a columnar table. It does not hold any
+ * cells by itself, but rather refers to a row index in the column storages of
+ * the owner table. Inserting or removing rows in front of the row index
+ * changes the row this view refers to.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class ColumnarTableRow extends TableRow {
+
+    ColumnarTableRow(Table ownerTable, int rowIndex) {
+        super(ownerTable);
+        this.rowIndex = rowIndex;
+    }
+
+    @Override
+    public int getNumberOfCells() {
+        return ownerTable.tableColumnDescriptorList.size();
+    }
+
+    @Override
+    public TableCell get(int index) {
+        checkColumnIndex(index);
+        TableCell tableCell = 
+                new TableCell(ownerTable.getTableColumnStorage(index), rowIndex);
+        tableCell.ownerTableRow = this;
+        return tableCell;
+    }
+
+    @Override
+    public void add(int index, TableCell tableCell) {
+        throw new UnsupportedOperationException(
+                "The cells of a columnar table row are defined by the " +
+                "table columns.");
+    }
+
+    @Override
+    public void remove(int index) {
+        throw new UnsupportedOperationException(
+                "The cells of a columnar table row are defined by the " +
+                "table columns.");
+    }
+
+    @Override
+    public int getSerializationLength() {
+        int serializationLength = 0;
+
+        for (int i = 0; i < getNumberOfCells(); ++i) {
+            serializationLength += ownerTable.getTableColumnStorage(i)
+                                             .getSerializationLength(rowIndex);
+        }
+
+        return serializationLength;
+    }
+
+    @Override
+    public void serialize(ByteBuffer byteBuffer) {
+        for (int i = 0; i < getNumberOfCells(); ++i) {
+            ownerTable.getTableColumnStorage(i).serialize(byteBuffer,
+                                                          rowIndex);
+        }
+    }
+
+    @Override
+    int indexOfTableCell(TableCell tableCell) {
+        for (int i = 0; i < getNumberOfCells(); ++i) {
+            if (tableCell.isViewOf(ownerTable.getTableColumnStorage(i))) {
+                return i;
+            }
+        }
+
+        throw new IllegalStateException(
+                "The table cell is not in this table row.");
+    }
+
+    private void checkColumnIndex(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException(
+                    "The column access index is negative: " + index + ".");
+        }
+
+        if (index >= getNumberOfCells()) {
+            throw new IndexOutOfBoundsException(
+                    "The column access index is too large: " + index + ". " +
+                    "The length of the row is " + getNumberOfCells() + " " +
+                    "cells.");
+        }
+    }
+}
@@ -1,17 +1,38 @@
 package net.coderodde.javadb;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
 
 public final class Database {
 
-    private static final int SIZE_BYTES = Integer.BYTES;
+    /**
+     * The default size of the write-ahead log in bytes that triggers a 
+     * checkpoint.
+     */
+    public static final long DEFAULT_CHECKPOINT_LOG_SIZE = 64L << 20;
+    
+    /**
+     * The default time in milliseconds after which a mutation triggers a 
+     * checkpoint.
+     */
+    public static final long DEFAULT_CHECKPOINT_INTERVAL_MILLIS = 
+            5L * 60L * 1000L;
     
     /**
      * The name of this database.
@@ -21,13 +42,64 @@ public final class Database {
     /**
      * The map mapping the table name to the actual table.
      */
-    private final Map<String, Table> tableMap = new LinkedHashMap<>();
+    final Map<String, Table> tableMap = new LinkedHashMap<>();
     
     /**
      * The file this database was built from.
      */
     private File file;
     
+    /**
+     * The write-ahead log of this database, or {@code null} if mutations are 
+     * not logged.
+     */
+    private WriteAheadLog writeAheadLog;
+    
+    /**
+     * The log sequence number of the last logged mutation applied to this 
+     * database.
+     */
+    private long logSequenceNumber;
+    
+    /**
+     * The size of the write-ahead log in bytes that triggers a checkpoint.
+     */
+    private long checkpointLogSize = DEFAULT_CHECKPOINT_LOG_SIZE;
+    
+    /**
+     * The time in milliseconds since the last checkpoint after which a 
+     * mutation triggers a checkpoint.
+     */
+    private long checkpointIntervalMillis = DEFAULT_CHECKPOINT_INTERVAL_MILLIS;
+    
+    /**
+     * The time the last checkpoint or save was started. Volatile, since a 
+     * save writes it outside the monitor checking it in {@code onLogged}.
+     */
+    private volatile long lastCheckpointMillis;
+    
+    /**
+     * The thread writing the current checkpoint, or {@code null}.
+     */
+    private volatile Thread checkpointThread;
+    
+    /**
+     * Whether the automatic checkpoints are held off while this database is 
+     * being saved. Guarded by this database.
+     */
+    private boolean checkpointsSuspended;
+    
+    /**
+     * The lock guarding the table map in the concurrent mode, or 
+     * {@code null}.
+     */
+    private volatile OptimisticLock optimisticLock;
+    
+    /**
+     * The exception that made the last checkpoint fail, if any.
+     */
+    private volatile Exception checkpointFailure;
+    
     public Database(String databaseName) {
         Objects.requireNonNull(databaseName, "The database name is null.");
         this.databaseName = checkDatabaseName(databaseName);
@@ -51,34 +123,142 @@ public final class Database {
      */
     public Table createTable(String tableName,
                             TableColumnDescriptor... tableColumnDescriptors) {
+        return createTable(tableName, 
+                           TableStorageMode.ROW_ORIENTED, 
+                           tableColumnDescriptors);
+    }
+    
+    /**
+     * Creates a new empty table with given columns and storage mode.
+     * 
+     * @param tableName              the table name.
+     * @param tableStorageMode       the storage mode of the new table.
+     * @param tableColumnDescriptors the column descriptors.
+     */
+    public Table createTable(String tableName,
+                             TableStorageMode tableStorageMode,
+                             TableColumnDescriptor... tableColumnDescriptors) {
         Objects.requireNonNull(tableName, "The table name is null");
         checkTableNameNotEmpty(tableName);
-        checkTableNameNotOccupied(tableName);
         checkTableColumnDescriptors(tableColumnDescriptors);
-        Table table = new Table(tableName);
+        long stamp = lockForWriting();
         
-        for (TableColumnDescriptor tableColumnDescriptor 
-                : tableColumnDescriptors) {
-            Objects.requireNonNull(tableColumnDescriptor,
-                                   "The table column descriptor is null.");
+        try {
+            checkTableNameNotOccupied(tableName);
+            Table table = new Table(tableName, tableStorageMode);
+            
+            for (TableColumnDescriptor tableColumnDescriptor 
+                    : tableColumnDescriptors) {
+                Objects.requireNonNull(tableColumnDescriptor,
+                                       "The table column descriptor is null.");
+                
+                table.addTableColumnDescriptor(tableColumnDescriptor);
+            }
+            
+            addTable(table);
             
-            table.addTableColumnDescriptor(tableColumnDescriptor);
+            if (writeAheadLog != null) {
+                onLogged(writeAheadLog.logCreateTable(table));
+            }
+            
+            return table;
+        } finally {
+            unlockForWriting(stamp);
         }
-        
-        tableMap.put(tableName, table);
-        return table;
     }
     
     public Table getTable(String tableName) {
         Objects.requireNonNull(tableName, "The input table name is null.");
-        checkTableIsInThisDatabase(tableName);
-        return tableMap.get(tableName);
+        return readOptimistically(() -> {
+            checkTableIsInThisDatabase(tableName);
+            return tableMap.get(tableName);
+        });
     }
     
     public void deleteTable(String tableName) {
         Objects.requireNonNull(tableName, "The input table name is null.");
-        checkTableIsInThisDatabase(tableName);
-        tableMap.remove(tableName);
+        long stamp = lockForWriting();
+        
+        try {
+            checkTableIsInThisDatabase(tableName);
+            Table table = tableMap.get(tableName);
+            
+            // Let the modification in progress, if any, be logged before the 
+            // deletion:
+            long tableStamp = table.lockForWriting();
+            
+            try {
+                tableMap.remove(tableName);
+                table.ownerDatabase = null;
+                
+                if (writeAheadLog != null) {
+                    onLogged(writeAheadLog.logDeleteTable(tableName));
+                }
+            } finally {
+                table.unlockForWriting(tableStamp);
+            }
+        } finally {
+            unlockForWriting(stamp);
+        }
+    }
+    
+    /**
+     * Switches the concurrent mode of this database and all its tables on or 
+     * off. In the concurrent mode, the tables may be created, fetched and 
+     * deleted by several threads at a time, and each table is in the 
+     * concurrent mode described in {@link Table#setConcurrent(boolean)}, so 
+     * that the modifications of distinct tables proceed in parallel. The 
+     * tables created later inherit the mode.
+     * <p>
+     * Saving and checkpointing may run concurrently with the use of the 
+     * tables: the snapshot is taken while all the tables are locked for 
+     * reading. Enabling and disabling the write-ahead log, however, must not 
+     * run concurrently with anything else, and neither must switching the 
+     * mode.
+     * 
+     * @param concurrent whether this database is to be shared between 
+     *                   threads.
+     */
+    public void setConcurrent(boolean concurrent) {
+        for (Table table : tableMap.values()) {
+            table.setConcurrent(concurrent);
+        }
+        
+        if (concurrent != (optimisticLock != null)) {
+            optimisticLock = concurrent ? new OptimisticLock() : null;
+        }
+    }
+    
+    /**
+     * Returns {@code true} if this database is in the concurrent mode.
+     * 
+     * @return {@code true} if this database may be shared between threads.
+     */
+    public boolean isConcurrent() {
+        return optimisticLock != null;
+    }
+    
+    /**
+     * Begins a transaction over the tables of this database. The changes 
+     * made through the transaction are applied only on commit, all at once.
+     * 
+     * @return the transaction.
+     */
+    public Transaction beginTransaction() {
+        return new Transaction(this);
+    }
+    
+    /**
+     * Opens a snapshot of this database. The snapshot is a consistent version 
+     * of all the tables as they are now, which stays unchanged while the 
+     * database keeps being modified. In the concurrent mode, the writers are 
+     * blocked only while the snapshot is being opened. Until the snapshot is 
+     * closed, the tables keep the old versions of the data they modify.
+     * 
+     * @return the snapshot.
+     */
+    public DatabaseVersion openSnapshot() {
+        return new DatabaseVersion(createSnapshot());
     }
     
     public void save() {
@@ -90,70 +270,305 @@ public final class Database {
         save(file);
     }
     
+    /**
+     * Saves this database to the given file. The tables are streamed through 
+     * a fixed size buffer, so saving does not need memory proportional to the 
+     * size of the database. The data is first written to a temporary file 
+     * which then atomically replaces {@code file}. If the write-ahead log is 
+     * enabled, it is emptied, since the saved file reflects all the logged 
+     * mutations. Saving to another file moves the log next to that file. In 
+     * the concurrent mode, the writers are blocked only while the snapshot to 
+     * save is being taken.
+     * 
+     * @param file the target file.
+     */
     public void save(File file) {
-        ByteBuffer bb = serialize();
-        byte[] bytes = bb.array();
-        // Write the bytes.
+        Objects.requireNonNull(file, "The file is null.");
+        setCheckpointsSuspended(true);
         
         try {
-            if (!file.exists()) {
-                file.createNewFile();
+            awaitCheckpoint();
+            DatabaseSnapshot databaseSnapshot = createSnapshot();
+            
+            try {
+                writeSnapshot(file, databaseSnapshot);
+            } finally {
+                databaseSnapshot.release();
             }
             
-            FileOutputStream fos = new FileOutputStream(file);
-            fos.write(bytes);
-            fos.close();
-        } catch (Exception ex) {
+            lastCheckpointMillis = System.currentTimeMillis();
+            
+            if (writeAheadLog != null) {
+                if (file.getAbsoluteFile().equals(this.file.getAbsoluteFile())) {
+                    writeAheadLog.discardPrefix(databaseSnapshot.getLogSize());
+                } else {
+                    long groupCommitIntervalMillis = 
+                            writeAheadLog.getGroupCommitIntervalMillis();
+                    writeAheadLog.close();
+                    writeAheadLog = null;
+                    writeAheadLog = createWriteAheadLog(
+                            file, 
+                            groupCommitIntervalMillis);
+                }
+            }
+            
+            this.file = file;
+        } catch (IOException ex) {
             throw new RuntimeException("Saving the databse \"" + databaseName +
                     "\" failed.", ex);
-        } 
+        } finally {
+            setCheckpointsSuspended(false);
+        }
     }
     
     public void save(String path) {
         save(new File(path));
     }
     
-    public static Database read(File file) {
+    /**
+     * Enables the write-ahead log using the default group commit interval.
+     * 
+     * @see #enableWriteAheadLog(long)
+     */
+    public void enableWriteAheadLog() {
+        enableWriteAheadLog(
+                WriteAheadLog.DEFAULT_GROUP_COMMIT_INTERVAL_MILLIS);
+    }
+    
+    /**
+     * Enables the write-ahead log. From now on, every mutation of this 
+     * database is appended as a compact record to the log file next to the 
+     * database file, and the log is replayed the next time the database is 
+     * read or opened. In order to start the log from a known state, the 
+     * database is saved first.
+     * <p>
+     * The logged mutations are forced to the disk in groups: a mutation 
+     * becomes durable at most {@code groupCommitIntervalMillis} milliseconds 
+     * after it was made, or as soon as {@link #sync()} returns.
+     * 
+     * @param groupCommitIntervalMillis the maximum time in milliseconds a 
+     *                                  logged mutation waits before being 
+     *                                  forced to the disk.
+     */
+    public void enableWriteAheadLog(long groupCommitIntervalMillis) {
+        if (groupCommitIntervalMillis < 0L) {
+            throw new IllegalArgumentException(
+                    "The group commit interval is negative: " + 
+                    groupCommitIntervalMillis + ".");
+        }
+        
+        if (file == null) {
+            throw new IllegalStateException(
+                    "This database was not previously saved.");
+        }
+        
+        if (writeAheadLog != null) {
+            throw new IllegalStateException(
+                    "The write-ahead log is already enabled.");
+        }
+        
+        save(file);
+        
         try {
-            FileInputStream fis = new FileInputStream(file);
-            byte[] bytes = new byte[fis.available()];
-            ByteBuffer byteBuffer = ByteBuffer.allocate(bytes.length)
-                                              .order(ByteOrder.LITTLE_ENDIAN);
-            fis.read(bytes);
-            byteBuffer.put(bytes);
-            byteBuffer.position(0);
-            return Database.deserialize(byteBuffer);
-        } catch (Exception ex) {
-            throw new RuntimeException("Reading the database from file \"" +
-                    file.getAbsolutePath() + "\" failed.", ex);
+            writeAheadLog = createWriteAheadLog(file, 
+                                                groupCommitIntervalMillis);
+        } catch (IOException ex) {
+            throw new RuntimeException("Creating the write-ahead log of " +
+                    "the database \"" + databaseName + "\" failed.", ex);
         }
     }
     
-    public static Database read(String path) {
-        return read(new File(path));
+    /**
+     * Sets the triggers of the automatic checkpoints. While the write-ahead 
+     * log is enabled, a mutation starts a checkpoint if the log has grown to 
+     * {@code logSize} bytes or the previous checkpoint was started at least 
+     * {@code intervalMillis} milliseconds ago. A checkpoint saves a snapshot 
+     * of the database in a background thread and then discards the records 
+     * it reflects from the log, so that recovery only needs to replay the 
+     * mutations made since. The database may be modified while a checkpoint 
+     * is in progress.
+     * 
+     * @param logSize        the log size in bytes triggering a checkpoint.
+     * @param intervalMillis the time in milliseconds triggering a checkpoint.
+     */
+    public void setCheckpointTriggers(long logSize, long intervalMillis) {
+        if (logSize <= 0L) {
+            throw new IllegalArgumentException(
+                    "The checkpoint log size is not positive: " + logSize + 
+                    ".");
+        }
+        
+        if (intervalMillis <= 0L) {
+            throw new IllegalArgumentException(
+                    "The checkpoint interval is not positive: " + 
+                    intervalMillis + ".");
+        }
+        
+        this.checkpointLogSize = logSize;
+        this.checkpointIntervalMillis = intervalMillis;
     }
     
-    public ByteBuffer serialize() {
-        ByteBuffer byteBuffer = 
-                ByteBuffer.allocate(getSerializationLength())
-                          .order(ByteOrder.LITTLE_ENDIAN);
+    /**
+     * Performs a checkpoint right away and waits for it to complete.
+     * 
+     * @throws IllegalStateException if the write-ahead log is not enabled.
+     */
+    public void checkpoint() {
+        if (writeAheadLog == null) {
+            throw new IllegalStateException(
+                    "The write-ahead log is not enabled.");
+        }
         
-        // Output the database name length:
-        byteBuffer.putInt(databaseName.length());
+        setCheckpointsSuspended(true);
         
-        // Output the database name:
-        for (char c : databaseName.toCharArray()) {
-            byteBuffer.putChar(c);
+        try {
+            awaitCheckpoint();
+            startCheckpoint();
+            awaitCheckpoint();
+        } finally {
+            setCheckpointsSuspended(false);
+        }
+    }
+    
+    /**
+     * Waits for the checkpoint in progress, if any, forces all the logged 
+     * mutations to the disk and stops logging. The log 
+     * file is kept, and is replayed the next time the database is read.
+     */
+    public void disableWriteAheadLog() {
+        if (writeAheadLog == null) {
+            return;
         }
         
-        // Output the number of tables:
-        byteBuffer.putInt(tableMap.size());
+        setCheckpointsSuspended(true);
         
-        for (Table table : tableMap.values()) {
-            table.serialize(byteBuffer);
+        try {
+            awaitCheckpoint();
+        } finally {
+            try {
+                closeWriteAheadLog();
+            } finally {
+                setCheckpointsSuspended(false);
+            }
+        }
+    }
+    
+    private void closeWriteAheadLog() {
+        try {
+            writeAheadLog.close();
+        } catch (IOException ex) {
+            throw new RuntimeException("Closing the write-ahead log of " +
+                    "the database \"" + databaseName + "\" failed.", ex);
+        } finally {
+            writeAheadLog = null;
+        }
+    }
+    
+    /**
+     * Returns {@code true} if the write-ahead log is enabled.
+     * 
+     * @return {@code true} if the mutations are logged.
+     */
+    public boolean isWriteAheadLogEnabled() {
+        return writeAheadLog != null;
+    }
+    
+    /**
+     * Blocks until all the mutations logged so far are forced to the disk.
+     * 
+     * @throws IllegalStateException if the write-ahead log is not enabled.
+     */
+    public void sync() {
+        if (writeAheadLog == null) {
+            throw new IllegalStateException(
+                    "The write-ahead log is not enabled.");
         }
         
-        return byteBuffer;
+        try {
+            writeAheadLog.sync();
+        } catch (IOException ex) {
+            throw new RuntimeException("Syncing the write-ahead log of " +
+                    "the database \"" + databaseName + "\" failed.", ex);
+        }
+    }
+    
+    /**
+     * Reads the entire database stored in the given file. The tables are 
+     * decoded in parallel. If the file has a write-ahead log, it is replayed.
+     * 
+     * @param file the database file.
+     * @return the database.
+     */
+    public static Database read(File file) {
+        return read(file, (Set<String>) null);
+    }
+    
+    public static Database read(String path) {
+        return read(new File(path));
+    }
+    
+    /**
+     * Reads only the tables with the given names from the given file. The 
+     * data of the other tables is not read at all, and the records of the 
+     * write-ahead log concerning them are skipped.
+     * 
+     * @param file       the database file.
+     * @param tableNames the names of the tables to read.
+     * @return the database holding only the requested tables.
+     */
+    public static Database read(File file, String... tableNames) {
+        Objects.requireNonNull(tableNames, "The table names are null.");
+        return read(file, new HashSet<>(Arrays.asList(tableNames)));
+    }
+    
+    private static Database read(File file, Set<String> tableNames) {
+        try (FileChannel fileChannel = 
+                FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Database database = DatabaseFileFormat.read(fileChannel, 
+                                                        tableNames);
+            WriteAheadLog.replay(database, 
+                                 WriteAheadLog.getLogFile(file), 
+                                 tableNames);
+            database.file = file;
+            return database;
+        } catch (Exception ex) {
+            throw new RuntimeException("Reading the database from file \"" +
+                    file.getAbsolutePath() + "\" failed.", ex);
+        }
+    }
+    
+    /**
+     * Opens the database stored in the given file by memory-mapping it. Only 
+     * the table directory is decoded upfront; each table row is decoded when 
+     * it is accessed for the first time. The file must not be modified by 
+     * other parties while the returned database has rows not yet decoded. 
+     * Saving the database is safe, since it replaces the file instead of 
+     * overwriting it. If the file has a write-ahead log, it is replayed.
+     * 
+     * @param file the database file.
+     * @return the opened database.
+     */
+    public static Database open(File file) {
+        try (FileChannel fileChannel = 
+                FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Database database = DatabaseFileFormat.open(fileChannel);
+            WriteAheadLog.replay(database, 
+                                 WriteAheadLog.getLogFile(file), 
+                                 null);
+            database.file = file;
+            return database;
+        } catch (Exception ex) {
+            throw new RuntimeException("Opening the database file \"" +
+                    file.getAbsolutePath() + "\" failed.", ex);
+        }
+    }
+    
+    public static Database open(String path) {
+        return open(new File(path));
+    }
+    
+    public ByteBuffer serialize() {
+        return readAll(() -> DatabaseFileFormat.serialize(this));
     }
     
     @Override
@@ -176,48 +591,370 @@ public final class Database {
             return false;
         }
         
-        return tableMap.equals(other.tableMap);
+        // The tables lock themselves when compared:
+        return readOptimistically(() -> new LinkedHashMap<>(tableMap))
+                .equals(other.readOptimistically(() -> 
+                        new LinkedHashMap<>(other.tableMap)));
     }
     
     public static Database deserialize(ByteBuffer byteBuffer) {
-        int databaseNameLength = byteBuffer.getInt();
-        StringBuilder sb = new StringBuilder(databaseNameLength);
+        return DatabaseFileFormat.deserialize(byteBuffer, false);
+    }
+    
+    /**
+     * Adds a deserialized table to this database.
+     * 
+     * @param table the table to add.
+     */
+    void addTable(Table table) {
+        table.setConcurrent(optimisticLock != null);
+        tableMap.put(table.getTableName(), table);
+        table.ownerDatabase = this;
+    }
+    
+    long getLogSequenceNumber() {
+        return logSequenceNumber;
+    }
+    
+    void setLogSequenceNumber(long logSequenceNumber) {
+        this.logSequenceNumber = logSequenceNumber;
+    }
+    
+    void onTableRename(Table table, String oldTableName, String newTableName) {
+        tableMap.remove(oldTableName);
+        tableMap.put(newTableName, table);
+        
+        if (writeAheadLog != null) {
+            onLogged(writeAheadLog.logRenameTable(oldTableName, 
+                                                  newTableName));
+        }
+    }
+    
+    void onTableColumnAdd(Table table, 
+                          TableColumnDescriptor tableColumnDescriptor) {
+        if (writeAheadLog != null) {
+            onLogged(writeAheadLog.logAddColumn(table.getTableName(),
+                                                tableColumnDescriptor));
+        }
+    }
+    
+    void onTableColumnRemove(Table table, int columnIndex) {
+        if (writeAheadLog != null) {
+            onLogged(writeAheadLog.logRemoveColumn(table.getTableName(),
+                                                   columnIndex));
+        }
+    }
+    
+    void onTableRowInsert(Table table, int rowIndex, TableRow tableRow) {
+        if (table.logBatch != null) {
+            table.logBatch.addPutRow(table.getTableName(), rowIndex, tableRow);
+        } else if (writeAheadLog != null) {
+            onLogged(writeAheadLog.logPutRow(table.getTableName(),
+                                             rowIndex,
+                                             tableRow));
+        }
+    }
+    
+    void onTableRowRemove(Table table, int rowIndex) {
+        if (table.logBatch != null) {
+            table.logBatch.addRemoveRow(table.getTableName(), rowIndex);
+        } else if (writeAheadLog != null) {
+            onLogged(writeAheadLog.logRemoveRow(table.getTableName(), 
+                                                rowIndex));
+        }
+    }
+    
+    void onTableCellUpdate(Table table, 
+                           int rowIndex, 
+                           int columnIndex, 
+                           Object value) {
+        TableCellType tableCellType = 
+                table.getTableColumnDescriptor(columnIndex).getTableCellType();
+        
+        if (table.logBatch != null) {
+            table.logBatch.addUpdateCell(table.getTableName(),
+                                         rowIndex,
+                                         columnIndex,
+                                         tableCellType,
+                                         value);
+        } else if (writeAheadLog != null) {
+            onLogged(writeAheadLog.logUpdateCell(table.getTableName(),
+                                                 rowIndex,
+                                                 columnIndex,
+                                                 tableCellType,
+                                                 value));
+        }
+    }
+    
+    /**
+     * Creates the batch collecting the log records of a transaction, or 
+     * returns {@code null} if the write-ahead log is disabled.
+     * 
+     * @return the log batch or {@code null}.
+     */
+    WriteAheadLog.Batch createLogBatch() {
+        return writeAheadLog != null ? new WriteAheadLog.Batch() : null;
+    }
+    
+    /**
+     * Appends the log records of a committed transaction to the write-ahead 
+     * log as a single record.
+     * 
+     * @param batch the batch of log records.
+     */
+    void logBatch(WriteAheadLog.Batch batch) {
+        WriteAheadLog writeAheadLog = this.writeAheadLog;
         
-        for (int i = 0; i < databaseNameLength; ++i) {
-            sb.append(byteBuffer.getChar());
+        if (writeAheadLog != null && !batch.isEmpty()) {
+            onLogged(writeAheadLog.logBatch(batch));
         }
+    }
+    
+    /**
+     * Records the log sequence number of a mutation just logged and starts a 
+     * checkpoint if the log has grown too large or the previous checkpoint is 
+     * too old.
+     * 
+     * @param logSequenceNumber the log sequence number of the mutation.
+     */
+    private synchronized void onLogged(long logSequenceNumber) {
+        // The tables are logged in parallel in the concurrent mode:
+        this.logSequenceNumber = Math.max(this.logSequenceNumber, 
+                                          logSequenceNumber);
+        
+        if (checkpointsSuspended
+                || (checkpointThread != null && checkpointThread.isAlive())) {
+            return;
+        }
+        
+        if (writeAheadLog.getSize() >= checkpointLogSize 
+                || System.currentTimeMillis() - lastCheckpointMillis 
+                        >= checkpointIntervalMillis) {
+            startCheckpoint();
+        }
+    }
+    
+    /**
+     * Takes a snapshot of this database and writes it to the database file in 
+     * a background thread. Once the snapshot is saved, the records it 
+     * reflects are discarded from the write-ahead log. Modifying the database 
+     * meanwhile is allowed: the tables preserve the data the snapshot still 
+     * needs. In the concurrent mode, the snapshot is taken by the background 
+     * thread, since the thread starting the checkpoint may hold the lock of a 
+     * table.
+     */
+    private void startCheckpoint() {
+        WriteAheadLog writeAheadLog = this.writeAheadLog;
+        File file = this.file;
+        DatabaseSnapshot snapshot = 
+                optimisticLock == null ? createSnapshot() : null;
         
-        String databaseName = sb.toString();
-        Database database = new Database(databaseName);
+        lastCheckpointMillis = System.currentTimeMillis();
+        checkpointThread = new Thread(() -> {
+            try {
+                DatabaseSnapshot databaseSnapshot = 
+                        snapshot != null ? snapshot : createSnapshot();
+                
+                try {
+                    writeSnapshot(file, databaseSnapshot);
+                } finally {
+                    databaseSnapshot.release();
+                }
+                
+                writeAheadLog.discardPrefix(databaseSnapshot.getLogSize());
+            } catch (IOException | RuntimeException ex) {
+                checkpointFailure = ex;
+            }
+        }, "checkpoint-" + databaseName);
         
-        int numberOfTables = byteBuffer.getInt();
+        checkpointThread.setDaemon(true);
+        checkpointThread.start();
+    }
+    
+    /**
+     * Waits for the checkpoint in progress, if any, to complete.
+     * 
+     * @throws RuntimeException if the checkpoint failed.
+     */
+    private void awaitCheckpoint() {
+        Thread checkpointThread = this.checkpointThread;
         
-        for (int i = 0; i < numberOfTables; ++i) {
-            Table table = Table.deserialize(byteBuffer);
-            database.tableMap.put(table.getTableName(), table);
+        if (checkpointThread == null) {
+            return;
         }
         
-        return database;
+        try {
+            checkpointThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(
+                    "Interrupted while waiting for a checkpoint.", ex);
+        }
+        
+        this.checkpointThread = null;
+        Exception checkpointFailure = this.checkpointFailure;
+        this.checkpointFailure = null;
+        
+        if (checkpointFailure != null) {
+            throw new RuntimeException("Checkpointing the database \"" + 
+                    databaseName + "\" failed.", checkpointFailure);
+        }
     }
     
-    void onTableRename(Table table, String oldTableName, String newTableName) {
-        tableMap.remove(oldTableName);
-        tableMap.put(newTableName, table);
+    private synchronized void setCheckpointsSuspended(boolean suspended) {
+        checkpointsSuspended = suspended;
     }
     
-    private int getSerializationLength() {
-        int serializationLength = SIZE_BYTES; // Database name length.
+    /**
+     * Takes a snapshot of this database while the table map and all the 
+     * tables are locked for reading, so that no modification is in progress.
+     * 
+     * @return the snapshot.
+     */
+    private DatabaseSnapshot createSnapshot() {
+        return readAll(() -> {
+            WriteAheadLog writeAheadLog = this.writeAheadLog;
+            return DatabaseSnapshot.create(this, 
+                                           writeAheadLog == null ? 
+                                                   0L : 
+                                                   writeAheadLog.getSize());
+        });
+    }
+    
+    /**
+     * Runs the given reader while the table map and all the tables are locked 
+     * for reading in the concurrent mode.
+     * 
+     * @param <T>    the result type.
+     * @param reader the reader.
+     * @return the result of the reader.
+     */
+    private <T> T readAll(Supplier<T> reader) {
+        long stamp = lockForReading();
         
-        // Database name.
-        serializationLength += databaseName.length() * Character.BYTES;
-        serializationLength += SIZE_BYTES; // Table count.
+        try {
+            List<Table> tableList = new ArrayList<>(tableMap.values());
+            tableList.sort(Comparator.comparingLong(Table::getLockOrder));
+            return readAll(tableList, 0, reader);
+        } finally {
+            unlockForReading(stamp);
+        }
+    }
+    
+    private static <T> T readAll(List<Table> tableList, 
+                                 int index, 
+                                 Supplier<T> reader) {
+        if (index == tableList.size()) {
+            return reader.get();
+        }
         
-        // Tables.
-        for (Table table : tableMap.values()) {
-            serializationLength += table.getSerializationLength();
+        Table table = tableList.get(index);
+        long stamp = table.lockForReading();
+        
+        try {
+            return readAll(tableList, index + 1, reader);
+        } finally {
+            table.unlockForReading(stamp);
+        }
+    }
+    
+    private <T> T readOptimistically(Supplier<T> reader) {
+        OptimisticLock optimisticLock = this.optimisticLock;
+        return optimisticLock == null ? 
+                reader.get() : 
+                optimisticLock.read(reader);
+    }
+    
+    long lockForReading() {
+        OptimisticLock optimisticLock = this.optimisticLock;
+        return optimisticLock == null ? 0L : optimisticLock.readLock();
+    }
+    
+    void unlockForReading(long stamp) {
+        OptimisticLock optimisticLock = this.optimisticLock;
+        
+        if (optimisticLock != null) {
+            optimisticLock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Acquires the write lock of the table map in the concurrent mode. A 
+     * thread holding the lock of a table must not call this.
+     * 
+     * @return the stamp to pass to {@link #unlockForWriting(long)}.
+     */
+    long lockForWriting() {
+        OptimisticLock optimisticLock = this.optimisticLock;
+        return optimisticLock == null ? 0L : optimisticLock.writeLock();
+    }
+    
+    void unlockForWriting(long stamp) {
+        OptimisticLock optimisticLock = this.optimisticLock;
+        
+        if (optimisticLock != null) {
+            optimisticLock.unlockWrite(stamp);
         }
+    }
+    
+    /**
+     * Writes the snapshot to a temporary file which then atomically replaces 
+     * {@code file}.
+     * 
+     * @param file             the target file.
+     * @param databaseSnapshot the snapshot to write.
+     * @throws IOException if writing fails.
+     */
+    private static void writeSnapshot(File file, 
+                                      DatabaseSnapshot databaseSnapshot) 
+            throws IOException {
+        File temporaryFile = getTemporaryFile(file);
         
-        return serializationLength;
+        try {
+            try (FileChannel fileChannel = 
+                    FileChannel.open(temporaryFile.toPath(),
+                                     StandardOpenOption.CREATE,
+                                     StandardOpenOption.WRITE,
+                                     StandardOpenOption.TRUNCATE_EXISTING);
+                 BufferedChannelWriter bufferedChannelWriter = 
+                         new BufferedChannelWriter(fileChannel)) {
+                DatabaseFileFormat.write(databaseSnapshot, 
+                                         bufferedChannelWriter);
+                bufferedChannelWriter.flush();
+                fileChannel.force(true);
+            }
+            
+            moveAtomically(temporaryFile, file);
+        } catch (IOException | RuntimeException ex) {
+            temporaryFile.delete();
+            throw ex;
+        }
+    }
+    
+    private WriteAheadLog createWriteAheadLog(
+            File file, 
+            long groupCommitIntervalMillis) throws IOException {
+        return WriteAheadLog.create(WriteAheadLog.getLogFile(file), 
+                                    logSequenceNumber,
+                                    groupCommitIntervalMillis);
+    }
+    
+    private static File getTemporaryFile(File file) {
+        return new File(file.getAbsolutePath() + ".tmp");
+    }
+    
+    static void moveAtomically(File source, File target) 
+            throws IOException {
+        try {
+            Files.move(source.toPath(), 
+                       target.toPath(), 
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source.toPath(), 
+                       target.toPath(), 
+                       StandardCopyOption.REPLACE_EXISTING);
+        }
     }
     
     private void checkTableNameNotOccupied(String tableName) {
@@ -317,6 +1054,7 @@ public final class Database {
         
         System.out.println(view1.toString());
         System.out.println(view2);
+        System.out.println(table1copy.join(table2copy, "id", "person_id"));
     }
     
     private String checkDatabaseName(String databaseName) {
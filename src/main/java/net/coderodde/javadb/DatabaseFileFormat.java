@@ -0,0 +1,820 @@
+package net.coderodde.javadb;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * This class implements reading and writing of the database file format.
+ * A file in the current format has the following layout (all the numbers are
+ * little-endian):
+ *
+ * <pre>
+ * header:    int magic, int format version
+ * tables:    one block per table, as written by {@code Table.serialize},
+ *            each followed by the blocks of the persistent tree indices of
+ *            the table
+ * directory: database name, log sequence number, table count, one
+ *            {@link TableDirectoryEntry} per table, int checksum
+ * trailer:   long directory offset, int magic
+ * </pre>
+ *
+ * The directory is placed after the table blocks, since a streaming writer
+ * learns the offset and length of a table block only after writing it. The
+ * fixed size trailer lets a reader find the directory in O(1), after which
+ * any table block may be read, mapped or skipped independently.
+ * <p>
+ * The log sequence number is that of the last write-ahead log record
+ * reflected in the file. Version 2 files lack it, and read as if it were zero.
+ * <p>
+ * A tree index block holds the number of index entries followed by the
+ * entries in index order, so that the index is loaded in linear time instead
+ * of being rebuilt from the rows. Files older than version 4 have no index
+ * blocks.
+ * <p>
+ * As of version 5, all the strings are written in UTF-8 as an int byte count
+ * followed by the bytes, instead of an int character count followed by two
+ * bytes per character. The table block header is followed by the codec of the
+ * rows, which may encode a string column with a dictionary of its distinct
+ * values, as described in {@link TableRowCodec}.
+ * <p>
+ * As of version 6, the codec opens with the layout of the rows. The columnar
+ * tables are written column by column in blocks of rows, with compact integer
+ * encodings, as described in {@link TableColumnCodec}, and are read back as
+ * columnar tables.
+ * <p>
+ * As of version 7, each row of the row layout opens with a bitmap of its null
+ * cells, and the cells carry no tag bytes.
+ * <p>
+ * As of version 8, the data of a table block may be compressed in frames, as
+ * described in {@link TableCompression}. The codec of the rows names the
+ * compression codec of the table.
+ * <p>
+ * As of version 9, the directory entries hold the CRC32 of each table and
+ * tree index block, and the directory closes with the CRC32 of the directory
+ * bytes before it. Reading a database verifies the checksum of the directory
+ * and of every block before decoding it, and reports a damaged block by the
+ * name of its table. Opening a database verifies only the directory upfront,
+ * since verifying the blocks would touch all of their pages.
+ * <p>
+ * As of version 10, the compressed frames of a table block are followed by
+ * an end marker instead of being preceded by their count, so that a frame is
+ * written as soon as it is compressed.
+ * <p>
+ * Files without the magic number are in the original format, which is a flat
+ * sequence of tables preceded by the database name and the table count. Such
+ * files remain readable.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class DatabaseFileFormat {
+
+    /**
+     * The magic number opening and closing a database file. Reads as "JVDB"
+     * in little-endian byte order.
+     */
+    static final int MAGIC = 0x4244564A;
+
+    /**
+     * The format version written by this implementation.
+     */
+    static final int FORMAT_VERSION = 10;
+
+    /**
+     * The length of the file header in bytes.
+     */
+    static final int HEADER_LENGTH = 2 * Integer.BYTES;
+
+    /**
+     * The length of the file trailer in bytes.
+     */
+    static final int TRAILER_LENGTH = Long.BYTES + Integer.BYTES;
+
+    /**
+     * Number of bytes used to encode a size count.
+     */
+    private static final int SIZE_BYTES = 4;
+
+    /**
+     * Number of bytes used to encode a checksum.
+     */
+    private static final int CHECKSUM_BYTES = 4;
+
+    private DatabaseFileFormat() {}
+
+    /**
+     * Writes the database through the given writer.
+     *
+     * @param database              the database to write.
+     * @param bufferedChannelWriter the writer.
+     * @throws IOException if writing fails.
+     */
+    static void write(Database database,
+                      BufferedChannelWriter bufferedChannelWriter)
+            throws IOException {
+        DatabaseSnapshot databaseSnapshot = DatabaseSnapshot.create(database,
+                                                                    0L);
+        try {
+            write(databaseSnapshot, bufferedChannelWriter);
+        } finally {
+            databaseSnapshot.release();
+        }
+    }
+
+    /**
+     * Writes the database snapshot through the given writer. The database
+     * may be modified meanwhile.
+     *
+     * @param databaseSnapshot      the snapshot to write.
+     * @param bufferedChannelWriter the writer.
+     * @throws IOException if writing fails.
+     */
+    static void write(DatabaseSnapshot databaseSnapshot,
+                      BufferedChannelWriter bufferedChannelWriter)
+            throws IOException {
+        bufferedChannelWriter.getBuffer(HEADER_LENGTH)
+                             .putInt(MAGIC)
+                             .putInt(FORMAT_VERSION);
+
+        List<TableDirectoryEntry> tableDirectoryEntryList = new ArrayList<>();
+
+        for (TableSnapshot tableSnapshot
+                : databaseSnapshot.getTableSnapshotList()) {
+            long offset = bufferedChannelWriter.getPosition();
+            bufferedChannelWriter.beginChecksum();
+            tableSnapshot.serialize(bufferedChannelWriter);
+            int checksum = bufferedChannelWriter.endChecksum();
+            long length = bufferedChannelWriter.getPosition() - offset;
+            List<TableDirectoryEntry.TreeIndexEntry> treeIndexEntryList =
+                    new ArrayList<>();
+
+            for (TableTreeIndex.Image image
+                    : tableSnapshot.getTreeIndexImageList()) {
+                long indexOffset = bufferedChannelWriter.getPosition();
+                bufferedChannelWriter.beginChecksum();
+                image.serialize(bufferedChannelWriter);
+                int indexChecksum = bufferedChannelWriter.endChecksum();
+                treeIndexEntryList.add(
+                        new TableDirectoryEntry.TreeIndexEntry(
+                                image.getColumnIndex(),
+                                indexOffset,
+                                bufferedChannelWriter.getPosition()
+                                        - indexOffset,
+                                indexChecksum));
+            }
+
+            tableDirectoryEntryList.add(
+                    new TableDirectoryEntry(
+                            tableSnapshot.getTableName(),
+                            offset,
+                            length,
+                            checksum,
+                            tableSnapshot.getNumberOfRows(),
+                            tableSnapshot.getTableColumnDescriptorList(),
+                            treeIndexEntryList));
+        }
+
+        long directoryOffset = bufferedChannelWriter.getPosition();
+        String databaseName = databaseSnapshot.getDatabaseName();
+        bufferedChannelWriter.beginChecksum();
+
+        serializeDirectoryHeader(
+                bufferedChannelWriter.getBuffer(
+                        getDirectoryHeaderSerializationLength(databaseName)),
+                databaseName,
+                databaseSnapshot.getLogSequenceNumber(),
+                tableDirectoryEntryList.size());
+
+        for (TableDirectoryEntry tableDirectoryEntry
+                : tableDirectoryEntryList) {
+            tableDirectoryEntry.serialize(
+                    bufferedChannelWriter.getBuffer(
+                            tableDirectoryEntry.getSerializationLength()));
+        }
+
+        int directoryChecksum = bufferedChannelWriter.endChecksum();
+        bufferedChannelWriter.getBuffer(CHECKSUM_BYTES)
+                             .putInt(directoryChecksum);
+        bufferedChannelWriter.getBuffer(TRAILER_LENGTH)
+                             .putLong(directoryOffset)
+                             .putInt(MAGIC);
+    }
+
+    /**
+     * Serializes the database into a single heap buffer.
+     *
+     * @param database the database to serialize.
+     * @return the byte buffer holding the database.
+     */
+    static ByteBuffer serialize(Database database) {
+        String databaseName = database.getDatabaseName();
+        long serializationLength =
+                HEADER_LENGTH
+                + getDirectoryHeaderSerializationLength(databaseName)
+                + CHECKSUM_BYTES
+                + TRAILER_LENGTH;
+
+        List<List<TableTreeIndex.Image>> imageLists = new ArrayList<>();
+        List<TableRowCodec> tableRowCodecList = new ArrayList<>();
+
+        for (Table table : database.tableMap.values()) {
+            List<TableTreeIndex.Image> imageList =
+                    table.createTreeIndexImages();
+            TableRowCodec tableRowCodec = table.createTableRowCodec();
+            imageLists.add(imageList);
+            tableRowCodecList.add(tableRowCodec);
+            serializationLength +=
+                    table.getSerializationLength(tableRowCodec);
+            serializationLength += createEntry(table, 0L, 0L)
+                                  .getSerializationLength();
+
+            for (TableTreeIndex.Image image : imageList) {
+                serializationLength +=
+                        image.getSerializationLength()
+                        + TableDirectoryEntry.TreeIndexEntry
+                                             .SERIALIZATION_LENGTH;
+            }
+        }
+
+        if (serializationLength > Integer.MAX_VALUE) {
+            throw new IllegalStateException(
+                    "The database is too large (" + serializationLength +
+                    " bytes) to be serialized into a single buffer. Use " +
+                    "save(File) instead.");
+        }
+
+        ByteBuffer byteBuffer =
+                ByteBuffer.allocate((int) serializationLength)
+                          .order(ByteOrder.LITTLE_ENDIAN);
+
+        byteBuffer.putInt(MAGIC).putInt(FORMAT_VERSION);
+        List<TableDirectoryEntry> tableDirectoryEntryList = new ArrayList<>();
+
+        int tableIndex = 0;
+
+        for (Table table : database.tableMap.values()) {
+            int offset = byteBuffer.position();
+            table.serialize(byteBuffer, tableRowCodecList.get(tableIndex));
+            int length = byteBuffer.position() - offset;
+            List<TableDirectoryEntry.TreeIndexEntry> treeIndexEntryList =
+                    new ArrayList<>();
+
+            for (TableTreeIndex.Image image : imageLists.get(tableIndex++)) {
+                int indexOffset = byteBuffer.position();
+                image.serialize(byteBuffer);
+                int indexLength = byteBuffer.position() - indexOffset;
+                treeIndexEntryList.add(
+                        new TableDirectoryEntry.TreeIndexEntry(
+                                image.getColumnIndex(),
+                                indexOffset,
+                                indexLength,
+                                checksum(slice(byteBuffer,
+                                               indexOffset,
+                                               indexLength))));
+            }
+
+            tableDirectoryEntryList.add(
+                    new TableDirectoryEntry(table.getTableName(),
+                                            offset,
+                                            length,
+                                            checksum(slice(byteBuffer,
+                                                           offset,
+                                                           length)),
+                                            table.getNumberOfRows(),
+                                            table.tableColumnDescriptorList,
+                                            treeIndexEntryList));
+        }
+
+        long directoryOffset = byteBuffer.position();
+        serializeDirectoryHeader(byteBuffer,
+                                 databaseName,
+                                 database.getLogSequenceNumber(),
+                                 tableDirectoryEntryList.size());
+
+        for (TableDirectoryEntry tableDirectoryEntry
+                : tableDirectoryEntryList) {
+            tableDirectoryEntry.serialize(byteBuffer);
+        }
+
+        byteBuffer.putInt(checksum(slice(byteBuffer,
+                                         directoryOffset,
+                                         byteBuffer.position()
+                                                 - directoryOffset)));
+        byteBuffer.putLong(directoryOffset).putInt(MAGIC);
+        return byteBuffer;
+    }
+
+    /**
+     * Deserializes a database from the given buffer whose position points to
+     * the beginning of the serialized database.
+     *
+     * @param byteBuffer the buffer.
+     * @param lazy       whether to decode the rows only on first access.
+     * @return the database.
+     */
+    static Database deserialize(ByteBuffer byteBuffer, boolean lazy) {
+        int base = byteBuffer.position();
+
+        if (byteBuffer.remaining() < HEADER_LENGTH + TRAILER_LENGTH
+                || byteBuffer.getInt(base) != MAGIC) {
+            return deserializeVersion1(byteBuffer, lazy);
+        }
+
+        int formatVersion = byteBuffer.getInt(base + Integer.BYTES);
+        checkFormatVersion(formatVersion);
+        int end = byteBuffer.limit();
+
+        if (byteBuffer.getInt(end - Integer.BYTES) != MAGIC) {
+            throw new BadDataFormatException(
+                    "The database file trailer is missing.");
+        }
+
+        long directoryOffset = byteBuffer.getLong(end - TRAILER_LENGTH);
+        ByteBuffer directoryBuffer =
+                verifyDirectory(
+                        slice(byteBuffer,
+                              base + directoryOffset,
+                              end - TRAILER_LENGTH - base - directoryOffset),
+                        formatVersion);
+
+        Database database = deserializeDirectoryHeader(directoryBuffer,
+                                                       formatVersion);
+        int numberOfTables = directoryBuffer.getInt();
+
+        for (int i = 0; i < numberOfTables; ++i) {
+            TableDirectoryEntry tableDirectoryEntry =
+                    TableDirectoryEntry.deserialize(directoryBuffer,
+                                                    formatVersion);
+
+            String tableName = tableDirectoryEntry.getTableName();
+            ByteBuffer tableBuffer =
+                    verifyBlock(slice(byteBuffer,
+                                      base + tableDirectoryEntry.getOffset(),
+                                      tableDirectoryEntry.getLength()),
+                                tableDirectoryEntry.getChecksum(),
+                                tableName,
+                                formatVersion);
+            List<ByteBuffer> treeIndexBufferList = new ArrayList<>();
+
+            for (TableDirectoryEntry.TreeIndexEntry treeIndexEntry
+                    : tableDirectoryEntry.getTreeIndexEntryList()) {
+                treeIndexBufferList.add(
+                        verifyBlock(slice(byteBuffer,
+                                          base + treeIndexEntry.getOffset(),
+                                          treeIndexEntry.getLength()),
+                                    treeIndexEntry.getChecksum(),
+                                    tableName,
+                                    formatVersion));
+            }
+
+            database.addTable(decodeTable(tableDirectoryEntry,
+                                          tableBuffer,
+                                          treeIndexBufferList,
+                                          formatVersion,
+                                          lazy));
+        }
+
+        byteBuffer.position(end);
+        return database;
+    }
+
+    /**
+     * Reads the database stored in the given file channel. If
+     * {@code tableNames} is not {@code null}, only the tables with the given
+     * names are read, and the blocks of all the other tables are not touched
+     * at all. The table blocks are read and decoded in parallel.
+     *
+     * @param fileChannel the file channel to read from.
+     * @param tableNames  the names of the tables to read, or {@code null} for
+     *                    reading all the tables.
+     * @return the database.
+     * @throws IOException if reading fails.
+     */
+    static Database read(FileChannel fileChannel, Set<String> tableNames)
+            throws IOException {
+        long fileSize = fileChannel.size();
+        int formatVersion = readFormatVersion(fileChannel, fileSize);
+
+        if (formatVersion == 1) {
+            Database database =
+                    deserializeVersion1(read(fileChannel, 0L, fileSize),
+                                        false);
+            retainTables(database, tableNames);
+            return database;
+        }
+
+        ByteBuffer directoryBuffer = readDirectory(fileChannel,
+                                                   fileSize,
+                                                   formatVersion);
+        Database database = deserializeDirectoryHeader(directoryBuffer,
+                                                       formatVersion);
+        int numberOfTables = directoryBuffer.getInt();
+        List<TableDirectoryEntry> tableDirectoryEntryList = new ArrayList<>();
+
+        for (int i = 0; i < numberOfTables; ++i) {
+            TableDirectoryEntry tableDirectoryEntry =
+                    TableDirectoryEntry.deserialize(directoryBuffer,
+                                                    formatVersion);
+
+            if (tableNames == null
+                    || tableNames.contains(
+                            tableDirectoryEntry.getTableName())) {
+                tableDirectoryEntryList.add(tableDirectoryEntry);
+            }
+        }
+
+        Table[] tables = new Table[tableDirectoryEntryList.size()];
+
+        try {
+            IntStream.range(0, tables.length).parallel().forEach((i) -> {
+                TableDirectoryEntry tableDirectoryEntry =
+                        tableDirectoryEntryList.get(i);
+                String tableName = tableDirectoryEntry.getTableName();
+
+                try {
+                    ByteBuffer tableBuffer =
+                            verifyBlock(read(fileChannel,
+                                             tableDirectoryEntry.getOffset(),
+                                             tableDirectoryEntry.getLength()),
+                                        tableDirectoryEntry.getChecksum(),
+                                        tableName,
+                                        formatVersion);
+                    List<ByteBuffer> treeIndexBufferList = new ArrayList<>();
+
+                    for (TableDirectoryEntry.TreeIndexEntry treeIndexEntry
+                            : tableDirectoryEntry.getTreeIndexEntryList()) {
+                        treeIndexBufferList.add(
+                                verifyBlock(read(fileChannel,
+                                                 treeIndexEntry.getOffset(),
+                                                 treeIndexEntry.getLength()),
+                                            treeIndexEntry.getChecksum(),
+                                            tableName,
+                                            formatVersion));
+                    }
+
+                    tables[i] = decodeTable(tableDirectoryEntry,
+                                            tableBuffer,
+                                            treeIndexBufferList,
+                                            formatVersion,
+                                            false);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        for (Table table : tables) {
+            database.addTable(table);
+        }
+
+        return database;
+    }
+
+    /**
+     * Opens the database stored in the given file channel. Each table block
+     * is memory-mapped separately and its rows are decoded on first access.
+     * Only the header, the trailer and the directory are read upfront.
+     *
+     * @param fileChannel the file channel.
+     * @return the database.
+     * @throws IOException if mapping fails.
+     */
+    static Database open(FileChannel fileChannel) throws IOException {
+        long fileSize = fileChannel.size();
+        int formatVersion = readFormatVersion(fileChannel, fileSize);
+
+        if (formatVersion == 1) {
+            return deserializeVersion1(map(fileChannel, 0L, fileSize), true);
+        }
+
+        ByteBuffer directoryBuffer = readDirectory(fileChannel,
+                                                   fileSize,
+                                                   formatVersion);
+        Database database = deserializeDirectoryHeader(directoryBuffer,
+                                                       formatVersion);
+        int numberOfTables = directoryBuffer.getInt();
+
+        for (int i = 0; i < numberOfTables; ++i) {
+            TableDirectoryEntry tableDirectoryEntry =
+                    TableDirectoryEntry.deserialize(directoryBuffer,
+                                                    formatVersion);
+
+            Table table =
+                    Table.deserializeLazily(
+                            map(fileChannel,
+                                tableDirectoryEntry.getOffset(),
+                                tableDirectoryEntry.getLength()),
+                            formatVersion);
+
+            for (TableDirectoryEntry.TreeIndexEntry treeIndexEntry
+                    : tableDirectoryEntry.getTreeIndexEntryList()) {
+                table.loadTreeIndex(map(fileChannel,
+                                        treeIndexEntry.getOffset(),
+                                        treeIndexEntry.getLength()),
+                                    treeIndexEntry.getColumnIndex(),
+                                    formatVersion);
+            }
+
+            database.addTable(table);
+        }
+
+        return database;
+    }
+
+    /**
+     * Deserializes a database in the original format: the database name, the
+     * number of tables and the tables one after another.
+     */
+    private static Database deserializeVersion1(ByteBuffer byteBuffer,
+                                                boolean lazy) {
+        Database database = new Database(deserializeString(byteBuffer, 1));
+        int numberOfTables = byteBuffer.getInt();
+
+        for (int i = 0; i < numberOfTables; ++i) {
+            database.addTable(lazy ?
+                    Table.deserializeLazily(byteBuffer) :
+                    Table.deserialize(byteBuffer, 1));
+        }
+
+        return database;
+    }
+
+    private static TableDirectoryEntry createEntry(Table table,
+                                                   long offset,
+                                                   long length) {
+        return new TableDirectoryEntry(table.getTableName(),
+                                       offset,
+                                       length,
+                                       table.getNumberOfRows(),
+                                       table.tableColumnDescriptorList);
+    }
+
+    private static int getDirectoryHeaderSerializationLength(
+            String databaseName) {
+        return Utf8.getSerializationLength(databaseName)
+               + Long.BYTES + SIZE_BYTES;
+    }
+
+    private static void serializeDirectoryHeader(ByteBuffer byteBuffer,
+                                                 String databaseName,
+                                                 long logSequenceNumber,
+                                                 int numberOfTables) {
+        Utf8.serialize(byteBuffer, databaseName);
+        byteBuffer.putLong(logSequenceNumber);
+        byteBuffer.putInt(numberOfTables);
+    }
+
+    /**
+     * Deserializes the database name and, as of version 3, the log sequence 
+     * number. On return, the buffer position points to the table count.
+     */
+    private static Database deserializeDirectoryHeader(ByteBuffer byteBuffer,
+                                                       int formatVersion) {
+        Database database =
+                new Database(deserializeString(byteBuffer, formatVersion));
+
+        if (formatVersion >= 3) {
+            database.setLogSequenceNumber(byteBuffer.getLong());
+        }
+
+        return database;
+    }
+
+    /**
+     * Deserializes a string, which takes two bytes per character up to
+     * version 4.
+     */
+    private static String deserializeString(ByteBuffer byteBuffer,
+                                            int formatVersion) {
+        if (formatVersion >= 5) {
+            return Utf8.deserialize(byteBuffer);
+        }
+
+        int stringLength = byteBuffer.getInt();
+        StringBuilder sb = new StringBuilder(stringLength);
+
+        for (int i = 0; i < stringLength; ++i) {
+            sb.append(byteBuffer.getChar());
+        }
+
+        return sb.toString();
+    }
+
+    private static ByteBuffer readDirectory(FileChannel fileChannel,
+                                            long fileSize,
+                                            int formatVersion)
+            throws IOException {
+        ByteBuffer trailer = read(fileChannel,
+                                  fileSize - TRAILER_LENGTH,
+                                  TRAILER_LENGTH);
+
+        if (trailer.getInt(Long.BYTES) != MAGIC) {
+            throw new BadDataFormatException(
+                    "The database file trailer is missing.");
+        }
+
+        long directoryOffset = trailer.getLong(0);
+        return verifyDirectory(
+                read(fileChannel,
+                     directoryOffset,
+                     fileSize - TRAILER_LENGTH - directoryOffset),
+                formatVersion);
+    }
+
+    /**
+     * Verifies the checksum closing the directory as of version 9.
+     *
+     * @return the directory buffer, limited to exclude the checksum.
+     */
+    private static ByteBuffer verifyDirectory(ByteBuffer directoryBuffer,
+                                              int formatVersion) {
+        if (formatVersion < 9) {
+            return directoryBuffer;
+        }
+
+        int checksumPosition = directoryBuffer.limit() - CHECKSUM_BYTES;
+
+        if (checksumPosition < 0) {
+            throw new BadDataFormatException(
+                    "The database file directory is truncated.");
+        }
+
+        int checksum = directoryBuffer.getInt(checksumPosition);
+        directoryBuffer.limit(checksumPosition);
+
+        if (checksum(directoryBuffer) != checksum) {
+            throw new BadDataFormatException(
+                    "The database file directory is damaged: its checksum " +
+                    "does not match.");
+        }
+
+        return directoryBuffer;
+    }
+
+    /**
+     * Verifies the checksum of a table or tree index block as of version 9.
+     *
+     * @return the block buffer.
+     */
+    private static ByteBuffer verifyBlock(ByteBuffer blockBuffer,
+                                          int checksum,
+                                          String tableName,
+                                          int formatVersion) {
+        if (formatVersion >= 9 && checksum(blockBuffer) != checksum) {
+            throw new BadDataFormatException(
+                    "The table \"" + tableName + "\" is damaged: the " +
+                    "checksum of its block does not match.");
+        }
+
+        return blockBuffer;
+    }
+
+    /**
+     * Returns the CRC32 of the bytes between the position and the limit of
+     * the given buffer. Does not change the position of the buffer.
+     */
+    private static int checksum(ByteBuffer byteBuffer) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(byteBuffer.duplicate());
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * Decodes a table and loads its tree indices. A failure to decode is
+     * reported by the name of the table, since a block of an older format
+     * carries no checksum to detect the damage in advance.
+     */
+    private static Table decodeTable(TableDirectoryEntry tableDirectoryEntry,
+                                     ByteBuffer tableBuffer,
+                                     List<ByteBuffer> treeIndexBufferList,
+                                     int formatVersion,
+                                     boolean lazy) {
+        try {
+            Table table = lazy ?
+                    Table.deserializeLazily(tableBuffer, formatVersion) :
+                    Table.deserialize(tableBuffer, formatVersion);
+            List<TableDirectoryEntry.TreeIndexEntry> treeIndexEntryList =
+                    tableDirectoryEntry.getTreeIndexEntryList();
+
+            for (int i = 0; i < treeIndexEntryList.size(); ++i) {
+                table.loadTreeIndex(treeIndexBufferList.get(i),
+                                    treeIndexEntryList.get(i)
+                                                      .getColumnIndex(),
+                                    formatVersion);
+            }
+
+            return table;
+        } catch (BadDataFormatException
+                | BufferUnderflowException
+                | IndexOutOfBoundsException
+                | IllegalArgumentException ex) {
+            throw new BadDataFormatException(
+                    "The table \"" + tableDirectoryEntry.getTableName() +
+                    "\" is damaged.",
+                    ex);
+        }
+    }
+
+    /**
+     * Returns the format version of the file, or 1 if the file is in the 
+     * original format without a header.
+     */
+    private static int readFormatVersion(FileChannel fileChannel,
+                                         long fileSize) throws IOException {
+        if (fileSize < HEADER_LENGTH + TRAILER_LENGTH) {
+            return 1;
+        }
+
+        ByteBuffer header = read(fileChannel, 0L, HEADER_LENGTH);
+
+        if (header.getInt(0) != MAGIC) {
+            return 1;
+        }
+
+        int formatVersion = header.getInt(Integer.BYTES);
+        checkFormatVersion(formatVersion);
+        return formatVersion;
+    }
+
+    private static void checkFormatVersion(int formatVersion) {
+        if (formatVersion < 2 || formatVersion > FORMAT_VERSION) {
+            throw new BadDataFormatException(
+                    "Unsupported database file format version: " +
+                    formatVersion + ".");
+        }
+    }
+
+    private static void retainTables(Database database,
+                                     Set<String> tableNames) {
+        if (tableNames != null) {
+            database.tableMap.keySet().retainAll(tableNames);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer byteBuffer,
+                                    long offset,
+                                    long length) {
+        ByteBuffer slice = byteBuffer.duplicate();
+        slice.limit(checkedInt(offset + length));
+        slice.position(checkedInt(offset));
+        return slice.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Reads {@code length} bytes starting at {@code position} from the
+     * channel. Does not change the position of the channel, and is thus safe
+     * to call from several threads at a time.
+     */
+    private static ByteBuffer read(FileChannel fileChannel,
+                                   long position,
+                                   long length) throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(checkedInt(length))
+                                          .order(ByteOrder.LITTLE_ENDIAN);
+
+        while (byteBuffer.hasRemaining()) {
+            int bytesRead = fileChannel.read(byteBuffer,
+                                             position + byteBuffer.position());
+            if (bytesRead < 0) {
+                throw new BadDataFormatException(
+                        "Unexpected end of the database file.");
+            }
+        }
+
+        byteBuffer.flip();
+        return byteBuffer;
+    }
+
+    private static MappedByteBuffer map(FileChannel fileChannel,
+                                        long position,
+                                        long length) throws IOException {
+        MappedByteBuffer mappedByteBuffer =
+                fileChannel.map(FileChannel.MapMode.READ_ONLY,
+                                position,
+                                checkedInt(length));
+
+        mappedByteBuffer.order(ByteOrder.LITTLE_ENDIAN);
+        return mappedByteBuffer;
+    }
+
+    private static int checkedInt(long value) {
+        if (value < 0L || value > Integer.MAX_VALUE) {
+            throw new BadDataFormatException(
+                    "A block of " + value + " bytes cannot be addressed " +
+                    "with a single buffer.");
+        }
+
+        return (int) value;
+    }
+}
@@ -0,0 +1,107 @@
+package net.coderodde.javadb;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class implements a frozen image of an entire database. Taking it
+ * costs time proportional to the number of rows, and the image stays
+ * unchanged while the database keeps being modified, so that the image may be
+ * written to a file in the background.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class DatabaseSnapshot {
+
+    /**
+     * The name of the database.
+     */
+    private final String databaseName;
+
+    /**
+     * The log sequence number of the last mutation reflected in this
+     * snapshot.
+     */
+    private final long logSequenceNumber;
+
+    /**
+     * The size of the write-ahead log at the time of the snapshot. All the
+     * records within it are reflected in this snapshot.
+     */
+    private final long logSize;
+
+    /**
+     * The snapshots of the tables.
+     */
+    private final List<TableSnapshot> tableSnapshotList;
+
+    private DatabaseSnapshot(String databaseName,
+                             long logSequenceNumber,
+                             long logSize,
+                             List<TableSnapshot> tableSnapshotList) {
+        this.databaseName = databaseName;
+        this.logSequenceNumber = logSequenceNumber;
+        this.logSize = logSize;
+        this.tableSnapshotList =
+                Collections.unmodifiableList(tableSnapshotList);
+    }
+
+    /**
+     * Takes a snapshot of the given database. Must be called by the thread
+     * modifying the database or, in the concurrent mode, while all the tables
+     * are locked for reading.
+     *
+     * @param database the database.
+     * @param logSize  the size of the write-ahead log of the database.
+     * @return the snapshot.
+     */
+    static DatabaseSnapshot create(Database database, long logSize) {
+        List<TableSnapshot> tableSnapshotList =
+                new ArrayList<>(database.tableMap.size());
+
+        try {
+            for (Table table : database.tableMap.values()) {
+                tableSnapshotList.add(table.createTableSnapshot());
+            }
+        } catch (RuntimeException ex) {
+            for (TableSnapshot tableSnapshot : tableSnapshotList) {
+                tableSnapshot.release();
+            }
+
+            throw ex;
+        }
+
+        return new DatabaseSnapshot(database.getDatabaseName(),
+                                    database.getLogSequenceNumber(),
+                                    logSize,
+                                    tableSnapshotList);
+    }
+
+    String getDatabaseName() {
+        return databaseName;
+    }
+
+    long getLogSequenceNumber() {
+        return logSequenceNumber;
+    }
+
+    long getLogSize() {
+        return logSize;
+    }
+
+    List<TableSnapshot> getTableSnapshotList() {
+        return tableSnapshotList;
+    }
+
+    /**
+     * Releases the table snapshots, so that the tables stop preserving data
+     * for them.
+     */
+    void release() {
+        for (TableSnapshot tableSnapshot : tableSnapshotList) {
+            tableSnapshot.release();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package net.coderodde.javadb;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This class implements a read-only version of an entire database, opened by
+ * {@link Database#openSnapshot()}. The versions of all the tables are taken
+ * at the same moment, so they are consistent with each other. Closing the
+ * database version closes the versions of its tables.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class DatabaseVersion implements AutoCloseable {
+
+    /**
+     * The name of the database when this version was opened.
+     */
+    private final String databaseName;
+
+    /**
+     * Maps the table names to the versions of the tables.
+     */
+    private final Map<String, TableVersion> tableVersionMap =
+            new LinkedHashMap<>();
+
+    DatabaseVersion(DatabaseSnapshot databaseSnapshot) {
+        this.databaseName = databaseSnapshot.getDatabaseName();
+
+        for (TableSnapshot tableSnapshot
+                : databaseSnapshot.getTableSnapshotList()) {
+            tableVersionMap.put(tableSnapshot.getTableName(),
+                                new TableVersion(tableSnapshot));
+        }
+    }
+
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    /**
+     * Returns the names of the tables in this version.
+     *
+     * @return the unmodifiable set of the table names.
+     */
+    public Set<String> getTableNames() {
+        return Collections.unmodifiableSet(tableVersionMap.keySet());
+    }
+
+    /**
+     * Returns the version of the given table.
+     *
+     * @param tableName the name of the table.
+     * @return the table version.
+     *
+     * @throws IllegalStateException if the table was not in the database.
+     */
+    public TableVersion getTable(String tableName) {
+        Objects.requireNonNull(tableName, "The input table name is null.");
+        TableVersion tableVersion = tableVersionMap.get(tableName);
+
+        if (tableVersion == null) {
+            throw new IllegalStateException(
+                    "The table with name \"" + tableName + "\" is not in " +
+                    "this database version.");
+        }
+
+        return tableVersion;
+    }
+
+    /**
+     * Closes the versions of all the tables.
+     */
+    @Override
+    public void close() {
+        for (TableVersion tableVersion : tableVersionMap.values()) {
+            tableVersion.close();
+        }
+    }
+}
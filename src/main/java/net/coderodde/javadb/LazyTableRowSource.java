@@ -0,0 +1,244 @@
+package net.coderodde.javadb;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * This class decodes the serialized rows of a table on demand. The byte offset
+ * of each row is discovered only when the row or one of its successors is
+ * requested for the first time, so opening a table costs nothing more than
+ * decoding its header. The rows of a compressed table are held in frames, and
+ * a frame is decompressed when one of its rows is requested for the first
+ * time.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class LazyTableRowSource {
+
+    /**
+     * The codec of the rows.
+     */
+    private final TableRowCodec tableRowCodec;
+
+    /**
+     * The frames holding the rows. An uncompressed table has a single frame.
+     */
+    private final RowFrame[] rowFrames;
+
+    /**
+     * The {@code i}th entry holds the index of the first row of the
+     * {@code i}th frame.
+     */
+    private final int[] firstRows;
+
+    /**
+     * Constructs a new lazy row source.
+     *
+     * @param byteBuffer      the buffer whose position points to the first
+     *                        serialized row, or to the frames if the rows are
+     *                        compressed.
+     * @param tableRowCodec   the codec of the rows.
+     * @param numberOfRows    the number of rows.
+     */
+    LazyTableRowSource(ByteBuffer byteBuffer,
+                       TableRowCodec tableRowCodec,
+                       int numberOfRows) {
+        this.tableRowCodec = tableRowCodec;
+
+        if (tableRowCodec.getTableCompressionCodec() == null) {
+            this.rowFrames = new RowFrame[]{
+                new RowFrame(0, numberOfRows, byteBuffer.slice(), null)
+            };
+            this.firstRows = new int[]{ 0 };
+            return;
+        }
+
+        List<TableCompression.Frame> frameList =
+                TableCompression.readFrames(byteBuffer,
+                                            tableRowCodec.getFormatVersion());
+        this.rowFrames = new RowFrame[frameList.size()];
+        this.firstRows = new int[frameList.size()];
+        int row = 0;
+
+        for (int i = 0; i < rowFrames.length; ++i) {
+            TableCompression.Frame frame = frameList.get(i);
+            rowFrames[i] = new RowFrame(i,
+                                        frame.getNumberOfRows(),
+                                        null,
+                                        frame);
+            firstRows[i] = row;
+            row += frame.getNumberOfRows();
+        }
+
+        if (row != numberOfRows) {
+            throw new BadDataFormatException(
+                    "The frames hold " + row + " rows instead of " +
+                    numberOfRows + ".");
+        }
+    }
+
+    TableRowCodec getTableRowCodec() {
+        return tableRowCodec;
+    }
+
+    /**
+     * Decodes the {@code rowIndex}th row.
+     *
+     * @param rowIndex the index of the row to decode.
+     * @return a new table row.
+     */
+    TableRow decodeTableRow(int rowIndex) {
+        RowFrame rowFrame = getRowFrame(rowIndex);
+        int row = rowIndex - firstRows[rowFrame.index];
+        ByteBuffer rowBuffer = discoverOffsetsUpTo(rowFrame, row);
+        rowBuffer.position(rowFrame.rowOffsets[row]);
+        return tableRowCodec.deserializeTableRow(rowBuffer);
+    }
+
+    /**
+     * Returns the number of bytes the {@code rowIndex}th serialized row
+     * occupies.
+     *
+     * @param rowIndex the index of the row.
+     * @return the length of the row in bytes.
+     */
+    int getRowSerializationLength(int rowIndex) {
+        RowFrame rowFrame = getRowFrame(rowIndex);
+        int row = rowIndex - firstRows[rowFrame.index];
+        discoverOffsetsUpTo(rowFrame, row + 1);
+        return rowFrame.rowOffsets[row + 1] - rowFrame.rowOffsets[row];
+    }
+
+    /**
+     * Copies the {@code rowIndex}th serialized row verbatim to the target
+     * buffer. The target must be written with the codec of this source.
+     *
+     * @param target   the target buffer.
+     * @param rowIndex the index of the row.
+     */
+    void copyTableRow(ByteBuffer target, int rowIndex) {
+        RowFrame rowFrame = getRowFrame(rowIndex);
+        int row = rowIndex - firstRows[rowFrame.index];
+        ByteBuffer rowBuffer = discoverOffsetsUpTo(rowFrame, row + 1);
+        rowBuffer.limit(rowFrame.rowOffsets[row + 1]);
+        rowBuffer.position(rowFrame.rowOffsets[row]);
+        target.put(rowBuffer);
+    }
+
+    /**
+     * Returns the total number of bytes the serialized rows occupy. Requires
+     * scanning all the rows not yet scanned.
+     *
+     * @return the length of the row data in bytes.
+     */
+    int getSerializationLength() {
+        int serializationLength = 0;
+
+        for (RowFrame rowFrame : rowFrames) {
+            discoverOffsetsUpTo(rowFrame, rowFrame.numberOfRows);
+            serializationLength += rowFrame.rowOffsets[rowFrame.numberOfRows];
+        }
+
+        return serializationLength;
+    }
+
+    private RowFrame getRowFrame(int rowIndex) {
+        int low = 0;
+        int high = firstRows.length - 1;
+
+        // Find the last frame starting at or before the row:
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+
+            if (firstRows[middle] <= rowIndex) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return rowFrames[low];
+    }
+
+    /**
+     * Decompresses the frame if needed, and scans its rows up to the given
+     * offset index. Synchronized, since a snapshot of the table may be
+     * reading the rows from another thread.
+     *
+     * @return a little-endian duplicate of the rows of the frame.
+     */
+    private synchronized ByteBuffer discoverOffsetsUpTo(RowFrame rowFrame,
+                                                        int offsetIndex) {
+        if (rowFrame.byteBuffer == null) {
+            rowFrame.byteBuffer = ByteBuffer.wrap(
+                    rowFrame.frame.decompress(
+                            tableRowCodec.getTableCompressionCodec()));
+        }
+
+        if (offsetIndex >= rowFrame.numberOfKnownOffsets) {
+            ByteBuffer scanBuffer =
+                    rowFrame.byteBuffer.duplicate()
+                                       .order(ByteOrder.LITTLE_ENDIAN);
+            scanBuffer.position(
+                    rowFrame.rowOffsets[rowFrame.numberOfKnownOffsets - 1]);
+
+            while (rowFrame.numberOfKnownOffsets <= offsetIndex) {
+                tableRowCodec.skipTableRow(scanBuffer);
+                rowFrame.rowOffsets[rowFrame.numberOfKnownOffsets++] =
+                        scanBuffer.position();
+            }
+        }
+
+        return rowFrame.byteBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * This class holds the rows of a frame.
+     */
+    private static final class RowFrame {
+
+        /**
+         * The index of this frame.
+         */
+        private final int index;
+
+        private final int numberOfRows;
+
+        /**
+         * The compressed frame, or {@code null} if the rows are not
+         * compressed.
+         */
+        private final TableCompression.Frame frame;
+
+        /**
+         * The buffer holding the serialized rows of this frame, beginning at
+         * position zero, or {@code null} if not decompressed yet.
+         */
+        private ByteBuffer byteBuffer;
+
+        /**
+         * The {@code i}th entry holds the offset of the {@code i}th row of
+         * this frame. The entry after the last row holds the end offset of
+         * the rows.
+         */
+        private final int[] rowOffsets;
+
+        /**
+         * The number of entries in {@code rowOffsets} known so far.
+         */
+        private int numberOfKnownOffsets = 1;
+
+        RowFrame(int index,
+                 int numberOfRows,
+                 ByteBuffer byteBuffer,
+                 TableCompression.Frame frame) {
+            this.index = index;
+            this.numberOfRows = numberOfRows;
+            this.byteBuffer = byteBuffer;
+            this.frame = frame;
+            this.rowOffsets = new int[numberOfRows + 1];
+        }
+    }
+}
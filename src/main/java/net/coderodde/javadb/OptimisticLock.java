@@ -0,0 +1,200 @@
+package net.coderodde.javadb;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * This class implements the lock guarding a table, or the table map of a
+ * database, in the concurrent mode. It wraps a {@link StampedLock}. The short
+ * reads, such as fetching a row, run optimistically without locking and are
+ * retried under the read lock only if a writer intervened, so that they never
+ * block each other. The longer reads, such as queries, hold the read lock.
+ * <p>
+ * Unlike the stamped lock, this lock is reentrant: the thread holding the
+ * write lock may lock again for reading or writing, and the thread holding
+ * the read lock may lock again for reading. A reader may not lock for
+ * writing, since that would deadlock.
+ * <p>
+ * The locks are created in a global order. A thread holding several read
+ * locks at a time must acquire them in this order, since a writer waiting for
+ * a lock blocks the new readers of the lock.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class OptimisticLock {
+
+    /**
+     * The order of the next lock created.
+     */
+    private static final AtomicLong NEXT_ORDER = new AtomicLong();
+
+    /**
+     * The order in which this lock must be acquired with the other locks.
+     */
+    final long order = NEXT_ORDER.getAndIncrement();
+
+    /**
+     * The actual lock.
+     */
+    private final StampedLock stampedLock = new StampedLock();
+
+    /**
+     * The thread holding the write lock, or {@code null}.
+     */
+    private volatile Thread writer;
+
+    /**
+     * The number of times the current thread holds the read lock.
+     */
+    private final ThreadLocal<int[]> readHolds =
+            ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * Runs the given reader optimistically and returns its result. If a
+     * writer intervened, the result is discarded and the reader runs again
+     * under the read lock. The reader must not modify anything, and must
+     * tolerate seeing a half-done write, since a failure is rethrown only if
+     * no writer intervened.
+     *
+     * @param <T>    the result type.
+     * @param reader the reader.
+     * @return the result of the reader.
+     */
+    <T> T read(Supplier<T> reader) {
+        long stamp = stampedLock.tryOptimisticRead();
+
+        if (stamp != 0L) {
+            try {
+                T result = reader.get();
+
+                if (stampedLock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException ex) {
+                if (stampedLock.validate(stamp)) {
+                    throw ex;
+                }
+            }
+        }
+
+        stamp = readLock();
+
+        try {
+            return reader.get();
+        } finally {
+            unlockRead(stamp);
+        }
+    }
+
+    /**
+     * The primitive version of {@link #read(Supplier)}.
+     *
+     * @param reader the reader.
+     * @return the result of the reader.
+     */
+    int readInt(IntSupplier reader) {
+        long stamp = stampedLock.tryOptimisticRead();
+
+        if (stamp != 0L) {
+            try {
+                int result = reader.getAsInt();
+
+                if (stampedLock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException ex) {
+                if (stampedLock.validate(stamp)) {
+                    throw ex;
+                }
+            }
+        }
+
+        stamp = readLock();
+
+        try {
+            return reader.getAsInt();
+        } finally {
+            unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Acquires the read lock, blocking while another thread holds the write
+     * lock.
+     *
+     * @return the stamp to pass to {@link #unlockRead(long)}.
+     */
+    long readLock() {
+        if (writer == Thread.currentThread()) {
+            return 0L;
+        }
+
+        int[] holds = readHolds.get();
+
+        if (holds[0]++ > 0) {
+            return 0L;
+        }
+
+        try {
+            return stampedLock.readLock();
+        } catch (RuntimeException | Error ex) {
+            holds[0] = 0;
+            throw ex;
+        }
+    }
+
+    /**
+     * Releases the read lock.
+     *
+     * @param stamp the stamp returned by {@link #readLock()}.
+     */
+    void unlockRead(long stamp) {
+        if (writer == Thread.currentThread()) {
+            return;
+        }
+
+        int[] holds = readHolds.get();
+
+        if (--holds[0] == 0) {
+            stampedLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Acquires the write lock, blocking while other threads hold the lock.
+     *
+     * @return the stamp to pass to {@link #unlockWrite(long)}.
+     *
+     * @throws IllegalStateException if the current thread holds the read
+     *                               lock.
+     */
+    long writeLock() {
+        if (writer == Thread.currentThread()) {
+            return 0L;
+        }
+
+        if (readHolds.get()[0] > 0) {
+            throw new IllegalStateException(
+                    "Cannot modify while reading in the concurrent mode.");
+        }
+
+        long stamp = stampedLock.writeLock();
+        writer = Thread.currentThread();
+        return stamp;
+    }
+
+    /**
+     * Releases the write lock.
+     *
+     * @param stamp the stamp returned by {@link #writeLock()}.
+     */
+    void unlockWrite(long stamp) {
+        if (stamp != 0L) {
+            writer = null;
+            stampedLock.unlockWrite(stamp);
+        }
+    }
+}
@@ -1,17 +1,37 @@
 package net.coderodde.javadb;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This class implements a database table. It consists of list of table column 
- * descriptors and the list of table rows.
+ * descriptors and the list of table rows. Depending on the storage mode, the 
+ * rows are either stored as actual {@link TableRow} objects, or the table 
+ * stores each column in a primitive array, in which case the table rows and 
+ * table cells are views over a row index.
  * 
  * @author Rodion "rodde" Efremov
  * @version 1.6 (Jul 17, 2017)
@@ -26,12 +46,20 @@ public final class Table implements Iterable<TableRow> {
     /**
      * The name of this table.
      */
-    private String tableName;
+    private volatile String tableName;
     
     /**
-     * The database holding this table.
+     * The database holding this table, or {@code null} if this table does 
+     * not belong to a database.
      */
-    private Database ownerDatabase;
+    Database ownerDatabase;
+    
+    /**
+     * The batch collecting the log records of the transaction being committed 
+     * to this table, or {@code null}. Accessed only by the thread modifying 
+     * this table.
+     */
+    WriteAheadLog.Batch logBatch;
     
     /**
      * The list of column descriptors.
@@ -47,9 +75,57 @@ public final class Table implements Iterable<TableRow> {
             new HashMap<>();
     
     /**
-     * The actual list of table rows.
+     * The actual list of table rows. Used only in the row-oriented storage 
+     * mode.
+     */
+    private final ArrayList<TableRow> tableRowList = new ArrayList<>();
+    
+    /**
+     * The list of column storages. Used only in the columnar storage mode.
+     */
+    private final List<TableColumnStorage> tableColumnStorageList = 
+            new ArrayList<>();
+    
+    /**
+     * The number of rows in the columnar storage mode.
+     */
+    private int numberOfColumnarRows;
+    
+    /**
+     * If not {@code null}, the rows of this table are decoded from this source 
+     * on first access. A row not yet decoded is represented by a {@code null} 
+     * entry in {@code tableRowList}.
+     */
+    private LazyTableRowSource lazyTableRowSource;
+    
+    /**
+     * The current storage mode of this table.
      */
-    private final List<TableRow> tableRowList = new ArrayList<>();
+    private TableStorageMode tableStorageMode = TableStorageMode.ROW_ORIENTED;
+    
+    /**
+     * The codec compressing the data of this table in the database files, or 
+     * {@code null} if the data is not compressed.
+     */
+    private volatile TableCompressionCodec tableCompressionCodec;
+    
+    /**
+     * The active snapshots of this table. While a snapshot is active, this 
+     * table hands it the data it is about to modify.
+     */
+    private final List<TableSnapshot> tableSnapshotList = 
+            new CopyOnWriteArrayList<>();
+    
+    /**
+     * The secondary indices over the columns of this table.
+     */
+    private final List<TableIndex> tableIndexList = new ArrayList<>();
+    
+    /**
+     * The lock guarding this table in the concurrent mode, or {@code null} if 
+     * this table is not shared between threads.
+     */
+    private volatile OptimisticLock optimisticLock;
     
     /**
      * Constructs a new table for a given owner database.
@@ -61,6 +137,19 @@ public final class Table implements Iterable<TableRow> {
         this.tableName = checkTableName(tableName);
     }
     
+    /**
+     * Constructs a new table using the given storage mode.
+     * 
+     * @param tableName        the name of the new table.
+     * @param tableStorageMode the storage mode.
+     */
+    public Table(String tableName, TableStorageMode tableStorageMode) {
+        this(tableName);
+        this.tableStorageMode = 
+                Objects.requireNonNull(tableStorageMode, 
+                                       "The table storage mode is null.");
+    }
+    
     /**
      * Returns the name of this table.
      * 
@@ -76,14 +165,169 @@ public final class Table implements Iterable<TableRow> {
      * @param newTableName the new table name.
      */
     public void setTableName(String newTableName) {
-        String oldTableName = this.tableName;
-        this.tableName =
-                Objects.requireNonNull(
-                        newTableName,
-                        "The new table name is null.");
+        Objects.requireNonNull(newTableName, "The new table name is null.");
+        Database ownerDatabase = this.ownerDatabase;
+        
+        // The database is locked first, as when it takes a snapshot:
+        long databaseStamp = 
+                ownerDatabase != null ? ownerDatabase.lockForWriting() : 0L;
+        
+        try {
+            long stamp = lockForWriting();
+            
+            try {
+                String oldTableName = this.tableName;
+                this.tableName = newTableName;
+                
+                if (ownerDatabase != null) {
+                    ownerDatabase.onTableRename(this, 
+                                                oldTableName, 
+                                                newTableName);
+                }
+            } finally {
+                unlockForWriting(stamp);
+            }
+        } finally {
+            if (ownerDatabase != null) {
+                ownerDatabase.unlockForWriting(databaseStamp);
+            }
+        }
+    }
+    
+    /**
+     * Switches the concurrent mode of this table on or off. In the concurrent 
+     * mode, this table may be used by several threads at a time. Fetching 
+     * rows, iterating and reading cells run optimistically, without locking, 
+     * so that the readers never block each other, and are retried under the 
+     * read lock only if a writer intervened. The queries and the index 
+     * lookups hold the read lock, and every modification, including the 
+     * update of a single cell, holds the write lock of this table. Thus, the 
+     * modifications of distinct tables proceed in parallel.
+     * <p>
+     * A thread may not modify this table while it is reading it, such as in 
+     * the middle of a stream over the rows. The rows not yet decoded are 
+     * decoded upfront when switching the concurrent mode on. The mode must 
+     * not be switched while other threads use this table.
+     * 
+     * @param concurrent whether this table is to be shared between threads.
+     */
+    public void setConcurrent(boolean concurrent) {
+        if (concurrent == (optimisticLock != null)) {
+            return;
+        }
+        
+        if (concurrent) {
+            loadAllTableRows();
+            optimisticLock = new OptimisticLock();
+        } else {
+            optimisticLock = null;
+        }
+    }
+    
+    /**
+     * Returns {@code true} if this table is in the concurrent mode.
+     * 
+     * @return {@code true} if this table may be shared between threads.
+     */
+    public boolean isConcurrent() {
+        return optimisticLock != null;
+    }
+    
+    /**
+     * Returns the storage mode of this table.
+     * 
+     * @return the storage mode.
+     */
+    public TableStorageMode getStorageMode() {
+        return tableStorageMode;
+    }
+    
+    /**
+     * Converts this table to the given storage mode. All the table rows and 
+     * table cells obtained before the conversion become detached from this 
+     * table.
+     * 
+     * @param tableStorageMode the new storage mode.
+     */
+    public void setStorageMode(TableStorageMode tableStorageMode) {
+        long stamp = lockForWriting();
+        
+        try {
+            Objects.requireNonNull(tableStorageMode, 
+                                   "The table storage mode is null.");
+            
+            if (this.tableStorageMode == tableStorageMode) {
+                return;
+            }
+            
+            loadAllTableRows();
+            preserveAllForTableSnapshot();
+            
+            if (tableStorageMode == TableStorageMode.COLUMNAR) {
+                convertToColumnar();
+            } else {
+                convertToRowOriented();
+            }
+            
+            this.tableStorageMode = tableStorageMode;
+        } finally {
+            unlockForWriting(stamp);
+        }
+    }
+    
+    /**
+     * Returns the codec compressing the data of this table in the database 
+     * files.
+     * 
+     * @return the compression codec, or {@code null} if the data is not 
+     *         compressed.
+     */
+    public TableCompressionCodec getCompressionCodec() {
+        return tableCompressionCodec;
+    }
+    
+    /**
+     * Sets the codec compressing the data of this table in the database 
+     * files. The data is compressed in frames, each of which is decompressed
+     * independently, so that the lazily opened tables decompress only the
+     * frames of the rows they access.
+     * 
+     * @param tableCompressionCodec the compression codec, or {@code null} for
+     *                              writing the data uncompressed.
+     * @throws IllegalArgumentException if the codec is not registered.
+     */
+    public void setCompressionCodec(
+            TableCompressionCodec tableCompressionCodec) {
+        if (tableCompressionCodec != null 
+                && !TableCompression.isRegistered(tableCompressionCodec)) {
+            throw new IllegalArgumentException(
+                    "The compression codec \"" + 
+                    tableCompressionCodec.getName() + 
+                    "\" is not registered.");
+        }
+        
+        this.tableCompressionCodec = tableCompressionCodec;
+    }
+    
+    /**
+     * Returns the number of rows in this table.
+     * 
+     * @return the number of rows.
+     */
+    public int getNumberOfRows() {
+        OptimisticLock optimisticLock = this.optimisticLock;
         
-        this.ownerDatabase.onTableRename(this, oldTableName, newTableName);
+        return optimisticLock == null ? 
+                countTableRows() : 
+                optimisticLock.readInt(this::countTableRows);
+    }
+    
+    private int countTableRows() {
+        return tableStorageMode == TableStorageMode.COLUMNAR ?
+                numberOfColumnarRows :
+                tableRowList.size();
     }
+    
     /**
      * Inserts a new table row using {@code values} as the cell values.
      * 
@@ -91,12 +335,35 @@ public final class Table implements Iterable<TableRow> {
      * @param values the array of values to store.
      */
     public TableRow putTableRowAt(int index, Object... values) {
-        checkInsertionIndex(index);
-        checkNumberOfValuesNoLargerThanColumnCount(values);
+        long stamp = lockForWriting();
         
-        for (int i = 0; i < values.length; ++i) {
-            checkValueType(values[i], tableColumnDescriptorList.get(i));
+        try {
+            checkInsertionIndex(index);
+            checkNumberOfValuesNoLargerThanColumnCount(values);
+            
+            for (int i = 0; i < values.length; ++i) {
+                checkValueType(values[i], tableColumnDescriptorList.get(i));
+            }
+            
+            TableRow newTableRow = 
+                    tableStorageMode == TableStorageMode.COLUMNAR ?
+                    putColumnarTableRowAt(index, values) :
+                    putRowOrientedTableRowAt(index, values);
+            
+            updateIndicesOnInsert(index, values);
+            
+            if (ownerDatabase != null) {
+                ownerDatabase.onTableRowInsert(this, index, newTableRow);
+            }
+            
+            return newTableRow;
+        } finally {
+            unlockForWriting(stamp);
         }
+    }
+    
+    private TableRow putRowOrientedTableRowAt(int index, Object[] values) {
+        loadAllTableRows();
         
         TableRow newTableRow = new TableRow(this);
         TableCell newTableCell;
@@ -194,6 +461,7 @@ public final class Table implements Iterable<TableRow> {
         
         newTableRow.ownerTable = this;
         tableRowList.add(index, newTableRow);
+        renumberTableRows(index);
         return newTableRow;
     }
     
@@ -203,7 +471,209 @@ public final class Table implements Iterable<TableRow> {
      * @param values the values to use as the row cell values.
      */
     public TableRow putTableRow(Object... values) {
-        return putTableRowAt(tableRowList.size(), values);
+        long stamp = lockForWriting();
+        
+        try {
+            return putTableRowAt(getNumberOfRows(), values);
+        } finally {
+            unlockForWriting(stamp);
+        }
+    }
+    
+    /**
+     * Appends a batch of rows given column by column. The {@code i}th array 
+     * holds the values of the {@code i}th column: an {@code int[]} or an 
+     * {@code Integer[]} for an integer column, a {@code long[]} or a 
+     * {@code Long[]} for a long column, and likewise for the float, double 
+     * and boolean columns, a {@code String[]} for a string column and a 
+     * {@code byte[][]} for a binary column. Only the object arrays may hold 
+     * {@code null}s. The columns not given are filled with {@code null}s. 
+     * <p>
+     * Unlike {@link #putTableRow(Object...)}, this method checks the type of 
+     * each array once rather than the type of each value, copies the 
+     * primitive arrays into a columnar table in bulk, and logs the whole 
+     * batch as a single record.
+     * 
+     * @param columns the arrays of the column values, all of the same length.
+     * 
+     * @throws IllegalArgumentException if there are more arrays than columns,
+     *                                  an array does not fit its column or 
+     *                                  the arrays differ in length.
+     */
+    public void putTableRows(Object... columns) {
+        long stamp = lockForWriting();
+        
+        try {
+            Objects.requireNonNull(columns, "The column arrays are null.");
+            checkNumberOfValuesNoLargerThanColumnCount(columns);
+            int numberOfNewRows = checkColumnArrays(columns);
+            int firstNewRow = getNumberOfRows();
+            
+            if (numberOfNewRows == 0) {
+                return;
+            }
+            
+            if (tableStorageMode == TableStorageMode.COLUMNAR) {
+                preserveTableColumnStoragesForTableSnapshot();
+                
+                for (int i = 0; i < tableColumnStorageList.size(); ++i) {
+                    if (i < columns.length) {
+                        tableColumnStorageList.get(i)
+                                              .appendAll(columns[i], 
+                                                         numberOfNewRows);
+                    } else {
+                        tableColumnStorageList.get(i)
+                                              .appendNulls(numberOfNewRows);
+                    }
+                }
+                
+                numberOfColumnarRows += numberOfNewRows;
+            } else {
+                appendRowOrientedTableRows(columns, numberOfNewRows);
+            }
+            
+            updateIndicesOnAppend(firstNewRow, numberOfNewRows);
+            
+            if (ownerDatabase != null) {
+                logAppendedTableRows(firstNewRow, numberOfNewRows);
+            }
+        } finally {
+            unlockForWriting(stamp);
+        }
+    }
+    
+    /**
+     * Makes room for the given total number of rows, so that appending rows 
+     * up to that number does not need to grow the storage of this table.
+     * 
+     * @param numberOfRows the expected number of rows.
+     */
+    public void ensureCapacity(int numberOfRows) {
+        long stamp = lockForWriting();
+        
+        try {
+            if (tableStorageMode == TableStorageMode.COLUMNAR) {
+                preserveTableColumnStoragesForTableSnapshot();
+                
+                for (TableColumnStorage tableColumnStorage 
+                        : tableColumnStorageList) {
+                    tableColumnStorage.ensureCapacity(numberOfRows);
+                }
+            } else {
+                tableRowList.ensureCapacity(numberOfRows);
+            }
+        } finally {
+            unlockForWriting(stamp);
+        }
+    }
+    
+    /**
+     * Checks the column arrays given to {@link #putTableRows(Object...)}.
+     * 
+     * @return the number of rows.
+     */
+    private int checkColumnArrays(Object[] columns) {
+        int numberOfRows = 0;
+        
+        for (int i = 0; i < columns.length; ++i) {
+            Objects.requireNonNull(columns[i], 
+                                   "The column array " + i + " is null.");
+            TableCellType tableCellType = 
+                    tableColumnDescriptorList.get(i).getTableCellType();
+            
+            if (!TableColumnStorage.isColumnArray(columns[i], 
+                                                  tableCellType)) {
+                throw new IllegalArgumentException(
+                        "The column array " + i + " of class " + 
+                        columns[i].getClass().getSimpleName() + 
+                        " does not fit a column of " + 
+                        tableCellType.getTypeName() + ".");
+            }
+            
+            int length = java.lang.reflect.Array.getLength(columns[i]);
+            
+            if (i > 0 && length != numberOfRows) {
+                throw new IllegalArgumentException(
+                        "The column array " + i + " holds " + length + 
+                        " values instead of " + numberOfRows + ".");
+            }
+            
+            numberOfRows = length;
+        }
+        
+        return numberOfRows;
+    }
+    
+    /**
+     * Creates the rows of a row-oriented table from the given column arrays, 
+     * one column at a time, and appends them.
+     */
+    private void appendRowOrientedTableRows(Object[] columns, 
+                                            int numberOfNewRows) {
+        loadAllTableRows();
+        TableRow[] newTableRows = new TableRow[numberOfNewRows];
+        
+        for (int row = 0; row < numberOfNewRows; ++row) {
+            newTableRows[row] = new TableRow(this);
+            newTableRows[row].rowIndex = tableRowList.size() + row;
+        }
+        
+        for (int i = 0; i < tableColumnDescriptorList.size(); ++i) {
+            addTableCells(newTableRows, 
+                          tableColumnDescriptorList.get(i).getTableCellType(),
+                          i < columns.length ? columns[i] : null);
+        }
+        
+        tableRowList.ensureCapacity(tableRowList.size() + numberOfNewRows);
+        Collections.addAll(tableRowList, newTableRows);
+    }
+    
+    private static void addTableCells(TableRow[] tableRows, 
+                                      TableCellType tableCellType,
+                                      Object column) {
+        if (column instanceof int[]) {
+            int[] values = (int[]) column;
+            
+            for (int row = 0; row < tableRows.length; ++row) {
+                tableRows[row].add(new TableCell(values[row]));
+            }
+        } else if (column instanceof long[]) {
+            long[] values = (long[]) column;
+            
+            for (int row = 0; row < tableRows.length; ++row) {
+                tableRows[row].add(new TableCell(values[row]));
+            }
+        } else if (column instanceof float[]) {
+            float[] values = (float[]) column;
+            
+            for (int row = 0; row < tableRows.length; ++row) {
+                tableRows[row].add(new TableCell(values[row]));
+            }
+        } else if (column instanceof double[]) {
+            double[] values = (double[]) column;
+            
+            for (int row = 0; row < tableRows.length; ++row) {
+                tableRows[row].add(new TableCell(values[row]));
+            }
+        } else if (column instanceof boolean[]) {
+            boolean[] values = (boolean[]) column;
+            
+            for (int row = 0; row < tableRows.length; ++row) {
+                tableRows[row].add(new TableCell(values[row]));
+            }
+        } else {
+            Object[] values = (Object[]) column;
+            
+            for (int row = 0; row < tableRows.length; ++row) {
+                TableCell tableCell = new TableCell(tableCellType);
+                
+                if (values != null) {
+                    tableCell.setValue(values[row]);
+                }
+                
+                tableRows[row].add(tableCell);
+            }
+        }
     }
     
     /**
@@ -213,286 +683,2541 @@ public final class Table implements Iterable<TableRow> {
      * @return the table row.
      */
     public TableRow getTableRow(int index) {
+        OptimisticLock optimisticLock = this.optimisticLock;
+        
+        return optimisticLock == null ? 
+                fetchTableRow(index) : 
+                optimisticLock.read(() -> fetchTableRow(index));
+    }
+    
+    private TableRow fetchTableRow(int index) {
         checkAccessIndex(index);
-        return tableRowList.get(index);
+        
+        if (tableStorageMode == TableStorageMode.COLUMNAR) {
+            return new ColumnarTableRow(this, index);
+        }
+        
+        TableRow tableRow = tableRowList.get(index);
+        return tableRow != null ? tableRow : loadTableRow(index);
+    }
+    
+    /**
+     * Removes the {@code index}th row from this table.
+     * 
+     * @param index the index of the row to remove.
+     */
+    public void removeRow(int index) {
+        long stamp = lockForWriting();
+        
+        try {
+            checkAccessIndex(index);
+            updateIndicesOnRemove(index);
+            
+            if (tableStorageMode == TableStorageMode.COLUMNAR) {
+                preserveTableColumnStoragesForTableSnapshot();
+                
+                for (TableColumnStorage tableColumnStorage 
+                        : tableColumnStorageList) {
+                    tableColumnStorage.remove(index);
+                }
+                
+                --numberOfColumnarRows;
+            } else {
+                loadAllTableRows();
+                onBeforeTableRowUpdate(tableRowList.get(index));
+                TableRow tableRow = tableRowList.remove(index);
+                tableRow.ownerTable = null;
+                renumberTableRows(index);
+            }
+            
+            if (ownerDatabase != null) {
+                ownerDatabase.onTableRowRemove(this, index);
+            }
+        } finally {
+            unlockForWriting(stamp);
+        }
+    }
+    
+    /**
+     * Returns the iterator that iterates over table rows in their natural
+     * order.
+     * 
+     * @return the row iterator.
+     */
+    @Override
+    public Iterator<TableRow> iterator() {
+        return new Iterator<TableRow>(){
+            private int index;
+            
+            @Override
+            public boolean hasNext() {
+                return index < getNumberOfRows();
+            }
+
+            @Override
+            public TableRow next() {
+                // Checking the index and fetching the row form a single read, 
+                // since the rows may be removed meanwhile in the concurrent 
+                // mode:
+                TableRow tableRow = readOptimistically(() -> 
+                        index < countTableRows() ? fetchTableRow(index) : null);
+                
+                if (tableRow == null) {
+                    throw new NoSuchElementException(
+                            "No more rows to iterate.");
+                }
+                
+                ++index;
+                return tableRow;
+            }
+        };
+    }
+    
+    /**
+     * Returns the spliterator over the rows of this table in their natural 
+     * order. It splits the rows into contiguous ranges, which makes the 
+     * parallel streams over this table scale with the number of cores. This 
+     * table must not be modified while the spliterator is in use.
+     * 
+     * @return the row spliterator.
+     */
+    @Override
+    public Spliterator<TableRow> spliterator() {
+        return new TableRowSpliterator(this, 0, getNumberOfRows());
+    }
+    
+    /**
+     * Returns a sequential stream over the rows of this table.
+     * 
+     * @return the row stream.
+     */
+    public Stream<TableRow> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+    
+    /**
+     * Returns a parallel stream over the rows of this table. The rows are 
+     * partitioned into contiguous ranges processed in the common fork/join 
+     * pool. This table must not be modified while the stream is running.
+     * 
+     * @return the parallel row stream.
+     */
+    public Stream<TableRow> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+    
+    /**
+     * Opens a snapshot of this table. The snapshot is a consistent version of 
+     * this table as it is now, which stays unchanged while this table keeps 
+     * being modified, so that it may be scanned at length without blocking 
+     * the writers in the concurrent mode. Taking it costs time proportional 
+     * to the number of rows. Until the snapshot is closed, this table keeps 
+     * the old versions of the data it modifies.
+     * 
+     * @return the snapshot.
+     */
+    public TableVersion openSnapshot() {
+        long stamp = lockForReading();
+        
+        try {
+            return new TableVersion(createTableSnapshot());
+        } finally {
+            unlockForReading(stamp);
+        }
+    }
+    
+    /**
+     * Appends the records of the given CSV file to this table. The 
+     * {@code i}th field of a record goes to the {@code i}th column, and the 
+     * missing trailing fields are taken as {@code null}s. The file is parsed 
+     * in parallel chunks, which are appended in file order, each by a single 
+     * {@link #putTableRows(Object...)}. Thus, if the file turns out to be 
+     * malformed, the rows of the chunks preceding the bad one stay appended.
+     * See {@link TableCsv} for the format.
+     * 
+     * @param file   the CSV file.
+     * @param header whether the first record is a header to skip.
+     * @return the number of rows appended.
+     * 
+     * @throws BadDataFormatException if the file is malformed or a field does
+     *                                not fit its column.
+     */
+    public int importCsv(File file, boolean header) {
+        Objects.requireNonNull(file, "The file is null.");
+        
+        try (FileChannel fileChannel = 
+                FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return TableCsv.importCsv(this, 
+                                      fileChannel, 
+                                      header, 
+                                      TableCsv.CHUNK_SIZE);
+        } catch (IOException ex) {
+            throw new RuntimeException("Importing the CSV file \"" + 
+                    file.getAbsolutePath() + "\" failed.", ex);
+        }
+    }
+    
+    /**
+     * Writes all the rows of this table to the given file as CSV, replacing 
+     * the file. 
+     * 
+     * @param file   the target file.
+     * @param header whether to write the column names as the first record.
+     * 
+     * @see #exportCsv(Writer, boolean)
+     */
+    public void exportCsv(File file, boolean header) {
+        Objects.requireNonNull(file, "The file is null.");
+        
+        try (Writer writer = new OutputStreamWriter(
+                Files.newOutputStream(file.toPath()), 
+                StandardCharsets.UTF_8)) {
+            exportCsv(writer, header);
+        } catch (IOException ex) {
+            throw new RuntimeException("Exporting the table \"" + 
+                    getTableName() + "\" failed.", ex);
+        }
+    }
+    
+    /**
+     * Writes all the rows of this table to the given writer as CSV. The rows 
+     * are streamed from a snapshot of this table, so the writers are blocked 
+     * only while the snapshot is taken. See {@link TableCsv} for the format.
+     * 
+     * @param writer the writer to write to. It is flushed but not closed.
+     * @param header whether to write the column names as the first record.
+     */
+    public void exportCsv(Writer writer, boolean header) {
+        Objects.requireNonNull(writer, "The writer is null.");
+        
+        try (TableVersion tableVersion = openSnapshot()) {
+            TableCsv.exportCsv(writer, 
+                               tableVersion.getTableColumnDescriptorList(), 
+                               null, 
+                               tableVersion, 
+                               header);
+        } catch (IOException ex) {
+            throw new RuntimeException("Exporting the table \"" + 
+                    getTableName() + "\" failed.", ex);
+        }
+    }
+    
+    public TableView createTableView(
+            TableColumnDescriptor... tableColumnDescriptors) {
+        long stamp = lockForReading();
+        
+        try {
+            checkViewTableColumnDescriptors(tableColumnDescriptors);
+            TableView tableView = 
+                    new TableView(this, Arrays.asList(tableColumnDescriptors));
+            
+            return tableView;
+        } finally {
+            unlockForReading(stamp);
+        }
+    }
+    
+    /**
+     * Starts a query projecting this table onto the given columns. The rows 
+     * are chosen by {@link TableSelection#where(TablePredicate)}. If no 
+     * columns are given, all the columns are selected.
+     * 
+     * @param columnNames the names of the columns to select, in the order of 
+     *                    the resulting view.
+     * @return the selection.
+     * 
+     * @throws IllegalArgumentException if a column is not in this table.
+     */
+    public TableSelection select(String... columnNames) {
+        Objects.requireNonNull(columnNames, "The column names are null.");
+        int[] columnIndices;
+        
+        if (columnNames.length == 0) {
+            columnIndices = new int[tableColumnDescriptorList.size()];
+            
+            for (int i = 0; i < columnIndices.length; ++i) {
+                columnIndices[i] = i;
+            }
+        } else {
+            columnIndices = new int[columnNames.length];
+            
+            for (int i = 0; i < columnIndices.length; ++i) {
+                columnIndices[i] = getColumnIndex(columnNames[i]);
+            }
+        }
+        
+        return new TableSelection(this, columnIndices);
+    }
+    
+    /**
+     * Starts an aggregation grouping the rows of this table by the values of 
+     * the given columns. The aggregates are computed by 
+     * {@link TableAggregation#aggregate(TableAggregate...)}. If no columns are 
+     * given, all the rows form a single group.
+     * 
+     * @param columnNames the names of the grouping columns.
+     * @return the aggregation.
+     * 
+     * @throws IllegalArgumentException if a column is not in this table.
+     */
+    public TableAggregation groupBy(String... columnNames) {
+        return new TableAggregation(this, getColumnIndices(columnNames));
+    }
+    
+    /**
+     * Joins this table with the given table on the equality of the given 
+     * columns. The smaller table is hashed on its join column, or its hash 
+     * index over the column is used, and the larger table probes it. The 
+     * resulting view holds the cells of a row of this table followed by the 
+     * cells of a matching row of the other table, ordered by the rows of this 
+     * table and then by the rows of the other table. The columns are named 
+     * after their table and column, as in {@code "person.id"}. The null cells 
+     * match nothing. Integer and long columns may be joined with each other; 
+     * otherwise, the join columns must be of the same type.
+     * 
+     * @param otherTable      the table to join with.
+     * @param columnName      the join column of this table.
+     * @param otherColumnName the join column of the other table.
+     * @return the view of the joined rows.
+     * 
+     * @throws IllegalArgumentException if a column is missing or the types of 
+     *                                  the join columns differ.
+     */
+    public TableView join(Table otherTable, 
+                          String columnName, 
+                          String otherColumnName) {
+        Objects.requireNonNull(otherTable, "The other table is null.");
+        long[] stamps = lockForReading(this, otherTable);
+        
+        try {
+            return TableJoin.hashJoin(
+                    this, 
+                    getColumnIndex(columnName), 
+                    otherTable, 
+                    otherTable.getColumnIndex(otherColumnName));
+        } finally {
+            unlockForReading(this, otherTable, stamps);
+        }
+    }
+    
+    /**
+     * Joins this table with the given table on the equality of the given 
+     * columns by sorting both tables on their join columns and merging them, 
+     * with the default memory budget of each sort.
+     * 
+     * @param otherTable      the table to join with.
+     * @param columnName      the join column of this table.
+     * @param otherColumnName the join column of the other table.
+     * @return the view of the joined rows.
+     * 
+     * @see #sortMergeJoin(Table, String, String, long)
+     */
+    public TableView sortMergeJoin(Table otherTable, 
+                                   String columnName, 
+                                   String otherColumnName) {
+        return sortMergeJoin(otherTable, 
+                             columnName, 
+                             otherColumnName, 
+                             TableSorter.DEFAULT_MEMORY_BUDGET);
+    }
+    
+    /**
+     * Joins this table with the given table on the equality of the given 
+     * columns by sorting both tables on their join columns and merging them. 
+     * A sort keeps in memory the rows whose serialized size fits in the 
+     * memory budget and spills the rest into sorted runs in temporary files. 
+     * The resulting view is as in {@link #join(Table, String, String)}, except 
+     * that the rows are ordered by the join key first. Binary columns cannot 
+     * be joined this way.
+     * 
+     * @param otherTable      the table to join with.
+     * @param columnName      the join column of this table.
+     * @param otherColumnName the join column of the other table.
+     * @param memoryBudget    the memory budget of each sort in bytes.
+     * @return the view of the joined rows.
+     * 
+     * @throws IllegalArgumentException if a column is missing, the types of 
+     *                                  the join columns differ or are binary, 
+     *                                  or the budget is not positive.
+     */
+    public TableView sortMergeJoin(Table otherTable, 
+                                   String columnName, 
+                                   String otherColumnName,
+                                   long memoryBudget) {
+        Objects.requireNonNull(otherTable, "The other table is null.");
+        long[] stamps = lockForReading(this, otherTable);
+        
+        try {
+            return TableJoin.sortMergeJoin(
+                    this, 
+                    getColumnIndex(columnName), 
+                    otherTable, 
+                    otherTable.getColumnIndex(otherColumnName),
+                    memoryBudget);
+        } finally {
+            unlockForReading(this, otherTable, stamps);
+        }
+    }
+    
+    /**
+     * Returns the view of all the rows of this table sorted by the given 
+     * columns, using the default memory budget.
+     * 
+     * @param columnNames the names of the sort columns.
+     * @return the sorted view.
+     * 
+     * @see #orderBy(long, String...)
+     */
+    public TableView orderBy(String... columnNames) {
+        return orderBy(TableSorter.DEFAULT_MEMORY_BUDGET, columnNames);
+    }
+    
+    /**
+     * Returns the view of all the rows of this table sorted by the given 
+     * columns, the first column being the most significant. The null cells 
+     * come first, and the rows with equal cells retain their natural order. 
+     * The sort keeps in memory the rows whose serialized size fits in the 
+     * memory budget and merges the rest from sorted runs spilled to temporary 
+     * files. The rows of the view are detached copies.
+     * 
+     * @param memoryBudget the memory budget of the sort in bytes.
+     * @param columnNames  the names of the sort columns.
+     * @return the sorted view.
+     * 
+     * @throws IllegalArgumentException if a column is missing or binary, or 
+     *                                  the budget is not positive.
+     */
+    public TableView orderBy(long memoryBudget, String... columnNames) {
+        long stamp = lockForReading();
+        
+        try {
+            int[] columnIndices = getColumnIndices(columnNames);
+            TableView tableView = 
+                    new TableView(new ArrayList<>(tableColumnDescriptorList));
+            
+            try (TableSorter tableSorter = 
+                    new TableSorter(this, columnIndices, memoryBudget, null)) {
+                while (tableSorter.hasNext()) {
+                    tableView.addTableRow(tableSorter.next());
+                }
+            }
+            
+            return tableView;
+        } finally {
+            unlockForReading(stamp);
+        }
+    }
+    
+    /**
+     * Returns the view of the first {@code limit} rows of this table sorted 
+     * by the given columns, as {@code ORDER BY ... LIMIT limit} does. The 
+     * order is that of {@link #orderBy(String...)}, but only the selected 
+     * rows are held in memory while the table is scanned. A single sort 
+     * column with a tree index is read from the index instead when it holds 
+     * no null cells.
+     * 
+     * @param limit       the maximum number of rows.
+     * @param columnNames the names of the sort columns.
+     * @return the view of the selected rows.
+     * 
+     * @throws IllegalArgumentException if a column is missing or binary, or 
+     *                                  the limit is negative.
+     */
+    public TableView bottom(int limit, String... columnNames) {
+        long stamp = lockForReading();
+        
+        try {
+            return new TableTopN(this, getColumnIndices(columnNames), false)
+                    .select(limit);
+        } finally {
+            unlockForReading(stamp);
+        }
+    }
+    
+    /**
+     * Returns the view of the {@code limit} rows of this table holding the 
+     * largest values of the given columns, in descending order, as 
+     * {@code ORDER BY ... DESC LIMIT limit} does. Null cells come last, and 
+     * the rows holding equal values are listed in their natural order. Only 
+     * the selected rows are held in memory while the table is scanned, and a 
+     * single sort column with a tree index is read from the end of the index 
+     * instead whenever it has enough non-null cells.
+     * 
+     * @param limit       the maximum number of rows.
+     * @param columnNames the names of the sort columns.
+     * @return the view of the selected rows.
+     * 
+     * @throws IllegalArgumentException if a column is missing or binary, or 
+     *                                  the limit is negative.
+     */
+    public TableView top(int limit, String... columnNames) {
+        long stamp = lockForReading();
+        
+        try {
+            return new TableTopN(this, getColumnIndices(columnNames), true)
+                    .select(limit);
+        } finally {
+            unlockForReading(stamp);
+        }
+    }
+    
+    /**
+     * Computes the given aggregates over all the rows of this table.
+     * 
+     * @param tableAggregates the aggregates to compute.
+     * @return the row holding the aggregate values, in the given order.
+     * 
+     * @throws IllegalArgumentException if an aggregate refers to a column not 
+     *                                  in this table or does not apply to the 
+     *                                  type of its column.
+     */
+    public TableRow aggregate(TableAggregate... tableAggregates) {
+        return groupBy().aggregate(tableAggregates).getTableRow(0);
+    }
+    
+    /**
+     * Appends the table column descriptor to this table. The current rows are 
+     * extended behind the scene.
+     * 
+     * @param tableColumnDescriptor the table column descriptor to append. 
+     */
+    public void addTableColumnDescriptor(
+            TableColumnDescriptor tableColumnDescriptor) {
+        long stamp = lockForWriting();
+        
+        try {
+            String newTableColumnDescriptorName = 
+                    tableColumnDescriptor.getTableColumnName();
+            
+            if (tableColumnNameIndexMap.containsKey(
+                    newTableColumnDescriptorName)) {
+                throw new IllegalStateException(
+                        "The column with name \"" + 
+                                newTableColumnDescriptorName +
+                                " is already in this table.");
+            }
+            
+            int index = tableColumnDescriptorList.size();
+            
+            Objects.requireNonNull(tableColumnDescriptor,
+                    "The table column descriptor is null.");
+            
+            loadAllTableRows();
+            preserveAllForTableSnapshot();
+            tableColumnDescriptorList.add(tableColumnDescriptor);
+            
+            if (tableStorageMode == TableStorageMode.COLUMNAR) {
+                TableColumnStorage tableColumnStorage = 
+                        TableColumnStorage.create(
+                                tableColumnDescriptor.getTableCellType(),
+                                numberOfColumnarRows);
+                
+                tableColumnStorage.appendNulls(numberOfColumnarRows);
+                tableColumnStorageList.add(tableColumnStorage);
+            }
+            
+            for (TableRow tableRow : tableRowList) {
+                tableRow.add(new TableCell(
+                        tableColumnDescriptor.getTableCellType()));
+            }
+            
+            tableColumnNameIndexMap.put(
+                    tableColumnDescriptor.getTableColumnName(), 
+                    index);
+            
+            if (ownerDatabase != null) {
+                ownerDatabase.onTableColumnAdd(this, tableColumnDescriptor);
+            }
+        } finally {
+            unlockForWriting(stamp);
+        }
+    }
+    
+    /**
+     * Returns the {@code columnIndex}th table column descriptor.
+     * 
+     * @param columnIndex the index of the column descriptor to return.
+     * @return the table column descriptor.
+     */
+    public TableColumnDescriptor getTableColumnDescriptor(int columnIndex) {
+        return readOptimistically(() -> 
+                tableColumnDescriptorList.get(columnIndex));
+    }
+    
+    /**
+     * Returns the table column descriptor with the given name.
+     * 
+     * @param columnName the name of the column.
+     * 
+     * @return the table column descriptor with the name {@code columnName}.
+     * 
+     * @throws IllegalArgumentException if there is no column with the given 
+     *                                  name.
+     */
+    public TableColumnDescriptor getTableColumnDescriptor(String columnName) {
+        return readOptimistically(() -> {
+            Integer index = tableColumnNameIndexMap.get(columnName);
+            
+            if (index == null) {
+                throw new IllegalArgumentException(
+                        "\"" + columnName + "\": no such column.");
+            }
+            
+            return tableColumnDescriptorList.get(index);
+        });
+    }
+    
+    public boolean containsTableColumnDescriptor(String columnName) {
+        return readOptimistically(() -> 
+                tableColumnNameIndexMap.containsKey(columnName));
+    }
+    
+    /**
+     * Removes the {@code columnIndex}th column from this table.
+     * 
+     * @param columnIndex the index of the column to remove.
+     * 
+     * @return the table column descriptor.
+     */
+    public TableColumnDescriptor removeTableColumnDescriptor(int columnIndex) {
+        long stamp = lockForWriting();
+        
+        try {
+            loadAllTableRows();
+            preserveAllForTableSnapshot();
+            TableColumnDescriptor tableColumnDescriptor = 
+                    tableColumnDescriptorList.remove(columnIndex);
+            
+            if (tableStorageMode == TableStorageMode.COLUMNAR) {
+                tableColumnStorageList.remove(columnIndex);
+            }
+            
+            for (TableRow tableRow : tableRowList) {
+                tableRow.remove(columnIndex);
+            }
+            
+            tableColumnNameIndexMap.clear();
+            updateIndicesOnColumnRemove(columnIndex);
+            
+            // Remap the column index map:
+            int index = 0;
+            
+            for (TableColumnDescriptor tcd
+                    : tableColumnDescriptorList) {
+                tableColumnNameIndexMap.put(tcd.getTableColumnName(), index++);
+            }
+            
+            if (ownerDatabase != null) {
+                ownerDatabase.onTableColumnRemove(this, columnIndex);
+            }
+            
+            return tableColumnDescriptor;
+        } finally {
+            unlockForWriting(stamp);
+        }
+    }
+    
+    /**
+     * Removes the table column with the given name.
+     * 
+     * @param columnName the name of the column to remove.
+     * 
+     * @return the table column descriptor.
+     */
+    public TableColumnDescriptor
+         removeTableColumnDescriptor(String columnName) {
+        Integer index = tableColumnNameIndexMap.get(columnName);
+        
+        if (index == null) {
+            throw new IllegalArgumentException(
+                    columnName + ": no such column.");
+        }
+        
+        return removeTableColumnDescriptor(index);
+    }
+    
+    /**
+     * Creates a hash index over the column with the given name. From now on, 
+     * {@link #findRows(String, Object)} finds the rows holding a given value 
+     * in the column in expected constant time instead of scanning the whole 
+     * table. The index is kept up to date by all the subsequent modifications 
+     * of this table. It is not saved along with the table.
+     * 
+     * @param columnName the name of the column to index.
+     * 
+     * @throws IllegalArgumentException if there is no column with the given 
+     *                                  name.
+     * @throws IllegalStateException    if the column is already indexed.
+     */
+    public void createHashIndex(String columnName) {
+        long stamp = lockForWriting();
+        
+        try {
+            int columnIndex = getColumnIndex(columnName);
+            
+            if (getTableHashIndex(columnIndex) != null) {
+                throw new IllegalStateException(
+                        "The column \"" + columnName + "\" already has a " +
+                        "hash index.");
+            }
+            
+            TableHashIndex tableHashIndex = 
+                    TableHashIndex.create(
+                            tableColumnDescriptorList.get(columnIndex)
+                                                     .getTableCellType(),
+                            columnIndex);
+            
+            for (int row = 0; row < getNumberOfRows(); ++row) {
+                Object value = getCellValue(row, columnIndex);
+                
+                if (value != null) {
+                    tableHashIndex.add(value, row);
+                }
+            }
+            
+            tableIndexList.add(tableHashIndex);
+        } finally {
+            unlockForWriting(stamp);
+        }
+    }
+    
+    /**
+     * Drops the hash index over the column with the given name.
+     * 
+     * @param columnName the name of the indexed column.
+     * 
+     * @throws IllegalArgumentException if there is no column with the given 
+     *                                  name.
+     * @throws IllegalStateException    if the column is not indexed.
+     */
+    public void dropHashIndex(String columnName) {
+        long stamp = lockForWriting();
+        
+        try {
+            TableHashIndex tableHashIndex = 
+                    getTableHashIndex(getColumnIndex(columnName));
+            
+            if (tableHashIndex == null) {
+                throw new IllegalStateException(
+                        "The column \"" + columnName + "\" has no hash index.");
+            }
+            
+            tableIndexList.remove(tableHashIndex);
+        } finally {
+            unlockForWriting(stamp);
+        }
+    }
+    
+    /**
+     * Returns {@code true} if the column with the given name has a hash index.
+     * 
+     * @param columnName the name of the column.
+     * @return {@code true} if the column is indexed.
+     */
+    public boolean hasHashIndex(String columnName) {
+        long stamp = lockForReading();
+        
+        try {
+            return getTableHashIndex(getColumnIndex(columnName)) != null;
+        } finally {
+            unlockForReading(stamp);
+        }
+    }
+    
+    /**
+     * Returns the rows whose cell in the given column equals {@code value}, in 
+     * their natural order. Uses the hash index of the column if there is one, 
+     * and scans the table otherwise. Null cells are not indexed, so looking up 
+     * {@code null} always scans.
+     * 
+     * @param columnName the name of the column.
+     * @param value      the value to look for.
+     * @return the list of matching rows.
+     * 
+     * @throws IllegalArgumentException if there is no column with the given 
+     *                                  name or the value is of wrong type.
+     */
+    public List<TableRow> findRows(String columnName, Object value) {
+        long stamp = lockForReading();
+        
+        try {
+            int columnIndex = getColumnIndex(columnName);
+            checkValueType(value, tableColumnDescriptorList.get(columnIndex));
+            
+            TableHashIndex tableHashIndex = getTableHashIndex(columnIndex);
+            List<TableRow> tableRowList = new ArrayList<>();
+            
+            if (tableHashIndex != null && value != null) {
+                for (int row : tableHashIndex.find(value)) {
+                    tableRowList.add(getTableRow(row));
+                }
+                
+                return tableRowList;
+            }
+            
+            for (int row = 0; row < getNumberOfRows(); ++row) {
+                Object cellValue = getCellValue(row, columnIndex);
+                
+                if (valuesEqual(value, cellValue)) {
+                    tableRowList.add(getTableRow(row));
+                }
+            }
+            
+            return tableRowList;
+        } finally {
+            unlockForReading(stamp);
+        }
+    }
+    
+    /**
+     * Creates a tree index over the column with the given name. The index is 
+     * not saved along with the table.
+     * 
+     * @param columnName the name of the column to index.
+     * @see #createTreeIndex(String, boolean)
+     */
+    public void createTreeIndex(String columnName) {
+        createTreeIndex(columnName, false);
+    }
+    
+    /**
+     * Creates an ordered tree index over the column with the given name. The 
+     * index serves {@link #rangeScan(String, Object, Object)}, 
+     * {@link #getTableRowsOrderedBy(String)}, 
+     * {@link #getMinimumValue(String)} and {@link #getMaximumValue(String)} 
+     * in time logarithmic in the number of rows plus the size of the result, 
+     * and is kept up to date by all the subsequent modifications of this 
+     * table. A persistent index is saved along with the table, so that it 
+     * is loaded rather than rebuilt when the database is read.
+     * 
+     * @param columnName the name of the column to index.
+     * @param persistent whether to save the index along with the table.
+     * 
+     * @throws IllegalArgumentException if there is no column with the given 
+     *                                  name or the column is binary.
+     * @throws IllegalStateException    if the column is already indexed.
+     */
+    public void createTreeIndex(String columnName, boolean persistent) {
+        long stamp = lockForWriting();
+        
+        try {
+            int columnIndex = getColumnIndex(columnName);
+            
+            if (getTableTreeIndex(columnIndex) != null) {
+                throw new IllegalStateException(
+                        "The column \"" + columnName + "\" already has a " +
+                        "tree index.");
+            }
+            
+            TableTreeIndex tableTreeIndex = 
+                    new TableTreeIndex(
+                            tableColumnDescriptorList.get(columnIndex)
+                                                     .getTableCellType(),
+                            columnIndex,
+                            persistent);
+            
+            for (int row = 0; row < getNumberOfRows(); ++row) {
+                Object value = getCellValue(row, columnIndex);
+                
+                if (value != null) {
+                    tableTreeIndex.add(value, row);
+                }
+            }
+            
+            tableIndexList.add(tableTreeIndex);
+        } finally {
+            unlockForWriting(stamp);
+        }
+    }
+    
+    /**
+     * Drops the tree index over the column with the given name.
+     * 
+     * @param columnName the name of the indexed column.
+     * 
+     * @throws IllegalArgumentException if there is no column with the given 
+     *                                  name.
+     * @throws IllegalStateException    if the column is not indexed.
+     */
+    public void dropTreeIndex(String columnName) {
+        long stamp = lockForWriting();
+        
+        try {
+            TableTreeIndex tableTreeIndex = 
+                    getTableTreeIndex(getColumnIndex(columnName));
+            
+            if (tableTreeIndex == null) {
+                throw new IllegalStateException(
+                        "The column \"" + columnName + "\" has no tree index.");
+            }
+            
+            tableIndexList.remove(tableTreeIndex);
+        } finally {
+            unlockForWriting(stamp);
+        }
+    }
+    
+    /**
+     * Returns {@code true} if the column with the given name has a tree index.
+     * 
+     * @param columnName the name of the column.
+     * @return {@code true} if the column is indexed.
+     */
+    public boolean hasTreeIndex(String columnName) {
+        long stamp = lockForReading();
+        
+        try {
+            return getTableTreeIndex(getColumnIndex(columnName)) != null;
+        } finally {
+            unlockForReading(stamp);
+        }
+    }
+    
+    /**
+     * Returns the rows whose cell in the given column lies between 
+     * {@code low} and {@code high}, both inclusive, ordered by the cell value 
+     * and then by their natural order. A {@code null} bound leaves the range 
+     * open on its side. The rows with a null cell are never returned. Uses the 
+     * tree index of the column if there is one, and scans and sorts 
+     * otherwise.
+     * 
+     * @param columnName the name of the column.
+     * @param low        the lower bound, or {@code null}.
+     * @param high       the upper bound, or {@code null}.
+     * @return the list of rows within the range.
+     * 
+     * @throws IllegalArgumentException if there is no column with the given 
+     *                                  name, the column is binary or a bound 
+     *                                  is of wrong type.
+     */
+    public List<TableRow> rangeScan(String columnName, 
+                                    Object low, 
+                                    Object high) {
+        long stamp = lockForReading();
+        
+        try {
+            int columnIndex = getColumnIndex(columnName);
+            TableColumnDescriptor tableColumnDescriptor = 
+                    tableColumnDescriptorList.get(columnIndex);
+            
+            checkValueType(low, tableColumnDescriptor);
+            checkValueType(high, tableColumnDescriptor);
+            
+            if (tableColumnDescriptor.getTableCellType() 
+                    == TableCellType.TYPE_BINARY) {
+                throw new IllegalArgumentException(
+                        "Binary columns have no natural order.");
+            }
+            
+            TableTreeIndex tableTreeIndex = getTableTreeIndex(columnIndex);
+            List<TableRow> tableRowList = new ArrayList<>();
+            
+            if (tableTreeIndex != null) {
+                for (int row : tableTreeIndex.scan(low, high)) {
+                    tableRowList.add(getTableRow(row));
+                }
+                
+                return tableRowList;
+            }
+            
+            List<Integer> rowList = new ArrayList<>();
+            
+            for (int row = 0; row < getNumberOfRows(); ++row) {
+                Comparable<Object> value = 
+                        getComparableCellValue(row, columnIndex);
+                
+                if (value != null 
+                        && (low == null || value.compareTo(low) >= 0)
+                        && (high == null || value.compareTo(high) <= 0)) {
+                    rowList.add(row);
+                }
+            }
+            
+            // The sort is stable, so the rows holding equal values stay in 
+            // their natural order:
+            rowList.sort((row1, row2) -> 
+                    getComparableCellValue(row1, columnIndex)
+                            .compareTo(getCellValue(row2, columnIndex)));
+            
+            for (int row : rowList) {
+                tableRowList.add(getTableRow(row));
+            }
+            
+            return tableRowList;
+        } finally {
+            unlockForReading(stamp);
+        }
+    }
+    
+    /**
+     * Returns the rows whose cell in the given column is not null, ordered by 
+     * the cell value and then by their natural order.
+     * 
+     * @param columnName the name of the column.
+     * @return the ordered list of rows.
+     */
+    public List<TableRow> getTableRowsOrderedBy(String columnName) {
+        long stamp = lockForReading();
+        
+        try {
+            return rangeScan(columnName, null, null);
+        } finally {
+            unlockForReading(stamp);
+        }
+    }
+    
+    /**
+     * Returns the smallest non-null value in the given column, or 
+     * {@code null} if there is none. Runs in logarithmic time if the column 
+     * has a tree index, and in linear time otherwise.
+     * 
+     * @param columnName the name of the column.
+     * @return the minimum value.
+     */
+    public Object getMinimumValue(String columnName) {
+        long stamp = lockForReading();
+        
+        try {
+            return getExtremeValue(columnName, true);
+        } finally {
+            unlockForReading(stamp);
+        }
+    }
+    
+    /**
+     * Returns the largest non-null value in the given column, or {@code null} 
+     * if there is none. Runs in logarithmic time if the column has a tree 
+     * index, and in linear time otherwise.
+     * 
+     * @param columnName the name of the column.
+     * @return the maximum value.
+     */
+    public Object getMaximumValue(String columnName) {
+        long stamp = lockForReading();
+        
+        try {
+            return getExtremeValue(columnName, false);
+        } finally {
+            unlockForReading(stamp);
+        }
+    }
+    
+    /**
+     * Creates a composite index over the given columns, taken in the given 
+     * order. The rows are ordered by their cells in the first column, then by 
+     * their cells in the second column and so on, with nulls first. Thus, the 
+     * index serves the lookups fixing the values of a leading run of the 
+     * columns, and possibly restricting the next column to a range, with a 
+     * single index scan; see 
+     * {@link #findRows(TableColumnDescriptor[], Object[])} and 
+     * {@link #rangeScan(TableColumnDescriptor[], Object[], 
+     * TableColumnDescriptor, Object, Object)}. The index is kept up to date 
+     * by all the subsequent modifications of this table. It is not saved 
+     * along with the table.
+     * 
+     * @param tableColumnDescriptors the columns to index, in key order.
+     * 
+     * @throws IllegalArgumentException if there are fewer than two columns, a 
+     *                                  column repeats, is not in this table or 
+     *                                  is binary.
+     * @throws IllegalStateException    if the same index already exists.
+     */
+    public void createCompositeIndex(
+            TableColumnDescriptor... tableColumnDescriptors) {
+        long stamp = lockForWriting();
+        
+        try {
+            int[] columnIndices = getColumnIndices(tableColumnDescriptors);
+            
+            if (columnIndices.length < 2) {
+                throw new IllegalArgumentException(
+                        "A composite index needs at least two columns.");
+            }
+            
+            if (Arrays.stream(columnIndices).distinct().count() 
+                    != columnIndices.length) {
+                throw new IllegalArgumentException(
+                        "A column appears twice in the composite index.");
+            }
+            
+            if (getCompositeIndex(columnIndices) != null) {
+                throw new IllegalStateException(
+                        "The composite index already exists.");
+            }
+            
+            TableCellType[] tableCellTypes = 
+                    new TableCellType[columnIndices.length];
+            
+            for (int i = 0; i < columnIndices.length; ++i) {
+                tableCellTypes[i] = 
+                        tableColumnDescriptorList.get(columnIndices[i])
+                                                 .getTableCellType();
+            }
+            
+            TableTreeIndex tableTreeIndex = 
+                    new TableTreeIndex(tableCellTypes, columnIndices);
+            
+            for (int row = 0; row < getNumberOfRows(); ++row) {
+                int currentRow = row;
+                tableTreeIndex.add(
+                        tableTreeIndex.createKey((column) -> 
+                                getCellValue(currentRow, column)), 
+                        row);
+            }
+            
+            tableIndexList.add(tableTreeIndex);
+        } finally {
+            unlockForWriting(stamp);
+        }
+    }
+    
+    /**
+     * Drops the composite index over the given columns.
+     * 
+     * @param tableColumnDescriptors the indexed columns, in key order.
+     * 
+     * @throws IllegalArgumentException if a column is not in this table.
+     * @throws IllegalStateException    if there is no such index.
+     */
+    public void dropCompositeIndex(
+            TableColumnDescriptor... tableColumnDescriptors) {
+        long stamp = lockForWriting();
+        
+        try {
+            TableTreeIndex tableTreeIndex = 
+                    getCompositeIndex(getColumnIndices(tableColumnDescriptors));
+            
+            if (tableTreeIndex == null) {
+                throw new IllegalStateException(
+                        "There is no such composite index.");
+            }
+            
+            tableIndexList.remove(tableTreeIndex);
+        } finally {
+            unlockForWriting(stamp);
+        }
+    }
+    
+    /**
+     * Returns {@code true} if there is a composite index over the given 
+     * columns.
+     * 
+     * @param tableColumnDescriptors the columns, in key order.
+     * @return {@code true} if the columns are indexed.
+     */
+    public boolean hasCompositeIndex(
+            TableColumnDescriptor... tableColumnDescriptors) {
+        long stamp = lockForReading();
+        
+        try {
+            return getCompositeIndex(
+                    getColumnIndices(tableColumnDescriptors)) != null;
+        } finally {
+            unlockForReading(stamp);
+        }
+    }
+    
+    /**
+     * Returns the rows whose cells in the given columns equal the given 
+     * values, in their natural order. A {@code null} value matches the null 
+     * cells. Uses a composite index whose leading columns are the given ones 
+     * if there is one, and scans the table otherwise.
+     * 
+     * @param tableColumnDescriptors the columns.
+     * @param values                 the values, one per column.
+     * @return the list of matching rows.
+     * 
+     * @throws IllegalArgumentException if a column is not in this table, a 
+     *                                  value is of wrong type or the number 
+     *                                  of values differs from the number of 
+     *                                  columns.
+     */
+    public List<TableRow> findRows(
+            TableColumnDescriptor[] tableColumnDescriptors, 
+            Object[] values) {
+        long stamp = lockForReading();
+        
+        try {
+            int[] columnIndices = getColumnIndices(tableColumnDescriptors);
+            
+            if (values.length != columnIndices.length) {
+                throw new IllegalArgumentException(
+                        "Expected " + columnIndices.length + " values, " + 
+                        values.length + " received.");
+            }
+            
+            for (int i = 0; i < values.length; ++i) {
+                checkValueType(values[i], tableColumnDescriptors[i]);
+            }
+            
+            TableTreeIndex tableTreeIndex = 
+                    getCompositeIndexByPrefix(columnIndices);
+            
+            if (tableTreeIndex != null) {
+                int[] rows = 
+                        tableTreeIndex.scanPrefix(values, false, null, null);
+                Arrays.sort(rows);
+                return getTableRows(rows);
+            }
+            
+            List<TableRow> tableRowList = new ArrayList<>();
+            
+            for (int row = 0; row < getNumberOfRows(); ++row) {
+                if (cellsEqual(row, columnIndices, values)) {
+                    tableRowList.add(getTableRow(row));
+                }
+            }
+            
+            return tableRowList;
+        } finally {
+            unlockForReading(stamp);
+        }
+    }
+    
+    /**
+     * Returns the rows whose cells in the prefix columns equal the prefix 
+     * values and whose cell in the range column lies between {@code low} and 
+     * {@code high}, both inclusive. A {@code null} bound leaves the range open 
+     * on its side, and the rows with a null cell in the range column are 
+     * never returned. The rows are ordered by their cell in the range column 
+     * and then by their natural order. Uses a composite index whose leading 
+     * columns are the prefix columns followed by the range column if there is 
+     * one, and scans and sorts otherwise.
+     * 
+     * @param prefixColumns the columns whose values are fixed.
+     * @param prefixValues  the values of the prefix columns.
+     * @param rangeColumn   the column whose values are restricted to a range.
+     * @param low           the lower bound, or {@code null}.
+     * @param high          the upper bound, or {@code null}.
+     * @return the list of matching rows.
+     * 
+     * @throws IllegalArgumentException if a column is not in this table, a 
+     *                                  value is of wrong type, the number of 
+     *                                  prefix values differs from the number 
+     *                                  of prefix columns or the range column 
+     *                                  is binary.
+     */
+    public List<TableRow> rangeScan(TableColumnDescriptor[] prefixColumns,
+                                    Object[] prefixValues,
+                                    TableColumnDescriptor rangeColumn,
+                                    Object low,
+                                    Object high) {
+        long stamp = lockForReading();
+        
+        try {
+            TableColumnDescriptor[] tableColumnDescriptors = 
+                    Arrays.copyOf(prefixColumns, prefixColumns.length + 1);
+            tableColumnDescriptors[prefixColumns.length] = rangeColumn;
+            int[] columnIndices = getColumnIndices(tableColumnDescriptors);
+            int rangeColumnIndex = columnIndices[prefixColumns.length];
+            
+            if (prefixValues.length != prefixColumns.length) {
+                throw new IllegalArgumentException(
+                        "Expected " + prefixColumns.length + 
+                        " prefix values, " + prefixValues.length + 
+                        " received.");
+            }
+            
+            for (int i = 0; i < prefixValues.length; ++i) {
+                checkValueType(prefixValues[i], prefixColumns[i]);
+            }
+            
+            checkValueType(low, rangeColumn);
+            checkValueType(high, rangeColumn);
+            
+            if (rangeColumn.getTableCellType() == TableCellType.TYPE_BINARY) {
+                throw new IllegalArgumentException(
+                        "Binary columns have no natural order.");
+            }
+            
+            TableTreeIndex tableTreeIndex = 
+                    getCompositeIndexByPrefix(columnIndices);
+            
+            if (tableTreeIndex != null) {
+                int[] rows = tableTreeIndex.scanPrefix(prefixValues, 
+                                                       true, 
+                                                       low, 
+                                                       high);
+                
+                if (tableTreeIndex.columnIndices.length 
+                        > columnIndices.length) {
+                    // The columns after the range column interfere with the 
+                    // order:
+                    Arrays.sort(rows);
+                    rows = sortByCellValue(rows, rangeColumnIndex);
+                }
+                
+                return getTableRows(rows);
+            }
+            
+            int[] prefixColumnIndices = 
+                    Arrays.copyOf(columnIndices, prefixColumns.length);
+            List<Integer> rowList = new ArrayList<>();
+            
+            for (int row = 0; row < getNumberOfRows(); ++row) {
+                Comparable<Object> value = 
+                        getComparableCellValue(row, rangeColumnIndex);
+                
+                if (value != null 
+                        && (low == null || value.compareTo(low) >= 0)
+                        && (high == null || value.compareTo(high) <= 0)
+                        && cellsEqual(row, prefixColumnIndices, prefixValues)) {
+                    rowList.add(row);
+                }
+            }
+            
+            return getTableRows(
+                    sortByCellValue(
+                            rowList.stream()
+                                   .mapToInt(Integer::intValue)
+                                   .toArray(),
+                            rangeColumnIndex));
+        } finally {
+            unlockForReading(stamp);
+        }
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (o == null) {
+            return false;
+        }
+        
+        if (o == this) {
+            return true;
+        }
+        
+        if (!getClass().equals(o.getClass())) {
+            return false;
+        }
+        
+        Table other = (Table) o;
+        long[] stamps = lockForReading(this, other);
+        
+        try {
+            if (!tableColumnDescriptorList.equals(
+                    other.tableColumnDescriptorList)) {
+                return false;
+            }
+            
+            if (getNumberOfRows() != other.getNumberOfRows()) {
+                return false;
+            }
+            
+            for (int i = 0; i < getNumberOfRows(); ++i) {
+                if (!getTableRow(i).equals(other.getTableRow(i))) {
+                    return false;
+                }
+            }
+            
+            return true;
+        } finally {
+            unlockForReading(this, other, stamps);
+        }
+    }
+    
+    /**
+     * Chooses the codec for writing the rows of this table into a single 
+     * buffer, and encodes the data of the table block with it right away 
+     * unless the data consists of uncompressed rows. The codec of the lazily 
+     * loaded rows is kept as long as it is of the current format, so that 
+     * the rows not decoded yet are copied verbatim. Otherwise, the string 
+     * columns are scanned for the ones worth a dictionary.
+     * 
+     * @return the codec.
+     */
+    TableRowCodec createTableRowCodec() {
+        TableRowCodec tableRowCodec = chooseTableRowCodec();
+        
+        if (!tableRowCodec.encodesData()) {
+            return tableRowCodec;
+        }
+        
+        HeapBlockWriter heapBlockWriter = new HeapBlockWriter(tableName);
+        
+        try {
+            serializeData(heapBlockWriter, tableRowCodec);
+        } catch (IOException ex) {
+            // Cannot happen, since the data is written to the heap:
+            throw new UncheckedIOException(ex);
+        }
+        
+        return tableRowCodec.withEncodedData(heapBlockWriter.getData());
+    }
+    
+    private TableRowCodec chooseTableRowCodec() {
+        if (lazyTableRowSource != null 
+                && lazyTableRowSource.getTableRowCodec().isCurrent()) {
+            return lazyTableRowSource.getTableRowCodec()
+                                     .withTableCompressionCodec(
+                                             tableCompressionCodec);
+        }
+        
+        if (tableStorageMode == TableStorageMode.COLUMNAR) {
+            TableRowCodec.Builder builder = 
+                    new TableRowCodec.Builder(tableColumnDescriptorList,
+                                              TableRowCodec.COLUMN_LAYOUT);
+            
+            for (int column : builder.getStringColumns()) {
+                TableColumnStorage tableColumnStorage = 
+                        tableColumnStorageList.get(column);
+                
+                for (int row = 0; row < numberOfColumnarRows; ++row) {
+                    builder.add(column, tableColumnStorage.get(row));
+                }
+            }
+            
+            return builder.build()
+                          .withTableCompressionCodec(tableCompressionCodec);
+        }
+        
+        TableRowCodec.Builder builder = 
+                new TableRowCodec.Builder(tableColumnDescriptorList);
+        
+        if (builder.getStringColumns().length > 0) {
+            for (int row = 0; row < tableRowList.size(); ++row) {
+                TableRow tableRow = tableRowList.get(row);
+                builder.addTableRow(tableRow != null ? 
+                        tableRow : 
+                        lazyTableRowSource.decodeTableRow(row));
+            }
+        }
+        
+        return builder.build()
+                      .withTableCompressionCodec(tableCompressionCodec);
+    }
+    
+    int getSerializationLength() {
+        return getSerializationLength(createTableRowCodec());
+    }
+    
+    int getSerializationLength(TableRowCodec tableRowCodec) {
+        long serializationLength = 
+                getHeaderSerializationLength(tableRowCodec);
+        ByteBuffer encodedData = tableRowCodec.getEncodedData();
+        
+        if (encodedData != null) {
+            serializationLength += encodedData.remaining();
+        } else {
+            for (int row = 0; row < getNumberOfRows(); ++row) {
+                serializationLength += 
+                        getRowSerializationLength(tableRowCodec, row);
+            }
+        }
+        
+        try {
+            return Math.toIntExact(serializationLength);
+        } catch (ArithmeticException ex) {
+            throw createTooLargeException(tableName, serializationLength);
+        }
+    }
+    
+    /**
+     * Creates the exception telling that a table does not fit in a single 
+     * buffer.
+     * 
+     * @param tableName           the name of the table.
+     * @param serializationLength the length of the table in bytes, or a 
+     *                            lower bound of it.
+     * @return the exception.
+     */
+    private static IllegalStateException createTooLargeException(
+            String tableName,
+            long serializationLength) {
+        return new IllegalStateException(
+                "The table \"" + tableName + "\" is too large (" + 
+                serializationLength + " bytes) to be serialized into a " + 
+                "single buffer. Use save(File) instead.");
+    }
+    
+    /**
+     * Serializes this table into a new buffer. The codec is created only 
+     * once for computing the length and writing the table, so the data is 
+     * encoded only once.
+     * 
+     * @return a little-endian buffer holding the serialized table from 
+     *         position zero to its limit.
+     */
+    ByteBuffer serialize() {
+        TableRowCodec tableRowCodec = createTableRowCodec();
+        ByteBuffer byteBuffer = 
+                ByteBuffer.allocate(getSerializationLength(tableRowCodec))
+                          .order(ByteOrder.LITTLE_ENDIAN);
+        serialize(byteBuffer, tableRowCodec);
+        byteBuffer.flip();
+        return byteBuffer;
+    }
+    
+    void serialize(ByteBuffer byteBuffer, TableRowCodec tableRowCodec) {
+        serializeHeader(byteBuffer, tableRowCodec);
+        ByteBuffer encodedData = tableRowCodec.getEncodedData();
+        
+        if (encodedData != null) {
+            byteBuffer.put(encodedData);
+            return;
+        }
+        
+        for (int row = 0; row < getNumberOfRows(); ++row) {
+            serializeRow(byteBuffer, tableRowCodec, row);
+        }
+    }
+    
+    /**
+     * Serializes this table through the given writer one row or one column 
+     * block at a time, so that the entire table never needs to reside in a 
+     * single buffer.
+     * 
+     * @param bufferedChannelWriter the writer to write to.
+     * @throws IOException if writing fails.
+     */
+    void serialize(BufferedChannelWriter bufferedChannelWriter) 
+            throws IOException {
+        TableRowCodec tableRowCodec = chooseTableRowCodec();
+        serializeHeader(bufferedChannelWriter.getBuffer(
+                getHeaderSerializationLength(tableRowCodec)), 
+                tableRowCodec);
+        serializeData(bufferedChannelWriter, tableRowCodec);
+    }
+    
+    /**
+     * Writes the data of the table block, that is, everything after the 
+     * header, compressing it if the codec says so.
+     * 
+     * @param tableBlockWriter the target.
+     * @param tableRowCodec    the codec.
+     * @throws IOException if writing fails.
+     */
+    private void serializeData(TableBlockWriter tableBlockWriter, 
+                               TableRowCodec tableRowCodec) 
+            throws IOException {
+        TableCompressionCodec tableCompressionCodec = 
+                tableRowCodec.getTableCompressionCodec();
+        
+        if (tableCompressionCodec == null) {
+            serializeUncompressedData(tableBlockWriter, tableRowCodec);
+            return;
+        }
+        
+        TableCompression.FrameWriter frameWriter = 
+                new TableCompression.FrameWriter(tableCompressionCodec, 
+                                                 tableBlockWriter);
+        serializeUncompressedData(frameWriter, tableRowCodec);
+        frameWriter.finish();
+    }
+    
+    private void serializeUncompressedData(TableBlockWriter tableBlockWriter,
+                                           TableRowCodec tableRowCodec) 
+            throws IOException {
+        if (tableRowCodec.getLayout() == TableRowCodec.COLUMN_LAYOUT) {
+            TableColumnCodec.encode(tableRowCodec, 
+                                    tableColumnStorageList, 
+                                    numberOfColumnarRows, 
+                                    tableBlockWriter);
+            return;
+        }
+        
+        for (int row = 0; row < getNumberOfRows(); ++row) {
+            serializeRow(tableBlockWriter.getBuffer(
+                    getRowSerializationLength(tableRowCodec, row)), 
+                    tableRowCodec, 
+                    row);
+        }
+    }
+    
+    private int getHeaderSerializationLength(TableRowCodec tableRowCodec) {
+        return getHeaderSerializationLength(tableName, 
+                                            tableColumnDescriptorList,
+                                            tableRowCodec);
+    }
+    
+    private int getRowSerializationLength(TableRowCodec tableRowCodec, 
+                                          int row) {
+        TableRow tableRow = tableRowList.get(row);
+        
+        if (tableRow == null) {
+            if (lazyTableRowSource.getTableRowCodec()
+                                  .encodesRowsAs(tableRowCodec)) {
+                return lazyTableRowSource.getRowSerializationLength(row);
+            }
+            
+            tableRow = lazyTableRowSource.decodeTableRow(row);
+        }
+        
+        return tableRowCodec.getTableRowSerializationLength(tableRow);
+    }
+    
+    private void serializeHeader(ByteBuffer byteBuffer, 
+                                 TableRowCodec tableRowCodec) {
+        serializeHeader(byteBuffer, 
+                        tableName, 
+                        tableColumnDescriptorList, 
+                        getNumberOfRows(),
+                        tableRowCodec);
+    }
+    
+    /**
+     * Serializes the header of a table in the current format, that is, 
+     * everything that precedes the first row.
+     * 
+     * @param byteBuffer                the target buffer.
+     * @param tableName                 the name of the table.
+     * @param tableColumnDescriptorList the columns of the table.
+     * @param numberOfRows              the number of rows in the table.
+     * @param tableRowCodec             the codec of the rows.
+     */
+    static void serializeHeader(
+            ByteBuffer byteBuffer,
+            String tableName,
+            List<TableColumnDescriptor> tableColumnDescriptorList,
+            int numberOfRows,
+            TableRowCodec tableRowCodec) {
+        Utf8.serialize(byteBuffer, tableName);
+        
+        // Dump the number of columns:
+        byteBuffer.putInt(tableColumnDescriptorList.size());
+        
+        for (TableColumnDescriptor tableColumnDescriptor : 
+                tableColumnDescriptorList) {
+            tableColumnDescriptor.serializeCompact(byteBuffer);
+        }
+        
+        // Dump the number of rows:
+        byteBuffer.putInt(numberOfRows);
+        tableRowCodec.serialize(byteBuffer);
+    }
+    
+    private void serializeRow(ByteBuffer byteBuffer, 
+                              TableRowCodec tableRowCodec, 
+                              int row) {
+        TableRow tableRow = tableRowList.get(row);
+        
+        if (tableRow == null) {
+            if (lazyTableRowSource.getTableRowCodec()
+                                  .encodesRowsAs(tableRowCodec)) {
+                // Not decoded yet, so copy the row bytes as is:
+                lazyTableRowSource.copyTableRow(byteBuffer, row);
+                return;
+            }
+            
+            tableRow = lazyTableRowSource.decodeTableRow(row);
+        }
+        
+        tableRowCodec.serializeTableRow(byteBuffer, tableRow);
+    }
+    
+    static Table deserialize(ByteBuffer byteBuffer) {
+        return deserialize(byteBuffer, DatabaseFileFormat.FORMAT_VERSION);
+    }
+    
+    /**
+     * Deserializes a table written in the given format version. On return, 
+     * the position of {@code byteBuffer} points past the serialized table.
+     * 
+     * @param byteBuffer    the byte buffer holding the serialized table.
+     * @param formatVersion the format version of the table.
+     * @return the table.
+     */
+    static Table deserialize(ByteBuffer byteBuffer, int formatVersion) {
+        Table table = deserializeHeader(byteBuffer, formatVersion);
+        int numberOfRows = byteBuffer.getInt();
+        TableRowCodec tableRowCodec = 
+                TableRowCodec.deserialize(byteBuffer, 
+                                          table.tableColumnDescriptorList, 
+                                          formatVersion);
+        TableCompressionCodec tableCompressionCodec = 
+                tableRowCodec.getTableCompressionCodec();
+        ByteBuffer dataBuffer = byteBuffer;
+        
+        if (tableCompressionCodec != null) {
+            table.tableCompressionCodec = tableCompressionCodec;
+            dataBuffer = TableCompression.decompress(
+                    byteBuffer, 
+                    tableRowCodec,
+                    tableRowCodec.getLayout() == TableRowCodec.ROW_LAYOUT ? 
+                            numberOfRows : 
+                            0);
+        }
+        
+        if (tableRowCodec.getLayout() == TableRowCodec.COLUMN_LAYOUT) {
+            table.loadTableColumnStorages(dataBuffer, 
+                                          tableRowCodec, 
+                                          numberOfRows);
+            return table;
+        }
+        
+        table.tableRowList.ensureCapacity(numberOfRows);
+        
+        for (int i = 0; i < numberOfRows; ++i) {
+            table.addRow(tableRowCodec.deserializeTableRow(dataBuffer));
+        }
+        
+        return table;
+    }
+    
+    /**
+     * Deserializes only the header of a table in the original format. The 
+     * rows are decoded directly from {@code byteBuffer} when they are accessed
+     * for the first time, so the buffer must not change for as long as the 
+     * table has rows not yet decoded. On return, the position of 
+     * {@code byteBuffer} points past the serialized table.
+     * 
+     * @param byteBuffer the byte buffer holding the serialized table.
+     * @return a table with lazily decoded rows.
+     */
+    static Table deserializeLazily(ByteBuffer byteBuffer) {
+        Table table = deserializeLazily(byteBuffer, 1);
+        byteBuffer.position(byteBuffer.position() + 
+                            table.lazyTableRowSource.getSerializationLength());
+        return table;
+    }
+    
+    /**
+     * Deserializes only the header of a table written in the given format 
+     * version. The rows are decoded directly from {@code byteBuffer} when 
+     * they are accessed for the first time, so the buffer must not change for
+     * as long as the table has rows not yet decoded. On return, the position 
+     * of {@code byteBuffer} points to the first serialized row. The tables 
+     * written in the column layout are decoded right away.
+     * 
+     * @param byteBuffer    the byte buffer holding the serialized table.
+     * @param formatVersion the format version of the table.
+     * @return a table with lazily decoded rows.
+     */
+    static Table deserializeLazily(ByteBuffer byteBuffer, int formatVersion) {
+        Table table = deserializeHeader(byteBuffer, formatVersion);
+        int numberOfRows = byteBuffer.getInt();
+        TableRowCodec tableRowCodec = 
+                TableRowCodec.deserialize(byteBuffer, 
+                                          table.tableColumnDescriptorList, 
+                                          formatVersion);
+        TableCompressionCodec tableCompressionCodec = 
+                tableRowCodec.getTableCompressionCodec();
+        table.tableCompressionCodec = tableCompressionCodec;
+        
+        if (tableRowCodec.getLayout() == TableRowCodec.COLUMN_LAYOUT) {
+            table.loadTableColumnStorages(
+                    tableCompressionCodec == null ?
+                            byteBuffer :
+                            TableCompression.decompress(byteBuffer, 
+                                                        tableRowCodec, 
+                                                        0), 
+                    tableRowCodec, 
+                    numberOfRows);
+            return table;
+        }
+        
+        // The frames of a compressed table are decompressed on demand:
+        table.attachLazyTableRowSource(byteBuffer, 
+                                       tableRowCodec, 
+                                       numberOfRows);
+        return table;
+    }
+    
+    /**
+     * Returns the number of bytes the header of a table serialized in the 
+     * current format occupies, that is, everything that precedes the first 
+     * row.
+     * 
+     * @param tableName                 the name of the table.
+     * @param tableColumnDescriptorList the columns of the table.
+     * @param tableRowCodec             the codec of the rows.
+     * @return the length of the table header in bytes.
+     */
+    static int getHeaderSerializationLength(
+            String tableName,
+            List<TableColumnDescriptor> tableColumnDescriptorList,
+            TableRowCodec tableRowCodec) {
+        int serializationLength = Utf8.getSerializationLength(tableName) 
+                                + 2 * SIZE_BYTES 
+                                + tableRowCodec.getSerializationLength();
+        
+        for (TableColumnDescriptor tableColumnDescriptor : 
+                tableColumnDescriptorList) {
+            serializationLength += 
+                    tableColumnDescriptor.getCompactSerializationLength();
+        }
+        
+        return serializationLength;
+    }
+    
+    /**
+     * Deserializes the table name and the columns. Up to format version 4, 
+     * the strings take two bytes per character.
+     */
+    private static Table deserializeHeader(ByteBuffer byteBuffer, 
+                                           int formatVersion) {
+        String tableName;
+        
+        if (formatVersion >= 5) {
+            tableName = Utf8.deserialize(byteBuffer);
+        } else {
+            int tableNameLength = byteBuffer.getInt();
+            StringBuilder sb = new StringBuilder(tableNameLength);
+            
+            for (int i = 0; i < tableNameLength; ++i) {
+                sb.append(byteBuffer.getChar());
+            }
+            
+            tableName = sb.toString();
+        }
+        
+        int numberOfColumns = byteBuffer.getInt();
+        Table table = new Table(tableName);
+        
+        for (int i = 0; i < numberOfColumns; ++i) {
+            TableColumnDescriptor tableColumnDescriptor =
+                    formatVersion >= 5 ? 
+                    TableColumnDescriptor.deserializeCompact(byteBuffer) :
+                    TableColumnDescriptor.deserialize(byteBuffer);
+            
+            table.addTableColumnDescriptor(tableColumnDescriptor);
+        }
+        
+        return table;
+    }
+    
+    void onTableColumnRename(TableColumnDescriptor tableColumn, 
+                             String oldTableColumnName, 
+                             String newTableColumnName) {
+        int index = tableColumnDescriptorList.indexOf(tableColumn);
+        
+        if (index < 0) {
+            throw new IllegalStateException(
+                    "Trying to update a column that is not in this table.");
+        }
+    }
+    
+    /**
+     * Takes a snapshot of this table. Until the snapshot is released, this 
+     * table preserves the data it modifies for the snapshot. Must be called 
+     * by the thread modifying this table or, in the concurrent mode, while 
+     * this table is locked for reading.
+     * 
+     * @return the snapshot.
+     */
+    TableSnapshot createTableSnapshot() {
+        TableSnapshot tableSnapshot = new TableSnapshot(this, 
+                                                        tableRowList, 
+                                                        lazyTableRowSource,
+                                                        tableColumnStorageList, 
+                                                        getNumberOfRows());
+        tableSnapshotList.add(tableSnapshot);
+        return tableSnapshot;
+    }
+    
+    /**
+     * Captures the entries of the persistent tree indices of this table.
+     * 
+     * @return the list of tree index images.
+     */
+    List<TableTreeIndex.Image> createTreeIndexImages() {
+        List<TableTreeIndex.Image> imageList = new ArrayList<>();
+        
+        for (TableIndex tableIndex : tableIndexList) {
+            if (tableIndex instanceof TableTreeIndex
+                    && ((TableTreeIndex) tableIndex).isPersistent()) {
+                imageList.add(((TableTreeIndex) tableIndex).createImage());
+            }
+        }
+        
+        return imageList;
+    }
+    
+    /**
+     * Loads a persistent tree index of this table from its block in a 
+     * database file.
+     * 
+     * @param byteBuffer    the buffer holding the index block.
+     * @param columnIndex   the index of the indexed column.
+     * @param formatVersion the format version of the file.
+     */
+    void loadTreeIndex(ByteBuffer byteBuffer, 
+                       int columnIndex, 
+                       int formatVersion) {
+        if (columnIndex < 0 || columnIndex >= tableColumnDescriptorList.size()) {
+            throw new BadDataFormatException(
+                    "Invalid indexed column: " + columnIndex + ".");
+        }
+        
+        tableIndexList.add(
+                TableTreeIndex.deserialize(
+                        byteBuffer, 
+                        tableColumnDescriptorList.get(columnIndex)
+                                                 .getTableCellType(),
+                        columnIndex, 
+                        getNumberOfRows(),
+                        formatVersion));
+    }
+    
+    void releaseTableSnapshot(TableSnapshot tableSnapshot) {
+        tableSnapshotList.remove(tableSnapshot);
+    }
+    
+    /**
+     * Called before the given row of this table is modified.
+     * 
+     * @param tableRow the row about to be modified.
+     */
+    void onBeforeTableRowUpdate(TableRow tableRow) {
+        if (tableStorageMode == TableStorageMode.COLUMNAR) {
+            preserveTableColumnStoragesForTableSnapshot();
+            return;
+        }
+        
+        TableRow preimage = null;
+        
+        for (TableSnapshot tableSnapshot : tableSnapshotList) {
+            preimage = tableSnapshot.preserveTableRow(tableRow, preimage);
+        }
+    }
+    
+    /**
+     * Called by a table row whenever one of its cells is assigned a new value.
+     * 
+     * @param rowIndex    the index of the row.
+     * @param columnIndex the index of the column.
+     * @param tableCell   the updated table cell.
+     * @param oldValue    the value of the cell before the update.
+     */
+    void onTableCellUpdate(int rowIndex, 
+                           int columnIndex, 
+                           TableCell tableCell, 
+                           Object oldValue) {
+        for (TableIndex tableIndex : tableIndexList) {
+            if (!tableIndex.covers(columnIndex)) {
+                continue;
+            }
+            
+            Object oldKey = tableIndex.createKey((column) -> 
+                    column == columnIndex ? 
+                            oldValue : 
+                            getCellValue(rowIndex, column));
+            Object newKey = tableIndex.createKey((column) -> 
+                    getCellValue(rowIndex, column));
+            
+            if (oldKey != null) {
+                tableIndex.remove(oldKey, rowIndex);
+            }
+            
+            if (newKey != null) {
+                tableIndex.add(newKey, rowIndex);
+            }
+        }
+        
+        if (ownerDatabase != null) {
+            ownerDatabase.onTableCellUpdate(this, 
+                                            rowIndex, 
+                                            columnIndex, 
+                                            tableCell.getValue());
+        }
+    }
+    
+    /**
+     * Returns, in ascending order, the rows whose cell in the given column 
+     * lies between {@code low} and {@code high}, both inclusive, as told by an 
+     * index over the column, or {@code null} if there is no such index. A 
+     * {@code null} bound leaves the range open on its side. If the bounds are 
+     * equal, a hash index over the column is preferred.
+     * 
+     * @param columnIndex the index of the column.
+     * @param low         the lower bound, or {@code null}.
+     * @param high        the upper bound, or {@code null}.
+     * @return the rows, or {@code null} if no index applies.
+     */
+    int[] findIndexedRows(int columnIndex, Object low, Object high) {
+        if (low != null && low.equals(high)) {
+            TableHashIndex tableHashIndex = getTableHashIndex(columnIndex);
+            
+            if (tableHashIndex != null) {
+                return tableHashIndex.find(low);
+            }
+        }
+        
+        int[] rows;
+        TableTreeIndex tableTreeIndex = getTableTreeIndex(columnIndex);
+        
+        if (tableTreeIndex != null) {
+            rows = tableTreeIndex.scan(low, high);
+        } else {
+            tableTreeIndex = 
+                    getCompositeIndexByPrefix(new int[]{ columnIndex });
+            
+            if (tableTreeIndex == null) {
+                return null;
+            }
+            
+            rows = tableTreeIndex.scanPrefix(new Object[0], true, low, high);
+        }
+        
+        Arrays.sort(rows);
+        return rows;
+    }
+    
+    /**
+     * Returns the storage of the {@code columnIndex}th column. Used only in 
+     * the columnar storage mode.
+     * 
+     * @param columnIndex the index of the column.
+     * @return the column storage.
+     */
+    TableColumnStorage getTableColumnStorage(int columnIndex) {
+        return tableColumnStorageList.get(columnIndex);
+    }
+    
+    /**
+     * Runs the given reader optimistically in the concurrent mode, and simply 
+     * runs it otherwise.
+     * 
+     * @param <T>    the result type.
+     * @param reader the reader, which must not modify this table.
+     * @return the result of the reader.
+     * 
+     * @see OptimisticLock#read(Supplier)
+     */
+    <T> T readOptimistically(Supplier<T> reader) {
+        OptimisticLock optimisticLock = this.optimisticLock;
+        return optimisticLock == null ? 
+                reader.get() : 
+                optimisticLock.read(reader);
+    }
+    
+    /**
+     * Acquires the read lock of this table in the concurrent mode.
+     * 
+     * @return the stamp to pass to {@link #unlockForReading(long)}.
+     */
+    long lockForReading() {
+        OptimisticLock optimisticLock = this.optimisticLock;
+        return optimisticLock == null ? 0L : optimisticLock.readLock();
+    }
+    
+    void unlockForReading(long stamp) {
+        OptimisticLock optimisticLock = this.optimisticLock;
+        
+        if (optimisticLock != null) {
+            optimisticLock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Acquires the write lock of this table in the concurrent mode.
+     * 
+     * @return the stamp to pass to {@link #unlockForWriting(long)}.
+     */
+    long lockForWriting() {
+        OptimisticLock optimisticLock = this.optimisticLock;
+        return optimisticLock == null ? 0L : optimisticLock.writeLock();
+    }
+    
+    void unlockForWriting(long stamp) {
+        OptimisticLock optimisticLock = this.optimisticLock;
+        
+        if (optimisticLock != null) {
+            optimisticLock.unlockWrite(stamp);
+        }
     }
     
     /**
-     * Removes the {@code index}th row from this table.
+     * Returns the order in which the lock of this table is to be acquired 
+     * along with the locks of the other tables.
      * 
-     * @param index the index of the row to remove.
+     * @return the lock order.
      */
-    public void removeRow(int index) {
-        checkAccessIndex(index);
-        TableRow tableRow = tableRowList.remove(index);
-        tableRow.ownerTable = null;
+    long getLockOrder() {
+        OptimisticLock optimisticLock = this.optimisticLock;
+        return optimisticLock == null ? 0L : optimisticLock.order;
     }
     
     /**
-     * Returns the iterator that iterates over table rows in their natural
-     * order.
+     * Acquires the read locks of the given tables in the lock order.
      * 
-     * @return the row iterator.
+     * @param table1 the first table.
+     * @param table2 the second table, possibly the first one.
+     * @return the stamps of the tables.
      */
-    @Override
-    public Iterator<TableRow> iterator() {
-        return new Iterator(){
-            private final Iterator<TableRow> iterator = tableRowList.iterator();
+    static long[] lockForReading(Table table1, Table table2) {
+        long[] stamps = new long[2];
+        
+        if (table2.getLockOrder() < table1.getLockOrder()) {
+            stamps[1] = table2.lockForReading();
             
-            @Override
-            public boolean hasNext() {
-                return iterator.hasNext();
+            try {
+                stamps[0] = table1.lockForReading();
+            } catch (RuntimeException | Error ex) {
+                table2.unlockForReading(stamps[1]);
+                throw ex;
             }
-
-            @Override
-            public Object next() {
-                return iterator.next();
+        } else {
+            stamps[0] = table1.lockForReading();
+            
+            try {
+                stamps[1] = table2.lockForReading();
+            } catch (RuntimeException | Error ex) {
+                table1.unlockForReading(stamps[0]);
+                throw ex;
             }
-        };
+        }
+        
+        return stamps;
     }
     
-    public TableView createTableView(
-            TableColumnDescriptor... tableColumnDescriptors) {
-        checkViewTableColumnDescriptors(tableColumnDescriptors);
-        TableView tableView = 
-                new TableView(this, Arrays.asList(tableColumnDescriptors));
+    static void unlockForReading(Table table1, Table table2, long[] stamps) {
+        try {
+            table2.unlockForReading(stamps[1]);
+        } finally {
+            table1.unlockForReading(stamps[0]);
+        }
+    }
+    
+    private void attachLazyTableRowSource(ByteBuffer rowData, 
+                                          TableRowCodec tableRowCodec,
+                                          int numberOfRows) {
+        lazyTableRowSource = 
+                new LazyTableRowSource(rowData, tableRowCodec, numberOfRows);
         
-        return tableView;
+        tableRowList.addAll(Collections.nCopies(numberOfRows, null));
     }
     
     /**
-     * Appends the table column descriptor to this table. The current rows are 
-     * extended behind the scene.
-     * 
-     * @param tableColumnDescriptor the table column descriptor to append. 
+     * Turns this table, which has columns but no rows, into a columnar table 
+     * holding the columns encoded in the column layout.
      */
-    public void addTableColumnDescriptor(
-            TableColumnDescriptor tableColumnDescriptor) {
-        String newTableColumnDescriptorName = 
-                tableColumnDescriptor.getTableColumnName();
-        
-        if (tableColumnNameIndexMap.containsKey(newTableColumnDescriptorName)) {
-            throw new IllegalStateException(
-                    "The column with name \"" + newTableColumnDescriptorName +
-                            " is already in this table.");
-        }
-        
-        int index = tableColumnDescriptorList.size();
-        
-        Objects.requireNonNull(tableColumnDescriptor,
-                "The table column descriptor is null.");
-        
-        tableColumnDescriptorList.add(tableColumnDescriptor);
+    private void loadTableColumnStorages(ByteBuffer byteBuffer, 
+                                         TableRowCodec tableRowCodec, 
+                                         int numberOfRows) {
+        tableStorageMode = TableStorageMode.COLUMNAR;
+        tableColumnStorageList.clear();
         
-        for (TableRow tableRow : tableRowList) {
-            tableRow.add(new TableCell(
-                    tableColumnDescriptor.getTableCellType()));
+        for (int column = 0; 
+                column < tableColumnDescriptorList.size(); 
+                ++column) {
+            tableColumnStorageList.add(
+                    TableColumnCodec.decode(byteBuffer, 
+                                            tableRowCodec, 
+                                            column, 
+                                            numberOfRows));
         }
         
-        tableColumnNameIndexMap.put(tableColumnDescriptor.getTableColumnName(), 
-                                    index);
+        numberOfColumnarRows = numberOfRows;
     }
     
-    /**
-     * Returns the {@code columnIndex}th table column descriptor.
-     * 
-     * @param columnIndex the index of the column descriptor to return.
-     * @return the table column descriptor.
-     */
-    public TableColumnDescriptor getTableColumnDescriptor(int columnIndex) {
-        return tableColumnDescriptorList.get(columnIndex);
+    private TableRow loadTableRow(int index) {
+        TableRow tableRow = lazyTableRowSource.decodeTableRow(index);
+        tableRow.ownerTable = this;
+        tableRow.rowIndex = index;
+        tableRowList.set(index, tableRow);
+        return tableRow;
     }
     
     /**
-     * Returns the table column descriptor with the given name.
-     * 
-     * @param columnName the name of the column.
-     * 
-     * @return the table column descriptor with the name {@code columnName}.
-     * 
-     * @throws IllegalArgumentException if there is no column with the given 
-     *                                  name.
+     * Decodes all the rows not yet decoded and releases the lazy row source. 
+     * Must be called before any structural modification of this table.
      */
-    public TableColumnDescriptor getTableColumnDescriptor(String columnName) {
-        Integer index = tableColumnNameIndexMap.get(columnName);
+    void loadAllTableRows() {
+        if (lazyTableRowSource == null) {
+            return;
+        }
         
-        if (index == null) {
-            throw new IllegalArgumentException(
-                    "\"" + columnName + "\": no such column.");
+        for (int index = 0; index < tableRowList.size(); ++index) {
+            if (tableRowList.get(index) == null) {
+                loadTableRow(index);
+            }
         }
         
-        return tableColumnDescriptorList.get(index);
+        lazyTableRowSource = null;
     }
     
-    public boolean containsTableColumnDescriptor(String columnName) {
-        return tableColumnNameIndexMap.containsKey(columnName);
+    private void addRow(TableRow tableRow) {
+        tableRow.ownerTable = this;
+        tableRow.rowIndex = tableRowList.size();
+        tableRowList.add(tableRow);
     }
     
     /**
-     * Removes the {@code columnIndex}th column from this table.
-     * 
-     * @param columnIndex the index of the column to remove.
+     * Updates the row index of each row starting from {@code fromIndex}. Must 
+     * be called whenever rows are inserted or removed in the row-oriented 
+     * storage mode.
      * 
-     * @return the table column descriptor.
+     * @param fromIndex the index of the first row to update.
      */
-    public TableColumnDescriptor removeTableColumnDescriptor(int columnIndex) {
-        TableColumnDescriptor tableColumnDescriptor = 
-                tableColumnDescriptorList.remove(columnIndex);
+    private void renumberTableRows(int fromIndex) {
+        for (int index = fromIndex; index < tableRowList.size(); ++index) {
+            tableRowList.get(index).rowIndex = index;
+        }
+    }
+    
+    int getColumnIndex(String columnName) {
+        Integer columnIndex = tableColumnNameIndexMap.get(columnName);
         
-        for (TableRow tableRow : tableRowList) {
-            tableRow.remove(columnIndex);
+        if (columnIndex == null) {
+            throw new IllegalArgumentException(
+                    "\"" + columnName + "\": no such column.");
         }
         
-        return tableColumnDescriptor;
+        return columnIndex;
     }
     
-    /**
-     * Removes the table column with the given name.
-     * 
-     * @param columnName the name of the column to remove.
-     * 
-     * @return the table column descriptor.
-     */
-    public TableColumnDescriptor
-         removeTableColumnDescriptor(String columnName) {
-        Integer index = tableColumnNameIndexMap.get(columnName);
+    Object getCellValue(int row, int columnIndex) {
+        if (tableStorageMode == TableStorageMode.COLUMNAR) {
+            TableColumnStorage tableColumnStorage = 
+                    tableColumnStorageList.get(columnIndex);
+            
+            return tableColumnStorage.isNull(row) ? 
+                    null : 
+                    tableColumnStorage.get(row);
+        }
         
-        if (index == null) {
+        return getTableRow(row).get(columnIndex).getValue();
+    }
+    
+    private Object getExtremeValue(String columnName, boolean minimum) {
+        int columnIndex = getColumnIndex(columnName);
+        
+        if (tableColumnDescriptorList.get(columnIndex).getTableCellType() 
+                == TableCellType.TYPE_BINARY) {
             throw new IllegalArgumentException(
-                    columnName + ": no such column.");
+                    "Binary columns have no natural order.");
         }
         
-        for (TableRow tableRow : tableRowList) {
-            tableRow.remove(index);
+        TableTreeIndex tableTreeIndex = getTableTreeIndex(columnIndex);
+        
+        if (tableTreeIndex != null) {
+            return minimum ? 
+                    tableTreeIndex.getMinimumValue() : 
+                    tableTreeIndex.getMaximumValue();
         }
         
-        TableColumnDescriptor tableColumnDescriptor = 
-                tableColumnDescriptorList.get(index);
+        Comparable<Object> extremeValue = null;
         
-        tableColumnDescriptorList.remove(tableColumnDescriptor);
-        tableColumnNameIndexMap.clear();
+        for (int row = 0; row < getNumberOfRows(); ++row) {
+            Comparable<Object> value = getComparableCellValue(row, columnIndex);
+            
+            if (value != null && (extremeValue == null 
+                    || (minimum ? 
+                            value.compareTo(extremeValue) < 0 : 
+                            value.compareTo(extremeValue) > 0))) {
+                extremeValue = value;
+            }
+        }
         
-        // Remap the column index map:
-        int columnIndex = 0;
+        return extremeValue;
+    }
+    
+    @SuppressWarnings("unchecked")
+    Comparable<Object> getComparableCellValue(int row, int columnIndex) {
+        return (Comparable<Object>) getCellValue(row, columnIndex);
+    }
+    
+    private int[] getColumnIndices(String[] columnNames) {
+        Objects.requireNonNull(columnNames, "The column names are null.");
+        int[] columnIndices = new int[columnNames.length];
         
-        for (TableColumnDescriptor tcd
-                : tableColumnDescriptorList) {
-            tableColumnNameIndexMap.put(tcd.getTableColumnName(), 
-                                        columnIndex++);
+        for (int i = 0; i < columnIndices.length; ++i) {
+            columnIndices[i] = getColumnIndex(columnNames[i]);
         }
         
-        return tableColumnDescriptor;
+        return columnIndices;
     }
     
-    @Override
-    public boolean equals(Object o) {
-        if (o == null) {
-            return false;
-        }
+    private int[] getColumnIndices(
+            TableColumnDescriptor[] tableColumnDescriptors) {
+        Objects.requireNonNull(tableColumnDescriptors, 
+                               "The table column descriptors are null.");
+        int[] columnIndices = new int[tableColumnDescriptors.length];
         
-        if (o == this) {
-            return true;
+        for (int i = 0; i < columnIndices.length; ++i) {
+            Objects.requireNonNull(tableColumnDescriptors[i], 
+                                   "The table column descriptor is null.");
+            columnIndices[i] = 
+                    tableColumnDescriptorList.indexOf(
+                            tableColumnDescriptors[i]);
+            
+            if (columnIndices[i] < 0) {
+                throw new IllegalArgumentException(
+                        "The table column descriptor is not in this table.");
+            }
         }
         
-        if (!getClass().equals(o.getClass())) {
-            return false;
+        return columnIndices;
+    }
+    
+    private boolean cellsEqual(int row, int[] columnIndices, Object[] values) {
+        for (int i = 0; i < columnIndices.length; ++i) {
+            if (!valuesEqual(getCellValue(row, columnIndices[i]), values[i])) {
+                return false;
+            }
         }
         
-        Table other = (Table) o;
+        return true;
+    }
+    
+    private static boolean valuesEqual(Object value1, Object value2) {
+        return value1 instanceof byte[] && value2 instanceof byte[] ?
+                Arrays.equals((byte[]) value1, (byte[]) value2) :
+                Objects.equals(value1, value2);
+    }
+    
+    private List<TableRow> getTableRows(int[] rows) {
+        List<TableRow> tableRowList = new ArrayList<>(rows.length);
         
-        if (!tableColumnDescriptorList.equals(other.tableColumnDescriptorList)) {
-            return false;
+        for (int row : rows) {
+            tableRowList.add(getTableRow(row));
         }
         
-        return tableRowList.equals(other.tableRowList);
+        return tableRowList;
     }
     
-    int getSerializationLength() {
-        int serializationLength = SIZE_BYTES + 
-                Character.BYTES * tableName.length() + 2 * SIZE_BYTES;
+    /**
+     * Stably sorts the given rows by their non-null cells in the given column.
+     */
+    private int[] sortByCellValue(int[] rows, int columnIndex) {
+        Integer[] sortedRows = new Integer[rows.length];
         
-        for (TableColumnDescriptor tableColumnDescriptor : 
-                tableColumnDescriptorList) {
-            serializationLength += 
-                    tableColumnDescriptor.getSerializationLength();
+        for (int i = 0; i < rows.length; ++i) {
+            sortedRows[i] = rows[i];
         }
         
-        for (TableRow tableRow : tableRowList) {
-            serializationLength += tableRow.getSerializationLength();
+        Arrays.sort(sortedRows, (row1, row2) -> 
+                getComparableCellValue(row1, columnIndex)
+                        .compareTo(getCellValue(row2, columnIndex)));
+        
+        for (int i = 0; i < rows.length; ++i) {
+            rows[i] = sortedRows[i];
         }
         
-        return serializationLength;
+        return rows;
     }
     
-    void serialize(ByteBuffer byteBuffer) {
-        int tableNameLength = tableName.length();
-        // Dump the length of the table length:
-        byteBuffer.putInt(tableNameLength);
-        
-        // Dump the actual name of the table:
-        for (char c : tableName.toCharArray()) {
-            byteBuffer.putChar(c);
+    private TableTreeIndex getCompositeIndex(int[] columnIndices) {
+        for (TableIndex tableIndex : tableIndexList) {
+            if (tableIndex.columnIndices.length > 1 
+                    && Arrays.equals(tableIndex.columnIndices, columnIndices)) {
+                return (TableTreeIndex) tableIndex;
+            }
         }
         
-        // Dump the number of columns:
-        byteBuffer.putInt(tableColumnDescriptorList.size());
+        return null;
+    }
+    
+    /**
+     * Returns a composite index whose leading columns are the given ones, 
+     * preferring the shortest one, or {@code null} if there is none.
+     */
+    private TableTreeIndex getCompositeIndexByPrefix(int[] columnIndices) {
+        TableTreeIndex best = null;
         
-        for (TableColumnDescriptor tableColumnDescriptor : 
-                tableColumnDescriptorList) {
-            tableColumnDescriptor.serialize(byteBuffer);
+        for (TableIndex tableIndex : tableIndexList) {
+            int[] indexedColumnIndices = tableIndex.columnIndices;
+            
+            if (indexedColumnIndices.length > 1 
+                    && indexedColumnIndices.length >= columnIndices.length
+                    && Arrays.equals(
+                            Arrays.copyOf(indexedColumnIndices, 
+                                          columnIndices.length), 
+                            columnIndices)
+                    && (best == null || indexedColumnIndices.length 
+                                        < best.columnIndices.length)) {
+                best = (TableTreeIndex) tableIndex;
+            }
         }
         
-        // Dump the number of rows:
-        byteBuffer.putInt(tableRowList.size());
+        return best;
+    }
+    
+    TableHashIndex getTableHashIndex(int columnIndex) {
+        return getTableIndex(TableHashIndex.class, columnIndex);
+    }
+    
+    TableTreeIndex getTableTreeIndex(int columnIndex) {
+        return getTableIndex(TableTreeIndex.class, columnIndex);
+    }
+    
+    private <T extends TableIndex> T getTableIndex(Class<T> indexClass, 
+                                                   int columnIndex) {
+        for (TableIndex tableIndex : tableIndexList) {
+            if (tableIndex.isOver(columnIndex) 
+                    && indexClass.isInstance(tableIndex)) {
+                return indexClass.cast(tableIndex);
+            }
+        }
         
-        for (TableRow tableRow : tableRowList) {
-            tableRow.serialize(byteBuffer);
+        return null;
+    }
+    
+    /**
+     * Indexes the row just inserted at {@code index}, shifting the indices of 
+     * the rows after it.
+     */
+    private void updateIndicesOnInsert(int index, Object[] values) {
+        boolean appended = index == getNumberOfRows() - 1;
+        
+        for (TableIndex tableIndex : tableIndexList) {
+            if (!appended) {
+                tableIndex.shiftRows(index, 1);
+            }
+            
+            Object key = tableIndex.createKey((column) -> 
+                    column < values.length ? values[column] : null);
+            
+            if (key != null) {
+                tableIndex.add(key, index);
+            }
         }
     }
     
-    static Table deserialize(ByteBuffer byteBuffer) {
-        int tableNameLength = byteBuffer.getInt();
-        StringBuilder sb = new StringBuilder(tableNameLength);
+    /**
+     * Indexes the given number of rows just appended to this table.
+     */
+    private void updateIndicesOnAppend(int firstRow, int numberOfRows) {
+        for (TableIndex tableIndex : tableIndexList) {
+            for (int row = firstRow; row < firstRow + numberOfRows; ++row) {
+                int currentRow = row;
+                Object key = tableIndex.createKey((column) -> 
+                        getCellValue(currentRow, column));
+                
+                if (key != null) {
+                    tableIndex.add(key, row);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Logs the given number of rows just appended to this table as a single 
+     * batch, unless they belong to a transaction being committed.
+     */
+    private void logAppendedTableRows(int firstRow, int numberOfRows) {
+        WriteAheadLog.Batch batch = 
+                logBatch != null ? logBatch : ownerDatabase.createLogBatch();
         
-        for (int i = 0; i < tableNameLength; ++i) {
-            sb.append(byteBuffer.getChar());
+        if (batch == null) {
+            return;
         }
         
-        int numberOfColumns = byteBuffer.getInt();
-        Table table = new Table(sb.toString());
+        WriteAheadLog.Batch transactionBatch = logBatch;
+        logBatch = batch;
         
-        for (int i = 0; i < numberOfColumns; ++i) {
-            TableColumnDescriptor tableColumnDescriptor =
-                    TableColumnDescriptor.deserialize(byteBuffer);
+        try {
+            for (int row = firstRow; row < firstRow + numberOfRows; ++row) {
+                ownerDatabase.onTableRowInsert(this, row, fetchTableRow(row));
+            }
+        } finally {
+            logBatch = transactionBatch;
+        }
+        
+        if (transactionBatch == null) {
+            ownerDatabase.logBatch(batch);
+        }
+    }
+    
+    /**
+     * Unindexes the row about to be removed from {@code index}, shifting the 
+     * indices of the rows after it.
+     */
+    private void updateIndicesOnRemove(int index) {
+        boolean last = index == getNumberOfRows() - 1;
+        
+        for (TableIndex tableIndex : tableIndexList) {
+            Object key = tableIndex.createKey((column) -> 
+                    getCellValue(index, column));
             
-            table.addTableColumnDescriptor(tableColumnDescriptor);
+            if (key != null) {
+                tableIndex.remove(key, index);
+            }
+            
+            if (!last) {
+                tableIndex.shiftRows(index + 1, -1);
+            }
         }
+    }
+    
+    private void updateIndicesOnColumnRemove(int columnIndex) {
+        Iterator<TableIndex> iterator = tableIndexList.iterator();
         
-        int numberOfRows = byteBuffer.getInt();
+        while (iterator.hasNext()) {
+            TableIndex tableIndex = iterator.next();
+            
+            if (tableIndex.covers(columnIndex)) {
+                iterator.remove();
+            } else {
+                tableIndex.onColumnRemove(columnIndex);
+            }
+        }
+    }
+    
+    private void preserveTableColumnStoragesForTableSnapshot() {
+        TableColumnStorage[] copies = null;
         
-        for (int i = 0; i < numberOfRows; ++i) {
-            TableRow tableRow = TableRow.deserialize(byteBuffer,
-                                                     numberOfColumns);
-            table.addRow(tableRow);
+        for (TableSnapshot tableSnapshot : tableSnapshotList) {
+            copies = tableSnapshot.preserveTableColumnStorages(copies);
+        }
+    }
+    
+    private void preserveAllForTableSnapshot() {
+        for (TableSnapshot tableSnapshot : tableSnapshotList) {
+            tableSnapshot.preserveAll();
+        }
+    }
+    
+    private TableRow putColumnarTableRowAt(int index, Object[] values) {
+        preserveTableColumnStoragesForTableSnapshot();
+        
+        for (int i = 0; i < tableColumnStorageList.size(); ++i) {
+            tableColumnStorageList.get(i)
+                                  .insert(index, 
+                                          i < values.length ? values[i] : null);
         }
         
-        return table;
+        ++numberOfColumnarRows;
+        return new ColumnarTableRow(this, index);
     }
     
-    void onTableColumnRename(TableColumnDescriptor tableColumn, 
-                             String oldTableColumnName, 
-                             String newTableColumnName) {
-        int index = tableColumnDescriptorList.indexOf(tableColumn);
+    private void convertToColumnar() {
+        int numberOfRows = tableRowList.size();
         
-        if (index < 0) {
-            throw new IllegalStateException(
-                    "Trying to update a column that is not in this table.");
+        for (TableColumnDescriptor tableColumnDescriptor 
+                : tableColumnDescriptorList) {
+            tableColumnStorageList.add(
+                    TableColumnStorage.create(
+                            tableColumnDescriptor.getTableCellType(),
+                            numberOfRows));
+        }
+        
+        for (TableRow tableRow : tableRowList) {
+            for (int i = 0; i < tableColumnStorageList.size(); ++i) {
+                tableColumnStorageList.get(i)
+                                      .append(tableRow.get(i).getValue());
+            }
+            
+            tableRow.ownerTable = null;
         }
+        
+        tableRowList.clear();
+        numberOfColumnarRows = numberOfRows;
     }
     
-    private void addRow(TableRow tableRow) {
-        tableRow.ownerTable = this;
-        tableRowList.add(tableRow);
+    private void convertToRowOriented() {
+        for (int row = 0; row < numberOfColumnarRows; ++row) {
+            TableRow tableRow = new TableRow(this);
+            
+            for (TableColumnStorage tableColumnStorage 
+                    : tableColumnStorageList) {
+                TableCell tableCell = 
+                        new TableCell(tableColumnStorage.getTableCellType());
+                
+                if (!tableColumnStorage.isNull(row)) {
+                    tableCell.setValue(tableColumnStorage.get(row));
+                }
+                
+                tableRow.add(tableCell);
+            }
+            
+            tableRow.rowIndex = row;
+            tableRowList.add(tableRow);
+        }
+        
+        tableColumnStorageList.clear();
+        numberOfColumnarRows = 0;
     }
 
     private void checkInsertionIndex(int index) {
@@ -501,10 +3226,10 @@ public final class Table implements Iterable<TableRow> {
                     "negative: " + index);
         }
         
-        if (index > tableRowList.size()) {
+        if (index > getNumberOfRows()) {
             throw new IndexOutOfBoundsException("The insertion index is " +
                     "too large: " + index + ". Must be at most " + 
-                    tableRowList.size());
+                    getNumberOfRows());
         }
     }
     
@@ -514,10 +3239,10 @@ public final class Table implements Iterable<TableRow> {
                     "negative: " + index);
         }
         
-        if (index >= tableRowList.size()) {
+        if (index >= getNumberOfRows()) {
             throw new IndexOutOfBoundsException("The insertion index is " +
                     "too large: " + index + ". Must be at most " + 
-                    (tableRowList.size() - 1));
+                    (getNumberOfRows() - 1));
         }
     }
 
@@ -529,8 +3254,8 @@ public final class Table implements Iterable<TableRow> {
         }
     }
 
-    private void checkValueType(Object value, 
-                                TableColumnDescriptor tableColumnDescriptor) {
+    void checkValueType(Object value, 
+                        TableColumnDescriptor tableColumnDescriptor) {
         if (value == null) {
             return;
         }
@@ -642,4 +3367,72 @@ public final class Table implements Iterable<TableRow> {
         
         return  tableName;
     }
+    
+    /**
+     * This class collects the data of a table block in a growing heap buffer,
+     * for serializing a table into a single buffer.
+     */
+    private static final class HeapBlockWriter implements TableBlockWriter {
+        
+        /**
+         * The largest capacity of a heap buffer.
+         */
+        private static final int MAXIMUM_CAPACITY = Integer.MAX_VALUE - 8;
+        
+        /**
+         * The name of the table, for reporting a table too large.
+         */
+        private final String tableName;
+        
+        private ByteBuffer byteBuffer = 
+                ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        
+        HeapBlockWriter(String tableName) {
+            this.tableName = tableName;
+        }
+        
+        @Override
+        public ByteBuffer getBuffer(int length) {
+            ensureRemaining(length);
+            return byteBuffer;
+        }
+        
+        @Override
+        public void write(byte[] data, int offset, int length) {
+            ensureRemaining(length);
+            byteBuffer.put(data, offset, length);
+        }
+        
+        /**
+         * Returns the data written so far.
+         * 
+         * @return a buffer holding the data from its position to its limit.
+         */
+        ByteBuffer getData() {
+            ByteBuffer data = byteBuffer.duplicate();
+            data.flip();
+            return data;
+        }
+        
+        private void ensureRemaining(int length) {
+            if (byteBuffer.remaining() >= length) {
+                return;
+            }
+            
+            long minimumCapacity = (long) byteBuffer.position() + length;
+            
+            if (minimumCapacity > MAXIMUM_CAPACITY) {
+                throw createTooLargeException(tableName, minimumCapacity);
+            }
+            
+            int capacity = (int) Math.min(
+                    Math.max(minimumCapacity, 2L * byteBuffer.capacity()),
+                    MAXIMUM_CAPACITY);
+            ByteBuffer newByteBuffer = 
+                    ByteBuffer.allocate(capacity)
+                              .order(ByteOrder.LITTLE_ENDIAN);
+            byteBuffer.flip();
+            byteBuffer = newByteBuffer.put(byteBuffer);
+        }
+    }
 }
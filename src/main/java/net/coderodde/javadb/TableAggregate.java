@@ -0,0 +1,669 @@
+package net.coderodde.javadb;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * This class implements the aggregate functions computed by
+ * {@link TableAggregation#aggregate(TableAggregate...)}. As in SQL, the
+ * aggregates skip the null cells: the count of a column counts its non-null
+ * cells, and the sum, minimum, maximum and average of a column without
+ * non-null cells are null.
+ * <p>
+ * The sums of integer and long columns are long values that wrap around on
+ * overflow; the sums of floating-point columns and all the averages are double
+ * values. The minimum and maximum are of the column type and follow the same
+ * order as the tree indices, so NaN is the greatest floating-point value.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class TableAggregate {
+
+    /**
+     * Lists the aggregate functions.
+     */
+    private enum Function {
+        COUNT,
+        SUM,
+        MIN,
+        MAX,
+        AVG;
+    }
+
+    /**
+     * The function to compute.
+     */
+    private final Function function;
+
+    /**
+     * The name of the aggregated column, or {@code null} for counting rows.
+     */
+    private final String columnName;
+
+    private TableAggregate(Function function, String columnName) {
+        this.function = function;
+        this.columnName = columnName;
+    }
+
+    /**
+     * Returns the aggregate counting the rows.
+     *
+     * @return the aggregate.
+     */
+    public static TableAggregate count() {
+        return new TableAggregate(Function.COUNT, null);
+    }
+
+    /**
+     * Returns the aggregate counting the non-null cells in a column.
+     *
+     * @param columnName the name of the column.
+     * @return the aggregate.
+     */
+    public static TableAggregate count(String columnName) {
+        return new TableAggregate(Function.COUNT, checkColumnName(columnName));
+    }
+
+    /**
+     * Returns the aggregate summing a numeric column.
+     *
+     * @param columnName the name of the column.
+     * @return the aggregate.
+     */
+    public static TableAggregate sum(String columnName) {
+        return new TableAggregate(Function.SUM, checkColumnName(columnName));
+    }
+
+    /**
+     * Returns the aggregate computing the minimum of a column.
+     *
+     * @param columnName the name of the column.
+     * @return the aggregate.
+     */
+    public static TableAggregate min(String columnName) {
+        return new TableAggregate(Function.MIN, checkColumnName(columnName));
+    }
+
+    /**
+     * Returns the aggregate computing the maximum of a column.
+     *
+     * @param columnName the name of the column.
+     * @return the aggregate.
+     */
+    public static TableAggregate max(String columnName) {
+        return new TableAggregate(Function.MAX, checkColumnName(columnName));
+    }
+
+    /**
+     * Returns the aggregate averaging a numeric column.
+     *
+     * @param columnName the name of the column.
+     * @return the aggregate.
+     */
+    public static TableAggregate avg(String columnName) {
+        return new TableAggregate(Function.AVG, checkColumnName(columnName));
+    }
+
+    /**
+     * Returns the descriptor of the column holding this aggregate in the
+     * result of an aggregation over the given table.
+     *
+     * @param table the aggregated table.
+     * @return the result column descriptor.
+     */
+    TableColumnDescriptor getResultColumnDescriptor(Table table) {
+        if (columnName == null) {
+            return new TableColumnDescriptor("count", TableCellType.TYPE_LONG);
+        }
+
+        String resultColumnName =
+                function.name().toLowerCase() + "(" + columnName + ")";
+        TableCellType tableCellType = getTableCellType(table);
+
+        switch (function) {
+            case COUNT:
+                return new TableColumnDescriptor(resultColumnName,
+                                                 TableCellType.TYPE_LONG);
+
+            case SUM:
+                return new TableColumnDescriptor(
+                        resultColumnName,
+                        isIntegral(tableCellType) ?
+                                TableCellType.TYPE_LONG :
+                                TableCellType.TYPE_DOUBLE);
+
+            case AVG:
+                return new TableColumnDescriptor(resultColumnName,
+                                                 TableCellType.TYPE_DOUBLE);
+
+            default:
+                return new TableColumnDescriptor(resultColumnName,
+                                                 tableCellType);
+        }
+    }
+
+    /**
+     * Binds this aggregate to the given table.
+     *
+     * @param table the table to aggregate.
+     * @return the supplier of empty accumulators of this aggregate.
+     *
+     * @throws IllegalArgumentException if the column is not in the table or
+     *                                  the function does not apply to its
+     *                                  type.
+     */
+    Supplier<Accumulator> bind(Table table) {
+        if (columnName == null) {
+            return CountAccumulator::new;
+        }
+
+        TableCellType tableCellType = getTableCellType(table);
+        ColumnReader columnReader =
+                ColumnReader.create(table, table.getColumnIndex(columnName));
+
+        switch (function) {
+            case COUNT:
+                return () -> new CountAccumulator(columnReader);
+
+            case SUM:
+                checkNumeric(tableCellType);
+
+                if (isIntegral(tableCellType)) {
+                    return () -> new LongSumAccumulator(columnReader);
+                }
+
+                return () -> new DoubleSumAccumulator(columnReader);
+
+            case AVG:
+                checkNumeric(tableCellType);
+                return () -> new AverageAccumulator(columnReader);
+
+            default:
+                boolean minimum = function == Function.MIN;
+
+                switch (tableCellType) {
+                    case TYPE_INT:
+                    case TYPE_LONG:
+                        return () -> new LongExtremeAccumulator(columnReader,
+                                                                tableCellType,
+                                                                minimum);
+
+                    case TYPE_FLOAT:
+                    case TYPE_DOUBLE:
+                        return () -> new DoubleExtremeAccumulator(
+                                columnReader,
+                                tableCellType,
+                                minimum);
+
+                    case TYPE_BINARY:
+                        throw new IllegalArgumentException(
+                                "Binary columns have no natural order.");
+
+                    default:
+                        return () -> new ObjectExtremeAccumulator(columnReader,
+                                                                  minimum);
+                }
+        }
+    }
+
+    private TableCellType getTableCellType(Table table) {
+        return table.getTableColumnDescriptor(table.getColumnIndex(columnName))
+                    .getTableCellType();
+    }
+
+    private static boolean isIntegral(TableCellType tableCellType) {
+        return tableCellType == TableCellType.TYPE_INT
+                || tableCellType == TableCellType.TYPE_LONG;
+    }
+
+    private void checkNumeric(TableCellType tableCellType) {
+        switch (tableCellType) {
+            case TYPE_INT:
+            case TYPE_LONG:
+            case TYPE_FLOAT:
+            case TYPE_DOUBLE:
+                return;
+
+            default:
+                throw new IllegalArgumentException(
+                        "Cannot compute " + function.name().toLowerCase() +
+                        " over a column of type " +
+                        tableCellType.getTypeName() + ".");
+        }
+    }
+
+    private static String checkColumnName(String columnName) {
+        return Objects.requireNonNull(columnName, "The column name is null.");
+    }
+
+    /**
+     * Reads the cells of a column. In the columnar storage mode, the numeric
+     * cells are read from the primitive arrays without boxing.
+     */
+    abstract static class ColumnReader {
+
+        abstract boolean isNull(int row);
+
+        long getLong(int row) {
+            return ((Number) getObject(row)).longValue();
+        }
+
+        double getDouble(int row) {
+            return ((Number) getObject(row)).doubleValue();
+        }
+
+        abstract Object getObject(int row);
+
+        static ColumnReader create(Table table, int columnIndex) {
+            if (table.getStorageMode() == TableStorageMode.ROW_ORIENTED) {
+                return new ColumnReader() {
+                    @Override
+                    boolean isNull(int row) {
+                        return getObject(row) == null;
+                    }
+
+                    @Override
+                    Object getObject(int row) {
+                        return table.getCellValue(row, columnIndex);
+                    }
+                };
+            }
+
+            TableColumnStorage tableColumnStorage =
+                    table.getTableColumnStorage(columnIndex);
+
+            switch (tableColumnStorage.getTableCellType()) {
+                case TYPE_INT: {
+                    TableColumnStorage.IntColumnStorage storage =
+                            (TableColumnStorage.IntColumnStorage)
+                            tableColumnStorage;
+
+                    return new StorageColumnReader(storage) {
+                        @Override
+                        long getLong(int row) {
+                            return storage.getInt(row);
+                        }
+
+                        @Override
+                        double getDouble(int row) {
+                            return storage.getInt(row);
+                        }
+                    };
+                }
+
+                case TYPE_LONG: {
+                    TableColumnStorage.LongColumnStorage storage =
+                            (TableColumnStorage.LongColumnStorage)
+                            tableColumnStorage;
+
+                    return new StorageColumnReader(storage) {
+                        @Override
+                        long getLong(int row) {
+                            return storage.getLong(row);
+                        }
+
+                        @Override
+                        double getDouble(int row) {
+                            return storage.getLong(row);
+                        }
+                    };
+                }
+
+                case TYPE_FLOAT: {
+                    TableColumnStorage.FloatColumnStorage storage =
+                            (TableColumnStorage.FloatColumnStorage)
+                            tableColumnStorage;
+
+                    return new StorageColumnReader(storage) {
+                        @Override
+                        double getDouble(int row) {
+                            return storage.getFloat(row);
+                        }
+                    };
+                }
+
+                case TYPE_DOUBLE: {
+                    TableColumnStorage.DoubleColumnStorage storage =
+                            (TableColumnStorage.DoubleColumnStorage)
+                            tableColumnStorage;
+
+                    return new StorageColumnReader(storage) {
+                        @Override
+                        double getDouble(int row) {
+                            return storage.getDouble(row);
+                        }
+                    };
+                }
+
+                default:
+                    return new StorageColumnReader(tableColumnStorage);
+            }
+        }
+    }
+
+    /**
+     * Reads the cells of a column storage.
+     */
+    private static class StorageColumnReader extends ColumnReader {
+
+        private final TableColumnStorage tableColumnStorage;
+
+        StorageColumnReader(TableColumnStorage tableColumnStorage) {
+            this.tableColumnStorage = tableColumnStorage;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return tableColumnStorage.isNull(row);
+        }
+
+        @Override
+        Object getObject(int row) {
+            return tableColumnStorage.get(row);
+        }
+    }
+
+    /**
+     * Accumulates an aggregate over a group of rows. The accumulators of
+     * different partitions of the same group are merged.
+     */
+    abstract static class Accumulator {
+
+        /**
+         * Adds the given row to this accumulator.
+         *
+         * @param row the row index.
+         */
+        abstract void accumulate(int row);
+
+        /**
+         * Adds the rows accumulated by the given accumulator of the same
+         * aggregate to this accumulator.
+         *
+         * @param other the other accumulator.
+         */
+        abstract void merge(Accumulator other);
+
+        /**
+         * Returns the value of the aggregate.
+         *
+         * @return the aggregate value.
+         */
+        abstract Object getResult();
+    }
+
+    private static final class CountAccumulator extends Accumulator {
+
+        private final ColumnReader columnReader;
+        private long count;
+
+        CountAccumulator() {
+            this(null);
+        }
+
+        CountAccumulator(ColumnReader columnReader) {
+            this.columnReader = columnReader;
+        }
+
+        @Override
+        void accumulate(int row) {
+            if (columnReader == null || !columnReader.isNull(row)) {
+                ++count;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            count += ((CountAccumulator) other).count;
+        }
+
+        @Override
+        Object getResult() {
+            return count;
+        }
+    }
+
+    private static final class LongSumAccumulator extends Accumulator {
+
+        private final ColumnReader columnReader;
+        private long sum;
+        private boolean empty = true;
+
+        LongSumAccumulator(ColumnReader columnReader) {
+            this.columnReader = columnReader;
+        }
+
+        @Override
+        void accumulate(int row) {
+            if (!columnReader.isNull(row)) {
+                sum += columnReader.getLong(row);
+                empty = false;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            LongSumAccumulator otherAccumulator = (LongSumAccumulator) other;
+            sum += otherAccumulator.sum;
+            empty &= otherAccumulator.empty;
+        }
+
+        @Override
+        Object getResult() {
+            return empty ? null : sum;
+        }
+    }
+
+    private static final class DoubleSumAccumulator extends Accumulator {
+
+        private final ColumnReader columnReader;
+        private double sum;
+        private boolean empty = true;
+
+        DoubleSumAccumulator(ColumnReader columnReader) {
+            this.columnReader = columnReader;
+        }
+
+        @Override
+        void accumulate(int row) {
+            if (!columnReader.isNull(row)) {
+                sum += columnReader.getDouble(row);
+                empty = false;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            DoubleSumAccumulator otherAccumulator =
+                    (DoubleSumAccumulator) other;
+            sum += otherAccumulator.sum;
+            empty &= otherAccumulator.empty;
+        }
+
+        @Override
+        Object getResult() {
+            return empty ? null : sum;
+        }
+    }
+
+    private static final class AverageAccumulator extends Accumulator {
+
+        private final ColumnReader columnReader;
+        private double sum;
+        private long count;
+
+        AverageAccumulator(ColumnReader columnReader) {
+            this.columnReader = columnReader;
+        }
+
+        @Override
+        void accumulate(int row) {
+            if (!columnReader.isNull(row)) {
+                sum += columnReader.getDouble(row);
+                ++count;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            AverageAccumulator otherAccumulator = (AverageAccumulator) other;
+            sum += otherAccumulator.sum;
+            count += otherAccumulator.count;
+        }
+
+        @Override
+        Object getResult() {
+            return count == 0 ? null : sum / count;
+        }
+    }
+
+    private static final class LongExtremeAccumulator extends Accumulator {
+
+        private final ColumnReader columnReader;
+        private final TableCellType tableCellType;
+        private final boolean minimum;
+        private long extreme;
+        private boolean empty = true;
+
+        LongExtremeAccumulator(ColumnReader columnReader,
+                               TableCellType tableCellType,
+                               boolean minimum) {
+            this.columnReader = columnReader;
+            this.tableCellType = tableCellType;
+            this.minimum = minimum;
+        }
+
+        @Override
+        void accumulate(int row) {
+            if (!columnReader.isNull(row)) {
+                update(columnReader.getLong(row));
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            LongExtremeAccumulator otherAccumulator =
+                    (LongExtremeAccumulator) other;
+
+            if (!otherAccumulator.empty) {
+                update(otherAccumulator.extreme);
+            }
+        }
+
+        @Override
+        Object getResult() {
+            if (empty) {
+                return null;
+            }
+
+            return tableCellType == TableCellType.TYPE_INT ?
+                    (Object) (int) extreme :
+                    (Object) extreme;
+        }
+
+        private void update(long value) {
+            if (empty || (minimum ? value < extreme : value > extreme)) {
+                extreme = value;
+                empty = false;
+            }
+        }
+    }
+
+    private static final class DoubleExtremeAccumulator extends Accumulator {
+
+        private final ColumnReader columnReader;
+        private final TableCellType tableCellType;
+        private final boolean minimum;
+        private double extreme;
+        private boolean empty = true;
+
+        DoubleExtremeAccumulator(ColumnReader columnReader,
+                                 TableCellType tableCellType,
+                                 boolean minimum) {
+            this.columnReader = columnReader;
+            this.tableCellType = tableCellType;
+            this.minimum = minimum;
+        }
+
+        @Override
+        void accumulate(int row) {
+            if (!columnReader.isNull(row)) {
+                update(columnReader.getDouble(row));
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            DoubleExtremeAccumulator otherAccumulator =
+                    (DoubleExtremeAccumulator) other;
+
+            if (!otherAccumulator.empty) {
+                update(otherAccumulator.extreme);
+            }
+        }
+
+        @Override
+        Object getResult() {
+            if (empty) {
+                return null;
+            }
+
+            return tableCellType == TableCellType.TYPE_FLOAT ?
+                    (Object) (float) extreme :
+                    (Object) extreme;
+        }
+
+        private void update(double value) {
+            int comparison = Double.compare(value, extreme);
+
+            if (empty || (minimum ? comparison < 0 : comparison > 0)) {
+                extreme = value;
+                empty = false;
+            }
+        }
+    }
+
+    private static final class ObjectExtremeAccumulator extends Accumulator {
+
+        private final ColumnReader columnReader;
+        private final boolean minimum;
+        private Comparable<Object> extreme;
+
+        ObjectExtremeAccumulator(ColumnReader columnReader, boolean minimum) {
+            this.columnReader = columnReader;
+            this.minimum = minimum;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void accumulate(int row) {
+            if (!columnReader.isNull(row)) {
+                update((Comparable<Object>) columnReader.getObject(row));
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            ObjectExtremeAccumulator otherAccumulator =
+                    (ObjectExtremeAccumulator) other;
+
+            if (otherAccumulator.extreme != null) {
+                update(otherAccumulator.extreme);
+            }
+        }
+
+        @Override
+        Object getResult() {
+            return extreme;
+        }
+
+        private void update(Comparable<Object> value) {
+            if (extreme == null || (minimum ?
+                                    value.compareTo(extreme) < 0 :
+                                    value.compareTo(extreme) > 0)) {
+                extreme = value;
+            }
+        }
+    }
+}
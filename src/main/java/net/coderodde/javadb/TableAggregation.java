@@ -0,0 +1,273 @@
+package net.coderodde.javadb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * This class implements the grouping of the rows of a table by the values of
+ * some of its columns, as returned by {@link Table#groupBy(String...)}. The
+ * rows may be filtered with {@link #where(TablePredicate)} before the
+ * aggregates are computed by {@link #aggregate(TableAggregate...)}.
+ * <p>
+ * The groups are kept in a hash map keyed by the grouping values, and each
+ * group holds one accumulator per aggregate. A large table is aggregated in
+ * parallel: each fork/join worker aggregates a range of rows into its own
+ * map, and the partial maps are merged group by group.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class TableAggregation {
+
+    /**
+     * The table to aggregate.
+     */
+    private final Table table;
+
+    /**
+     * The indices of the grouping columns.
+     */
+    private final int[] columnIndices;
+
+    /**
+     * The filter of the rows, or {@code null} if all the rows are aggregated.
+     */
+    private TablePredicate tablePredicate;
+
+    TableAggregation(Table table, int[] columnIndices) {
+        this.table = table;
+        this.columnIndices = columnIndices;
+    }
+
+    /**
+     * Restricts the aggregation to the rows satisfying the given predicate.
+     * Replaces any previous predicate.
+     *
+     * @param tablePredicate the condition on the rows.
+     * @return this aggregation.
+     */
+    public TableAggregation where(TablePredicate tablePredicate) {
+        this.tablePredicate =
+                Objects.requireNonNull(tablePredicate,
+                                       "The predicate is null.");
+        return this;
+    }
+
+    /**
+     * Computes the given aggregates for each group. The resulting view has
+     * the grouping columns followed by one column per aggregate, and one row
+     * per group in the order of the first row of each group. A null value in
+     * a grouping column forms a group of its own. Without grouping columns,
+     * the view has exactly one row, even if no rows are aggregated.
+     *
+     * @param tableAggregates the aggregates to compute.
+     * @return the view of the groups.
+     *
+     * @throws IllegalArgumentException if an aggregate or the predicate refers
+     *                                  to a column not in the table, or an
+     *                                  aggregate does not apply to the type of
+     *                                  its column.
+     */
+    public TableView aggregate(TableAggregate... tableAggregates) {
+        Objects.requireNonNull(tableAggregates, "The aggregates are null.");
+        long stamp = table.lockForReading();
+
+        try {
+            return compute(tableAggregates);
+        } finally {
+            table.unlockForReading(stamp);
+        }
+    }
+
+    private TableView compute(TableAggregate[] tableAggregates) {
+        List<TableColumnDescriptor> tableColumnDescriptorList =
+                new ArrayList<>();
+
+        for (int columnIndex : columnIndices) {
+            tableColumnDescriptorList.add(
+                    table.getTableColumnDescriptor(columnIndex));
+        }
+
+        List<Supplier<TableAggregate.Accumulator>> accumulatorSupplierList =
+                new ArrayList<>(tableAggregates.length);
+
+        for (TableAggregate tableAggregate : tableAggregates) {
+            Objects.requireNonNull(tableAggregate, "An aggregate is null.");
+            tableColumnDescriptorList.add(
+                    tableAggregate.getResultColumnDescriptor(table));
+            accumulatorSupplierList.add(tableAggregate.bind(table));
+        }
+
+        IntStream rows = getRows();
+        Map<GroupKey, Group> groupMap;
+
+        if (table.getNumberOfRows() >= TableSelection.PARALLEL_SCAN_THRESHOLD) {
+            // Decoding the rows of a lazily loaded table is not thread-safe:
+            table.loadAllTableRows();
+            groupMap = rows.parallel().collect(
+                    HashMap::new,
+                    (map, row) -> accumulate(map, row, accumulatorSupplierList),
+                    TableAggregation::merge);
+        } else {
+            groupMap = new HashMap<>();
+            rows.forEach(
+                    (row) -> accumulate(groupMap, row, accumulatorSupplierList));
+        }
+
+        if (columnIndices.length == 0 && groupMap.isEmpty()) {
+            groupMap.put(new GroupKey(new Object[0]),
+                         new Group(-1, accumulatorSupplierList));
+        }
+
+        List<Map.Entry<GroupKey, Group>> groupList =
+                new ArrayList<>(groupMap.entrySet());
+        groupList.sort((entry1, entry2) ->
+                Integer.compare(entry1.getValue().firstRow,
+                                entry2.getValue().firstRow));
+
+        TableView tableView = new TableView(tableColumnDescriptorList);
+
+        for (Map.Entry<GroupKey, Group> entry : groupList) {
+            TableRow tableRow = new TableRow(null);
+            int column = 0;
+
+            for (Object value : entry.getKey().values) {
+                addTableCell(tableRow,
+                             tableColumnDescriptorList.get(column++),
+                             value);
+            }
+
+            for (TableAggregate.Accumulator accumulator
+                    : entry.getValue().accumulators) {
+                addTableCell(tableRow,
+                             tableColumnDescriptorList.get(column++),
+                             accumulator.getResult());
+            }
+
+            tableView.addTableRow(tableRow);
+        }
+
+        return tableView;
+    }
+
+    private IntStream getRows() {
+        if (tablePredicate == null) {
+            return IntStream.range(0, table.getNumberOfRows());
+        }
+
+        IntPredicate intPredicate = tablePredicate.bind(table);
+        int[] candidateRows = tablePredicate.findCandidateRows(table);
+
+        if (candidateRows != null) {
+            return IntStream.of(candidateRows).filter(intPredicate);
+        }
+
+        return IntStream.range(0, table.getNumberOfRows())
+                        .filter(intPredicate);
+    }
+
+    private void accumulate(
+            Map<GroupKey, Group> groupMap,
+            int row,
+            List<Supplier<TableAggregate.Accumulator>> accumulatorSupplierList) {
+        Object[] values = new Object[columnIndices.length];
+
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = table.getCellValue(row, columnIndices[i]);
+        }
+
+        Group group = groupMap.computeIfAbsent(
+                new GroupKey(values),
+                (groupKey) -> new Group(row, accumulatorSupplierList));
+
+        for (TableAggregate.Accumulator accumulator : group.accumulators) {
+            accumulator.accumulate(row);
+        }
+    }
+
+    private static void merge(Map<GroupKey, Group> groupMap,
+                              Map<GroupKey, Group> otherGroupMap) {
+        for (Map.Entry<GroupKey, Group> entry : otherGroupMap.entrySet()) {
+            Group group = groupMap.putIfAbsent(entry.getKey(),
+                                               entry.getValue());
+
+            if (group != null) {
+                Group otherGroup = entry.getValue();
+                group.firstRow = Math.min(group.firstRow, otherGroup.firstRow);
+
+                for (int i = 0; i < group.accumulators.length; ++i) {
+                    group.accumulators[i].merge(otherGroup.accumulators[i]);
+                }
+            }
+        }
+    }
+
+    private static void addTableCell(
+            TableRow tableRow,
+            TableColumnDescriptor tableColumnDescriptor,
+            Object value) {
+        TableCell tableCell =
+                new TableCell(tableColumnDescriptor.getTableCellType());
+        tableCell.setValue(value);
+        tableRow.add(tableCell);
+    }
+
+    /**
+     * The values of the grouping columns of a group. Binary values are
+     * compared by content.
+     */
+    private static final class GroupKey {
+
+        private final Object[] values;
+        private final int hashCode;
+
+        GroupKey(Object[] values) {
+            this.values = values;
+            this.hashCode = Arrays.deepHashCode(values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof GroupKey
+                    && Arrays.deepEquals(values, ((GroupKey) o).values);
+        }
+    }
+
+    /**
+     * The accumulators of a group.
+     */
+    private static final class Group {
+
+        /**
+         * The index of the first row of this group.
+         */
+        int firstRow;
+
+        final TableAggregate.Accumulator[] accumulators;
+
+        Group(int firstRow,
+              List<Supplier<TableAggregate.Accumulator>>
+                      accumulatorSupplierList) {
+            this.firstRow = firstRow;
+            this.accumulators =
+                    new TableAggregate.Accumulator[
+                            accumulatorSupplierList.size()];
+
+            for (int i = 0; i < accumulators.length; ++i) {
+                accumulators[i] = accumulatorSupplierList.get(i).get();
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package net.coderodde.javadb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * This interface describes a target the data of a table block is written to
+ * one piece at a time, so that the data of a table never needs to be held in
+ * memory as a whole. The rows of the row layout are written as whole pieces,
+ * whereas the encoded columns of the column layout may be cut at any point.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+interface TableBlockWriter {
+
+    /**
+     * Returns a little-endian byte buffer that has room for the next piece of
+     * the given length, such as a row. The caller is expected to put exactly
+     * {@code length} bytes into the returned buffer before requesting the
+     * next one.
+     *
+     * @param length the length of the piece in bytes.
+     * @return a byte buffer to write the piece to.
+     * @throws IOException if writing fails.
+     */
+    ByteBuffer getBuffer(int length) throws IOException;
+
+    /**
+     * Writes the given bytes.
+     *
+     * @param data   the array holding the bytes.
+     * @param offset the index of the first byte to write.
+     * @param length the number of bytes to write.
+     * @throws IOException if writing fails.
+     */
+    void write(byte[] data, int offset, int length) throws IOException;
+}
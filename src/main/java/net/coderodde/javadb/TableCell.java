@@ -99,8 +99,46 @@ public final class TableCell {
     private Object value;
     private final TableCellType tableCellType;
     
+    /**
+     * The column storage holding the value of this cell, or {@code null} if 
+     * this cell holds its value by itself.
+     */
+    private TableColumnStorage tableColumnStorage;
+    
+    /**
+     * The row index of this cell in {@code tableColumnStorage}.
+     */
+    private int rowIndex;
+    
+    /**
+     * The table row holding this cell, or {@code null} if this cell does not 
+     * belong to a row.
+     */
+    TableRow ownerTableRow;
+    
     public Object getValue() {
-        return value;
+        Table ownerTable = ownerTableRow != null ? 
+                ownerTableRow.ownerTable : 
+                null;
+        
+        if (ownerTable != null && ownerTable.isConcurrent()) {
+            return ownerTable.readOptimistically(this::loadValue);
+        }
+        
+        return loadValue();
+    }
+    
+    /**
+     * Returns the value of this cell bypassing the lock of the owner table.
+     * Used by the callers that lock the table themselves or work for a 
+     * snapshot.
+     * 
+     * @return the value of this cell.
+     */
+    Object loadValue() {
+        return tableColumnStorage == null ? 
+                value : 
+                tableColumnStorage.get(rowIndex);
     }
     
     public TableCell(Integer intValue) {
@@ -149,82 +187,95 @@ public final class TableCell {
                                                     "Table cell type is null.");
     }
     
+    /**
+     * Constructs a new table cell that is a view over the {@code rowIndex}th 
+     * value of a column storage.
+     * 
+     * @param tableColumnStorage the column storage.
+     * @param rowIndex           the row index of the cell.
+     */
+    TableCell(TableColumnStorage tableColumnStorage, int rowIndex) {
+        this.tableColumnStorage = tableColumnStorage;
+        this.tableCellType = tableColumnStorage.getTableCellType();
+        this.rowIndex = rowIndex;
+    }
+    
     public TableCellType getTableCellType() {
         return tableCellType;
     }
     
     public Integer getIntValue() {
         checkTypesMatchOnRead(TableCellType.TYPE_INT);
-        return (Integer) value;
+        return (Integer) getValue();
     }
     
     public Long getLongValue() {
         checkTypesMatchOnRead(TableCellType.TYPE_LONG);
-        return (Long) value;
+        return (Long) getValue();
     }
     
     public Float getFloatValue() {
         checkTypesMatchOnRead(TableCellType.TYPE_FLOAT);
-        return (Float) value;
+        return (Float) getValue();
     }
     
     public Double getDoubleValue() {
         checkTypesMatchOnRead(TableCellType.TYPE_DOUBLE);
-        return (Double) value;
+        return (Double) getValue();
     }
     
     public String getStringValue() {
         checkTypesMatchOnRead(TableCellType.TYPE_STRING);
-        return (String) value;
+        return (String) getValue();
     }
     
     public Boolean getBooleanValue() {
         checkTypesMatchOnRead(TableCellType.TYPE_BOOLEAN);
-        return (Boolean) value;
+        return (Boolean) getValue();
     }
     
     public byte[] getBinaryData() {
         checkTypesMatchOnRead(TableCellType.TYPE_BINARY);
-        return (byte[]) value;
+        return (byte[]) getValue();
     }
     
     public void setIntValue(Integer intValue) {
         checkTypesMatchOnWrite(TableCellType.TYPE_INT);
-        this.value = intValue;
+        setValue(intValue);
     }
     
     public void setLongValue(Long longValue) {
         checkTypesMatchOnWrite(TableCellType.TYPE_LONG);
-        this.value = longValue;
+        setValue(longValue);
     }
     
     public void setFloatValue(Float floatValue) {
         checkTypesMatchOnWrite(TableCellType.TYPE_FLOAT);
-        this.value = floatValue;
+        setValue(floatValue);
     }
     
     public void setDoubleValue(Double doubleValue) {
         checkTypesMatchOnWrite(TableCellType.TYPE_DOUBLE);
-        this.value = doubleValue;
+        setValue(doubleValue);
     }
     
     public void setStringValue(String stringValue) {
         checkTypesMatchOnWrite(TableCellType.TYPE_STRING);
-        this.value = stringValue;
+        setValue(stringValue);
     }
     
     public void setBooleanValue(Boolean booleanValue) {
         checkTypesMatchOnWrite(TableCellType.TYPE_BOOLEAN);
-        this.value = booleanValue;
+        setValue(booleanValue);
     }
     
     public void setBinaryData(byte[] binaryData) {
         checkTypesMatchOnWrite(TableCellType.TYPE_BINARY);
-        this.value = binaryData;
+        setValue(binaryData);
     }
     
     public void nullify() {
-        value = null;
+        setValue(null);
     }
     
     @Override
@@ -248,13 +299,37 @@ public final class TableCell {
         }
         
         if (getTableCellType().equals(TableCellType.TYPE_BINARY)) {
-            return Arrays.equals((byte[]) value, (byte[]) other.value);
+            return Arrays.equals((byte[]) getValue(), 
+                                 (byte[]) other.getValue());
         }
         
-        return Objects.equals(value, other.value);
+        return Objects.equals(getValue(), other.getValue());
+    }
+    
+    // The copying and serializing callers either lock the owner table or work
+    // for a snapshot, which the writers wait for, so the lock is bypassed
+    // here.
+    TableCell copy() {
+        TableCell copy = new TableCell(tableCellType);
+        copy.setValue(loadValue());
+        return copy;
     }
     
     int getSerializationLength() {
+        return getSerializationLength(tableCellType, loadValue());
+    }
+    
+    /**
+     * Returns the number of bytes it takes to serialize a value of the given 
+     * type.
+     * 
+     * @param tableCellType the type of the value.
+     * @param value         the value. May be {@code null}.
+     * 
+     * @return the serialization length in bytes.
+     */
+    static int getSerializationLength(TableCellType tableCellType, 
+                                      Object value) {
         switch (tableCellType) {
             case TYPE_INT:
                 return 1 + (value != null ? Integer.BYTES : 0);
@@ -293,8 +368,21 @@ public final class TableCell {
     }
     
     void serialize(ByteBuffer byteBuffer) {
+        serializeValue(byteBuffer, tableCellType, loadValue());
+    }
+    
+    /**
+     * Serializes a value of the given type.
+     * 
+     * @param byteBuffer    the target byte buffer.
+     * @param tableCellType the type of the value.
+     * @param value         the value. May be {@code null}.
+     */
+    static void serializeValue(ByteBuffer byteBuffer, 
+                               TableCellType tableCellType, 
+                               Object value) {
         TableCellSerializer tableCellSerializer = 
-                serializerDispatchMap.get(getTableCellType());
+                serializerDispatchMap.get(tableCellType);
         
         if (tableCellSerializer == null) {
             throw new IllegalStateException(
@@ -322,6 +410,62 @@ public final class TableCell {
         return deserializerRoutine.deserialize(byteBuffer);
     }
     
+    /**
+     * Advances the position of the byte buffer past the next serialized table 
+     * cell without decoding it.
+     * 
+     * @param byteBuffer the byte buffer.
+     */
+    static void skip(ByteBuffer byteBuffer) {
+        byte tableCellType = byteBuffer.get();
+        int skipLength;
+        
+        switch (tableCellType) {
+            case INT_NULL:
+            case LONG_NULL:
+            case FLOAT_NULL:
+            case DOUBLE_NULL:
+            case STRING_NULL:
+            case BOOLEAN_NULL:
+            case BLOB_NULL:
+                return;
+                
+            case INT_NOT_NULL:
+                skipLength = Integer.BYTES;
+                break;
+                
+            case LONG_NOT_NULL:
+                skipLength = Long.BYTES;
+                break;
+                
+            case FLOAT_NOT_NULL:
+                skipLength = Float.BYTES;
+                break;
+                
+            case DOUBLE_NOT_NULL:
+                skipLength = Double.BYTES;
+                break;
+                
+            case BOOLEAN_NOT_NULL:
+                skipLength = 1;
+                break;
+                
+            case STRING_NOT_NULL:
+                skipLength = Character.BYTES * byteBuffer.getInt();
+                break;
+                
+            case BLOB_NOT_NULL:
+                skipLength = byteBuffer.getInt();
+                break;
+                
+            default:
+                throw new BadDataFormatException(
+                        "Invalid table cell type descriptor.");
+        }
+        
+        byteBuffer.position(byteBuffer.position() + skipLength);
+    }
+    
     private static void serializeInt(ByteBuffer byteBuffer, Object value) {
         if (value == null) {
             byteBuffer.put(INT_NULL);
@@ -489,6 +633,50 @@ public final class TableCell {
         return tableCell;
     }
     
+    void setValue(Object value) {
+        Table ownerTable = ownerTableRow != null ? 
+                ownerTableRow.ownerTable : 
+                null;
+        
+        // The update of the indices and the log must not interleave with 
+        // other modifications of the table in the concurrent mode:
+        long stamp = ownerTable != null ? ownerTable.lockForWriting() : 0L;
+        
+        try {
+            Object oldValue = null;
+            
+            if (ownerTableRow != null) {
+                oldValue = loadValue();
+                ownerTableRow.onBeforeTableCellUpdate();
+            }
+            
+            if (tableColumnStorage == null) {
+                this.value = value;
+            } else {
+                tableColumnStorage.set(rowIndex, value);
+            }
+            
+            if (ownerTableRow != null) {
+                ownerTableRow.onTableCellUpdate(this, oldValue);
+            }
+        } finally {
+            if (ownerTable != null) {
+                ownerTable.unlockForWriting(stamp);
+            }
+        }
+    }
+    
+    /**
+     * Returns {@code true} if this cell is a view over the given column 
+     * storage.
+     * 
+     * @param tableColumnStorage the column storage.
+     * @return {@code true} if this cell refers to the storage.
+     */
+    boolean isViewOf(TableColumnStorage tableColumnStorage) {
+        return this.tableColumnStorage == tableColumnStorage;
+    }
+    
     private void checkTypesMatchOnRead(TableCellType requestedType) {
         if (!tableCellType.equals(requestedType)) {
             throw new IllegalStateException(
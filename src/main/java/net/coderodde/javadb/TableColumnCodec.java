@@ -0,0 +1,793 @@
+package net.coderodde.javadb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class implements the column layout of a table block, written for the
+ * columnar tables as of format version 6. Instead of one row after another,
+ * the block holds one column after another, each split into blocks of
+ * {@link #BLOCK_SIZE} rows:
+ *
+ * <pre>
+ * nulls:  byte NO_NULLS, ALL_NULLS, or SOME_NULLS followed by a bitmap with
+ *         a set bit for each null row
+ * values: the non-null values of the block
+ * </pre>
+ *
+ * The integers, the longs and the dictionary codes of the strings are written
+ * as the smallest of the following encodings, chosen per block:
+ *
+ * <pre>
+ * VARINT:       zig-zag varints
+ * DELTA_VARINT: the first value followed by the differences of the
+ *               consecutive values as zig-zag varints
+ * PACKED:       the minimum value as a zig-zag varint, a byte bit width, and
+ *               the differences of the values from the minimum packed at the
+ *               bit width
+ * DELTA_PACKED: the first value and the minimum difference as zig-zag
+ *               varints, a byte bit width, and the differences of the
+ *               consecutive values from the minimum difference packed at the
+ *               bit width
+ * </pre>
+ *
+ * so that small values, monotonic sequences and values within a narrow range
+ * all take a few bits each. The floats and the doubles are written as is, the
+ * booleans one bit each, the strings without a dictionary in UTF-8 and the
+ * binary objects preceded by their lengths.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class TableColumnCodec {
+
+    /**
+     * The number of rows in a block.
+     */
+    static final int BLOCK_SIZE = 1 << 12;
+
+    private static final byte NO_NULLS   = 0;
+    private static final byte ALL_NULLS  = 1;
+    private static final byte SOME_NULLS = 2;
+
+    static final byte VARINT       = 0;
+    static final byte DELTA_VARINT = 1;
+    static final byte PACKED       = 2;
+    static final byte DELTA_PACKED = 3;
+
+    private TableColumnCodec() {}
+
+    /**
+     * Encodes all the columns of a table with the given codec of the column
+     * layout, writing each block to the target as soon as it is encoded.
+     *
+     * @param tableRowCodec          the codec.
+     * @param tableColumnStorageList the columns.
+     * @param numberOfRows           the number of rows.
+     * @param tableBlockWriter       the target.
+     * @throws IOException if writing fails.
+     */
+    static void encode(TableRowCodec tableRowCodec,
+                       List<TableColumnStorage> tableColumnStorageList,
+                       int numberOfRows,
+                       TableBlockWriter tableBlockWriter)
+            throws IOException {
+        for (int column = 0; column < tableColumnStorageList.size();
+                ++column) {
+            Encoder encoder = new Encoder(tableRowCodec, column);
+
+            for (int from = 0; from < numberOfRows; from += BLOCK_SIZE) {
+                encoder.encodeBlock(
+                        tableColumnStorageList.get(column),
+                        from,
+                        Math.min(from + BLOCK_SIZE, numberOfRows));
+                encoder.writeTo(tableBlockWriter);
+            }
+        }
+    }
+
+    /**
+     * Decodes a column written by {@link Encoder}. The encoded columns are
+     * always little-endian, whatever the byte order of the buffer.
+     *
+     * @param byteBuffer    the buffer whose position points to the column.
+     * @param tableRowCodec the codec of the table block.
+     * @param column        the index of the column.
+     * @param numberOfRows  the number of rows.
+     * @return the column storage.
+     */
+    static TableColumnStorage decode(ByteBuffer byteBuffer,
+                                     TableRowCodec tableRowCodec,
+                                     int column,
+                                     int numberOfRows) {
+        ByteOrder byteOrder = byteBuffer.order();
+        byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        try {
+            return decodeColumn(byteBuffer,
+                                tableRowCodec,
+                                column,
+                                numberOfRows);
+        } finally {
+            byteBuffer.order(byteOrder);
+        }
+    }
+
+    private static TableColumnStorage decodeColumn(
+            ByteBuffer byteBuffer,
+            TableRowCodec tableRowCodec,
+            int column,
+            int numberOfRows) {
+        TableCellType tableCellType = tableRowCodec.getTableCellType(column);
+        TableColumnStorage tableColumnStorage =
+                TableColumnStorage.create(tableCellType, numberOfRows);
+        String[] dictionary = tableRowCodec.getDictionary(column);
+        long[] longs = new long[BLOCK_SIZE];
+        boolean[] nulls = new boolean[BLOCK_SIZE];
+        BitReader bitReader = new BitReader(byteBuffer);
+
+        for (int from = 0; from < numberOfRows; from += BLOCK_SIZE) {
+            int n = Math.min(BLOCK_SIZE, numberOfRows - from);
+            byte nullSection = byteBuffer.get();
+            int count = n;
+
+            if (nullSection == ALL_NULLS) {
+                tableColumnStorage.appendNulls(n);
+                continue;
+            } else if (nullSection == SOME_NULLS) {
+                for (int i = 0; i < n; ++i) {
+                    nulls[i] = bitReader.getBits(1) != 0L;
+
+                    if (nulls[i]) {
+                        --count;
+                    }
+                }
+
+                bitReader.reset();
+            } else if (nullSection == NO_NULLS) {
+                Arrays.fill(nulls, 0, n, false);
+            } else {
+                throw new BadDataFormatException(
+                        "Invalid null section: " + nullSection + ".");
+            }
+
+            Object values;
+
+            switch (tableCellType) {
+                case TYPE_INT:
+                    decodeIntegers(byteBuffer, bitReader, longs, count);
+                    int[] ints = new int[n];
+
+                    for (int i = n - 1, k = count; i >= 0; --i) {
+                        if (!nulls[i]) {
+                            ints[i] = (int) longs[--k];
+                        }
+                    }
+
+                    values = ints;
+                    break;
+
+                case TYPE_LONG:
+                    decodeIntegers(byteBuffer, bitReader, longs, count);
+                    long[] longValues = new long[n];
+
+                    for (int i = n - 1, k = count; i >= 0; --i) {
+                        if (!nulls[i]) {
+                            longValues[i] = longs[--k];
+                        }
+                    }
+
+                    values = longValues;
+                    break;
+
+                case TYPE_FLOAT:
+                    float[] floats = new float[n];
+
+                    for (int i = 0; i < n; ++i) {
+                        if (!nulls[i]) {
+                            floats[i] = byteBuffer.getFloat();
+                        }
+                    }
+
+                    values = floats;
+                    break;
+
+                case TYPE_DOUBLE:
+                    double[] doubles = new double[n];
+
+                    for (int i = 0; i < n; ++i) {
+                        if (!nulls[i]) {
+                            doubles[i] = byteBuffer.getDouble();
+                        }
+                    }
+
+                    values = doubles;
+                    break;
+
+                case TYPE_BOOLEAN:
+                    boolean[] booleans = new boolean[n];
+
+                    for (int i = 0; i < n; ++i) {
+                        if (!nulls[i]) {
+                            booleans[i] = bitReader.getBits(1) != 0L;
+                        }
+                    }
+
+                    bitReader.reset();
+                    values = booleans;
+                    break;
+
+                case TYPE_STRING:
+                    String[] strings = new String[n];
+
+                    if (dictionary != null) {
+                        decodeIntegers(byteBuffer, bitReader, longs, count);
+                    }
+
+                    for (int i = 0, k = 0; i < n; ++i) {
+                        if (nulls[i]) {
+                            continue;
+                        }
+
+                        if (dictionary == null) {
+                            strings[i] = Utf8.deserialize(byteBuffer);
+                            continue;
+                        }
+
+                        long code = longs[k++];
+
+                        if (code < 0 || code >= dictionary.length) {
+                            throw new BadDataFormatException(
+                                    "Invalid dictionary code: " + code + ".");
+                        }
+
+                        strings[i] = dictionary[(int) code];
+                    }
+
+                    values = strings;
+                    break;
+
+                case TYPE_BINARY:
+                    byte[][] binaries = new byte[n][];
+
+                    for (int i = 0; i < n; ++i) {
+                        if (!nulls[i]) {
+                            int length = byteBuffer.getInt();
+
+                            if (length < 0
+                                    || length > byteBuffer.remaining()) {
+                                throw new BadDataFormatException(
+                                        "Invalid binary length: " + length +
+                                        ".");
+                            }
+
+                            binaries[i] = new byte[length];
+                            byteBuffer.get(binaries[i]);
+                        }
+                    }
+
+                    values = binaries;
+                    break;
+
+                default:
+                    throw new IllegalStateException(
+                            "Unknown table cell type.");
+            }
+
+            int base = tableColumnStorage.size();
+            tableColumnStorage.appendAll(values, n);
+
+            if (count < n && !(values instanceof Object[])) {
+                for (int i = 0; i < n; ++i) {
+                    if (nulls[i]) {
+                        tableColumnStorage.set(base + i, null);
+                    }
+                }
+            }
+        }
+
+        return tableColumnStorage;
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    static int getVarLongLength(long value) {
+        return (Long.SIZE - Long.numberOfLeadingZeros(value | 1L) + 6) / 7;
+    }
+
+    static void putVarLong(ByteBuffer byteBuffer, long value) {
+        while ((value & ~0x7FL) != 0L) {
+            byteBuffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        byteBuffer.put((byte) value);
+    }
+
+    static long getVarLong(ByteBuffer byteBuffer) {
+        long value = 0L;
+
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = byteBuffer.get();
+            value |= (b & 0x7FL) << shift;
+
+            if (b >= 0) {
+                return value;
+            }
+        }
+
+        throw new BadDataFormatException("Invalid variable-length integer.");
+    }
+
+    private static int getBitWidth(long range) {
+        return Long.SIZE - Long.numberOfLeadingZeros(range);
+    }
+
+    private static int getPackedLength(int count, int bitWidth) {
+        return (int) (((long) count * bitWidth + 7) / 8);
+    }
+
+    /**
+     * Decodes {@code count} integers written by
+     * {@link Encoder#encodeIntegers(long[], int)}.
+     */
+    private static void decodeIntegers(ByteBuffer byteBuffer,
+                                       BitReader bitReader,
+                                       long[] values,
+                                       int count) {
+        if (count == 0) {
+            return;
+        }
+
+        byte encoding = byteBuffer.get();
+
+        switch (encoding) {
+            case VARINT:
+                for (int i = 0; i < count; ++i) {
+                    values[i] = unZigZag(getVarLong(byteBuffer));
+                }
+
+                return;
+
+            case DELTA_VARINT:
+                values[0] = unZigZag(getVarLong(byteBuffer));
+
+                for (int i = 1; i < count; ++i) {
+                    values[i] = values[i - 1]
+                              + unZigZag(getVarLong(byteBuffer));
+                }
+
+                return;
+
+            case PACKED:
+                long minimum = unZigZag(getVarLong(byteBuffer));
+                int bitWidth = getBitWidth(byteBuffer);
+
+                for (int i = 0; i < count; ++i) {
+                    values[i] = minimum + bitReader.getBits(bitWidth);
+                }
+
+                bitReader.reset();
+                return;
+
+            case DELTA_PACKED:
+                values[0] = unZigZag(getVarLong(byteBuffer));
+                long minimumDelta = unZigZag(getVarLong(byteBuffer));
+                int deltaBitWidth = getBitWidth(byteBuffer);
+
+                for (int i = 1; i < count; ++i) {
+                    values[i] = values[i - 1]
+                              + minimumDelta
+                              + bitReader.getBits(deltaBitWidth);
+                }
+
+                bitReader.reset();
+                return;
+
+            default:
+                throw new BadDataFormatException(
+                        "Invalid integer encoding: " + encoding + ".");
+        }
+    }
+
+    private static int getBitWidth(ByteBuffer byteBuffer) {
+        int bitWidth = byteBuffer.get();
+
+        if (bitWidth < 0 || bitWidth > Long.SIZE) {
+            throw new BadDataFormatException(
+                    "Invalid bit width: " + bitWidth + ".");
+        }
+
+        return bitWidth;
+    }
+
+    /**
+     * This class encodes a column one block at a time. A block is held in a
+     * buffer until it is written to the target, so the memory needed is
+     * proportional to the size of a block and not to that of the column.
+     */
+    static final class Encoder {
+
+        private final TableRowCodec tableRowCodec;
+        private final int column;
+        private final TableCellType tableCellType;
+        private final long[] longs = new long[BLOCK_SIZE];
+        private final long[] deltas = new long[BLOCK_SIZE];
+        private ByteBuffer byteBuffer =
+                ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        private final BitWriter bitWriter = new BitWriter();
+
+        Encoder(TableRowCodec tableRowCodec, int column) {
+            this.tableRowCodec = tableRowCodec;
+            this.column = column;
+            this.tableCellType = tableRowCodec.getTableCellType(column);
+        }
+
+        /**
+         * Encodes the rows {@code from} (inclusive) to {@code to}
+         * (exclusive) of the given column as a block.
+         *
+         * @param tableColumnStorage the column.
+         * @param from               the first row of the block.
+         * @param to                 the row past the block.
+         */
+        void encodeBlock(TableColumnStorage tableColumnStorage,
+                         int from,
+                         int to) {
+            int n = to - from;
+            int count = 0;
+
+            for (int row = from; row < to; ++row) {
+                if (!tableColumnStorage.isNull(row)) {
+                    ++count;
+                }
+            }
+
+            ensureRemaining(1 + (n + 7) / 8);
+
+            if (count == 0) {
+                byteBuffer.put(ALL_NULLS);
+                return;
+            }
+
+            if (count == n) {
+                byteBuffer.put(NO_NULLS);
+            } else {
+                byteBuffer.put(SOME_NULLS);
+
+                for (int row = from; row < to; ++row) {
+                    bitWriter.putBits(tableColumnStorage.isNull(row) ?
+                                      1L :
+                                      0L, 1);
+                }
+
+                bitWriter.flush();
+            }
+
+            switch (tableCellType) {
+                case TYPE_INT:
+                    TableColumnStorage.IntColumnStorage ints =
+                            (TableColumnStorage.IntColumnStorage)
+                            tableColumnStorage;
+
+                    for (int row = from, k = 0; row < to; ++row) {
+                        if (!ints.isNull(row)) {
+                            longs[k++] = ints.getInt(row);
+                        }
+                    }
+
+                    encodeIntegers(longs, count);
+                    return;
+
+                case TYPE_LONG:
+                    TableColumnStorage.LongColumnStorage longValues =
+                            (TableColumnStorage.LongColumnStorage)
+                            tableColumnStorage;
+
+                    for (int row = from, k = 0; row < to; ++row) {
+                        if (!longValues.isNull(row)) {
+                            longs[k++] = longValues.getLong(row);
+                        }
+                    }
+
+                    encodeIntegers(longs, count);
+                    return;
+
+                case TYPE_FLOAT:
+                    TableColumnStorage.FloatColumnStorage floats =
+                            (TableColumnStorage.FloatColumnStorage)
+                            tableColumnStorage;
+                    ensureRemaining(Float.BYTES * count);
+
+                    for (int row = from; row < to; ++row) {
+                        if (!floats.isNull(row)) {
+                            byteBuffer.putFloat(floats.getFloat(row));
+                        }
+                    }
+
+                    return;
+
+                case TYPE_DOUBLE:
+                    TableColumnStorage.DoubleColumnStorage doubles =
+                            (TableColumnStorage.DoubleColumnStorage)
+                            tableColumnStorage;
+                    ensureRemaining(Double.BYTES * count);
+
+                    for (int row = from; row < to; ++row) {
+                        if (!doubles.isNull(row)) {
+                            byteBuffer.putDouble(doubles.getDouble(row));
+                        }
+                    }
+
+                    return;
+
+                case TYPE_BOOLEAN:
+                    TableColumnStorage.BooleanColumnStorage booleans =
+                            (TableColumnStorage.BooleanColumnStorage)
+                            tableColumnStorage;
+                    ensureRemaining((count + 7) / 8);
+
+                    for (int row = from; row < to; ++row) {
+                        if (!booleans.isNull(row)) {
+                            bitWriter.putBits(booleans.getBoolean(row) ?
+                                              1L :
+                                              0L, 1);
+                        }
+                    }
+
+                    bitWriter.flush();
+                    return;
+
+                case TYPE_STRING:
+                    if (tableRowCodec.getDictionary(column) != null) {
+                        for (int row = from, k = 0; row < to; ++row) {
+                            if (!tableColumnStorage.isNull(row)) {
+                                longs[k++] = tableRowCodec.getCode(
+                                        column,
+                                        (String) tableColumnStorage
+                                                .getNonNull(row));
+                            }
+                        }
+
+                        encodeIntegers(longs, count);
+                        return;
+                    }
+
+                    for (int row = from; row < to; ++row) {
+                        if (!tableColumnStorage.isNull(row)) {
+                            putBytes(((String) tableColumnStorage
+                                            .getNonNull(row))
+                                    .getBytes(StandardCharsets.UTF_8));
+                        }
+                    }
+
+                    return;
+
+                case TYPE_BINARY:
+                    for (int row = from; row < to; ++row) {
+                        if (!tableColumnStorage.isNull(row)) {
+                            putBytes((byte[]) tableColumnStorage
+                                    .getNonNull(row));
+                        }
+                    }
+
+                    return;
+
+                default:
+                    throw new IllegalStateException(
+                            "Unknown table cell type.");
+            }
+        }
+
+        /**
+         * Writes the blocks encoded since the last call to the target.
+         *
+         * @param tableBlockWriter the target.
+         * @throws IOException if writing fails.
+         */
+        void writeTo(TableBlockWriter tableBlockWriter) throws IOException {
+            tableBlockWriter.write(byteBuffer.array(),
+                                   0,
+                                   byteBuffer.position());
+            byteBuffer.clear();
+        }
+
+        private void putBytes(byte[] bytes) {
+            ensureRemaining(Integer.BYTES + bytes.length);
+            byteBuffer.putInt(bytes.length).put(bytes);
+        }
+
+        /**
+         * Writes the first {@code count} values in the smallest of the
+         * integer encodings.
+         */
+        private void encodeIntegers(long[] values, int count) {
+            long first = values[0];
+            long minimum = first;
+            long maximum = first;
+            long minimumDelta = 0L;
+            long maximumDelta = 0L;
+            long varintLength = getVarLongLength(zigZag(first));
+            long deltaVarintLength = varintLength;
+
+            for (int i = 1; i < count; ++i) {
+                long value = values[i];
+                long delta = value - values[i - 1];
+                deltas[i] = delta;
+                minimum = Math.min(minimum, value);
+                maximum = Math.max(maximum, value);
+
+                if (i == 1) {
+                    minimumDelta = delta;
+                    maximumDelta = delta;
+                } else {
+                    minimumDelta = Math.min(minimumDelta, delta);
+                    maximumDelta = Math.max(maximumDelta, delta);
+                }
+
+                varintLength += getVarLongLength(zigZag(value));
+                deltaVarintLength += getVarLongLength(zigZag(delta));
+            }
+
+            int bitWidth = getBitWidth(maximum - minimum);
+            int deltaBitWidth = getBitWidth(maximumDelta - minimumDelta);
+            long packedLength = getVarLongLength(zigZag(minimum))
+                              + 1
+                              + getPackedLength(count, bitWidth);
+            long deltaPackedLength = getVarLongLength(zigZag(first))
+                                   + getVarLongLength(zigZag(minimumDelta))
+                                   + 1
+                                   + getPackedLength(count - 1,
+                                                     deltaBitWidth);
+
+            long length = Math.min(Math.min(varintLength, deltaVarintLength),
+                                   Math.min(packedLength, deltaPackedLength));
+            ensureRemaining(1 + (int) length);
+
+            if (length == varintLength) {
+                byteBuffer.put(VARINT);
+
+                for (int i = 0; i < count; ++i) {
+                    putVarLong(byteBuffer, zigZag(values[i]));
+                }
+            } else if (length == deltaVarintLength) {
+                byteBuffer.put(DELTA_VARINT);
+                putVarLong(byteBuffer, zigZag(first));
+
+                for (int i = 1; i < count; ++i) {
+                    putVarLong(byteBuffer, zigZag(deltas[i]));
+                }
+            } else if (length == packedLength) {
+                byteBuffer.put(PACKED);
+                putVarLong(byteBuffer, zigZag(minimum));
+                byteBuffer.put((byte) bitWidth);
+
+                for (int i = 0; i < count; ++i) {
+                    bitWriter.putBits(values[i] - minimum, bitWidth);
+                }
+
+                bitWriter.flush();
+            } else {
+                byteBuffer.put(DELTA_PACKED);
+                putVarLong(byteBuffer, zigZag(first));
+                putVarLong(byteBuffer, zigZag(minimumDelta));
+                byteBuffer.put((byte) deltaBitWidth);
+
+                for (int i = 1; i < count; ++i) {
+                    bitWriter.putBits(deltas[i] - minimumDelta,
+                                      deltaBitWidth);
+                }
+
+                bitWriter.flush();
+            }
+        }
+
+        private void ensureRemaining(int length) {
+            if (byteBuffer.remaining() >= length) {
+                return;
+            }
+
+            int capacity = Math.max(byteBuffer.position() + length,
+                                    2 * byteBuffer.capacity());
+            ByteBuffer newByteBuffer =
+                    ByteBuffer.allocate(capacity)
+                              .order(ByteOrder.LITTLE_ENDIAN);
+            byteBuffer.flip();
+            byteBuffer = newByteBuffer.put(byteBuffer);
+        }
+
+        /**
+         * Packs values of the given bit widths into the bytes of the buffer,
+         * the least significant bits first.
+         */
+        private final class BitWriter {
+
+            private long bits;
+            private int numberOfBits;
+
+            void putBits(long value, int bitWidth) {
+                if (bitWidth > Integer.SIZE) {
+                    putBitsUpTo32(value & 0xFFFFFFFFL, Integer.SIZE);
+                    putBitsUpTo32(value >>> Integer.SIZE,
+                                  bitWidth - Integer.SIZE);
+                } else {
+                    putBitsUpTo32(value, bitWidth);
+                }
+            }
+
+            void flush() {
+                if (numberOfBits > 0) {
+                    byteBuffer.put((byte) bits);
+                }
+
+                bits = 0L;
+                numberOfBits = 0;
+            }
+
+            private void putBitsUpTo32(long value, int bitWidth) {
+                bits |= value << numberOfBits;
+                numberOfBits += bitWidth;
+
+                while (numberOfBits >= Byte.SIZE) {
+                    byteBuffer.put((byte) bits);
+                    bits >>>= Byte.SIZE;
+                    numberOfBits -= Byte.SIZE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Unpacks the values packed by {@code BitWriter}.
+     */
+    private static final class BitReader {
+
+        private final ByteBuffer byteBuffer;
+        private long bits;
+        private int numberOfBits;
+
+        BitReader(ByteBuffer byteBuffer) {
+            this.byteBuffer = byteBuffer;
+        }
+
+        long getBits(int bitWidth) {
+            if (bitWidth > Integer.SIZE) {
+                long low = getBitsUpTo32(Integer.SIZE);
+                return low | getBitsUpTo32(bitWidth - Integer.SIZE)
+                                << Integer.SIZE;
+            }
+
+            return getBitsUpTo32(bitWidth);
+        }
+
+        /**
+         * Discards the rest of the current byte.
+         */
+        void reset() {
+            bits = 0L;
+            numberOfBits = 0;
+        }
+
+        private long getBitsUpTo32(int bitWidth) {
+            while (numberOfBits < bitWidth) {
+                bits |= (byteBuffer.get() & 0xFFL) << numberOfBits;
+                numberOfBits += Byte.SIZE;
+            }
+
+            long value = bits & ((1L << bitWidth) - 1L);
+            bits >>>= bitWidth;
+            numberOfBits -= bitWidth;
+            return value;
+        }
+    }
+}
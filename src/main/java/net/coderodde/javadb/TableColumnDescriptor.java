@@ -144,6 +144,31 @@ public final class TableColumnDescriptor {
         return tableColumnDescriptor;
     }
     
+    /**
+     * Returns the number of bytes this column takes in a table block or a 
+     * directory entry of a database file as of format version 5, where the 
+     * column name is written in UTF-8.
+     * 
+     * @return the serialization length in bytes.
+     */
+    int getCompactSerializationLength() {
+        return Utf8.getSerializationLength(tableColumnName) + 1;
+    }
+    
+    void serializeCompact(ByteBuffer byteBuffer) {
+        Utf8.serialize(byteBuffer, tableColumnName);
+        byteBuffer.put(tableCellType.getTypeId());
+    }
+    
+    static TableColumnDescriptor deserializeCompact(ByteBuffer byteBuffer) {
+        String tableColumnName = Utf8.deserialize(byteBuffer);
+        byte typeId = byteBuffer.get();
+        
+        return new TableColumnDescriptor(
+                tableColumnName, 
+                TableCellType.getTableCellType(typeId));
+    }
+    
     private String checkTableColumnName(String tableColumnName) {
         tableColumnName = tableColumnName.trim().toLowerCase();
         
@@ -0,0 +1,837 @@
+package net.coderodde.javadb;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * This class implements the storage of a single column of a columnar table.
+ * The values are kept in a primitive array whenever the column type allows for
+ * it, and the nulls are recorded in a separate bitmap.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+abstract class TableColumnStorage implements Cloneable {
+
+    /**
+     * The minimum capacity of a column storage.
+     */
+    private static final int MINIMUM_CAPACITY = 16;
+
+    /**
+     * The {@code i}th bit is set if and only if the {@code i}th value is
+     * {@code null}.
+     */
+    private long[] nullBitmap;
+
+    /**
+     * The number of values stored.
+     */
+    int size;
+
+    /**
+     * The number of values this storage can hold without resizing.
+     */
+    int capacity;
+
+    TableColumnStorage(int capacity) {
+        this.capacity = Math.max(capacity, MINIMUM_CAPACITY);
+        this.nullBitmap = new long[getNumberOfWords(this.capacity)];
+    }
+
+    /**
+     * Creates a new empty column storage for the given data type.
+     *
+     * @param tableCellType the data type of the column.
+     * @param capacity      the initial capacity.
+     *
+     * @return a column storage.
+     */
+    static TableColumnStorage create(TableCellType tableCellType,
+                                     int capacity) {
+        Objects.requireNonNull(tableCellType, "Table cell type is null.");
+
+        switch (tableCellType) {
+            case TYPE_INT:
+                return new IntColumnStorage(capacity);
+
+            case TYPE_LONG:
+                return new LongColumnStorage(capacity);
+
+            case TYPE_FLOAT:
+                return new FloatColumnStorage(capacity);
+
+            case TYPE_DOUBLE:
+                return new DoubleColumnStorage(capacity);
+
+            case TYPE_BOOLEAN:
+                return new BooleanColumnStorage(capacity);
+
+            case TYPE_STRING:
+            case TYPE_BINARY:
+                return new ObjectColumnStorage(tableCellType, capacity);
+
+            default:
+                throw new IllegalStateException("Unknown table cell type.");
+        }
+    }
+
+    /**
+     * Returns {@code true} if the given array may be appended to a column of
+     * the given type by {@link #appendAll(Object, int)}: an array of the
+     * primitive type of the column, or an array of its object type, whose
+     * elements may be {@code null}. Since an array checks the type of every
+     * element stored in it, the elements need not be checked one by one.
+     *
+     * @param array         the array.
+     * @param tableCellType the type of the column.
+     * @return {@code true} if the array fits the column.
+     */
+    static boolean isColumnArray(Object array, TableCellType tableCellType) {
+        switch (tableCellType) {
+            case TYPE_INT:
+                return array instanceof int[] || array instanceof Integer[];
+
+            case TYPE_LONG:
+                return array instanceof long[] || array instanceof Long[];
+
+            case TYPE_FLOAT:
+                return array instanceof float[] || array instanceof Float[];
+
+            case TYPE_DOUBLE:
+                return array instanceof double[] || array instanceof Double[];
+
+            case TYPE_BOOLEAN:
+                return array instanceof boolean[]
+                        || array instanceof Boolean[];
+
+            case TYPE_STRING:
+                return array instanceof String[];
+
+            case TYPE_BINARY:
+                return array instanceof byte[][];
+
+            default:
+                throw new IllegalStateException("Unknown table cell type.");
+        }
+    }
+
+    /**
+     * Returns the data type of this column.
+     *
+     * @return the data type.
+     */
+    abstract TableCellType getTableCellType();
+
+    /**
+     * Returns the non-null value at the given row as a boxed object.
+     *
+     * @param row the row index.
+     * @return the value.
+     */
+    abstract Object getNonNull(int row);
+
+    /**
+     * Stores a non-null value at the given row.
+     *
+     * @param row   the row index.
+     * @param value the value to store.
+     */
+    abstract void setNonNull(int row, Object value);
+
+    /**
+     * Resets the value slot at the given row so that it does not hold on to
+     * any object.
+     *
+     * @param row the row index.
+     */
+    abstract void clearValue(int row);
+
+    /**
+     * Resizes the value array to {@code newCapacity}.
+     *
+     * @param newCapacity the new capacity.
+     */
+    abstract void resizeValues(int newCapacity);
+
+    /**
+     * Replaces the value array with a copy of it. Called on a fresh clone of
+     * this storage so that the clone does not share the array.
+     */
+    abstract void copyValues();
+
+    /**
+     * Shifts the values at indices {@code row, row + 1, ..., size - 1} one
+     * position to the right.
+     *
+     * @param row the index of the gap to open.
+     */
+    abstract void openGap(int row);
+
+    /**
+     * Shifts the values at indices {@code row + 1, ..., size - 1} one position
+     * to the left.
+     *
+     * @param row the index of the value to overwrite.
+     */
+    abstract void closeGap(int row);
+
+    /**
+     * Copies {@code count} values from a primitive array of the type of this
+     * storage to the given row onwards. The storage must have room for them.
+     *
+     * @param array the source array.
+     * @param row   the first target row.
+     * @param count the number of values to copy.
+     */
+    void copyPrimitives(Object array, int row, int count) {
+        throw new IllegalStateException(
+                "No primitive array fits a column of type " +
+                getTableCellType().getTypeName() + ".");
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy of this storage that shares no mutable state with it.
+     *
+     * @return a copy of this storage.
+     */
+    TableColumnStorage copy() {
+        try {
+            TableColumnStorage copy = (TableColumnStorage) clone();
+            copy.nullBitmap = nullBitmap.clone();
+            copy.copyValues();
+            return copy;
+        } catch (CloneNotSupportedException ex) {
+            throw new IllegalStateException("Should not get here.", ex);
+        }
+    }
+
+    boolean isNull(int row) {
+        return getBit(nullBitmap, row);
+    }
+
+    Object get(int row) {
+        return isNull(row) ? null : getNonNull(row);
+    }
+
+    void set(int row, Object value) {
+        if (value == null) {
+            setBit(nullBitmap, row, true);
+            clearValue(row);
+        } else {
+            setBit(nullBitmap, row, false);
+            setNonNull(row, value);
+        }
+    }
+
+    /**
+     * Inserts a value at the given row shifting all the subsequent values one
+     * position further.
+     *
+     * @param row   the row index.
+     * @param value the value to insert. May be {@code null}.
+     */
+    void insert(int row, Object value) {
+        ensureCapacity(size + 1);
+
+        if (row < size) {
+            openGap(row);
+            insertBit(nullBitmap, size, row, false);
+        }
+
+        ++size;
+        set(row, value);
+    }
+
+    void append(Object value) {
+        insert(size, value);
+    }
+
+    /**
+     * Appends the first {@code count} values of the given array to this
+     * column. Primitive arrays are copied in bulk.
+     *
+     * @param array the array satisfying {@link #isColumnArray}.
+     * @param count the number of values to append.
+     */
+    void appendAll(Object array, int count) {
+        ensureCapacity(size + count);
+
+        if (array instanceof Object[]) {
+            Object[] values = (Object[]) array;
+
+            for (int i = 0; i < count; ++i) {
+                set(size + i, values[i]);
+            }
+        } else {
+            copyPrimitives(array, size, count);
+
+            for (int i = 0; i < count; ++i) {
+                setBit(nullBitmap, size + i, false);
+            }
+        }
+
+        size += count;
+    }
+
+    /**
+     * Appends {@code count} {@code null} values to this column.
+     *
+     * @param count the number of nulls to append.
+     */
+    void appendNulls(int count) {
+        ensureCapacity(size + count);
+
+        for (int i = 0; i < count; ++i) {
+            setBit(nullBitmap, size++, true);
+        }
+    }
+
+    /**
+     * Removes the value at the given row shifting all the subsequent values
+     * one position closer to the beginning.
+     *
+     * @param row the row index.
+     */
+    void remove(int row) {
+        closeGap(row);
+        removeBit(nullBitmap, size, row);
+        --size;
+        clearValue(size);
+    }
+
+    void ensureCapacity(int requestedCapacity) {
+        if (requestedCapacity <= capacity) {
+            return;
+        }
+
+        int newCapacity = Math.max(requestedCapacity,
+                                   capacity + (capacity >> 1));
+        resizeValues(newCapacity);
+        nullBitmap = Arrays.copyOf(nullBitmap, getNumberOfWords(newCapacity));
+        capacity = newCapacity;
+    }
+
+    int getSerializationLength(int row) {
+        return TableCell.getSerializationLength(getTableCellType(), get(row));
+    }
+
+    void serialize(ByteBuffer byteBuffer, int row) {
+        TableCell.serializeValue(byteBuffer, getTableCellType(), get(row));
+    }
+
+    static int getNumberOfWords(int bits) {
+        return (bits + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    static boolean getBit(long[] words, int index) {
+        return (words[index >>> 6] & (1L << index)) != 0L;
+    }
+
+    static void setBit(long[] words, int index, boolean value) {
+        if (value) {
+            words[index >>> 6] |= 1L << index;
+        } else {
+            words[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * Inserts a bit at position {@code index} shifting all the bits at and
+     * after {@code index} one position further.
+     *
+     * @param words the bit array.
+     * @param size  the number of bits in use.
+     * @param index the insertion position.
+     * @param value the value of the inserted bit.
+     */
+    static void insertBit(long[] words, int size, int index, boolean value) {
+        int wordIndex = index >>> 6;
+        int lastWordIndex = size >>> 6;
+
+        for (int w = lastWordIndex; w > wordIndex; --w) {
+            words[w] = (words[w] << 1) | (words[w - 1] >>> 63);
+        }
+
+        long word = words[wordIndex];
+        long lowMask = (1L << index) - 1L;
+        long lowBits = word & lowMask;
+        long highBits = (word & ~lowMask) << 1;
+        words[wordIndex] = lowBits | highBits;
+        setBit(words, index, value);
+    }
+
+    /**
+     * Removes the bit at position {@code index} shifting all the subsequent
+     * bits one position closer to the beginning.
+     *
+     * @param words the bit array.
+     * @param size  the number of bits in use.
+     * @param index the index of the bit to remove.
+     */
+    static void removeBit(long[] words, int size, int index) {
+        int wordIndex = index >>> 6;
+        int lastWordIndex = (size - 1) >>> 6;
+
+        long word = words[wordIndex];
+        long lowMask = (1L << index) - 1L;
+        long lowBits = word & lowMask;
+        long highBits = (word >>> 1) & ~lowMask;
+        words[wordIndex] = lowBits | highBits;
+
+        for (int w = wordIndex; w < lastWordIndex; ++w) {
+            words[w] |= words[w + 1] << 63;
+            words[w + 1] >>>= 1;
+        }
+    }
+
+    /**
+     * Implements the storage of a {@code TYPE_INT} column.
+     */
+    static final class IntColumnStorage extends TableColumnStorage {
+
+        private int[] values;
+
+        IntColumnStorage(int capacity) {
+            super(capacity);
+            values = new int[this.capacity];
+        }
+
+        int getInt(int row) {
+            return values[row];
+        }
+
+        @Override
+        TableCellType getTableCellType() {
+            return TableCellType.TYPE_INT;
+        }
+
+        @Override
+        Object getNonNull(int row) {
+            return values[row];
+        }
+
+        @Override
+        void setNonNull(int row, Object value) {
+            values[row] = (Integer) value;
+        }
+
+        @Override
+        void clearValue(int row) {
+            values[row] = 0;
+        }
+
+        @Override
+        void copyValues() {
+            values = values.clone();
+        }
+
+        @Override
+        void resizeValues(int newCapacity) {
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+        @Override
+        void openGap(int row) {
+            System.arraycopy(values, row, values, row + 1, size - row);
+        }
+
+        @Override
+        void closeGap(int row) {
+            System.arraycopy(values, row + 1, values, row, size - row - 1);
+        }
+
+        @Override
+        void copyPrimitives(Object array, int row, int count) {
+            System.arraycopy(array, 0, values, row, count);
+        }
+
+        @Override
+        int getSerializationLength(int row) {
+            return 1 + (isNull(row) ? 0 : Integer.BYTES);
+        }
+
+        @Override
+        void serialize(ByteBuffer byteBuffer, int row) {
+            if (isNull(row)) {
+                byteBuffer.put(TableCell.INT_NULL);
+            } else {
+                byteBuffer.put(TableCell.INT_NOT_NULL).putInt(values[row]);
+            }
+        }
+    }
+
+    /**
+     * Implements the storage of a {@code TYPE_LONG} column.
+     */
+    static final class LongColumnStorage extends TableColumnStorage {
+
+        private long[] values;
+
+        LongColumnStorage(int capacity) {
+            super(capacity);
+            values = new long[this.capacity];
+        }
+
+        long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        TableCellType getTableCellType() {
+            return TableCellType.TYPE_LONG;
+        }
+
+        @Override
+        Object getNonNull(int row) {
+            return values[row];
+        }
+
+        @Override
+        void setNonNull(int row, Object value) {
+            values[row] = (Long) value;
+        }
+
+        @Override
+        void clearValue(int row) {
+            values[row] = 0L;
+        }
+
+        @Override
+        void copyValues() {
+            values = values.clone();
+        }
+
+        @Override
+        void resizeValues(int newCapacity) {
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+        @Override
+        void openGap(int row) {
+            System.arraycopy(values, row, values, row + 1, size - row);
+        }
+
+        @Override
+        void closeGap(int row) {
+            System.arraycopy(values, row + 1, values, row, size - row - 1);
+        }
+
+        @Override
+        void copyPrimitives(Object array, int row, int count) {
+            System.arraycopy(array, 0, values, row, count);
+        }
+
+        @Override
+        int getSerializationLength(int row) {
+            return 1 + (isNull(row) ? 0 : Long.BYTES);
+        }
+
+        @Override
+        void serialize(ByteBuffer byteBuffer, int row) {
+            if (isNull(row)) {
+                byteBuffer.put(TableCell.LONG_NULL);
+            } else {
+                byteBuffer.put(TableCell.LONG_NOT_NULL).putLong(values[row]);
+            }
+        }
+    }
+
+    /**
+     * Implements the storage of a {@code TYPE_FLOAT} column.
+     */
+    static final class FloatColumnStorage extends TableColumnStorage {
+
+        private float[] values;
+
+        FloatColumnStorage(int capacity) {
+            super(capacity);
+            values = new float[this.capacity];
+        }
+
+        float getFloat(int row) {
+            return values[row];
+        }
+
+        @Override
+        TableCellType getTableCellType() {
+            return TableCellType.TYPE_FLOAT;
+        }
+
+        @Override
+        Object getNonNull(int row) {
+            return values[row];
+        }
+
+        @Override
+        void setNonNull(int row, Object value) {
+            values[row] = (Float) value;
+        }
+
+        @Override
+        void clearValue(int row) {
+            values[row] = 0.0f;
+        }
+
+        @Override
+        void copyValues() {
+            values = values.clone();
+        }
+
+        @Override
+        void resizeValues(int newCapacity) {
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+        @Override
+        void openGap(int row) {
+            System.arraycopy(values, row, values, row + 1, size - row);
+        }
+
+        @Override
+        void closeGap(int row) {
+            System.arraycopy(values, row + 1, values, row, size - row - 1);
+        }
+
+        @Override
+        void copyPrimitives(Object array, int row, int count) {
+            System.arraycopy(array, 0, values, row, count);
+        }
+
+        @Override
+        int getSerializationLength(int row) {
+            return 1 + (isNull(row) ? 0 : Float.BYTES);
+        }
+
+        @Override
+        void serialize(ByteBuffer byteBuffer, int row) {
+            if (isNull(row)) {
+                byteBuffer.put(TableCell.FLOAT_NULL);
+            } else {
+                byteBuffer.put(TableCell.FLOAT_NOT_NULL).putFloat(values[row]);
+            }
+        }
+    }
+
+    /**
+     * Implements the storage of a {@code TYPE_DOUBLE} column.
+     */
+    static final class DoubleColumnStorage extends TableColumnStorage {
+
+        private double[] values;
+
+        DoubleColumnStorage(int capacity) {
+            super(capacity);
+            values = new double[this.capacity];
+        }
+
+        double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        TableCellType getTableCellType() {
+            return TableCellType.TYPE_DOUBLE;
+        }
+
+        @Override
+        Object getNonNull(int row) {
+            return values[row];
+        }
+
+        @Override
+        void setNonNull(int row, Object value) {
+            values[row] = (Double) value;
+        }
+
+        @Override
+        void clearValue(int row) {
+            values[row] = 0.0;
+        }
+
+        @Override
+        void copyValues() {
+            values = values.clone();
+        }
+
+        @Override
+        void resizeValues(int newCapacity) {
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+        @Override
+        void openGap(int row) {
+            System.arraycopy(values, row, values, row + 1, size - row);
+        }
+
+        @Override
+        void closeGap(int row) {
+            System.arraycopy(values, row + 1, values, row, size - row - 1);
+        }
+
+        @Override
+        void copyPrimitives(Object array, int row, int count) {
+            System.arraycopy(array, 0, values, row, count);
+        }
+
+        @Override
+        int getSerializationLength(int row) {
+            return 1 + (isNull(row) ? 0 : Double.BYTES);
+        }
+
+        @Override
+        void serialize(ByteBuffer byteBuffer, int row) {
+            if (isNull(row)) {
+                byteBuffer.put(TableCell.DOUBLE_NULL);
+            } else {
+                byteBuffer.put(TableCell.DOUBLE_NOT_NULL)
+                          .putDouble(values[row]);
+            }
+        }
+    }
+
+    /**
+     * Implements the storage of a {@code TYPE_BOOLEAN} column. The values are
+     * packed into a bitmap.
+     */
+    static final class BooleanColumnStorage extends TableColumnStorage {
+
+        private long[] values;
+
+        BooleanColumnStorage(int capacity) {
+            super(capacity);
+            values = new long[getNumberOfWords(this.capacity)];
+        }
+
+        boolean getBoolean(int row) {
+            return getBit(values, row);
+        }
+
+        @Override
+        TableCellType getTableCellType() {
+            return TableCellType.TYPE_BOOLEAN;
+        }
+
+        @Override
+        Object getNonNull(int row) {
+            return getBit(values, row);
+        }
+
+        @Override
+        void setNonNull(int row, Object value) {
+            setBit(values, row, (Boolean) value);
+        }
+
+        @Override
+        void clearValue(int row) {
+            setBit(values, row, false);
+        }
+
+        @Override
+        void copyValues() {
+            values = values.clone();
+        }
+
+        @Override
+        void resizeValues(int newCapacity) {
+            values = Arrays.copyOf(values, getNumberOfWords(newCapacity));
+        }
+
+        @Override
+        void openGap(int row) {
+            insertBit(values, size, row, false);
+        }
+
+        @Override
+        void closeGap(int row) {
+            removeBit(values, size, row);
+        }
+
+        @Override
+        void copyPrimitives(Object array, int row, int count) {
+            boolean[] booleans = (boolean[]) array;
+
+            for (int i = 0; i < count; ++i) {
+                setBit(values, row + i, booleans[i]);
+            }
+        }
+
+        @Override
+        int getSerializationLength(int row) {
+            return 1 + (isNull(row) ? 0 : 1);
+        }
+
+        @Override
+        void serialize(ByteBuffer byteBuffer, int row) {
+            if (isNull(row)) {
+                byteBuffer.put(TableCell.BOOLEAN_NULL);
+            } else {
+                byteBuffer.put(TableCell.BOOLEAN_NOT_NULL)
+                          .put(getBit(values, row) ?
+                                  TableCell.BOOLEAN_TRUE :
+                                  TableCell.BOOLEAN_FALSE);
+            }
+        }
+    }
+
+    /**
+     * Implements the storage of {@code TYPE_STRING} and {@code TYPE_BINARY}
+     * columns.
+     */
+    static final class ObjectColumnStorage extends TableColumnStorage {
+
+        private final TableCellType tableCellType;
+        private Object[] values;
+
+        ObjectColumnStorage(TableCellType tableCellType, int capacity) {
+            super(capacity);
+            this.tableCellType = tableCellType;
+            this.values = new Object[this.capacity];
+        }
+
+        @Override
+        TableCellType getTableCellType() {
+            return tableCellType;
+        }
+
+        @Override
+        Object getNonNull(int row) {
+            return values[row];
+        }
+
+        @Override
+        void setNonNull(int row, Object value) {
+            values[row] = value;
+        }
+
+        @Override
+        void clearValue(int row) {
+            values[row] = null;
+        }
+
+        @Override
+        void copyValues() {
+            values = values.clone();
+        }
+
+        @Override
+        void resizeValues(int newCapacity) {
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+        @Override
+        void openGap(int row) {
+            System.arraycopy(values, row, values, row + 1, size - row);
+        }
+
+        @Override
+        void closeGap(int row) {
+            System.arraycopy(values, row + 1, values, row, size - row - 1);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package net.coderodde.javadb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class holds the registry of the table compression codecs and
+ * implements the compressed frames of the table blocks. The data of a
+ * compressed table block, that is, everything after the codec of the rows,
+ * is written as
+ *
+ * <pre>
+ * per frame: int row count, int uncompressed length, int compressed length,
+ *            the compressed bytes
+ * end:       int {@link #END_OF_FRAMES} in place of the next row count
+ * </pre>
+ *
+ * so that each frame is written as soon as it is compressed, and a table is
+ * never held in memory as a whole. Format version 8 and 9 blocks have no end
+ * marker, but an int frame count preceding the frames instead.
+ *
+ * A frame of the row layout holds whole rows, so that a lazily opened table
+ * decompresses only the frames of the rows it accesses. The frames of the
+ * column layout hold consecutive pieces of the encoded columns, and have no
+ * rows of their own. The codecs {@link #DEFLATE} and {@link #LZ} are
+ * registered by default, as are the codecs provided as services via
+ * {@link ServiceLoader}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class TableCompression {
+
+    /**
+     * The codec compressing via {@link java.util.zip.Deflater}.
+     */
+    public static final TableCompressionCodec DEFLATE =
+            new TableDeflateCodec();
+
+    /**
+     * The fast codec in the style of LZ4.
+     */
+    public static final TableCompressionCodec LZ = new TableLzCodec();
+
+    /**
+     * The number of uncompressed bytes after which a frame is closed.
+     */
+    static final int FRAME_SIZE = 1 << 16;
+
+    /**
+     * The length of a frame header in bytes.
+     */
+    static final int FRAME_HEADER_LENGTH = 3 * Integer.BYTES;
+
+    /**
+     * The row count marking the end of the frames as of format version 10.
+     */
+    static final int END_OF_FRAMES = -1;
+
+    private static final Map<String, TableCompressionCodec> CODEC_MAP =
+            new ConcurrentHashMap<>();
+
+    static {
+        register(DEFLATE);
+        register(LZ);
+
+        for (TableCompressionCodec tableCompressionCodec
+                : ServiceLoader.load(TableCompressionCodec.class)) {
+            register(tableCompressionCodec);
+        }
+    }
+
+    private TableCompression() {}
+
+    /**
+     * Registers a codec, so that the tables compressed with it may be
+     * written and read.
+     *
+     * @param tableCompressionCodec the codec to register.
+     * @throws IllegalArgumentException if the name of the codec is empty, or
+     *                                  another codec with the same name is
+     *                                  registered.
+     */
+    public static void register(TableCompressionCodec tableCompressionCodec) {
+        Objects.requireNonNull(tableCompressionCodec, "The codec is null.");
+        String name = Objects.requireNonNull(tableCompressionCodec.getName(),
+                                             "The codec name is null.");
+
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("The codec name is empty.");
+        }
+
+        TableCompressionCodec registered =
+                CODEC_MAP.putIfAbsent(name, tableCompressionCodec);
+
+        if (registered != null && registered != tableCompressionCodec) {
+            throw new IllegalArgumentException(
+                    "Another codec is registered under the name \"" + name +
+                    "\".");
+        }
+    }
+
+    /**
+     * Returns the registered codec with the given name.
+     *
+     * @param name the name of the codec.
+     * @return the codec, or {@code null} if there is none.
+     */
+    public static TableCompressionCodec getCodec(String name) {
+        return CODEC_MAP.get(name);
+    }
+
+    static boolean isRegistered(TableCompressionCodec tableCompressionCodec) {
+        return CODEC_MAP.get(tableCompressionCodec.getName())
+                == tableCompressionCodec;
+    }
+
+    /**
+     * Reads the frame headers at the position of the given buffer, and
+     * advances the position past the frames.
+     *
+     * @param byteBuffer    the buffer.
+     * @param formatVersion the format version of the block.
+     * @return the frames.
+     */
+    static List<Frame> readFrames(ByteBuffer byteBuffer, int formatVersion) {
+        int numberOfFrames = Integer.MAX_VALUE;
+
+        if (formatVersion < 10) {
+            numberOfFrames = byteBuffer.getInt();
+
+            if (numberOfFrames < 0) {
+                throw new BadDataFormatException(
+                        "Invalid frame count: " + numberOfFrames + ".");
+            }
+        }
+
+        List<Frame> frameList = new ArrayList<>();
+
+        for (int i = 0; i < numberOfFrames; ++i) {
+            int numberOfRows = byteBuffer.getInt();
+
+            if (numberOfRows == END_OF_FRAMES && formatVersion >= 10) {
+                break;
+            }
+
+            int uncompressedLength = byteBuffer.getInt();
+            int compressedLength = byteBuffer.getInt();
+
+            if (numberOfRows < 0
+                    || uncompressedLength < 0
+                    || compressedLength < 0
+                    || compressedLength > byteBuffer.remaining()) {
+                throw new BadDataFormatException("Invalid frame header.");
+            }
+
+            ByteBuffer compressedData = byteBuffer.slice();
+            compressedData.limit(compressedLength);
+            byteBuffer.position(byteBuffer.position() + compressedLength);
+            frameList.add(new Frame(numberOfRows,
+                                    uncompressedLength,
+                                    compressedData));
+        }
+
+        return frameList;
+    }
+
+    /**
+     * Decompresses all the frames at the position of the given buffer into a
+     * single buffer, and advances the position past the frames.
+     *
+     * @param byteBuffer    the buffer.
+     * @param tableRowCodec the codec of the block, which names the codec of
+     *                      the frames.
+     * @param numberOfRows  the number of rows the frames must hold, or zero
+     *                      in the column layout.
+     * @return the little-endian buffer holding the uncompressed data.
+     */
+    static ByteBuffer decompress(ByteBuffer byteBuffer,
+                                 TableRowCodec tableRowCodec,
+                                 int numberOfRows) {
+        TableCompressionCodec tableCompressionCodec =
+                tableRowCodec.getTableCompressionCodec();
+        List<Frame> frameList =
+                readFrames(byteBuffer, tableRowCodec.getFormatVersion());
+        long uncompressedLength = 0L;
+        long numberOfFrameRows = 0L;
+
+        for (Frame frame : frameList) {
+            uncompressedLength += frame.getUncompressedLength();
+            numberOfFrameRows += frame.getNumberOfRows();
+        }
+
+        if (uncompressedLength > Integer.MAX_VALUE
+                || numberOfFrameRows != numberOfRows) {
+            throw new BadDataFormatException(
+                    "The frames do not match the table.");
+        }
+
+        byte[] data = new byte[(int) uncompressedLength];
+        int offset = 0;
+
+        for (Frame frame : frameList) {
+            byte[] frameData = frame.decompress(tableCompressionCodec);
+            System.arraycopy(frameData, 0, data, offset, frameData.length);
+            offset += frameData.length;
+        }
+
+        return ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * This class describes a compressed frame read from a buffer.
+     */
+    static final class Frame {
+
+        private final int numberOfRows;
+        private final int uncompressedLength;
+
+        /**
+         * The compressed bytes, from position zero to the limit.
+         */
+        private final ByteBuffer compressedData;
+
+        Frame(int numberOfRows,
+              int uncompressedLength,
+              ByteBuffer compressedData) {
+            this.numberOfRows = numberOfRows;
+            this.uncompressedLength = uncompressedLength;
+            this.compressedData = compressedData;
+        }
+
+        int getNumberOfRows() {
+            return numberOfRows;
+        }
+
+        int getUncompressedLength() {
+            return uncompressedLength;
+        }
+
+        byte[] decompress(TableCompressionCodec tableCompressionCodec) {
+            byte[] target = new byte[uncompressedLength];
+
+            if (compressedData.hasArray()) {
+                tableCompressionCodec.decompress(
+                        compressedData.array(),
+                        compressedData.arrayOffset(),
+                        compressedData.limit(),
+                        target);
+            } else {
+                byte[] bytes = new byte[compressedData.limit()];
+                compressedData.duplicate().get(bytes);
+                tableCompressionCodec.decompress(bytes,
+                                                 0,
+                                                 bytes.length,
+                                                 target);
+            }
+
+            return target;
+        }
+    }
+
+    /**
+     * This class cuts the data of a table block into frames, and compresses
+     * and writes each frame to the target as soon as the frame is full.
+     */
+    static final class FrameWriter implements TableBlockWriter {
+
+        private final TableCompressionCodec tableCompressionCodec;
+
+        /**
+         * The target of the compressed frames.
+         */
+        private final TableBlockWriter tableBlockWriter;
+
+        /**
+         * The uncompressed data of the current frame.
+         */
+        private ByteBuffer buffer =
+                ByteBuffer.allocate(FRAME_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        /**
+         * The number of rows in the current frame.
+         */
+        private int numberOfRows;
+
+        FrameWriter(TableCompressionCodec tableCompressionCodec,
+                    TableBlockWriter tableBlockWriter) {
+            this.tableCompressionCodec = tableCompressionCodec;
+            this.tableBlockWriter = tableBlockWriter;
+        }
+
+        /**
+         * Returns the buffer to write the next row of the given length to.
+         * A row never crosses the frames.
+         *
+         * @param rowLength the length of the row in bytes.
+         * @return the buffer.
+         * @throws IOException if writing a full frame fails.
+         */
+        @Override
+        public ByteBuffer getBuffer(int rowLength) throws IOException {
+            if (buffer.position() > 0
+                    && buffer.position() + rowLength > FRAME_SIZE) {
+                closeFrame();
+            }
+
+            if (buffer.remaining() < rowLength) {
+                buffer = ByteBuffer.allocate(rowLength)
+                                   .order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            ++numberOfRows;
+            return buffer;
+        }
+
+        /**
+         * Writes data without rows, cutting it into frames as needed.
+         *
+         * @param data   the array holding the data.
+         * @param offset the index of the first byte to write.
+         * @param length the number of bytes to write.
+         * @throws IOException if writing a full frame fails.
+         */
+        @Override
+        public void write(byte[] data, int offset, int length)
+                throws IOException {
+            for (int end = offset + length; offset < end; ) {
+                int chunkLength = Math.min(FRAME_SIZE - buffer.position(),
+                                           end - offset);
+                buffer.put(data, offset, chunkLength);
+                offset += chunkLength;
+
+                if (buffer.position() == FRAME_SIZE) {
+                    closeFrame();
+                }
+            }
+        }
+
+        /**
+         * Writes the last frame followed by the end marker.
+         *
+         * @throws IOException if writing fails.
+         */
+        void finish() throws IOException {
+            if (buffer.position() > 0 || numberOfRows > 0) {
+                closeFrame();
+            }
+
+            tableBlockWriter.getBuffer(Integer.BYTES).putInt(END_OF_FRAMES);
+        }
+
+        private void closeFrame() throws IOException {
+            byte[] compressedData =
+                    tableCompressionCodec.compress(buffer.array(),
+                                                   0,
+                                                   buffer.position());
+            tableBlockWriter.getBuffer(FRAME_HEADER_LENGTH)
+                            .putInt(numberOfRows)
+                            .putInt(buffer.position())
+                            .putInt(compressedData.length);
+            tableBlockWriter.write(compressedData, 0, compressedData.length);
+            numberOfRows = 0;
+
+            if (buffer.capacity() == FRAME_SIZE) {
+                buffer.clear();
+            } else {
+                buffer = ByteBuffer.allocate(FRAME_SIZE)
+                                   .order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package net.coderodde.javadb;
+
+/**
+ * This interface defines the API for the codecs compressing the data of the
+ * tables in a database file. The data is compressed in frames of moderate
+ * size, each compressed and decompressed independently of the others. A codec
+ * is identified in the files by its name, so a codec must be registered via
+ * {@link TableCompression#register(TableCompressionCodec)} or as a service
+ * provider in order for the files written with it to be readable.
+ * <p>
+ * The implementations must be thread-safe, since the frames of different
+ * tables are compressed and decompressed concurrently.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public interface TableCompressionCodec {
+
+    /**
+     * Returns the name identifying this codec in the database files.
+     *
+     * @return the name of this codec.
+     */
+    public String getName();
+
+    /**
+     * Compresses a frame.
+     *
+     * @param data   the array holding the frame.
+     * @param offset the offset of the frame in {@code data}.
+     * @param length the length of the frame in bytes.
+     * @return the compressed frame.
+     */
+    public byte[] compress(byte[] data, int offset, int length);
+
+    /**
+     * Decompresses a frame compressed by {@link #compress(byte[], int, int)}.
+     *
+     * @param compressedData the array holding the compressed frame.
+     * @param offset         the offset of the compressed frame.
+     * @param length         the length of the compressed frame in bytes.
+     * @param target         the array to decompress to, whose length equals
+     *                       the length of the original frame.
+     * @throws BadDataFormatException if the compressed frame is corrupt.
+     */
+    public void decompress(byte[] compressedData,
+                           int offset,
+                           int length,
+                           byte[] target);
+}
@@ -0,0 +1,1007 @@
+package net.coderodde.javadb;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class implements the import of tables from CSV files and the export of
+ * tables and table views to CSV. The format follows RFC 4180: the fields are
+ * separated by commas, the records are terminated by line feeds, optionally
+ * preceded by carriage returns, and a field holding a comma, a quote or a line
+ * break is enclosed in quotes, the quotes inside being doubled. The text is
+ * encoded in UTF-8.
+ * <p>
+ * An empty field stands for {@code null}, while an empty string or binary
+ * object is written as two quotes. The missing trailing fields of a record
+ * are taken as {@code null}s, so an empty line is a record of {@code null}s;
+ * this keeps a {@code null} row of a one-column table intact. The booleans are
+ * written as {@code true} and {@code false}, and the binary objects in Base64.
+ * <p>
+ * The importer reads the file sequentially in chunks of whole records, parses
+ * the chunks into typed column arrays in parallel in the common fork/join
+ * pool, and appends the parsed chunks to the table in file order via
+ * {@link Table#putTableRows(Object...)}. The number of chunks in flight is
+ * bounded, so the memory taken does not depend on the size of the file. The
+ * exporter writes the rows through a bounded buffer.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class TableCsv {
+
+    /**
+     * The number of bytes read per chunk.
+     */
+    static final int CHUNK_SIZE = 1 << 22;
+
+    /**
+     * The number of characters buffered by the exporter before writing.
+     */
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private TableCsv() {}
+
+    /**
+     * Appends the records of the given CSV file to the given table.
+     *
+     * @param table       the target table.
+     * @param fileChannel the channel of the CSV file.
+     * @param header      whether the first record is a header to skip.
+     * @param chunkSize   the number of bytes read per chunk.
+     * @return the number of rows appended.
+     * @throws IOException if reading fails.
+     *
+     * @throws BadDataFormatException if the file is not a valid CSV file or a
+     *                                field does not fit its column.
+     */
+    static int importCsv(Table table,
+                         FileChannel fileChannel,
+                         boolean header,
+                         int chunkSize) throws IOException {
+        List<TableColumnDescriptor> tableColumnDescriptorList;
+        long stamp = table.lockForReading();
+
+        try {
+            tableColumnDescriptorList =
+                    new ArrayList<>(table.tableColumnDescriptorList);
+        } finally {
+            table.unlockForReading(stamp);
+        }
+
+        Deque<CompletableFuture<Object[]>> chunkQueue = new ArrayDeque<>();
+        int maximumNumberOfChunks =
+                2 * ForkJoinPool.getCommonPoolParallelism();
+        int numberOfRows = 0;
+        byte[] buffer = new byte[chunkSize];
+        int length = 0;
+        int scanned = 0;
+        boolean quoted = false;
+        boolean endOfFile = false;
+        long chunkOffset = 0L;
+
+        while (!endOfFile || length > 0) {
+            if (!endOfFile && length < buffer.length) {
+                int bytesRead = fileChannel.read(
+                        ByteBuffer.wrap(buffer,
+                                        length,
+                                        buffer.length - length));
+
+                if (bytesRead < 0) {
+                    endOfFile = true;
+                } else {
+                    length += bytesRead;
+                }
+
+                continue;
+            }
+
+            // Find the end of the last whole record in the buffer:
+            int cut = -1;
+
+            for (int i = scanned; i < length; ++i) {
+                if (buffer[i] == '"') {
+                    quoted = !quoted;
+                } else if (buffer[i] == '\n' && !quoted) {
+                    cut = i + 1;
+                }
+            }
+
+            scanned = length;
+
+            if (cut < 0) {
+                if (!endOfFile) {
+                    // A record longer than the buffer:
+                    buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+                    continue;
+                }
+
+                cut = length;
+            }
+
+            byte[] nextBuffer = new byte[Math.max(chunkSize, length - cut)];
+            System.arraycopy(buffer, cut, nextBuffer, 0, length - cut);
+            ChunkParser chunkParser = new ChunkParser(tableColumnDescriptorList,
+                                                      buffer,
+                                                      cut,
+                                                      chunkOffset,
+                                                      header);
+            chunkQueue.addLast(
+                    CompletableFuture.supplyAsync(chunkParser::parse));
+
+            if (chunkQueue.size() >= maximumNumberOfChunks) {
+                numberOfRows += append(table, chunkQueue);
+            }
+
+            header = false;
+            chunkOffset += cut;
+            buffer = nextBuffer;
+            length -= cut;
+            scanned = length;
+        }
+
+        while (!chunkQueue.isEmpty()) {
+            numberOfRows += append(table, chunkQueue);
+        }
+
+        return numberOfRows;
+    }
+
+    /**
+     * Waits for the oldest chunk to be parsed and appends it to the table.
+     *
+     * @return the number of rows appended.
+     */
+    private static int append(Table table,
+                              Deque<CompletableFuture<Object[]>> chunkQueue) {
+        Object[] columns;
+
+        try {
+            columns = chunkQueue.removeFirst().join();
+        } catch (CompletionException ex) {
+            for (CompletableFuture<Object[]> chunk : chunkQueue) {
+                chunk.cancel(false);
+            }
+
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw ex;
+        }
+
+        table.putTableRows(columns);
+        return columns.length == 0 ?
+                0 :
+                java.lang.reflect.Array.getLength(columns[0]);
+    }
+
+    /**
+     * Writes the given rows as CSV.
+     *
+     * @param writer                    the writer to write to.
+     * @param tableColumnDescriptorList the columns to write.
+     * @param cellIndices               the index of the cell of each column
+     *                                  in the rows, or {@code null} if the
+     *                                  {@code i}th column is the {@code i}th
+     *                                  cell.
+     * @param tableRows                 the rows to write.
+     * @param header                    whether to write the column names as
+     *                                  the first record.
+     * @throws IOException if writing fails.
+     */
+    static void exportCsv(Writer writer,
+                          List<TableColumnDescriptor> tableColumnDescriptorList,
+                          int[] cellIndices,
+                          Iterable<TableRow> tableRows,
+                          boolean header) throws IOException {
+        StringBuilder sb = new StringBuilder(WRITE_BUFFER_SIZE + 1024);
+        int numberOfColumns = tableColumnDescriptorList.size();
+
+        if (header) {
+            for (int i = 0; i < numberOfColumns; ++i) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+
+                appendString(sb,
+                             tableColumnDescriptorList.get(i)
+                                                      .getTableColumnName());
+            }
+
+            sb.append('\n');
+        }
+
+        for (TableRow tableRow : tableRows) {
+            for (int i = 0; i < numberOfColumns; ++i) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+
+                appendValue(sb,
+                            tableRow.get(cellIndices == null ?
+                                         i :
+                                         cellIndices[i]).getValue());
+            }
+
+            sb.append('\n');
+
+            if (sb.length() >= WRITE_BUFFER_SIZE) {
+                writer.append(sb);
+                sb.setLength(0);
+            }
+        }
+
+        writer.append(sb);
+        writer.flush();
+    }
+
+    private static void appendValue(StringBuilder sb, Object value) {
+        if (value == null) {
+            return;
+        }
+
+        if (value instanceof String) {
+            appendString(sb, (String) value);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+
+            if (bytes.length == 0) {
+                sb.append("\"\"");
+            } else {
+                sb.append(Base64.getEncoder().encodeToString(bytes));
+            }
+        } else {
+            sb.append(value);
+        }
+    }
+
+    private static void appendString(StringBuilder sb, String string) {
+        boolean quote = string.isEmpty();
+
+        for (int i = 0; i < string.length() && !quote; ++i) {
+            char c = string.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (!quote) {
+            sb.append(string);
+            return;
+        }
+
+        sb.append('"');
+
+        for (int i = 0; i < string.length(); ++i) {
+            char c = string.charAt(i);
+
+            if (c == '"') {
+                sb.append('"');
+            }
+
+            sb.append(c);
+        }
+
+        sb.append('"');
+    }
+
+    /**
+     * This class parses a chunk of whole CSV records into column arrays.
+     */
+    private static final class ChunkParser {
+
+        private final List<TableColumnDescriptor> tableColumnDescriptorList;
+        private final ColumnParser[] columnParsers;
+        private final byte[] data;
+        private final int length;
+
+        /**
+         * The offset of the chunk in the file, for error messages.
+         */
+        private final long chunkOffset;
+
+        /**
+         * Whether the first record is a header to skip.
+         */
+        private final boolean header;
+
+        /**
+         * Holds the unescaped bytes of a quoted field with doubled quotes.
+         */
+        private byte[] scratch = new byte[64];
+
+        ChunkParser(List<TableColumnDescriptor> tableColumnDescriptorList,
+                    byte[] data,
+                    int length,
+                    long chunkOffset,
+                    boolean header) {
+            this.tableColumnDescriptorList = tableColumnDescriptorList;
+            this.columnParsers =
+                    new ColumnParser[tableColumnDescriptorList.size()];
+            this.data = data;
+            this.length = length;
+            this.chunkOffset = chunkOffset;
+            this.header = header;
+        }
+
+        /**
+         * Parses the chunk.
+         *
+         * @return the array of the values of each column.
+         */
+        Object[] parse() {
+            // Estimate the number of records assuming short fields:
+            int capacity = length / (4 * columnParsers.length + 1) + 1;
+
+            for (int i = 0; i < columnParsers.length; ++i) {
+                columnParsers[i] = ColumnParser.create(
+                        tableColumnDescriptorList.get(i).getTableCellType(),
+                        capacity);
+            }
+
+            int position = header ? skipRecord(0) : 0;
+
+            while (position < length) {
+                position = parseRecord(position);
+            }
+
+            Object[] columns = new Object[columnParsers.length];
+
+            for (int i = 0; i < columns.length; ++i) {
+                columns[i] = columnParsers[i].toArray();
+            }
+
+            return columns;
+        }
+
+        /**
+         * Returns the position after the record at {@code position}.
+         */
+        private int skipRecord(int position) {
+            boolean quoted = false;
+
+            while (position < length) {
+                byte b = data[position++];
+
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    break;
+                }
+            }
+
+            return position;
+        }
+
+        /**
+         * Parses the record at {@code position}. The missing trailing fields
+         * are taken as {@code null}s.
+         *
+         * @return the position after the record.
+         */
+        private int parseRecord(int position) {
+            int column = 0;
+
+            while (true) {
+                if (column == columnParsers.length) {
+                    throw createException(position,
+                                          "More fields than columns (" +
+                                          columnParsers.length + ")");
+                }
+
+                position = parseField(position, column++);
+
+                if (position == length) {
+                    break;
+                }
+
+                byte b = data[position++];
+
+                if (b == '\n') {
+                    break;
+                }
+
+                if (b == '\r') {
+                    if (position < length && data[position] == '\n') {
+                        ++position;
+                    }
+
+                    break;
+                }
+            }
+
+            for (; column < columnParsers.length; ++column) {
+                columnParsers[column].addNull();
+            }
+
+            return position;
+        }
+
+        /**
+         * Parses the field at {@code position} into the given column.
+         *
+         * @return the position of the delimiter after the field.
+         */
+        private int parseField(int position, int column) {
+            if (position < length && data[position] == '"') {
+                return parseQuotedField(position, column);
+            }
+
+            int end = position;
+
+            while (end < length) {
+                byte b = data[end];
+
+                if (b == ',' || b == '\n' || b == '\r') {
+                    break;
+                }
+
+                if (b == '"') {
+                    throw createException(end, "Unexpected quote");
+                }
+
+                ++end;
+            }
+
+            if (end == position) {
+                columnParsers[column].addNull();
+            } else {
+                add(column, data, position, end, position);
+            }
+
+            return end;
+        }
+
+        private int parseQuotedField(int position, int column) {
+            int start = position + 1;
+            int end = start;
+            int numberOfEscapes = 0;
+
+            while (true) {
+                if (end == length) {
+                    throw createException(position, "Unterminated quote");
+                }
+
+                if (data[end] == '"') {
+                    if (end + 1 < length && data[end + 1] == '"') {
+                        ++numberOfEscapes;
+                        end += 2;
+                        continue;
+                    }
+
+                    break;
+                }
+
+                ++end;
+            }
+
+            int next = end + 1;
+
+            if (next < length
+                    && data[next] != ','
+                    && data[next] != '\n'
+                    && data[next] != '\r') {
+                throw createException(next, "Unexpected character after " +
+                                            "a closing quote");
+            }
+
+            if (numberOfEscapes == 0) {
+                add(column, data, start, end, position);
+            } else {
+                int unescapedLength = end - start - numberOfEscapes;
+
+                if (scratch.length < unescapedLength) {
+                    scratch = new byte[Math.max(unescapedLength,
+                                                2 * scratch.length)];
+                }
+
+                for (int i = start, j = 0; i < end; ++i, ++j) {
+                    scratch[j] = data[i];
+
+                    if (data[i] == '"') {
+                        ++i;
+                    }
+                }
+
+                add(column, scratch, 0, unescapedLength, position);
+            }
+
+            return next;
+        }
+
+        private void add(int column,
+                         byte[] bytes,
+                         int from,
+                         int to,
+                         int position) {
+            try {
+                columnParsers[column].add(bytes, from, to);
+            } catch (IllegalArgumentException ex) {
+                throw new BadDataFormatException(
+                        "Bad value for the column \"" +
+                        tableColumnDescriptorList.get(column)
+                                                 .getTableColumnName() +
+                        "\" at byte offset " + (chunkOffset + position) +
+                        ": " + ex.getMessage(), ex);
+            }
+        }
+
+        private BadDataFormatException createException(int position,
+                                                       String message) {
+            return new BadDataFormatException(
+                    message + " at byte offset " + (chunkOffset + position) +
+                    ".");
+        }
+    }
+
+    /**
+     * This class accumulates the parsed values of a single column. The values
+     * are kept in a primitive array whenever the column type allows for it,
+     * and are boxed only if the column turns out to hold a {@code null}.
+     */
+    private abstract static class ColumnParser {
+
+        /**
+         * The number of values parsed.
+         */
+        int size;
+
+        /**
+         * The {@code i}th element is {@code true} if and only if the
+         * {@code i}th value is {@code null}, or this is {@code null} if there
+         * are no {@code null}s.
+         */
+        boolean[] nulls;
+
+        static ColumnParser create(TableCellType tableCellType, int capacity) {
+            switch (tableCellType) {
+                case TYPE_INT:
+                    return new IntColumnParser(capacity);
+
+                case TYPE_LONG:
+                    return new LongColumnParser(capacity);
+
+                case TYPE_FLOAT:
+                    return new FloatColumnParser(capacity);
+
+                case TYPE_DOUBLE:
+                    return new DoubleColumnParser(capacity);
+
+                case TYPE_BOOLEAN:
+                    return new BooleanColumnParser(capacity);
+
+                case TYPE_STRING:
+                    return new StringColumnParser(capacity);
+
+                case TYPE_BINARY:
+                    return new BinaryColumnParser(capacity);
+
+                default:
+                    throw new IllegalStateException(
+                            "Unknown table cell type.");
+            }
+        }
+
+        /**
+         * Parses the field {@code bytes[from], ..., bytes[to - 1]}. An empty
+         * field comes from a pair of quotes.
+         *
+         * @throws IllegalArgumentException if the field is malformed.
+         */
+        abstract void add(byte[] bytes, int from, int to);
+
+        /**
+         * Appends a default value to stand for a {@code null}.
+         */
+        abstract void addDefault();
+
+        /**
+         * Returns the parsed values in an array accepted by
+         * {@link Table#putTableRows(Object...)}.
+         */
+        abstract Object toArray();
+
+        void addNull() {
+            if (nulls == null) {
+                nulls = new boolean[Math.max(size + 1, 16)];
+            } else if (nulls.length == size) {
+                nulls = Arrays.copyOf(nulls, 2 * size);
+            }
+
+            nulls[size] = true;
+            addDefault();
+        }
+
+        /**
+         * Returns the capacity needed for one more value.
+         */
+        int grow(int capacity) {
+            if (nulls != null && nulls.length == size) {
+                nulls = Arrays.copyOf(nulls, 2 * size);
+            }
+
+            return size < capacity ? capacity : Math.max(16, 2 * capacity);
+        }
+
+        boolean isNull(int index) {
+            return nulls != null && nulls[index];
+        }
+
+        static String toString(byte[] bytes, int from, int to) {
+            return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Parses a decimal integer within the given bounds without creating
+         * a string. The value is accumulated as a negative number, since the
+         * negative range is the larger one.
+         */
+        static long parseLong(byte[] bytes,
+                              int from,
+                              int to,
+                              long minimum,
+                              long maximum) {
+            boolean negative = bytes[from] == '-';
+            int i = negative || bytes[from] == '+' ? from + 1 : from;
+
+            if (i == to) {
+                throw new NumberFormatException(
+                        "No digits in \"" + toString(bytes, from, to) + "\".");
+            }
+
+            long limit = negative ? minimum : -maximum;
+            long value = 0L;
+
+            for (; i < to; ++i) {
+                int digit = bytes[i] - '0';
+
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException(
+                            "Not an integer: \"" +
+                            toString(bytes, from, to) + "\".");
+                }
+
+                if (value < limit / 10 || value * 10 < limit + digit) {
+                    throw new NumberFormatException(
+                            "Out of range: \"" +
+                            toString(bytes, from, to) + "\".");
+                }
+
+                value = value * 10 - digit;
+            }
+
+            return negative ? value : -value;
+        }
+    }
+
+    private static final class IntColumnParser extends ColumnParser {
+
+        private int[] values;
+
+        IntColumnParser(int capacity) {
+            values = new int[capacity];
+        }
+
+        @Override
+        void add(byte[] bytes, int from, int to) {
+            if (from == to) {
+                addNull();
+                return;
+            }
+
+            int value = (int) parseLong(bytes,
+                                        from,
+                                        to,
+                                        Integer.MIN_VALUE,
+                                        Integer.MAX_VALUE);
+            addDefault();
+            values[size - 1] = value;
+        }
+
+        @Override
+        void addDefault() {
+            int capacity = grow(values.length);
+
+            if (capacity != values.length) {
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            ++size;
+        }
+
+        @Override
+        Object toArray() {
+            if (nulls == null) {
+                return Arrays.copyOf(values, size);
+            }
+
+            Integer[] array = new Integer[size];
+
+            for (int i = 0; i < size; ++i) {
+                array[i] = isNull(i) ? null : values[i];
+            }
+
+            return array;
+        }
+    }
+
+    private static final class LongColumnParser extends ColumnParser {
+
+        private long[] values;
+
+        LongColumnParser(int capacity) {
+            values = new long[capacity];
+        }
+
+        @Override
+        void add(byte[] bytes, int from, int to) {
+            if (from == to) {
+                addNull();
+                return;
+            }
+
+            long value = parseLong(bytes,
+                                   from,
+                                   to,
+                                   Long.MIN_VALUE,
+                                   Long.MAX_VALUE);
+            addDefault();
+            values[size - 1] = value;
+        }
+
+        @Override
+        void addDefault() {
+            int capacity = grow(values.length);
+
+            if (capacity != values.length) {
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            ++size;
+        }
+
+        @Override
+        Object toArray() {
+            if (nulls == null) {
+                return Arrays.copyOf(values, size);
+            }
+
+            Long[] array = new Long[size];
+
+            for (int i = 0; i < size; ++i) {
+                array[i] = isNull(i) ? null : values[i];
+            }
+
+            return array;
+        }
+    }
+
+    private static final class FloatColumnParser extends ColumnParser {
+
+        private float[] values;
+
+        FloatColumnParser(int capacity) {
+            values = new float[capacity];
+        }
+
+        @Override
+        void add(byte[] bytes, int from, int to) {
+            if (from == to) {
+                addNull();
+                return;
+            }
+
+            float value = Float.parseFloat(toString(bytes, from, to));
+            addDefault();
+            values[size - 1] = value;
+        }
+
+        @Override
+        void addDefault() {
+            int capacity = grow(values.length);
+
+            if (capacity != values.length) {
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            ++size;
+        }
+
+        @Override
+        Object toArray() {
+            if (nulls == null) {
+                return Arrays.copyOf(values, size);
+            }
+
+            Float[] array = new Float[size];
+
+            for (int i = 0; i < size; ++i) {
+                array[i] = isNull(i) ? null : values[i];
+            }
+
+            return array;
+        }
+    }
+
+    private static final class DoubleColumnParser extends ColumnParser {
+
+        private double[] values;
+
+        DoubleColumnParser(int capacity) {
+            values = new double[capacity];
+        }
+
+        @Override
+        void add(byte[] bytes, int from, int to) {
+            if (from == to) {
+                addNull();
+                return;
+            }
+
+            double value = Double.parseDouble(toString(bytes, from, to));
+            addDefault();
+            values[size - 1] = value;
+        }
+
+        @Override
+        void addDefault() {
+            int capacity = grow(values.length);
+
+            if (capacity != values.length) {
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            ++size;
+        }
+
+        @Override
+        Object toArray() {
+            if (nulls == null) {
+                return Arrays.copyOf(values, size);
+            }
+
+            Double[] array = new Double[size];
+
+            for (int i = 0; i < size; ++i) {
+                array[i] = isNull(i) ? null : values[i];
+            }
+
+            return array;
+        }
+    }
+
+    private static final class BooleanColumnParser extends ColumnParser {
+
+        private boolean[] values;
+
+        BooleanColumnParser(int capacity) {
+            values = new boolean[capacity];
+        }
+
+        @Override
+        void add(byte[] bytes, int from, int to) {
+            if (from == to) {
+                addNull();
+                return;
+            }
+
+            String text = toString(bytes, from, to);
+            boolean value;
+
+            if (text.equalsIgnoreCase("true")) {
+                value = true;
+            } else if (text.equalsIgnoreCase("false")) {
+                value = false;
+            } else {
+                throw new IllegalArgumentException(
+                        "Not a boolean: \"" + text + "\".");
+            }
+
+            addDefault();
+            values[size - 1] = value;
+        }
+
+        @Override
+        void addDefault() {
+            int capacity = grow(values.length);
+
+            if (capacity != values.length) {
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            ++size;
+        }
+
+        @Override
+        Object toArray() {
+            if (nulls == null) {
+                return Arrays.copyOf(values, size);
+            }
+
+            Boolean[] array = new Boolean[size];
+
+            for (int i = 0; i < size; ++i) {
+                array[i] = isNull(i) ? null : values[i];
+            }
+
+            return array;
+        }
+    }
+
+    private static final class StringColumnParser extends ColumnParser {
+
+        private String[] values;
+
+        StringColumnParser(int capacity) {
+            values = new String[capacity];
+        }
+
+        @Override
+        void add(byte[] bytes, int from, int to) {
+            addDefault();
+            values[size - 1] = toString(bytes, from, to);
+        }
+
+        @Override
+        void addDefault() {
+            int capacity = grow(values.length);
+
+            if (capacity != values.length) {
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            ++size;
+        }
+
+        @Override
+        Object toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class BinaryColumnParser extends ColumnParser {
+
+        private byte[][] values;
+
+        BinaryColumnParser(int capacity) {
+            values = new byte[capacity][];
+        }
+
+        @Override
+        void add(byte[] bytes, int from, int to) {
+            ByteBuffer decoded = Base64.getDecoder()
+                                       .decode(ByteBuffer.wrap(bytes,
+                                                               from,
+                                                               to - from));
+            addDefault();
+            values[size - 1] = Arrays.copyOf(decoded.array(),
+                                             decoded.remaining());
+        }
+
+        @Override
+        void addDefault() {
+            int capacity = grow(values.length);
+
+            if (capacity != values.length) {
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            ++size;
+        }
+
+        @Override
+        Object toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package net.coderodde.javadb;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This class implements the table compression codec backed by
+ * {@link Deflater} and {@link Inflater}. It compresses well, yet slower than
+ * {@link TableLzCodec}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class TableDeflateCodec implements TableCompressionCodec {
+
+    static final String NAME = "deflate";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] compress(byte[] data, int offset, int length) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+        try {
+            deflater.setInput(data, offset, length);
+            deflater.finish();
+            byte[] compressedData = new byte[length + length / 16 + 64];
+            int compressedLength = 0;
+
+            while (!deflater.finished()) {
+                if (compressedLength == compressedData.length) {
+                    compressedData = Arrays.copyOf(compressedData,
+                                                   2 * compressedLength);
+                }
+
+                compressedLength +=
+                        deflater.deflate(compressedData,
+                                         compressedLength,
+                                         compressedData.length
+                                                 - compressedLength);
+            }
+
+            return Arrays.copyOf(compressedData, compressedLength);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public void decompress(byte[] compressedData,
+                           int offset,
+                           int length,
+                           byte[] target) {
+        Inflater inflater = new Inflater(true);
+
+        try {
+            inflater.setInput(compressedData, offset, length);
+            int targetLength = 0;
+
+            while (targetLength < target.length) {
+                int inflated = inflater.inflate(target,
+                                                targetLength,
+                                                target.length - targetLength);
+
+                if (inflated == 0
+                        && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+
+                targetLength += inflated;
+            }
+
+            if (targetLength != target.length) {
+                throw new BadDataFormatException(
+                        "Truncated deflate frame: " + targetLength +
+                        " bytes instead of " + target.length + ".");
+            }
+        } catch (DataFormatException ex) {
+            throw new BadDataFormatException("Corrupt deflate frame.", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+}
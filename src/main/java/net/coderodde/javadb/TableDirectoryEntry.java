@@ -0,0 +1,281 @@
+package net.coderodde.javadb;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class implements an entry of the table directory of a database file. It
+ * records where a table is located in the file along with its row count and
+ * column schema, so that a reader may locate any table without parsing the
+ * tables before it. As of format version 4, the entry also locates the blocks
+ * of the persistent tree indices of the table. As of version 5, the table and
+ * column names are written in UTF-8. As of version 9, the entry holds the
+ * CRC32 checksums of the blocks it locates, so that a reader detects damaged
+ * blocks before decoding them.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class TableDirectoryEntry {
+
+    /**
+     * Number of bytes it takes to encode a size count.
+     */
+    private static final int SIZE_BYTES = 4;
+
+    /**
+     * The name of the table.
+     */
+    private final String tableName;
+
+    /**
+     * The byte offset of the table block from the beginning of the file.
+     */
+    private final long offset;
+
+    /**
+     * The length of the table block in bytes.
+     */
+    private final long length;
+
+    /**
+     * The CRC32 of the table block.
+     */
+    private final int checksum;
+
+    /**
+     * The number of rows in the table.
+     */
+    private final int numberOfRows;
+
+    /**
+     * The column schema of the table.
+     */
+    private final List<TableColumnDescriptor> tableColumnDescriptorList;
+
+    /**
+     * The blocks of the persistent tree indices of the table.
+     */
+    private final List<TreeIndexEntry> treeIndexEntryList;
+
+    TableDirectoryEntry(String tableName,
+                        long offset,
+                        long length,
+                        int numberOfRows,
+                        List<TableColumnDescriptor> tableColumnDescriptorList) {
+        this(tableName,
+             offset,
+             length,
+             0,
+             numberOfRows,
+             tableColumnDescriptorList,
+             Collections.<TreeIndexEntry>emptyList());
+    }
+
+    TableDirectoryEntry(String tableName,
+                        long offset,
+                        long length,
+                        int checksum,
+                        int numberOfRows,
+                        List<TableColumnDescriptor> tableColumnDescriptorList,
+                        List<TreeIndexEntry> treeIndexEntryList) {
+        this.tableName = tableName;
+        this.offset = offset;
+        this.length = length;
+        this.checksum = checksum;
+        this.numberOfRows = numberOfRows;
+        this.tableColumnDescriptorList =
+                Collections.unmodifiableList(
+                        new ArrayList<>(tableColumnDescriptorList));
+        this.treeIndexEntryList =
+                Collections.unmodifiableList(
+                        new ArrayList<>(treeIndexEntryList));
+    }
+
+    String getTableName() {
+        return tableName;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    long getLength() {
+        return length;
+    }
+
+    int getChecksum() {
+        return checksum;
+    }
+
+    int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    List<TableColumnDescriptor> getTableColumnDescriptorList() {
+        return tableColumnDescriptorList;
+    }
+
+    List<TreeIndexEntry> getTreeIndexEntryList() {
+        return treeIndexEntryList;
+    }
+
+    int getSerializationLength() {
+        int serializationLength = Utf8.getSerializationLength(tableName)
+                                + 2 * Long.BYTES
+                                + 4 * SIZE_BYTES
+                                + TreeIndexEntry.SERIALIZATION_LENGTH
+                                * treeIndexEntryList.size();
+
+        for (TableColumnDescriptor tableColumnDescriptor
+                : tableColumnDescriptorList) {
+            serializationLength +=
+                    tableColumnDescriptor.getCompactSerializationLength();
+        }
+
+        return serializationLength;
+    }
+
+    void serialize(ByteBuffer byteBuffer) {
+        Utf8.serialize(byteBuffer, tableName);
+        byteBuffer.putLong(offset);
+        byteBuffer.putLong(length);
+        byteBuffer.putInt(checksum);
+        byteBuffer.putInt(numberOfRows);
+        byteBuffer.putInt(tableColumnDescriptorList.size());
+
+        for (TableColumnDescriptor tableColumnDescriptor
+                : tableColumnDescriptorList) {
+            tableColumnDescriptor.serializeCompact(byteBuffer);
+        }
+
+        byteBuffer.putInt(treeIndexEntryList.size());
+
+        for (TreeIndexEntry treeIndexEntry : treeIndexEntryList) {
+            byteBuffer.putInt(treeIndexEntry.getColumnIndex());
+            byteBuffer.putLong(treeIndexEntry.getOffset());
+            byteBuffer.putLong(treeIndexEntry.getLength());
+            byteBuffer.putInt(treeIndexEntry.getChecksum());
+        }
+    }
+
+    /**
+     * Deserializes a directory entry written in the given format version.
+     *
+     * @param byteBuffer    the buffer to read from.
+     * @param formatVersion the format version of the file.
+     * @return the directory entry.
+     */
+    static TableDirectoryEntry deserialize(ByteBuffer byteBuffer,
+                                           int formatVersion) {
+        String tableName;
+
+        if (formatVersion >= 5) {
+            tableName = Utf8.deserialize(byteBuffer);
+        } else {
+            int tableNameLength = byteBuffer.getInt();
+            StringBuilder sb = new StringBuilder(tableNameLength);
+
+            for (int i = 0; i < tableNameLength; ++i) {
+                sb.append(byteBuffer.getChar());
+            }
+
+            tableName = sb.toString();
+        }
+
+        long offset = byteBuffer.getLong();
+        long length = byteBuffer.getLong();
+        int checksum = formatVersion >= 9 ? byteBuffer.getInt() : 0;
+        int numberOfRows = byteBuffer.getInt();
+        int numberOfColumns = byteBuffer.getInt();
+        List<TableColumnDescriptor> tableColumnDescriptorList =
+                new ArrayList<>(numberOfColumns);
+
+        for (int i = 0; i < numberOfColumns; ++i) {
+            tableColumnDescriptorList.add(
+                    formatVersion >= 5 ?
+                    TableColumnDescriptor.deserializeCompact(byteBuffer) :
+                    TableColumnDescriptor.deserialize(byteBuffer));
+        }
+
+        List<TreeIndexEntry> treeIndexEntryList = new ArrayList<>();
+
+        if (formatVersion >= 4) {
+            int numberOfTreeIndices = byteBuffer.getInt();
+
+            for (int i = 0; i < numberOfTreeIndices; ++i) {
+                treeIndexEntryList.add(
+                        new TreeIndexEntry(
+                                byteBuffer.getInt(),
+                                byteBuffer.getLong(),
+                                byteBuffer.getLong(),
+                                formatVersion >= 9 ? byteBuffer.getInt() : 0));
+            }
+        }
+
+        return new TableDirectoryEntry(tableName,
+                                       offset,
+                                       length,
+                                       checksum,
+                                       numberOfRows,
+                                       tableColumnDescriptorList,
+                                       treeIndexEntryList);
+    }
+
+    /**
+     * Locates the block of a persistent tree index in a database file.
+     */
+    static final class TreeIndexEntry {
+
+        /**
+         * The number of bytes it takes to serialize an entry.
+         */
+        static final int SERIALIZATION_LENGTH =
+                2 * SIZE_BYTES + 2 * Long.BYTES;
+
+        /**
+         * The index of the indexed column.
+         */
+        private final int columnIndex;
+
+        /**
+         * The byte offset of the index block from the beginning of the file.
+         */
+        private final long offset;
+
+        /**
+         * The length of the index block in bytes.
+         */
+        private final long length;
+
+        /**
+         * The CRC32 of the index block.
+         */
+        private final int checksum;
+
+        TreeIndexEntry(int columnIndex, long offset, long length, int checksum) {
+            this.columnIndex = columnIndex;
+            this.offset = offset;
+            this.length = length;
+            this.checksum = checksum;
+        }
+
+        int getColumnIndex() {
+            return columnIndex;
+        }
+
+        long getOffset() {
+            return offset;
+        }
+
+        long getLength() {
+            return length;
+        }
+
+        int getChecksum() {
+            return checksum;
+        }
+    }
+}
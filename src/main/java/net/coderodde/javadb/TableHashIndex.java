@@ -0,0 +1,490 @@
+package net.coderodde.javadb;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * This class implements a hash index over a single table column. It maps each
+ * distinct non-null value of the column to the sorted array of the indices of
+ * the rows holding the value. The keys are kept in an open addressing hash
+ * table with linear probing, and for the numeric and boolean column types
+ * they are stored in a primitive {@code long} array, so that no boxed key
+ * objects are kept around.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+abstract class TableHashIndex extends TableIndex {
+
+    /**
+     * The initial number of hash table slots. Must be a power of two.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The initial capacity of a row list.
+     */
+    private static final int INITIAL_ROW_LIST_CAPACITY = 2;
+
+    /**
+     * The {@code i}th entry holds the sorted row indices of the key in slot
+     * {@code i}, or {@code null} if the slot is free.
+     */
+    int[][] rowLists;
+
+    /**
+     * The {@code i}th entry holds the number of row indices in
+     * {@code rowLists[i]}.
+     */
+    int[] rowListSizes;
+
+    /**
+     * The number of distinct keys in this index.
+     */
+    private int numberOfKeys;
+
+    /**
+     * The total number of row indices in this index.
+     */
+    private int numberOfRows;
+
+    TableHashIndex(int columnIndex) {
+        super(columnIndex);
+        this.rowLists = new int[INITIAL_CAPACITY][];
+        this.rowListSizes = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Creates a new empty hash index for a column of the given type.
+     *
+     * @param tableCellType the type of the column.
+     * @param columnIndex   the index of the column.
+     * @return a hash index.
+     */
+    static TableHashIndex create(TableCellType tableCellType,
+                                 int columnIndex) {
+        Objects.requireNonNull(tableCellType, "Table cell type is null.");
+
+        switch (tableCellType) {
+            case TYPE_STRING:
+            case TYPE_BINARY:
+                return new ObjectKeyTableHashIndex(tableCellType,
+                                                   columnIndex,
+                                                   INITIAL_CAPACITY);
+
+            default:
+                return new LongKeyTableHashIndex(tableCellType,
+                                                 columnIndex,
+                                                 INITIAL_CAPACITY);
+        }
+    }
+
+    /**
+     * Returns the hash of the given non-null value.
+     */
+    abstract int hash(Object value);
+
+    /**
+     * Returns the hash of the key in the given occupied slot.
+     */
+    abstract int hashAt(int slot);
+
+    /**
+     * Returns {@code true} if the key in the given occupied slot equals the
+     * given value.
+     */
+    abstract boolean keyEquals(int slot, Object value);
+
+    /**
+     * Stores the given value as the key of the given slot.
+     */
+    abstract void putKey(int slot, Object value);
+
+    /**
+     * Moves the key in slot {@code fromSlot} to slot {@code toSlot}.
+     */
+    abstract void moveKey(int fromSlot, int toSlot);
+
+    /**
+     * Releases the key in the given slot.
+     */
+    abstract void clearKey(int slot);
+
+    /**
+     * Reallocates the key array with the new capacity, moving the key of each
+     * occupied old slot {@code s} to slot {@code newSlots[s]}. The occupied
+     * old slots are those for which {@code rowLists[s] != null}.
+     */
+    abstract void relocateKeys(int[] newSlots, int newCapacity);
+
+    /**
+     * Returns the number of distinct keys in this index.
+     *
+     * @return the number of keys.
+     */
+    int getNumberOfKeys() {
+        return numberOfKeys;
+    }
+
+    /**
+     * Returns the number of row indices in this index.
+     *
+     * @return the number of indexed rows.
+     */
+    int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * Returns the sorted indices of the rows holding the given value.
+     *
+     * @param value the value to look up. Must not be {@code null}.
+     * @return the row indices in ascending order.
+     */
+    int[] find(Object value) {
+        int slot = findSlot(value);
+
+        if (slot < 0) {
+            return new int[0];
+        }
+
+        return Arrays.copyOf(rowLists[slot], rowListSizes[slot]);
+    }
+
+    @Override
+    void add(Object value, int row) {
+        int slot = findSlot(value);
+
+        if (slot < 0) {
+            if (2 * (numberOfKeys + 1) > rowLists.length) {
+                rehash(2 * rowLists.length);
+            }
+
+            slot = findFreeSlot(rowLists, hash(value));
+            putKey(slot, value);
+            rowLists[slot] = new int[INITIAL_ROW_LIST_CAPACITY];
+            ++numberOfKeys;
+        }
+
+        int[] rowList = rowLists[slot];
+        int size = rowListSizes[slot];
+        int position = size > 0 && rowList[size - 1] < row ?
+                size :
+                -Arrays.binarySearch(rowList, 0, size, row) - 1;
+
+        if (position < 0) {
+            throw new IllegalStateException(
+                    "Row " + row + " is already indexed under the value.");
+        }
+
+        if (size == rowList.length) {
+            rowList = Arrays.copyOf(rowList, 2 * size);
+            rowLists[slot] = rowList;
+        }
+
+        System.arraycopy(rowList, position,
+                         rowList, position + 1,
+                         size - position);
+        rowList[position] = row;
+        rowListSizes[slot] = size + 1;
+        ++numberOfRows;
+    }
+
+    @Override
+    void remove(Object value, int row) {
+        int slot = findSlot(value);
+        int position = slot < 0 ?
+                -1 :
+                Arrays.binarySearch(rowLists[slot], 0, rowListSizes[slot], row);
+
+        if (position < 0) {
+            throw new IllegalStateException(
+                    "Row " + row + " is not indexed under the value.");
+        }
+
+        int[] rowList = rowLists[slot];
+        int size = rowListSizes[slot] - 1;
+        System.arraycopy(rowList, position + 1, rowList, position,
+                         size - position);
+        rowListSizes[slot] = size;
+        --numberOfRows;
+
+        if (size == 0) {
+            deleteSlot(slot);
+            --numberOfKeys;
+        }
+    }
+
+    @Override
+    void shiftRows(int fromRow, int delta) {
+        for (int slot = 0; slot < rowLists.length; ++slot) {
+            int[] rowList = rowLists[slot];
+
+            if (rowList == null) {
+                continue;
+            }
+
+            int size = rowListSizes[slot];
+
+            if (size == 0 || rowList[size - 1] < fromRow) {
+                continue;
+            }
+
+            int position = Arrays.binarySearch(rowList, 0, size, fromRow);
+
+            if (position < 0) {
+                position = -position - 1;
+            }
+
+            for (int i = position; i < size; ++i) {
+                rowList[i] += delta;
+            }
+        }
+    }
+
+    private int findSlot(Object value) {
+        int mask = rowLists.length - 1;
+        int slot = hash(value) & mask;
+
+        while (rowLists[slot] != null) {
+            if (keyEquals(slot, value)) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    private static int findFreeSlot(int[][] rowLists, int hash) {
+        int mask = rowLists.length - 1;
+        int slot = hash & mask;
+
+        while (rowLists[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Frees the given slot and moves the subsequent entries of its probe
+     * cluster back, so that lookups never need tombstones.
+     */
+    private void deleteSlot(int slot) {
+        int mask = rowLists.length - 1;
+        int gap = slot;
+        int next = slot;
+
+        while (true) {
+            next = (next + 1) & mask;
+
+            if (rowLists[next] == null) {
+                break;
+            }
+
+            int home = hashAt(next) & mask;
+
+            // The entry may move to the gap only if its home slot is not
+            // cyclically within (gap, next]:
+            boolean homeInRange = gap <= next ?
+                    gap < home && home <= next :
+                    gap < home || home <= next;
+
+            if (!homeInRange) {
+                rowLists[gap] = rowLists[next];
+                rowListSizes[gap] = rowListSizes[next];
+                moveKey(next, gap);
+                gap = next;
+            }
+        }
+
+        rowLists[gap] = null;
+        rowListSizes[gap] = 0;
+        clearKey(gap);
+    }
+
+    private void rehash(int newCapacity) {
+        int[][] newRowLists = new int[newCapacity][];
+        int[] newRowListSizes = new int[newCapacity];
+        int[] newSlots = new int[rowLists.length];
+
+        for (int slot = 0; slot < rowLists.length; ++slot) {
+            if (rowLists[slot] != null) {
+                int newSlot = findFreeSlot(newRowLists, hashAt(slot));
+                newRowLists[newSlot] = rowLists[slot];
+                newRowListSizes[newSlot] = rowListSizes[slot];
+                newSlots[slot] = newSlot;
+            }
+        }
+
+        relocateKeys(newSlots, newCapacity);
+        rowLists = newRowLists;
+        rowListSizes = newRowListSizes;
+    }
+
+    /**
+     * Mixes the bits of a 64-bit key into a 32-bit hash.
+     */
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Implements a hash index whose keys are stored as primitive
+     * {@code long}s. Used for the integral, floating point and boolean
+     * columns. The floating point values are keyed by their bit patterns,
+     * which agrees with {@code Float.equals} and {@code Double.equals}.
+     */
+    static final class LongKeyTableHashIndex extends TableHashIndex {
+
+        private final TableCellType tableCellType;
+        private long[] keys;
+
+        LongKeyTableHashIndex(TableCellType tableCellType,
+                              int columnIndex,
+                              int capacity) {
+            super(columnIndex);
+            this.tableCellType = tableCellType;
+            this.keys = new long[capacity];
+        }
+
+        /**
+         * Converts a non-null cell value to its key.
+         */
+        long toKey(Object value) {
+            switch (tableCellType) {
+                case TYPE_INT:
+                    return (Integer) value;
+
+                case TYPE_LONG:
+                    return (Long) value;
+
+                case TYPE_FLOAT:
+                    return Float.floatToIntBits((Float) value);
+
+                case TYPE_DOUBLE:
+                    return Double.doubleToLongBits((Double) value);
+
+                case TYPE_BOOLEAN:
+                    return ((Boolean) value) ? 1L : 0L;
+
+                default:
+                    throw new IllegalStateException(
+                            "Unknown table cell type.");
+            }
+        }
+
+        @Override
+        int hash(Object value) {
+            return mix(toKey(value));
+        }
+
+        @Override
+        int hashAt(int slot) {
+            return mix(keys[slot]);
+        }
+
+        @Override
+        boolean keyEquals(int slot, Object value) {
+            return keys[slot] == toKey(value);
+        }
+
+        @Override
+        void putKey(int slot, Object value) {
+            keys[slot] = toKey(value);
+        }
+
+        @Override
+        void moveKey(int fromSlot, int toSlot) {
+            keys[toSlot] = keys[fromSlot];
+        }
+
+        @Override
+        void clearKey(int slot) {
+            keys[slot] = 0L;
+        }
+
+        @Override
+        void relocateKeys(int[] newSlots, int newCapacity) {
+            long[] newKeys = new long[newCapacity];
+
+            for (int slot = 0; slot < keys.length; ++slot) {
+                if (rowLists[slot] != null) {
+                    newKeys[newSlots[slot]] = keys[slot];
+                }
+            }
+
+            keys = newKeys;
+        }
+    }
+
+    /**
+     * Implements a hash index whose keys are strings or byte arrays. The byte
+     * arrays are copied on insertion, so that modifying an array after
+     * storing it does not corrupt the index.
+     */
+    static final class ObjectKeyTableHashIndex extends TableHashIndex {
+
+        private final boolean binary;
+        private Object[] keys;
+
+        ObjectKeyTableHashIndex(TableCellType tableCellType,
+                                int columnIndex,
+                                int capacity) {
+            super(columnIndex);
+            this.binary = tableCellType == TableCellType.TYPE_BINARY;
+            this.keys = new Object[capacity];
+        }
+
+        @Override
+        int hash(Object value) {
+            int h = binary ?
+                    Arrays.hashCode((byte[]) value) :
+                    value.hashCode();
+            return mix(h);
+        }
+
+        @Override
+        int hashAt(int slot) {
+            return hash(keys[slot]);
+        }
+
+        @Override
+        boolean keyEquals(int slot, Object value) {
+            return binary ?
+                    Arrays.equals((byte[]) keys[slot], (byte[]) value) :
+                    keys[slot].equals(value);
+        }
+
+        @Override
+        void putKey(int slot, Object value) {
+            keys[slot] = binary ? ((byte[]) value).clone() : value;
+        }
+
+        @Override
+        void moveKey(int fromSlot, int toSlot) {
+            keys[toSlot] = keys[fromSlot];
+        }
+
+        @Override
+        void clearKey(int slot) {
+            keys[slot] = null;
+        }
+
+        @Override
+        void relocateKeys(int[] newSlots, int newCapacity) {
+            Object[] newKeys = new Object[newCapacity];
+
+            for (int slot = 0; slot < keys.length; ++slot) {
+                if (rowLists[slot] != null) {
+                    newKeys[newSlots[slot]] = keys[slot];
+                }
+            }
+
+            keys = newKeys;
+        }
+    }
+}
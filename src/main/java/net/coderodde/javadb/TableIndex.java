@@ -0,0 +1,116 @@
+package net.coderodde.javadb;
+
+import java.util.function.IntFunction;
+
+/**
+ * This class defines the operations through which a table keeps its
+ * secondary indices up to date. An index maps the keys of the rows to the
+ * indices of the rows. The key of a row in a single-column index is the value
+ * of its cell in the column, and rows holding a null cell are not indexed. The
+ * key of a row in a composite index is the array of its cell values in the
+ * indexed columns, which may contain nulls.
+ * <p>
+ * Since the index stores row indices rather than rows, the table reports
+ * each insertion or removal of a row before the end of the table via
+ * {@link #shiftRows(int, int)}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+abstract class TableIndex {
+
+    /**
+     * The indices of the indexed columns in the owner table, in key order.
+     */
+    final int[] columnIndices;
+
+    TableIndex(int... columnIndices) {
+        this.columnIndices = columnIndices;
+    }
+
+    /**
+     * Adds the given row index under the given key.
+     *
+     * @param key the key of the row. Must not be {@code null}.
+     * @param row the row index.
+     */
+    abstract void add(Object key, int row);
+
+    /**
+     * Removes the given row index from under the given key.
+     *
+     * @param key the key of the row. Must not be {@code null}.
+     * @param row the row index.
+     */
+    abstract void remove(Object key, int row);
+
+    /**
+     * Adds {@code delta} to every row index that is at least
+     * {@code fromRow}.
+     *
+     * @param fromRow the first row index to shift.
+     * @param delta   the amount to shift by.
+     */
+    abstract void shiftRows(int fromRow, int delta);
+
+    /**
+     * Returns {@code true} if this index is over the given column only.
+     *
+     * @param columnIndex the index of the column.
+     * @return {@code true} if this is a single-column index over the column.
+     */
+    final boolean isOver(int columnIndex) {
+        return columnIndices.length == 1 && columnIndices[0] == columnIndex;
+    }
+
+    /**
+     * Returns {@code true} if the given column is one of the indexed columns.
+     *
+     * @param columnIndex the index of the column.
+     * @return {@code true} if the column is indexed.
+     */
+    final boolean covers(int columnIndex) {
+        for (int indexedColumnIndex : columnIndices) {
+            if (indexedColumnIndex == columnIndex) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Builds the key of a row.
+     *
+     * @param cellValues maps a column index to the value of the row's cell in
+     *                   the column.
+     * @return the key, or {@code null} if the row is not to be indexed.
+     */
+    final Object createKey(IntFunction<Object> cellValues) {
+        if (columnIndices.length == 1) {
+            return cellValues.apply(columnIndices[0]);
+        }
+
+        Object[] key = new Object[columnIndices.length];
+
+        for (int i = 0; i < key.length; ++i) {
+            key[i] = cellValues.apply(columnIndices[i]);
+        }
+
+        return key;
+    }
+
+    /**
+     * Updates the indexed column indices after the given column is removed
+     * from the owner table. The index must not cover the removed column.
+     *
+     * @param columnIndex the index of the removed column.
+     */
+    final void onColumnRemove(int columnIndex) {
+        for (int i = 0; i < columnIndices.length; ++i) {
+            if (columnIndices[i] > columnIndex) {
+                --columnIndices[i];
+            }
+        }
+    }
+}
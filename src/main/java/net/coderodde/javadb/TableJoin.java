@@ -0,0 +1,340 @@
+package net.coderodde.javadb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class implements the equi-joins of two tables. The result of a join is
+ * a view whose rows are detached copies holding the cells of a left row
+ * followed by the cells of a matching right row. The columns are named after
+ * their table and column, as in {@code "person.id"}. As in SQL, null cells
+ * match nothing.
+ * <p>
+ * The join columns must be of the same type, except that integer and long
+ * columns may be joined with each other by value.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class TableJoin {
+
+    private TableJoin() {}
+
+    /**
+     * Joins the given tables by building a hash index over the join column of
+     * the smaller table and probing it with the rows of the larger table. An
+     * existing hash index over the build column is used as is. The numeric
+     * keys are stored in primitive arrays, which keeps the memory of the
+     * build side proportional to its number of rows. The pairs of rows are
+     * ordered by the left row and then by the right row.
+     *
+     * @param leftTable         the left table.
+     * @param leftColumnIndex   the join column of the left table.
+     * @param rightTable        the right table.
+     * @param rightColumnIndex  the join column of the right table.
+     * @return the view of the joined rows.
+     */
+    static TableView hashJoin(Table leftTable,
+                              int leftColumnIndex,
+                              Table rightTable,
+                              int rightColumnIndex) {
+        TableCellType keyType = getKeyType(leftTable,
+                                           leftColumnIndex,
+                                           rightTable,
+                                           rightColumnIndex);
+        boolean buildLeft =
+                leftTable.getNumberOfRows() < rightTable.getNumberOfRows();
+        Table buildTable = buildLeft ? leftTable : rightTable;
+        Table probeTable = buildLeft ? rightTable : leftTable;
+        int buildColumnIndex = buildLeft ? leftColumnIndex : rightColumnIndex;
+        int probeColumnIndex = buildLeft ? rightColumnIndex : leftColumnIndex;
+        TableHashIndex tableHashIndex = null;
+
+        if (buildTable.getTableColumnDescriptor(buildColumnIndex)
+                      .getTableCellType() == keyType) {
+            tableHashIndex = buildTable.getTableHashIndex(buildColumnIndex);
+        }
+
+        if (tableHashIndex == null) {
+            tableHashIndex = TableHashIndex.create(keyType, buildColumnIndex);
+
+            for (int row = 0; row < buildTable.getNumberOfRows(); ++row) {
+                Object key = getKey(buildTable, row, buildColumnIndex, keyType);
+
+                if (key != null) {
+                    tableHashIndex.add(key, row);
+                }
+            }
+        }
+
+        long[] pairs = new long[16];
+        int numberOfPairs = 0;
+
+        for (int row = 0; row < probeTable.getNumberOfRows(); ++row) {
+            Object key = getKey(probeTable, row, probeColumnIndex, keyType);
+
+            if (key == null) {
+                continue;
+            }
+
+            for (int buildRow : tableHashIndex.find(key)) {
+                if (numberOfPairs == pairs.length) {
+                    pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+                }
+
+                pairs[numberOfPairs++] = buildLeft ?
+                        toPair(buildRow, row) :
+                        toPair(row, buildRow);
+            }
+        }
+
+        if (buildLeft) {
+            // The probe visited the right rows in order:
+            Arrays.sort(pairs, 0, numberOfPairs);
+        }
+
+        TableView tableView =
+                new TableView(getTableColumnDescriptorList(leftTable,
+                                                           rightTable));
+
+        for (int i = 0; i < numberOfPairs; ++i) {
+            tableView.addTableRow(createJoinedRow(leftTable,
+                                                  (int) (pairs[i] >>> 32),
+                                                  rightTable,
+                                                  (int) pairs[i]));
+        }
+
+        return tableView;
+    }
+
+    /**
+     * Joins the given tables by sorting both of them on their join column
+     * with {@link TableSorter}, which spills to temporary files the rows not
+     * fitting in the memory budget, and merging the sorted rows. The rows of
+     * the right table sharing a key are held in memory while they are paired
+     * with the left rows having the key. The pairs of rows are ordered by the
+     * key, then by the left row and then by the right row.
+     *
+     * @param leftTable         the left table.
+     * @param leftColumnIndex   the join column of the left table.
+     * @param rightTable        the right table.
+     * @param rightColumnIndex  the join column of the right table.
+     * @param memoryBudget      the memory budget of each sort.
+     * @return the view of the joined rows.
+     */
+    static TableView sortMergeJoin(Table leftTable,
+                                   int leftColumnIndex,
+                                   Table rightTable,
+                                   int rightColumnIndex,
+                                   long memoryBudget) {
+        TableCellType keyType = getKeyType(leftTable,
+                                           leftColumnIndex,
+                                           rightTable,
+                                           rightColumnIndex);
+        TableView tableView =
+                new TableView(getTableColumnDescriptorList(leftTable,
+                                                           rightTable));
+
+        try (TableSorter leftSorter =
+                    new TableSorter(leftTable,
+                                    new int[]{ leftColumnIndex },
+                                    memoryBudget,
+                                    (row) -> leftTable.getCellValue(
+                                            row, leftColumnIndex) != null);
+             TableSorter rightSorter =
+                    new TableSorter(rightTable,
+                                    new int[]{ rightColumnIndex },
+                                    memoryBudget,
+                                    (row) -> rightTable.getCellValue(
+                                            row, rightColumnIndex) != null)) {
+            TableRow leftRow = leftSorter.hasNext() ? leftSorter.next() : null;
+            TableRow rightRow =
+                    rightSorter.hasNext() ? rightSorter.next() : null;
+            List<TableRow> groupList = new ArrayList<>();
+
+            while (leftRow != null && rightRow != null) {
+                Object key = getKey(rightRow, rightColumnIndex, keyType);
+                int cmp = compareKeys(getKey(leftRow, leftColumnIndex, keyType),
+                                      key);
+
+                if (cmp < 0) {
+                    leftRow = leftSorter.hasNext() ? leftSorter.next() : null;
+                } else if (cmp > 0) {
+                    rightRow =
+                            rightSorter.hasNext() ? rightSorter.next() : null;
+                } else {
+                    groupList.clear();
+
+                    do {
+                        groupList.add(rightRow);
+                        rightRow = rightSorter.hasNext() ?
+                                rightSorter.next() :
+                                null;
+                    } while (rightRow != null && compareKeys(
+                            key,
+                            getKey(rightRow, rightColumnIndex, keyType)) == 0);
+
+                    do {
+                        for (TableRow groupRow : groupList) {
+                            tableView.addTableRow(
+                                    concatenate(leftRow, groupRow));
+                        }
+
+                        leftRow = leftSorter.hasNext() ?
+                                leftSorter.next() :
+                                null;
+                    } while (leftRow != null && compareKeys(
+                            getKey(leftRow, leftColumnIndex, keyType),
+                            key) == 0);
+                }
+            }
+        }
+
+        return tableView;
+    }
+
+    /**
+     * Returns the join key held by the given detached row.
+     */
+    private static Object getKey(TableRow tableRow,
+                                 int columnIndex,
+                                 TableCellType keyType) {
+        return toKey(tableRow.get(columnIndex).getValue(), keyType);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareKeys(Object key1, Object key2) {
+        return ((Comparable<Object>) key1).compareTo(key2);
+    }
+
+    private static TableRow concatenate(TableRow leftRow, TableRow rightRow) {
+        TableRow tableRow = new TableRow(null);
+
+        for (TableRow sourceRow : new TableRow[]{ leftRow, rightRow }) {
+            for (int i = 0; i < sourceRow.getNumberOfCells(); ++i) {
+                TableCell tableCell = sourceRow.get(i);
+                TableCell copy = new TableCell(tableCell.getTableCellType());
+                copy.setValue(tableCell.getValue());
+                tableRow.add(copy);
+            }
+        }
+
+        return tableRow;
+    }
+
+    /**
+     * Returns the type in which the keys of the join columns are compared.
+     *
+     * @throws IllegalArgumentException if the columns cannot be joined.
+     */
+    private static TableCellType getKeyType(Table leftTable,
+                                            int leftColumnIndex,
+                                            Table rightTable,
+                                            int rightColumnIndex) {
+        TableCellType leftType =
+                leftTable.getTableColumnDescriptor(leftColumnIndex)
+                         .getTableCellType();
+        TableCellType rightType =
+                rightTable.getTableColumnDescriptor(rightColumnIndex)
+                          .getTableCellType();
+
+        if (leftType == rightType) {
+            return leftType;
+        }
+
+        if (isIntegral(leftType) && isIntegral(rightType)) {
+            return TableCellType.TYPE_LONG;
+        }
+
+        throw new IllegalArgumentException(
+                "Cannot join a column of type " + leftType.getTypeName() +
+                " with a column of type " + rightType.getTypeName() + ".");
+    }
+
+    private static boolean isIntegral(TableCellType tableCellType) {
+        return tableCellType == TableCellType.TYPE_INT
+                || tableCellType == TableCellType.TYPE_LONG;
+    }
+
+    /**
+     * Returns the join key of the given row, or {@code null} if the cell is
+     * null.
+     */
+    private static Object getKey(Table table,
+                                 int row,
+                                 int columnIndex,
+                                 TableCellType keyType) {
+        return toKey(table.getCellValue(row, columnIndex), keyType);
+    }
+
+    private static Object toKey(Object value, TableCellType keyType) {
+        if (value instanceof Integer && keyType == TableCellType.TYPE_LONG) {
+            return (long) (Integer) value;
+        }
+
+        return value;
+    }
+
+    private static long toPair(int leftRow, int rightRow) {
+        return ((long) leftRow << 32) | rightRow;
+    }
+
+    static List<TableColumnDescriptor> getTableColumnDescriptorList(
+            Table leftTable,
+            Table rightTable) {
+        String leftName = leftTable.getTableName();
+        String rightName = rightTable.getTableName();
+
+        if (leftName.equals(rightName)) {
+            rightName += "_2";
+        }
+
+        List<TableColumnDescriptor> tableColumnDescriptorList =
+                new ArrayList<>();
+
+        addTableColumnDescriptors(tableColumnDescriptorList,
+                                  leftTable,
+                                  leftName);
+        addTableColumnDescriptors(tableColumnDescriptorList,
+                                  rightTable,
+                                  rightName);
+        return tableColumnDescriptorList;
+    }
+
+    private static void addTableColumnDescriptors(
+            List<TableColumnDescriptor> tableColumnDescriptorList,
+            Table table,
+            String tableName) {
+        for (TableColumnDescriptor tableColumnDescriptor
+                : table.tableColumnDescriptorList) {
+            tableColumnDescriptorList.add(
+                    new TableColumnDescriptor(
+                            tableName + "." +
+                            tableColumnDescriptor.getTableColumnName(),
+                            tableColumnDescriptor.getTableCellType()));
+        }
+    }
+
+    static TableRow createJoinedRow(Table leftTable,
+                                    int leftRow,
+                                    Table rightTable,
+                                    int rightRow) {
+        TableRow tableRow = new TableRow(null);
+        addTableCells(tableRow, leftTable, leftRow);
+        addTableCells(tableRow, rightTable, rightRow);
+        return tableRow;
+    }
+
+    private static void addTableCells(TableRow tableRow, Table table, int row) {
+        for (int columnIndex = 0;
+                columnIndex < table.tableColumnDescriptorList.size();
+                ++columnIndex) {
+            TableCell tableCell =
+                    new TableCell(table.getTableColumnDescriptor(columnIndex)
+                                       .getTableCellType());
+            tableCell.setValue(table.getCellValue(row, columnIndex));
+            tableRow.add(tableCell);
+        }
+    }
+}
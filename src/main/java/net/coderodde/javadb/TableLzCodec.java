@@ -0,0 +1,251 @@
+package net.coderodde.javadb;
+
+import java.util.Arrays;
+
+/**
+ * This class implements a fast table compression codec in the style of the
+ * LZ4 block format. A compressed frame is a sequence of sequences, each of
+ * which consists of
+ *
+ * <pre>
+ * token:    byte whose high nibble is the literal count and low nibble the
+ *           match length minus {@link #MINIMUM_MATCH}, the value 15 of
+ *           either nibble being followed by extra bytes added to it up to
+ *           the first byte other than 255
+ * literals: the literal bytes
+ * match:    short little-endian offset of the match back from the current
+ *           position, omitted in the last sequence
+ * </pre>
+ *
+ * The matches are found through a hash table of the four byte sequences seen
+ * so far, keeping only the latest position of each. Compression trades ratio
+ * for speed, and decompression is a mere sequence of copies.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class TableLzCodec implements TableCompressionCodec {
+
+    static final String NAME = "lz";
+
+    /**
+     * The minimum length of a match.
+     */
+    private static final int MINIMUM_MATCH = 4;
+
+    /**
+     * The number of bytes at the end of a frame always written as literals,
+     * so that the last sequence carries no match.
+     */
+    private static final int LAST_LITERALS = 5;
+
+    /**
+     * The maximum offset of a match.
+     */
+    private static final int MAXIMUM_OFFSET = (1 << 16) - 1;
+
+    private static final int HASH_BITS = 12;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] compress(byte[] data, int offset, int length) {
+        byte[] compressedData = new byte[length + length / 255 + 16];
+        int[] hashTable = new int[1 << HASH_BITS];
+        int end = offset + length;
+        int matchLimit = end - LAST_LITERALS;
+        int anchor = offset;
+        int position = offset;
+        int compressedLength = 0;
+
+        // Positions are stored plus one, so that zero means no position:
+        while (position + MINIMUM_MATCH <= matchLimit) {
+            int sequence = getInt(data, position);
+            int hash = hash(sequence);
+            int reference = hashTable[hash] - 1;
+            hashTable[hash] = position + 1;
+
+            if (reference < offset
+                    || position - reference > MAXIMUM_OFFSET
+                    || getInt(data, reference) != sequence) {
+                ++position;
+                continue;
+            }
+
+            int matchLength = MINIMUM_MATCH;
+
+            while (position + matchLength < matchLimit
+                    && data[reference + matchLength]
+                            == data[position + matchLength]) {
+                ++matchLength;
+            }
+
+            compressedLength = putSequence(compressedData,
+                                           compressedLength,
+                                           data,
+                                           anchor,
+                                           position - anchor,
+                                           position - reference,
+                                           matchLength);
+            position += matchLength;
+            anchor = position;
+        }
+
+        compressedLength = putSequence(compressedData,
+                                       compressedLength,
+                                       data,
+                                       anchor,
+                                       end - anchor,
+                                       0,
+                                       0);
+        return Arrays.copyOf(compressedData, compressedLength);
+    }
+
+    @Override
+    public void decompress(byte[] compressedData,
+                           int offset,
+                           int length,
+                           byte[] target) {
+        int end = offset + length;
+        int position = offset;
+        int targetLength = 0;
+
+        try {
+            while (position < end) {
+                int token = compressedData[position++] & 0xFF;
+                int literalCount = token >>> 4;
+
+                if (literalCount == 15) {
+                    int b;
+
+                    do {
+                        b = compressedData[position++] & 0xFF;
+                        literalCount += b;
+                    } while (b == 255);
+                }
+
+                checkLength(literalCount, end - position);
+                checkLength(literalCount, target.length - targetLength);
+                System.arraycopy(compressedData,
+                                 position,
+                                 target,
+                                 targetLength,
+                                 literalCount);
+                position += literalCount;
+                targetLength += literalCount;
+
+                if (position == end) {
+                    break;
+                }
+
+                int matchOffset = (compressedData[position] & 0xFF)
+                                | (compressedData[position + 1] & 0xFF) << 8;
+                position += 2;
+                int matchLength = token & 0x0F;
+
+                if (matchLength == 15) {
+                    int b;
+
+                    do {
+                        b = compressedData[position++] & 0xFF;
+                        matchLength += b;
+                    } while (b == 255);
+                }
+
+                matchLength += MINIMUM_MATCH;
+
+                if (matchOffset == 0 || matchOffset > targetLength) {
+                    throw new BadDataFormatException(
+                            "Invalid match offset: " + matchOffset + ".");
+                }
+
+                checkLength(matchLength, target.length - targetLength);
+
+                // The match may overlap the bytes it produces:
+                for (int i = 0; i < matchLength; ++i, ++targetLength) {
+                    target[targetLength] = target[targetLength - matchOffset];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            throw new BadDataFormatException("Truncated lz frame.", ex);
+        }
+
+        if (targetLength != target.length) {
+            throw new BadDataFormatException(
+                    "Truncated lz frame: " + targetLength +
+                    " bytes instead of " + target.length + ".");
+        }
+    }
+
+    private static int putSequence(byte[] compressedData,
+                                   int compressedLength,
+                                   byte[] data,
+                                   int literalOffset,
+                                   int literalCount,
+                                   int matchOffset,
+                                   int matchLength) {
+        int extraMatchLength = matchLength - MINIMUM_MATCH;
+        int tokenPosition = compressedLength++;
+        int token = Math.min(literalCount, 15) << 4;
+        compressedLength = putLength(compressedData,
+                                     compressedLength,
+                                     literalCount);
+        System.arraycopy(data,
+                         literalOffset,
+                         compressedData,
+                         compressedLength,
+                         literalCount);
+        compressedLength += literalCount;
+
+        if (matchLength > 0) {
+            token |= Math.min(extraMatchLength, 15);
+            compressedData[compressedLength++] = (byte) matchOffset;
+            compressedData[compressedLength++] = (byte) (matchOffset >>> 8);
+            compressedLength = putLength(compressedData,
+                                         compressedLength,
+                                         extraMatchLength);
+        }
+
+        compressedData[tokenPosition] = (byte) token;
+        return compressedLength;
+    }
+
+    /**
+     * Writes the extra bytes of a length whose token nibble is saturated.
+     */
+    private static int putLength(byte[] compressedData,
+                                 int compressedLength,
+                                 int length) {
+        if (length < 15) {
+            return compressedLength;
+        }
+
+        for (length -= 15; length >= 255; length -= 255) {
+            compressedData[compressedLength++] = (byte) 255;
+        }
+
+        compressedData[compressedLength++] = (byte) length;
+        return compressedLength;
+    }
+
+    private static void checkLength(int length, int available) {
+        if (length > available) {
+            throw new BadDataFormatException(
+                    "Invalid lz length: " + length + ".");
+        }
+    }
+
+    private static int getInt(byte[] data, int position) {
+        return (data[position] & 0xFF)
+             | (data[position + 1] & 0xFF) << 8
+             | (data[position + 2] & 0xFF) << 16
+             | (data[position + 3] & 0xFF) << 24;
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (Integer.SIZE - HASH_BITS);
+    }
+}
@@ -0,0 +1,517 @@
+package net.coderodde.javadb;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+
+/**
+ * This class implements the conditions on the rows of a table that are passed
+ * to {@link TableSelection#where(TablePredicate)}. A predicate refers to the
+ * columns by name and is bound to a particular table only when evaluated, so
+ * that the same predicate may be used with any table having the columns.
+ * <p>
+ * The comparison predicates follow the natural order of the column type, in
+ * which {@code -0.0} precedes {@code 0.0} and NaN follows the positive
+ * infinity. A null cell satisfies no comparison; use
+ * {@link #isNull(String)} to match the null cells. Binary cells support only
+ * the equality predicates.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public abstract class TablePredicate {
+
+    TablePredicate() {}
+
+    /**
+     * Returns a predicate that holds for the rows whose cell in the given
+     * column equals the given value.
+     *
+     * @param columnName the name of the column.
+     * @param value      the value to compare against.
+     * @return the predicate.
+     */
+    public static TablePredicate equalTo(String columnName, Object value) {
+        return new ComparisonPredicate(columnName, Comparison.EQUAL, value);
+    }
+
+    /**
+     * Returns a predicate that holds for the rows whose cell in the given
+     * column is not null and differs from the given value.
+     *
+     * @param columnName the name of the column.
+     * @param value      the value to compare against.
+     * @return the predicate.
+     */
+    public static TablePredicate notEqualTo(String columnName, Object value) {
+        return new ComparisonPredicate(columnName,
+                                       Comparison.NOT_EQUAL,
+                                       value);
+    }
+
+    /**
+     * Returns a predicate that holds for the rows whose cell in the given
+     * column is less than the given value.
+     *
+     * @param columnName the name of the column.
+     * @param value      the value to compare against.
+     * @return the predicate.
+     */
+    public static TablePredicate lessThan(String columnName, Object value) {
+        return new ComparisonPredicate(columnName, Comparison.LESS, value);
+    }
+
+    /**
+     * Returns a predicate that holds for the rows whose cell in the given
+     * column is at most the given value.
+     *
+     * @param columnName the name of the column.
+     * @param value      the value to compare against.
+     * @return the predicate.
+     */
+    public static TablePredicate lessThanOrEqualTo(String columnName,
+                                                   Object value) {
+        return new ComparisonPredicate(columnName,
+                                       Comparison.LESS_OR_EQUAL,
+                                       value);
+    }
+
+    /**
+     * Returns a predicate that holds for the rows whose cell in the given
+     * column is greater than the given value.
+     *
+     * @param columnName the name of the column.
+     * @param value      the value to compare against.
+     * @return the predicate.
+     */
+    public static TablePredicate greaterThan(String columnName, Object value) {
+        return new ComparisonPredicate(columnName, Comparison.GREATER, value);
+    }
+
+    /**
+     * Returns a predicate that holds for the rows whose cell in the given
+     * column is at least the given value.
+     *
+     * @param columnName the name of the column.
+     * @param value      the value to compare against.
+     * @return the predicate.
+     */
+    public static TablePredicate greaterThanOrEqualTo(String columnName,
+                                                      Object value) {
+        return new ComparisonPredicate(columnName,
+                                       Comparison.GREATER_OR_EQUAL,
+                                       value);
+    }
+
+    /**
+     * Returns a predicate that holds for the rows whose cell in the given
+     * column lies between {@code low} and {@code high}, both inclusive.
+     *
+     * @param columnName the name of the column.
+     * @param low        the lower bound.
+     * @param high       the upper bound.
+     * @return the predicate.
+     */
+    public static TablePredicate between(String columnName,
+                                         Object low,
+                                         Object high) {
+        return and(greaterThanOrEqualTo(columnName, low),
+                   lessThanOrEqualTo(columnName, high));
+    }
+
+    /**
+     * Returns a predicate that holds for the rows whose cell in the given
+     * column is null.
+     *
+     * @param columnName the name of the column.
+     * @return the predicate.
+     */
+    public static TablePredicate isNull(String columnName) {
+        return new NullPredicate(columnName, true);
+    }
+
+    /**
+     * Returns a predicate that holds for the rows whose cell in the given
+     * column is not null.
+     *
+     * @param columnName the name of the column.
+     * @return the predicate.
+     */
+    public static TablePredicate isNotNull(String columnName) {
+        return new NullPredicate(columnName, false);
+    }
+
+    /**
+     * Returns a predicate that holds for the rows satisfying all the given
+     * predicates.
+     *
+     * @param tablePredicates the predicates.
+     * @return the conjunction of the predicates.
+     */
+    public static TablePredicate and(TablePredicate... tablePredicates) {
+        return new ConjunctionPredicate(checkPredicates(tablePredicates));
+    }
+
+    /**
+     * Returns a predicate that holds for the rows satisfying at least one of
+     * the given predicates.
+     *
+     * @param tablePredicates the predicates.
+     * @return the disjunction of the predicates.
+     */
+    public static TablePredicate or(TablePredicate... tablePredicates) {
+        return new DisjunctionPredicate(checkPredicates(tablePredicates));
+    }
+
+    /**
+     * Returns a predicate that holds for the rows not satisfying the given
+     * predicate. Note that the negation of a comparison holds for the rows
+     * having a null cell in the compared column.
+     *
+     * @param tablePredicate the predicate to negate.
+     * @return the negation of the predicate.
+     */
+    public static TablePredicate not(TablePredicate tablePredicate) {
+        Objects.requireNonNull(tablePredicate, "The predicate is null.");
+        return new TablePredicate() {
+            @Override
+            IntPredicate bind(Table table) {
+                return tablePredicate.bind(table).negate();
+            }
+        };
+    }
+
+    /**
+     * Returns the test of this predicate on the row indices of the given
+     * table.
+     *
+     * @param table the table to evaluate against.
+     * @return the row test.
+     *
+     * @throws IllegalArgumentException if a column is not in the table or a
+     *                                  value does not match the column type.
+     */
+    abstract IntPredicate bind(Table table);
+
+    /**
+     * Returns, in ascending order, the rows of the given table that may
+     * satisfy this predicate as told by the indices of the table, or
+     * {@code null} if no index applies. The returned rows must still be
+     * tested with the predicate.
+     *
+     * @param table the table to look the rows up from.
+     * @return the candidate rows or {@code null}.
+     */
+    int[] findCandidateRows(Table table) {
+        return null;
+    }
+
+    private static TablePredicate[] checkPredicates(
+            TablePredicate[] tablePredicates) {
+        Objects.requireNonNull(tablePredicates, "The predicates are null.");
+
+        for (TablePredicate tablePredicate : tablePredicates) {
+            Objects.requireNonNull(tablePredicate, "A predicate is null.");
+        }
+
+        return tablePredicates.clone();
+    }
+
+    /**
+     * Lists the comparison operators.
+     */
+    private enum Comparison {
+
+        EQUAL,
+        NOT_EQUAL,
+        LESS,
+        LESS_OR_EQUAL,
+        GREATER,
+        GREATER_OR_EQUAL;
+
+        /**
+         * Tells whether a comparison result satisfies this operator.
+         *
+         * @param result the sign of the comparison of a cell and the value.
+         * @return {@code true} if the cell satisfies the comparison.
+         */
+        boolean test(int result) {
+            switch (this) {
+                case EQUAL:
+                    return result == 0;
+
+                case NOT_EQUAL:
+                    return result != 0;
+
+                case LESS:
+                    return result < 0;
+
+                case LESS_OR_EQUAL:
+                    return result <= 0;
+
+                case GREATER:
+                    return result > 0;
+
+                case GREATER_OR_EQUAL:
+                    return result >= 0;
+
+                default:
+                    throw new IllegalStateException("Should not get here.");
+            }
+        }
+    }
+
+    /**
+     * Implements the comparison of a column against a constant. In the
+     * columnar storage mode, the primitive columns are compared directly in
+     * their arrays without boxing.
+     */
+    private static final class ComparisonPredicate extends TablePredicate {
+
+        private final String columnName;
+        private final Comparison comparison;
+        private final Object value;
+
+        ComparisonPredicate(String columnName,
+                            Comparison comparison,
+                            Object value) {
+            this.columnName = Objects.requireNonNull(columnName,
+                                                     "The column name is null.");
+            this.comparison = comparison;
+            this.value = Objects.requireNonNull(
+                    value,
+                    "The value is null. Use isNull/isNotNull instead.");
+        }
+
+        @Override
+        IntPredicate bind(Table table) {
+            int columnIndex = table.getColumnIndex(columnName);
+            TableColumnDescriptor tableColumnDescriptor =
+                    table.getTableColumnDescriptor(columnIndex);
+            table.checkValueType(value, tableColumnDescriptor);
+            TableCellType tableCellType =
+                    tableColumnDescriptor.getTableCellType();
+
+            if (tableCellType == TableCellType.TYPE_BINARY) {
+                return bindBinary(table, columnIndex);
+            }
+
+            if (table.getStorageMode() == TableStorageMode.COLUMNAR) {
+                IntPredicate intPredicate =
+                        bindColumnStorage(
+                                table.getTableColumnStorage(columnIndex));
+
+                if (intPredicate != null) {
+                    return intPredicate;
+                }
+            }
+
+            return (row) -> {
+                Comparable<Object> cellValue =
+                        table.getComparableCellValue(row, columnIndex);
+                return cellValue != null
+                        && comparison.test(cellValue.compareTo(value));
+            };
+        }
+
+        @Override
+        int[] findCandidateRows(Table table) {
+            int columnIndex = table.getColumnIndex(columnName);
+
+            switch (comparison) {
+                case EQUAL:
+                    return table.findIndexedRows(columnIndex, value, value);
+
+                case LESS:
+                case LESS_OR_EQUAL:
+                    return table.findIndexedRows(columnIndex, null, value);
+
+                case GREATER:
+                case GREATER_OR_EQUAL:
+                    return table.findIndexedRows(columnIndex, value, null);
+
+                default:
+                    return null;
+            }
+        }
+
+        private IntPredicate bindBinary(Table table, int columnIndex) {
+            if (comparison != Comparison.EQUAL
+                    && comparison != Comparison.NOT_EQUAL) {
+                throw new IllegalArgumentException(
+                        "Binary columns have no natural order.");
+            }
+
+            byte[] data = (byte[]) value;
+            boolean equal = comparison == Comparison.EQUAL;
+
+            return (row) -> {
+                Object cellValue = table.getCellValue(row, columnIndex);
+                return cellValue != null
+                        && Arrays.equals((byte[]) cellValue, data) == equal;
+            };
+        }
+
+        private IntPredicate bindColumnStorage(
+                TableColumnStorage tableColumnStorage) {
+            switch (tableColumnStorage.getTableCellType()) {
+                case TYPE_INT: {
+                    TableColumnStorage.IntColumnStorage storage =
+                            (TableColumnStorage.IntColumnStorage)
+                            tableColumnStorage;
+                    int intValue = (Integer) value;
+
+                    return (row) -> !storage.isNull(row)
+                            && comparison.test(
+                                    Integer.compare(storage.getInt(row),
+                                                    intValue));
+                }
+
+                case TYPE_LONG: {
+                    TableColumnStorage.LongColumnStorage storage =
+                            (TableColumnStorage.LongColumnStorage)
+                            tableColumnStorage;
+                    long longValue = (Long) value;
+
+                    return (row) -> !storage.isNull(row)
+                            && comparison.test(
+                                    Long.compare(storage.getLong(row),
+                                                 longValue));
+                }
+
+                case TYPE_FLOAT: {
+                    TableColumnStorage.FloatColumnStorage storage =
+                            (TableColumnStorage.FloatColumnStorage)
+                            tableColumnStorage;
+                    float floatValue = (Float) value;
+
+                    return (row) -> !storage.isNull(row)
+                            && comparison.test(
+                                    Float.compare(storage.getFloat(row),
+                                                  floatValue));
+                }
+
+                case TYPE_DOUBLE: {
+                    TableColumnStorage.DoubleColumnStorage storage =
+                            (TableColumnStorage.DoubleColumnStorage)
+                            tableColumnStorage;
+                    double doubleValue = (Double) value;
+
+                    return (row) -> !storage.isNull(row)
+                            && comparison.test(
+                                    Double.compare(storage.getDouble(row),
+                                                   doubleValue));
+                }
+
+                case TYPE_BOOLEAN: {
+                    TableColumnStorage.BooleanColumnStorage storage =
+                            (TableColumnStorage.BooleanColumnStorage)
+                            tableColumnStorage;
+                    boolean booleanValue = (Boolean) value;
+
+                    return (row) -> !storage.isNull(row)
+                            && comparison.test(
+                                    Boolean.compare(storage.getBoolean(row),
+                                                    booleanValue));
+                }
+
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Implements the null tests.
+     */
+    private static final class NullPredicate extends TablePredicate {
+
+        private final String columnName;
+        private final boolean isNull;
+
+        NullPredicate(String columnName, boolean isNull) {
+            this.columnName = Objects.requireNonNull(columnName,
+                                                     "The column name is null.");
+            this.isNull = isNull;
+        }
+
+        @Override
+        IntPredicate bind(Table table) {
+            int columnIndex = table.getColumnIndex(columnName);
+
+            if (table.getStorageMode() == TableStorageMode.COLUMNAR) {
+                TableColumnStorage tableColumnStorage =
+                        table.getTableColumnStorage(columnIndex);
+                return (row) -> tableColumnStorage.isNull(row) == isNull;
+            }
+
+            return (row) ->
+                    (table.getCellValue(row, columnIndex) == null) == isNull;
+        }
+    }
+
+    /**
+     * Implements the conjunction of predicates.
+     */
+    private static final class ConjunctionPredicate extends TablePredicate {
+
+        private final TablePredicate[] tablePredicates;
+
+        ConjunctionPredicate(TablePredicate[] tablePredicates) {
+            this.tablePredicates = tablePredicates;
+        }
+
+        @Override
+        IntPredicate bind(Table table) {
+            IntPredicate intPredicate = (row) -> true;
+
+            for (TablePredicate tablePredicate : tablePredicates) {
+                intPredicate = intPredicate.and(tablePredicate.bind(table));
+            }
+
+            return intPredicate;
+        }
+
+        /**
+         * Returns the smallest of the candidate row sets of the conjuncts.
+         */
+        @Override
+        int[] findCandidateRows(Table table) {
+            int[] bestRows = null;
+
+            for (TablePredicate tablePredicate : tablePredicates) {
+                int[] rows = tablePredicate.findCandidateRows(table);
+
+                if (rows != null
+                        && (bestRows == null || rows.length < bestRows.length)) {
+                    bestRows = rows;
+                }
+            }
+
+            return bestRows;
+        }
+    }
+
+    /**
+     * Implements the disjunction of predicates.
+     */
+    private static final class DisjunctionPredicate extends TablePredicate {
+
+        private final TablePredicate[] tablePredicates;
+
+        DisjunctionPredicate(TablePredicate[] tablePredicates) {
+            this.tablePredicates = tablePredicates;
+        }
+
+        @Override
+        IntPredicate bind(Table table) {
+            IntPredicate intPredicate = (row) -> false;
+
+            for (TablePredicate tablePredicate : tablePredicates) {
+                intPredicate = intPredicate.or(tablePredicate.bind(table));
+            }
+
+            return intPredicate;
+        }
+    }
+}
@@ -23,7 +23,12 @@ public class TableRow {
      */
     Table ownerTable;
     
-    TableRow(Table onwerTable) {
+    /**
+     * The index of this row in the owner table.
+     */
+    int rowIndex;
+    
+    TableRow(Table ownerTable) {
         this.ownerTable = ownerTable;
     }
     
@@ -58,7 +63,7 @@ public class TableRow {
                     columnName + "\": no such column.");
         }
         
-        return tableCellList.get(columnIndex);
+        return get(columnIndex);
     }
     
     /**
@@ -83,6 +88,7 @@ public class TableRow {
         checkInsertionIndex(index);
         Objects.requireNonNull(tableCell, "The table cell is null.");
         tableCellList.add(index, tableCell);
+        tableCell.ownerTableRow = this;
     }
     
     public void add(TableCell tableCell) {
@@ -96,7 +102,7 @@ public class TableRow {
      */
     public void remove(int index) {
         checkAccessIndex(index);
-        tableCellList.remove(index);
+        tableCellList.remove(index).ownerTableRow = null;
     }
     
     public int getSerializationLength() {
@@ -119,7 +125,7 @@ public class TableRow {
             return true;
         }
         
-        if (!getClass().equals(o.getClass())) {
+        if (!(o instanceof TableRow)) {
             return false;
         }
         
@@ -138,6 +144,21 @@ public class TableRow {
         return true;
     }
     
+    /**
+     * Returns a detached copy of this row holding the current cell values.
+     * 
+     * @return a copy of this row.
+     */
+    TableRow copy() {
+        TableRow copy = new TableRow(null);
+        
+        for (int i = 0; i < getNumberOfCells(); ++i) {
+            copy.add(get(i).copy());
+        }
+        
+        return copy;
+    }
+    
     public void serialize(ByteBuffer byteBuffer) {
         for (TableCell tableCell : tableCellList) {
             tableCell.serialize(byteBuffer);
@@ -155,6 +176,60 @@ public class TableRow {
         return tableRow;
     }
     
+    /**
+     * Advances the position of the byte buffer past the next serialized table 
+     * row without decoding it.
+     * 
+     * @param byteBuffer    the byte buffer.
+     * @param numberOfCells the number of cells in the row.
+     */
+    static void skip(ByteBuffer byteBuffer, int numberOfCells) {
+        for (int i = 0; i < numberOfCells; ++i) {
+            TableCell.skip(byteBuffer);
+        }
+    }
+    
+    /**
+     * Called by a table cell of this row before it is assigned a new value.
+     */
+    void onBeforeTableCellUpdate() {
+        if (ownerTable != null) {
+            ownerTable.onBeforeTableRowUpdate(this);
+        }
+    }
+    
+    /**
+     * Called by a table cell of this row whenever it is assigned a new value.
+     * 
+     * @param tableCell the updated table cell.
+     * @param oldValue  the value of the cell before the update.
+     */
+    void onTableCellUpdate(TableCell tableCell, Object oldValue) {
+        if (ownerTable != null) {
+            ownerTable.onTableCellUpdate(rowIndex, 
+                                         indexOfTableCell(tableCell), 
+                                         tableCell,
+                                         oldValue);
+        }
+    }
+    
+    /**
+     * Returns the column index of the given cell of this row.
+     * 
+     * @param tableCell the table cell.
+     * @return the column index of the cell.
+     */
+    int indexOfTableCell(TableCell tableCell) {
+        for (int i = 0; i < tableCellList.size(); ++i) {
+            if (tableCellList.get(i) == tableCell) {
+                return i;
+            }
+        }
+        
+        throw new IllegalStateException(
+                "The table cell is not in this table row.");
+    }
+    
     private void checkAccessIndex(int index) {
         if (index < 0) {
             throw new IndexOutOfBoundsException(
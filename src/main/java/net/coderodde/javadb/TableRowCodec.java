@@ -0,0 +1,983 @@
+package net.coderodde.javadb;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class implements the encoding of the rows in a table block of a
+ * database file. Up to format version 4, every cell is written as by
+ * {@link TableCell#serialize(ByteBuffer)}: a tag byte telling the type and
+ * whether the cell is null, followed by the value, the strings taking two
+ * bytes per character. As of version 5, the strings are written in UTF-8 by
+ * {@link Utf8}, and a string column may be dictionary encoded: the block
+ * header lists the distinct strings of the column, and a cell refers to its
+ * string by its index in the list, written as a variable-length integer. A
+ * dictionary encoded cell may still hold a literal string, which happens when
+ * the rows of a lazily loaded table are written back with the dictionary of
+ * the block they were loaded from. The codec of the rows is described by the
+ * table block header, after the row count:
+ *
+ * <pre>
+ * per column: byte encoding, and in case of a dictionary, int string count
+ *             followed by the strings
+ * </pre>
+ *
+ * A dictionary is chosen for a string column by {@link Builder} whenever it
+ * makes the column smaller, which is the case for the columns with few
+ * distinct values.
+ * <p>
+ * As of version 6, the codec opens with a byte telling the layout of the
+ * block. The rows of the row-oriented tables follow the header one after
+ * another, whereas the columnar tables are written in the column layout of
+ * {@link TableColumnCodec}.
+ * <p>
+ * As of version 7, the cells of the row layout carry no tag bytes, since the
+ * header already tells the type of each column. Instead, each row opens with
+ * a null bitmap of one bit per column, the least significant bit of the first
+ * byte standing for the first column, followed by the values of the non-null
+ * cells. A string of a dictionary encoded column is written as its code plus
+ * one as a variable-length integer, or as zero followed by the literal string.
+ * <p>
+ * As of version 8, the layout is followed by the name of the codec
+ * compressing the rest of the block, empty if the block is not compressed,
+ * as described in {@link TableCompression}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class TableRowCodec {
+
+    /**
+     * The column encoding writing each value as is.
+     */
+    static final byte PLAIN = 0;
+
+    /**
+     * The column encoding writing the index of each string in the dictionary
+     * of the column.
+     */
+    static final byte DICTIONARY = 1;
+
+    /**
+     * The tag of a dictionary encoded string cell in format versions 5 and 6.
+     */
+    static final byte STRING_CODE = TableCell.STRING_NULL | 0x20;
+
+    /**
+     * The maximum number of strings in a dictionary.
+     */
+    static final int MAXIMUM_DICTIONARY_SIZE = 1 << 16;
+
+    /**
+     * The layout of the blocks holding one row after another.
+     */
+    static final byte ROW_LAYOUT = 0;
+
+    /**
+     * The layout of the blocks holding one column after another.
+     */
+    static final byte COLUMN_LAYOUT = 1;
+
+    /**
+     * The format version of the rows.
+     */
+    private final int formatVersion;
+
+    /**
+     * The type of each column.
+     */
+    private final TableCellType[] tableCellTypes;
+
+    /**
+     * The dictionary of each column, or {@code null} for the columns without
+     * one.
+     */
+    private final String[][] dictionaries;
+
+    /**
+     * The layout of the block.
+     */
+    private final byte layout;
+
+    /**
+     * The length of the null bitmap opening each row in the row layout.
+     */
+    private final int nullBitmapLength;
+
+    /**
+     * The codec compressing the data of the block, or {@code null} if the
+     * data is not compressed.
+     */
+    private final TableCompressionCodec tableCompressionCodec;
+
+    /**
+     * The data of the table block this codec is built for, that is,
+     * everything after the block header, or {@code null} if the data is not
+     * encoded in advance. The data is encoded in advance only for
+     * serializing a table into a single buffer, and only if it consists of
+     * other than uncompressed rows.
+     */
+    private final ByteBuffer encodedData;
+
+    /**
+     * Maps the strings of each dictionary to their codes. Built on first
+     * encoding, since the codecs read from a file mostly only decode.
+     */
+    private volatile List<Map<String, Integer>> codeMapList;
+
+    private TableRowCodec(int formatVersion,
+                          List<TableColumnDescriptor> tableColumnDescriptorList,
+                          String[][] dictionaries,
+                          byte layout,
+                          TableCompressionCodec tableCompressionCodec) {
+        this.formatVersion = formatVersion;
+        this.tableCellTypes = new TableCellType[dictionaries.length];
+        this.dictionaries = dictionaries;
+        this.layout = layout;
+        this.nullBitmapLength = (dictionaries.length + 7) / 8;
+        this.tableCompressionCodec = tableCompressionCodec;
+        this.encodedData = null;
+
+        for (int i = 0; i < tableCellTypes.length; ++i) {
+            tableCellTypes[i] =
+                    tableColumnDescriptorList.get(i).getTableCellType();
+        }
+    }
+
+    private TableRowCodec(TableRowCodec tableRowCodec,
+                          TableCompressionCodec tableCompressionCodec,
+                          ByteBuffer encodedData) {
+        this.formatVersion = tableRowCodec.formatVersion;
+        this.tableCellTypes = tableRowCodec.tableCellTypes;
+        this.dictionaries = tableRowCodec.dictionaries;
+        this.layout = tableRowCodec.layout;
+        this.nullBitmapLength = tableRowCodec.nullBitmapLength;
+        this.codeMapList = tableRowCodec.codeMapList;
+        this.tableCompressionCodec = tableCompressionCodec;
+        this.encodedData = encodedData;
+    }
+
+    /**
+     * Returns a codec equal to this one, except that it compresses the data
+     * with the given codec and carries no encoded data.
+     *
+     * @param tableCompressionCodec the compression codec, or {@code null}
+     *                              for uncompressed data.
+     * @return the codec.
+     */
+    TableRowCodec withTableCompressionCodec(
+            TableCompressionCodec tableCompressionCodec) {
+        if (tableCompressionCodec == this.tableCompressionCodec
+                && encodedData == null) {
+            return this;
+        }
+
+        return new TableRowCodec(this, tableCompressionCodec, null);
+    }
+
+    /**
+     * Returns a codec equal to this one, except that it carries the given
+     * data encoded in advance.
+     *
+     * @param encodedData the buffer holding the data from its position to
+     *                    its limit.
+     * @return the codec.
+     */
+    TableRowCodec withEncodedData(ByteBuffer encodedData) {
+        return new TableRowCodec(this, tableCompressionCodec, encodedData);
+    }
+
+    /**
+     * Returns {@code true} if this codec writes the current format, so that
+     * the rows it has encoded may be copied verbatim to a new file.
+     *
+     * @return {@code true} if this codec is of the current format.
+     */
+    boolean isCurrent() {
+        return formatVersion == DatabaseFileFormat.FORMAT_VERSION;
+    }
+
+    /**
+     * Returns {@code true} if the given codec encodes the rows exactly as
+     * this one does, so that the rows encoded by either may be copied
+     * verbatim to a block written with the other. Differs from the identity
+     * in that the codecs may compress differently.
+     *
+     * @param tableRowCodec the other codec.
+     * @return {@code true} if the rows are encoded alike.
+     */
+    boolean encodesRowsAs(TableRowCodec tableRowCodec) {
+        return formatVersion == tableRowCodec.formatVersion
+                && dictionaries == tableRowCodec.dictionaries;
+    }
+
+    int getFormatVersion() {
+        return formatVersion;
+    }
+
+    byte getLayout() {
+        return layout;
+    }
+
+    TableCellType getTableCellType(int column) {
+        return tableCellTypes[column];
+    }
+
+    /**
+     * Returns the dictionary of the given column.
+     *
+     * @param column the index of the column.
+     * @return the dictionary, or {@code null} if the column has none.
+     */
+    String[] getDictionary(int column) {
+        return dictionaries[column];
+    }
+
+    TableCompressionCodec getTableCompressionCodec() {
+        return tableCompressionCodec;
+    }
+
+    /**
+     * Returns {@code true} if the data of a block written with this codec
+     * consists of other than uncompressed rows, and is thus written by
+     * {@code TableColumnCodec} or in compressed frames.
+     *
+     * @return {@code true} if the data is not a mere sequence of rows.
+     */
+    boolean encodesData() {
+        return layout == COLUMN_LAYOUT || tableCompressionCodec != null;
+    }
+
+    /**
+     * Returns the data encoded in advance.
+     *
+     * @return a buffer holding the data from its position to its limit, or
+     *         {@code null} if the data is not encoded in advance.
+     */
+    ByteBuffer getEncodedData() {
+        return encodedData == null ? null : encodedData.duplicate();
+    }
+
+    /**
+     * Reads the codec of the rows from a table block header. The blocks of
+     * the format versions before 5 carry no codec.
+     *
+     * @param byteBuffer                the buffer whose position points past
+     *                                  the row count.
+     * @param tableColumnDescriptorList the columns of the table.
+     * @param formatVersion             the format version of the block.
+     * @return the codec.
+     */
+    static TableRowCodec deserialize(
+            ByteBuffer byteBuffer,
+            List<TableColumnDescriptor> tableColumnDescriptorList,
+            int formatVersion) {
+        String[][] dictionaries =
+                new String[tableColumnDescriptorList.size()][];
+
+        if (formatVersion < 5) {
+            return new TableRowCodec(formatVersion,
+                                     tableColumnDescriptorList,
+                                     dictionaries,
+                                     ROW_LAYOUT,
+                                     null);
+        }
+
+        byte layout = formatVersion >= 6 ? byteBuffer.get() : ROW_LAYOUT;
+
+        if (layout != ROW_LAYOUT && layout != COLUMN_LAYOUT) {
+            throw new BadDataFormatException(
+                    "Invalid block layout: " + layout + ".");
+        }
+
+        TableCompressionCodec tableCompressionCodec = null;
+
+        if (formatVersion >= 8) {
+            String name = Utf8.deserialize(byteBuffer);
+
+            if (!name.isEmpty()) {
+                tableCompressionCodec = TableCompression.getCodec(name);
+
+                if (tableCompressionCodec == null) {
+                    throw new BadDataFormatException(
+                            "Unknown compression codec: \"" + name + "\".");
+                }
+            }
+        }
+
+        for (int i = 0; i < dictionaries.length; ++i) {
+            byte encoding = byteBuffer.get();
+
+            if (encoding == PLAIN) {
+                continue;
+            }
+
+            if (encoding != DICTIONARY
+                    || tableColumnDescriptorList.get(i).getTableCellType()
+                            != TableCellType.TYPE_STRING) {
+                throw new BadDataFormatException(
+                        "Invalid column encoding: " + encoding + ".");
+            }
+
+            int dictionarySize = byteBuffer.getInt();
+
+            if (dictionarySize < 0
+                    || dictionarySize > MAXIMUM_DICTIONARY_SIZE) {
+                throw new BadDataFormatException(
+                        "Invalid dictionary size: " + dictionarySize + ".");
+            }
+
+            dictionaries[i] = new String[dictionarySize];
+
+            for (int j = 0; j < dictionarySize; ++j) {
+                dictionaries[i][j] = Utf8.deserialize(byteBuffer);
+            }
+        }
+
+        return new TableRowCodec(formatVersion,
+                                 tableColumnDescriptorList,
+                                 dictionaries,
+                                 layout,
+                                 tableCompressionCodec);
+    }
+
+    int getSerializationLength() {
+        int serializationLength = 1 + dictionaries.length
+                + Utf8.getSerializationLength(getTableCompressionCodecName());
+
+        for (String[] dictionary : dictionaries) {
+            if (dictionary != null) {
+                serializationLength += Integer.BYTES;
+
+                for (String string : dictionary) {
+                    serializationLength += Utf8.getSerializationLength(string);
+                }
+            }
+        }
+
+        return serializationLength;
+    }
+
+    void serialize(ByteBuffer byteBuffer) {
+        byteBuffer.put(layout);
+        Utf8.serialize(byteBuffer, getTableCompressionCodecName());
+
+        for (String[] dictionary : dictionaries) {
+            if (dictionary == null) {
+                byteBuffer.put(PLAIN);
+                continue;
+            }
+
+            byteBuffer.put(DICTIONARY).putInt(dictionary.length);
+
+            for (String string : dictionary) {
+                Utf8.serialize(byteBuffer, string);
+            }
+        }
+    }
+
+    private String getTableCompressionCodecName() {
+        return tableCompressionCodec == null ?
+                "" :
+                tableCompressionCodec.getName();
+    }
+
+    /**
+     * Returns the number of bytes it takes to encode the given row. The cell
+     * values are read bypassing the lock of the owner table.
+     *
+     * @param tableRow the row.
+     * @return the number of bytes.
+     */
+    int getTableRowSerializationLength(TableRow tableRow) {
+        int serializationLength = nullBitmapLength;
+
+        for (int column = 0; column < tableCellTypes.length; ++column) {
+            Object value = tableRow.get(column).loadValue();
+
+            if (value != null) {
+                serializationLength +=
+                        getValueSerializationLength(column, value);
+            }
+        }
+
+        return serializationLength;
+    }
+
+    /**
+     * Encodes the given row. The cell values are read bypassing the lock of
+     * the owner table.
+     *
+     * @param byteBuffer the target buffer.
+     * @param tableRow   the row.
+     */
+    void serializeTableRow(ByteBuffer byteBuffer, TableRow tableRow) {
+        int nullBitmapPosition = byteBuffer.position();
+
+        for (int i = 0; i < nullBitmapLength; ++i) {
+            byteBuffer.put((byte) 0);
+        }
+
+        for (int column = 0; column < tableCellTypes.length; ++column) {
+            Object value = tableRow.get(column).loadValue();
+
+            if (value == null) {
+                int index = nullBitmapPosition + (column >>> 3);
+                byteBuffer.put(index, (byte) (byteBuffer.get(index)
+                                              | 1 << (column & 7)));
+            } else {
+                serializeValue(byteBuffer, column, value);
+            }
+        }
+    }
+
+    /**
+     * Decodes the row at the position of the given buffer.
+     *
+     * @param byteBuffer the buffer.
+     * @return the detached row.
+     */
+    TableRow deserializeTableRow(ByteBuffer byteBuffer) {
+        if (formatVersion < 5) {
+            return TableRow.deserialize(byteBuffer, tableCellTypes.length);
+        }
+
+        TableRow tableRow = new TableRow(null);
+
+        if (formatVersion < 7) {
+            for (int column = 0; column < tableCellTypes.length; ++column) {
+                tableRow.add(deserializeTaggedTableCell(byteBuffer, column));
+            }
+
+            return tableRow;
+        }
+
+        int nullBitmapPosition = skipNullBitmap(byteBuffer);
+
+        for (int column = 0; column < tableCellTypes.length; ++column) {
+            tableRow.add(isNull(byteBuffer, nullBitmapPosition, column) ?
+                    new TableCell(tableCellTypes[column]) :
+                    deserializeValue(byteBuffer, column));
+        }
+
+        return tableRow;
+    }
+
+    /**
+     * Advances the position of the given buffer past the row at it.
+     *
+     * @param byteBuffer the buffer.
+     */
+    void skipTableRow(ByteBuffer byteBuffer) {
+        if (formatVersion < 5) {
+            TableRow.skip(byteBuffer, tableCellTypes.length);
+            return;
+        }
+
+        if (formatVersion < 7) {
+            skipTaggedTableRow(byteBuffer);
+            return;
+        }
+
+        int nullBitmapPosition = skipNullBitmap(byteBuffer);
+
+        for (int column = 0; column < tableCellTypes.length; ++column) {
+            if (!isNull(byteBuffer, nullBitmapPosition, column)) {
+                skipValue(byteBuffer, column);
+            }
+        }
+    }
+
+    private int getValueSerializationLength(int column, Object value) {
+        switch (tableCellTypes[column]) {
+            case TYPE_INT:
+            case TYPE_FLOAT:
+                return 4;
+
+            case TYPE_LONG:
+            case TYPE_DOUBLE:
+                return 8;
+
+            case TYPE_BOOLEAN:
+                return 1;
+
+            case TYPE_STRING:
+                Integer code = getCode(column, (String) value);
+
+                if (code != null) {
+                    return getVarIntLength(code + 1);
+                }
+
+                return (dictionaries[column] != null ? 1 : 0)
+                        + Utf8.getSerializationLength((String) value);
+
+            case TYPE_BINARY:
+                return Integer.BYTES + ((byte[]) value).length;
+
+            default:
+                throw new IllegalStateException("Unknown table cell type.");
+        }
+    }
+
+    private void serializeValue(ByteBuffer byteBuffer,
+                                int column,
+                                Object value) {
+        switch (tableCellTypes[column]) {
+            case TYPE_INT:
+                byteBuffer.putInt((int) value);
+                return;
+
+            case TYPE_LONG:
+                byteBuffer.putLong((long) value);
+                return;
+
+            case TYPE_FLOAT:
+                byteBuffer.putFloat((float) value);
+                return;
+
+            case TYPE_DOUBLE:
+                byteBuffer.putDouble((double) value);
+                return;
+
+            case TYPE_BOOLEAN:
+                byteBuffer.put((boolean) value ?
+                               TableCell.BOOLEAN_TRUE :
+                               TableCell.BOOLEAN_FALSE);
+                return;
+
+            case TYPE_STRING:
+                if (dictionaries[column] != null) {
+                    Integer code = getCode(column, (String) value);
+
+                    // Code zero marks a literal string missing from the
+                    // dictionary:
+                    putVarInt(byteBuffer, code != null ? code + 1 : 0);
+
+                    if (code != null) {
+                        return;
+                    }
+                }
+
+                Utf8.serialize(byteBuffer, (String) value);
+                return;
+
+            case TYPE_BINARY:
+                byte[] bytes = (byte[]) value;
+                byteBuffer.putInt(bytes.length).put(bytes);
+                return;
+
+            default:
+                throw new IllegalStateException("Unknown table cell type.");
+        }
+    }
+
+    private TableCell deserializeValue(ByteBuffer byteBuffer, int column) {
+        switch (tableCellTypes[column]) {
+            case TYPE_INT:
+                return new TableCell(byteBuffer.getInt());
+
+            case TYPE_LONG:
+                return new TableCell(byteBuffer.getLong());
+
+            case TYPE_FLOAT:
+                return new TableCell(byteBuffer.getFloat());
+
+            case TYPE_DOUBLE:
+                return new TableCell(byteBuffer.getDouble());
+
+            case TYPE_BOOLEAN:
+                return new TableCell(
+                        byteBuffer.get() == TableCell.BOOLEAN_TRUE);
+
+            case TYPE_STRING:
+                if (dictionaries[column] != null) {
+                    int code = getVarInt(byteBuffer);
+
+                    if (code != 0) {
+                        return new TableCell(getString(column, code - 1));
+                    }
+                }
+
+                return new TableCell(Utf8.deserialize(byteBuffer));
+
+            case TYPE_BINARY:
+                return new TableCell(deserializeBinary(byteBuffer));
+
+            default:
+                throw new IllegalStateException("Unknown table cell type.");
+        }
+    }
+
+    private void skipValue(ByteBuffer byteBuffer, int column) {
+        switch (tableCellTypes[column]) {
+            case TYPE_STRING:
+                if (dictionaries[column] != null
+                        && getVarInt(byteBuffer) != 0) {
+                    return;
+                }
+
+                Utf8.skip(byteBuffer);
+                return;
+
+            case TYPE_BINARY:
+                int length = getBinaryLength(byteBuffer);
+                byteBuffer.position(byteBuffer.position() + length);
+                return;
+
+            default:
+                byteBuffer.position(byteBuffer.position()
+                                    + getValueSerializationLength(column,
+                                                                  null));
+        }
+    }
+
+    /**
+     * Advances the position of the given buffer past the null bitmap of the
+     * row at it.
+     *
+     * @param byteBuffer the buffer.
+     * @return the position of the null bitmap.
+     */
+    private int skipNullBitmap(ByteBuffer byteBuffer) {
+        if (byteBuffer.remaining() < nullBitmapLength) {
+            throw new BadDataFormatException("Truncated null bitmap.");
+        }
+
+        int nullBitmapPosition = byteBuffer.position();
+        byteBuffer.position(nullBitmapPosition + nullBitmapLength);
+        return nullBitmapPosition;
+    }
+
+    private static boolean isNull(ByteBuffer byteBuffer,
+                                  int nullBitmapPosition,
+                                  int column) {
+        return (byteBuffer.get(nullBitmapPosition + (column >>> 3))
+                & 1 << (column & 7)) != 0;
+    }
+
+    private String getString(int column, int code) {
+        if (code >= dictionaries[column].length) {
+            throw new BadDataFormatException(
+                    "Invalid dictionary code: " + code + ".");
+        }
+
+        return dictionaries[column][code];
+    }
+
+    private static int getBinaryLength(ByteBuffer byteBuffer) {
+        int length = byteBuffer.getInt();
+
+        if (length < 0 || length > byteBuffer.remaining()) {
+            throw new BadDataFormatException(
+                    "Invalid binary length: " + length + ".");
+        }
+
+        return length;
+    }
+
+    private static byte[] deserializeBinary(ByteBuffer byteBuffer) {
+        byte[] bytes = new byte[getBinaryLength(byteBuffer)];
+        byteBuffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Advances the position of the given buffer past the row at it, written
+     * in format version 5 or 6 with a tag byte per cell.
+     */
+    private void skipTaggedTableRow(ByteBuffer byteBuffer) {
+        for (int column = 0; column < tableCellTypes.length; ++column) {
+            byte tag = byteBuffer.get();
+
+            if (tag == STRING_CODE) {
+                getVarInt(byteBuffer);
+            } else if (tag == TableCell.STRING_NOT_NULL) {
+                Utf8.skip(byteBuffer);
+            } else {
+                byteBuffer.position(byteBuffer.position() - 1);
+                TableCell.skip(byteBuffer);
+            }
+        }
+    }
+
+    /**
+     * Decodes a cell written in format version 5 or 6 with a tag byte.
+     */
+    private TableCell deserializeTaggedTableCell(ByteBuffer byteBuffer,
+                                                 int column) {
+        TableCellType tableCellType = tableCellTypes[column];
+        byte tag = byteBuffer.get();
+
+        if (tag == tableCellType.getTypeId()) {
+            return new TableCell(tableCellType);
+        }
+
+        if (tag == STRING_CODE
+                && tableCellType == TableCellType.TYPE_STRING
+                && dictionaries[column] != null) {
+            return new TableCell(getString(column, getVarInt(byteBuffer)));
+        }
+
+        if (tag != (tableCellType.getTypeId() | 0x10)) {
+            throw new BadDataFormatException(
+                    "Invalid tag " + tag + " of a cell of " +
+                    tableCellType.getTypeName() + ".");
+        }
+
+        if (tableCellType == TableCellType.TYPE_STRING) {
+            return new TableCell(Utf8.deserialize(byteBuffer));
+        }
+
+        return deserializeValue(byteBuffer, column);
+    }
+
+    /**
+     * Returns the code of the given string in the dictionary of the given
+     * column.
+     *
+     * @param column the index of the column.
+     * @param string the string.
+     * @return the code, or {@code null} if the string is not in the
+     *         dictionary or the column has no dictionary.
+     */
+    Integer getCode(int column, String string) {
+        if (dictionaries[column] == null) {
+            return null;
+        }
+
+        List<Map<String, Integer>> codeMapList = this.codeMapList;
+
+        if (codeMapList == null) {
+            codeMapList = new ArrayList<>(dictionaries.length);
+
+            for (String[] dictionary : dictionaries) {
+                Map<String, Integer> codeMap = null;
+
+                if (dictionary != null) {
+                    codeMap = new HashMap<>(2 * dictionary.length);
+
+                    for (int code = 0; code < dictionary.length; ++code) {
+                        codeMap.put(dictionary[code], code);
+                    }
+                }
+
+                codeMapList.add(codeMap);
+            }
+
+            this.codeMapList = codeMapList;
+        }
+
+        return codeMapList.get(column).get(string);
+    }
+
+    static int getVarIntLength(int value) {
+        int length = 1;
+
+        while ((value >>>= 7) != 0) {
+            ++length;
+        }
+
+        return length;
+    }
+
+    /**
+     * Writes a non-negative integer seven bits per byte, the least
+     * significant bits first, setting the high bit of every byte but the
+     * last.
+     */
+    static void putVarInt(ByteBuffer byteBuffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            byteBuffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        byteBuffer.put((byte) value);
+    }
+
+    static int getVarInt(ByteBuffer byteBuffer) {
+        int value = 0;
+
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            byte b = byteBuffer.get();
+            value |= (b & 0x7F) << shift;
+
+            if (b >= 0) {
+                if (value < 0) {
+                    break;
+                }
+
+                return value;
+            }
+        }
+
+        throw new BadDataFormatException("Invalid variable-length integer.");
+    }
+
+    /**
+     * This class chooses the codec for the rows of a table. It is fed the
+     * non-null values of the string columns, and builds a dictionary for
+     * each column the dictionary makes smaller.
+     */
+    static final class Builder {
+
+        private final List<TableColumnDescriptor> tableColumnDescriptorList;
+
+        /**
+         * The indices of the string columns.
+         */
+        private final int[] stringColumns;
+
+        /**
+         * Maps the distinct strings of each column to their codes, or holds
+         * {@code null} for a column that has too many distinct strings or is
+         * not a string column.
+         */
+        private final List<Map<String, Integer>> codeMapList;
+
+        /**
+         * The number of occurrences of each distinct string of each column,
+         * indexed by the code of the string.
+         */
+        private final int[][] counts;
+
+        /**
+         * The layout of the block.
+         */
+        private final byte layout;
+
+        Builder(List<TableColumnDescriptor> tableColumnDescriptorList) {
+            this(tableColumnDescriptorList, ROW_LAYOUT);
+        }
+
+        Builder(List<TableColumnDescriptor> tableColumnDescriptorList,
+                byte layout) {
+            this.tableColumnDescriptorList = tableColumnDescriptorList;
+            this.layout = layout;
+            this.codeMapList =
+                    new ArrayList<>(tableColumnDescriptorList.size());
+            this.counts = new int[tableColumnDescriptorList.size()][];
+            int numberOfStringColumns = 0;
+
+            for (int i = 0; i < tableColumnDescriptorList.size(); ++i) {
+                if (tableColumnDescriptorList.get(i).getTableCellType()
+                        == TableCellType.TYPE_STRING) {
+                    codeMapList.add(new HashMap<>());
+                    counts[i] = new int[16];
+                    ++numberOfStringColumns;
+                } else {
+                    codeMapList.add(null);
+                }
+            }
+
+            this.stringColumns = new int[numberOfStringColumns];
+
+            for (int i = 0, j = 0; i < counts.length; ++i) {
+                if (counts[i] != null) {
+                    stringColumns[j++] = i;
+                }
+            }
+        }
+
+        /**
+         * Returns the indices of the columns whose values are to be added,
+         * that is, the string columns.
+         *
+         * @return the column indices.
+         */
+        int[] getStringColumns() {
+            return stringColumns;
+        }
+
+        /**
+         * Adds a value of the given string column.
+         *
+         * @param column the index of the column.
+         * @param value  the value. May be {@code null}.
+         */
+        void add(int column, Object value) {
+            Map<String, Integer> codeMap = codeMapList.get(column);
+
+            if (value == null || codeMap == null) {
+                return;
+            }
+
+            Integer code = codeMap.get(value);
+
+            if (code == null) {
+                if (codeMap.size() == MAXIMUM_DICTIONARY_SIZE) {
+                    codeMapList.set(column, null);
+                    counts[column] = null;
+                    return;
+                }
+
+                code = codeMap.size();
+                codeMap.put((String) value, code);
+
+                if (code == counts[column].length) {
+                    counts[column] = Arrays.copyOf(counts[column], 2 * code);
+                }
+            }
+
+            ++counts[column][code];
+        }
+
+        /**
+         * Adds the string values of the given row. The cell values are read
+         * bypassing the lock of the owner table.
+         *
+         * @param tableRow the row.
+         */
+        void addTableRow(TableRow tableRow) {
+            for (int column : stringColumns) {
+                add(column, tableRow.get(column).loadValue());
+            }
+        }
+
+        /**
+         * Builds the codec of the current format.
+         *
+         * @return the codec.
+         */
+        TableRowCodec build() {
+            String[][] dictionaries =
+                    new String[tableColumnDescriptorList.size()][];
+
+            for (int column : stringColumns) {
+                Map<String, Integer> codeMap = codeMapList.get(column);
+
+                if (codeMap == null || codeMap.isEmpty()) {
+                    continue;
+                }
+
+                String[] dictionary = new String[codeMap.size()];
+                long plainLength = 0L;
+                long dictionaryLength = Integer.BYTES;
+
+                for (Map.Entry<String, Integer> e : codeMap.entrySet()) {
+                    int code = e.getValue();
+                    int length = Utf8.getSerializationLength(e.getKey());
+                    dictionary[code] = e.getKey();
+                    plainLength += (long) counts[column][code] * length;
+                    dictionaryLength +=
+                            length +
+                            (long) counts[column][code] *
+                            getVarIntLength(code + 1);
+                }
+
+                if (dictionaryLength < plainLength) {
+                    dictionaries[column] = dictionary;
+                }
+            }
+
+            return new TableRowCodec(DatabaseFileFormat.FORMAT_VERSION,
+                                     tableColumnDescriptorList,
+                                     dictionaries,
+                                     layout,
+                                     null);
+        }
+    }
+}
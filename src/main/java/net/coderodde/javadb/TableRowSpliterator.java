@@ -0,0 +1,93 @@
+package net.coderodde.javadb;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * This class implements a spliterator over a range of rows of a table. It
+ * splits the range in halves, so that a parallel stream partitions the table
+ * into contiguous row ranges across the fork/join pool. The table must not be
+ * modified while a stream over it is running.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class TableRowSpliterator implements Spliterator<TableRow> {
+
+    /**
+     * The minimum number of rows in a split. Splitting smaller ranges costs
+     * more than scanning them.
+     */
+    static final int MINIMUM_SPLIT_SIZE = 1024;
+
+    /**
+     * The table to scan.
+     */
+    private final Table table;
+
+    /**
+     * The index of the next row to scan.
+     */
+    private int index;
+
+    /**
+     * One past the index of the last row to scan.
+     */
+    private final int fence;
+
+    TableRowSpliterator(Table table, int index, int fence) {
+        this.table = table;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super TableRow> action) {
+        if (index >= fence) {
+            return false;
+        }
+
+        action.accept(table.getTableRow(index++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super TableRow> action) {
+        for (; index < fence; ++index) {
+            action.accept(table.getTableRow(index));
+        }
+    }
+
+    /**
+     * Splits off the first half of the remaining rows. Since the halves are
+     * scanned concurrently, the rows of a lazily loaded table are decoded
+     * before the first split.
+     *
+     * @return the spliterator over the first half, or {@code null} if the
+     *         range is too small to split.
+     */
+    @Override
+    public Spliterator<TableRow> trySplit() {
+        int middle = (index + fence) >>> 1;
+
+        if (middle - index < MINIMUM_SPLIT_SIZE) {
+            return null;
+        }
+
+        table.loadAllTableRows();
+        Spliterator<TableRow> prefix =
+                new TableRowSpliterator(table, index, middle);
+        index = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
+}
@@ -0,0 +1,126 @@
+package net.coderodde.javadb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This class implements a projection of a table onto some of its columns, as
+ * returned by {@link Table#select(String...)}. The rows are chosen by
+ * {@link #where(TablePredicate)}, which evaluates the predicate directly
+ * against the storage of the table and copies out only the cells in the
+ * selected columns.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class TableSelection {
+
+    /**
+     * The minimum number of rows for which {@link #where(TablePredicate)}
+     * scans the table in parallel.
+     */
+    static final int PARALLEL_SCAN_THRESHOLD = 1 << 16;
+
+    /**
+     * The table to select from.
+     */
+    private final Table table;
+
+    /**
+     * The indices of the selected columns, in selection order.
+     */
+    private final int[] columnIndices;
+
+    TableSelection(Table table, int[] columnIndices) {
+        this.table = table;
+        this.columnIndices = columnIndices;
+    }
+
+    /**
+     * Returns the view of the selected columns over the rows satisfying the
+     * given predicate, in their natural order. If an index over a column the
+     * predicate restricts exists, only the rows it yields are tested.
+     * Otherwise, a large table is scanned in parallel in the common fork/join
+     * pool, each worker testing and projecting a contiguous range of rows. The
+     * rows of the view are detached copies, so later modifications of the
+     * table do not affect the view.
+     *
+     * @param tablePredicate the condition on the rows.
+     * @return the view of the matching rows.
+     *
+     * @throws IllegalArgumentException if the predicate refers to a column
+     *                                  not in the table or a value does not
+     *                                  match the type of its column.
+     */
+    public TableView where(TablePredicate tablePredicate) {
+        Objects.requireNonNull(tablePredicate, "The predicate is null.");
+        long stamp = table.lockForReading();
+
+        try {
+            return select(tablePredicate);
+        } finally {
+            table.unlockForReading(stamp);
+        }
+    }
+
+    private TableView select(TablePredicate tablePredicate) {
+        IntPredicate intPredicate = tablePredicate.bind(table);
+        int[] candidateRows = tablePredicate.findCandidateRows(table);
+        TableView tableView = new TableView(getTableColumnDescriptorList());
+
+        if (candidateRows != null) {
+            for (int row : candidateRows) {
+                if (intPredicate.test(row)) {
+                    tableView.addTableRow(createProjectedRow(row));
+                }
+            }
+        } else if (table.getNumberOfRows() >= PARALLEL_SCAN_THRESHOLD) {
+            // Decoding the rows of a lazily loaded table is not thread-safe:
+            table.loadAllTableRows();
+            IntStream.range(0, table.getNumberOfRows())
+                     .parallel()
+                     .filter(intPredicate)
+                     .mapToObj(this::createProjectedRow)
+                     .collect(Collectors.toList())
+                     .forEach(tableView::addTableRow);
+        } else {
+            for (int row = 0; row < table.getNumberOfRows(); ++row) {
+                if (intPredicate.test(row)) {
+                    tableView.addTableRow(createProjectedRow(row));
+                }
+            }
+        }
+
+        return tableView;
+    }
+
+    private List<TableColumnDescriptor> getTableColumnDescriptorList() {
+        List<TableColumnDescriptor> tableColumnDescriptorList =
+                new ArrayList<>(columnIndices.length);
+
+        for (int columnIndex : columnIndices) {
+            tableColumnDescriptorList.add(
+                    table.getTableColumnDescriptor(columnIndex));
+        }
+
+        return tableColumnDescriptorList;
+    }
+
+    private TableRow createProjectedRow(int row) {
+        TableRow tableRow = new TableRow(null);
+
+        for (int columnIndex : columnIndices) {
+            TableCell tableCell =
+                    new TableCell(table.getTableColumnDescriptor(columnIndex)
+                                       .getTableCellType());
+            tableCell.setValue(table.getCellValue(row, columnIndex));
+            tableRow.add(tableCell);
+        }
+
+        return tableRow;
+    }
+}
@@ -0,0 +1,432 @@
+package net.coderodde.javadb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class implements a frozen image of a table, taken in time proportional
+ * to the number of rows and serialized later, possibly by another thread, while
+ * the table keeps changing. The snapshot shares the rows and the column
+ * storages with the table. Before the table modifies a shared row for the
+ * first time, it hands a copy of the row to the snapshot, and before it
+ * modifies the shared column storages for the first time, it hands the
+ * snapshot copies of the storages. Thus, the snapshot never observes changes
+ * made after it was taken. The entries of the persistent tree indices of the
+ * table are copied when the snapshot is taken.
+ * <p>
+ * A table may have several snapshots at a time, which share the copies made
+ * after all of them were taken. The copies are garbage once every snapshot
+ * holding them is released.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class TableSnapshot {
+
+    /**
+     * The table this snapshot is taken of.
+     */
+    private final Table table;
+
+    /**
+     * The name of the table at the time of the snapshot.
+     */
+    private final String tableName;
+
+    /**
+     * The columns of the table at the time of the snapshot.
+     */
+    private final List<TableColumnDescriptor> tableColumnDescriptorList;
+
+    /**
+     * The number of rows at the time of the snapshot.
+     */
+    private final int numberOfRows;
+
+    /**
+     * Whether the table is columnar.
+     */
+    private final boolean columnar;
+
+    /**
+     * The codec compressing the data of the table, or {@code null}.
+     */
+    private final TableCompressionCodec tableCompressionCodec;
+
+    /**
+     * The rows of a row-oriented table. A {@code null} entry denotes a row not
+     * decoded from {@code lazyTableRowSource} yet.
+     */
+    private final TableRow[] tableRows;
+
+    /**
+     * The source of the rows not decoded yet, or {@code null}.
+     */
+    private final LazyTableRowSource lazyTableRowSource;
+
+    /**
+     * Maps the shared rows modified after the snapshot to their copies taken
+     * before the modification. Guarded by {@code this}.
+     */
+    private final Map<TableRow, TableRow> preimageMap =
+            new IdentityHashMap<>();
+
+    /**
+     * The column storages of a columnar table. Guarded by {@code this}.
+     */
+    private final TableColumnStorage[] tableColumnStorages;
+
+    /**
+     * The images of the persistent tree indices of the table.
+     */
+    private final List<TableTreeIndex.Image> treeIndexImageList;
+    
+    /**
+     * Whether {@code tableColumnStorages} hold private copies. Guarded by
+     * {@code this}.
+     */
+    private boolean tableColumnStoragesCopied;
+
+    TableSnapshot(Table table,
+                  List<TableRow> tableRowList,
+                  LazyTableRowSource lazyTableRowSource,
+                  List<TableColumnStorage> tableColumnStorageList,
+                  int numberOfRows) {
+        this.table = table;
+        this.tableName = table.getTableName();
+        this.numberOfRows = numberOfRows;
+        this.columnar = table.getStorageMode() == TableStorageMode.COLUMNAR;
+        this.tableCompressionCodec = table.getCompressionCodec();
+        this.lazyTableRowSource = lazyTableRowSource;
+        this.tableRows = tableRowList.toArray(new TableRow[0]);
+        this.tableColumnStorages =
+                tableColumnStorageList.toArray(new TableColumnStorage[0]);
+        this.treeIndexImageList = table.createTreeIndexImages();
+
+        List<TableColumnDescriptor> tableColumnDescriptorList =
+                new ArrayList<>(table.tableColumnDescriptorList.size());
+
+        for (TableColumnDescriptor tableColumnDescriptor
+                : table.tableColumnDescriptorList) {
+            tableColumnDescriptorList.add(
+                    new TableColumnDescriptor(
+                            tableColumnDescriptor.getTableColumnName(),
+                            tableColumnDescriptor.getTableCellType()));
+        }
+
+        this.tableColumnDescriptorList =
+                Collections.unmodifiableList(tableColumnDescriptorList);
+    }
+
+    String getTableName() {
+        return tableName;
+    }
+
+    int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    List<TableColumnDescriptor> getTableColumnDescriptorList() {
+        return tableColumnDescriptorList;
+    }
+
+    List<TableTreeIndex.Image> getTreeIndexImageList() {
+        return treeIndexImageList;
+    }
+
+    /**
+     * Called by the table before it modifies the given row.
+     *
+     * @param tableRow the row about to be modified.
+     */
+    void preserveTableRow(TableRow tableRow) {
+        preserveTableRow(tableRow, null);
+    }
+
+    /**
+     * Called by the table before it modifies the given row. The given copy of
+     * the row, made for another snapshot, is used if this snapshot needs one.
+     *
+     * @param tableRow the row about to be modified.
+     * @param preimage the current copy of the row, or {@code null}.
+     * @return the current copy of the row if one was made or given, or
+     *         {@code null}.
+     */
+    synchronized TableRow preserveTableRow(TableRow tableRow,
+                                           TableRow preimage) {
+        if (!preimageMap.containsKey(tableRow)) {
+            if (preimage == null) {
+                preimage = tableRow.copy();
+            }
+
+            preimageMap.put(tableRow, preimage);
+        }
+
+        return preimage;
+    }
+
+    /**
+     * Called by the table before it modifies its column storages.
+     */
+    void preserveTableColumnStorages() {
+        preserveTableColumnStorages(null);
+    }
+
+    /**
+     * Called by the table before it modifies its column storages. The given
+     * copies of the storages, made for another snapshot, are used if this
+     * snapshot needs them. Every snapshot not holding copies shares the
+     * current storages of the table, since any modification of them would
+     * have made the copies.
+     *
+     * @param copies the current copies of the storages, or {@code null}.
+     * @return the current copies of the storages if they were made or given,
+     *         or {@code null}.
+     */
+    synchronized TableColumnStorage[] preserveTableColumnStorages(
+            TableColumnStorage[] copies) {
+        if (tableColumnStoragesCopied) {
+            return copies;
+        }
+
+        if (copies == null) {
+            copies = new TableColumnStorage[tableColumnStorages.length];
+
+            for (int i = 0; i < copies.length; ++i) {
+                copies[i] = tableColumnStorages[i].copy();
+            }
+        }
+
+        System.arraycopy(copies, 0, tableColumnStorages, 0, copies.length);
+        tableColumnStoragesCopied = true;
+        return copies;
+    }
+
+    /**
+     * Called by the table before a modification that may affect all the
+     * shared rows, such as adding or removing a column.
+     */
+    synchronized void preserveAll() {
+        for (TableRow tableRow : tableRows) {
+            if (tableRow != null) {
+                preserveTableRow(tableRow);
+            }
+        }
+
+        preserveTableColumnStorages();
+    }
+
+    /**
+     * Detaches this snapshot from its table, so that the table stops
+     * preserving data for it.
+     */
+    void release() {
+        table.releaseTableSnapshot(this);
+    }
+
+    /**
+     * Returns a detached copy of the {@code row}th row as it was at the time
+     * of the snapshot.
+     *
+     * @param row the index of the row.
+     * @return the copy of the row.
+     */
+    synchronized TableRow copyTableRow(int row) {
+        if (columnar) {
+            TableRow tableRow = new TableRow(null);
+
+            for (TableColumnStorage tableColumnStorage
+                    : tableColumnStorages) {
+                TableCell tableCell =
+                        new TableCell(tableColumnStorage.getTableCellType());
+                tableCell.setValue(tableColumnStorage.get(row));
+                tableRow.add(tableCell);
+            }
+
+            return tableRow;
+        }
+
+        TableRow tableRow = getTableRow(row);
+
+        return tableRow == null ?
+                lazyTableRowSource.decodeTableRow(row) :
+                tableRow.copy();
+    }
+
+    /**
+     * Serializes the table as it was at the time of the snapshot. The layout
+     * and the codec of the rows are those of {@code Table.serialize}.
+     *
+     * @param bufferedChannelWriter the writer to write to.
+     * @throws IOException if writing fails.
+     */
+    void serialize(BufferedChannelWriter bufferedChannelWriter)
+            throws IOException {
+        TableRowCodec tableRowCodec = chooseTableRowCodec();
+        Table.serializeHeader(
+                bufferedChannelWriter.getBuffer(
+                        Table.getHeaderSerializationLength(
+                                tableName,
+                                tableColumnDescriptorList,
+                                tableRowCodec)),
+                tableName,
+                tableColumnDescriptorList,
+                numberOfRows,
+                tableRowCodec);
+
+        if (tableCompressionCodec == null) {
+            serializeData(bufferedChannelWriter, tableRowCodec);
+            return;
+        }
+
+        TableCompression.FrameWriter frameWriter =
+                new TableCompression.FrameWriter(tableCompressionCodec,
+                                                 bufferedChannelWriter);
+        serializeData(frameWriter, tableRowCodec);
+        frameWriter.finish();
+    }
+
+    /**
+     * Writes the uncompressed data of the table block one row or one column
+     * block at a time.
+     */
+    private void serializeData(TableBlockWriter tableBlockWriter,
+                               TableRowCodec tableRowCodec)
+            throws IOException {
+        if (columnar) {
+            encodeColumns(tableBlockWriter, tableRowCodec);
+            return;
+        }
+
+        for (int row = 0; row < numberOfRows; ++row) {
+            // Holding the lock keeps the table from modifying the row while
+            // it is being serialized:
+            synchronized (this) {
+                serializeRow(tableBlockWriter.getBuffer(
+                        getRowSerializationLength(tableRowCodec, row)),
+                        tableRowCodec,
+                        row);
+            }
+        }
+    }
+
+    /**
+     * Chooses the codec of the rows as {@code Table.createTableRowCodec}
+     * does for the table as it was at the time of the snapshot.
+     */
+    private TableRowCodec chooseTableRowCodec() {
+        if (lazyTableRowSource != null
+                && lazyTableRowSource.getTableRowCodec().isCurrent()) {
+            return lazyTableRowSource.getTableRowCodec()
+                                     .withTableCompressionCodec(
+                                             tableCompressionCodec);
+        }
+
+        TableRowCodec.Builder builder =
+                new TableRowCodec.Builder(tableColumnDescriptorList,
+                                          columnar ?
+                                          TableRowCodec.COLUMN_LAYOUT :
+                                          TableRowCodec.ROW_LAYOUT);
+
+        if (builder.getStringColumns().length > 0) {
+            for (int row = 0; row < numberOfRows; ++row) {
+                synchronized (this) {
+                    if (columnar) {
+                        for (int column : builder.getStringColumns()) {
+                            builder.add(column,
+                                        tableColumnStorages[column].get(row));
+                        }
+
+                        continue;
+                    }
+
+                    TableRow tableRow = getTableRow(row);
+                    builder.addTableRow(tableRow != null ?
+                            tableRow :
+                            lazyTableRowSource.decodeTableRow(row));
+                }
+            }
+        }
+
+        return builder.build()
+                      .withTableCompressionCodec(tableCompressionCodec);
+    }
+
+    /**
+     * Encodes the columns of a columnar table as {@code TableColumnCodec}
+     * does, locking one block at a time and writing each block as soon as it
+     * is encoded.
+     */
+    private void encodeColumns(TableBlockWriter tableBlockWriter,
+                               TableRowCodec tableRowCodec)
+            throws IOException {
+        for (int column = 0; column < tableColumnStorages.length; ++column) {
+            TableColumnCodec.Encoder encoder =
+                    new TableColumnCodec.Encoder(tableRowCodec, column);
+
+            for (int from = 0;
+                    from < numberOfRows;
+                    from += TableColumnCodec.BLOCK_SIZE) {
+                synchronized (this) {
+                    encoder.encodeBlock(
+                            tableColumnStorages[column],
+                            from,
+                            Math.min(from + TableColumnCodec.BLOCK_SIZE,
+                                     numberOfRows));
+                }
+
+                encoder.writeTo(tableBlockWriter);
+            }
+        }
+    }
+
+    private int getRowSerializationLength(TableRowCodec tableRowCodec,
+                                          int row) {
+        TableRow tableRow = getTableRow(row);
+
+        if (tableRow == null) {
+            if (lazyTableRowSource.getTableRowCodec()
+                                  .encodesRowsAs(tableRowCodec)) {
+                return lazyTableRowSource.getRowSerializationLength(row);
+            }
+
+            tableRow = lazyTableRowSource.decodeTableRow(row);
+        }
+
+        return tableRowCodec.getTableRowSerializationLength(tableRow);
+    }
+
+    private void serializeRow(ByteBuffer byteBuffer,
+                              TableRowCodec tableRowCodec,
+                              int row) {
+        TableRow tableRow = getTableRow(row);
+
+        if (tableRow == null) {
+            if (lazyTableRowSource.getTableRowCodec()
+                                  .encodesRowsAs(tableRowCodec)) {
+                lazyTableRowSource.copyTableRow(byteBuffer, row);
+                return;
+            }
+
+            tableRow = lazyTableRowSource.decodeTableRow(row);
+        }
+
+        tableRowCodec.serializeTableRow(byteBuffer, tableRow);
+    }
+
+    private TableRow getTableRow(int row) {
+        TableRow tableRow = tableRows[row];
+
+        if (tableRow == null) {
+            return null;
+        }
+
+        TableRow preimage = preimageMap.get(tableRow);
+        return preimage != null ? preimage : tableRow;
+    }
+}
@@ -0,0 +1,340 @@
+package net.coderodde.javadb;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * This class implements the external merge sort of the rows of a table. The
+ * rows are copied into runs whose serialized size is bounded by a memory
+ * budget. Each full run is sorted and spilled to a temporary file in the
+ * {@link TableRow#serialize(ByteBuffer)} encoding, and the runs are finally
+ * merged with a priority queue holding the head row of each run. The sort is
+ * stable: rows with equal keys retain their natural order.
+ * <p>
+ * The rows are ordered by their cells in the sort columns, with nulls first
+ * and the other values in the order of the tree indices.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class TableSorter implements Iterator<TableRow>, Closeable {
+
+    /**
+     * The default bound on the serialized size of the rows held in memory.
+     */
+    static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+
+    /**
+     * The capacity of the buffers used for writing and reading a run.
+     */
+    private static final int RUN_BUFFER_CAPACITY = 1 << 16;
+
+    /**
+     * The number of cells in each row.
+     */
+    private final int numberOfCells;
+
+    /**
+     * The order of the rows.
+     */
+    private final Comparator<TableRow> comparator;
+
+    /**
+     * The temporary files of the spilled runs.
+     */
+    private final List<File> runFileList = new ArrayList<>();
+
+    /**
+     * The runs ordered by their head rows.
+     */
+    private final PriorityQueue<Run> runQueue;
+
+    /**
+     * Sorts the rows of the given table that pass the given filter.
+     *
+     * @param table         the table to sort.
+     * @param columnIndices the indices of the sort columns, most significant
+     *                      first.
+     * @param memoryBudget  the bound on the serialized size of a run.
+     * @param rowFilter     the filter of the rows, or {@code null}.
+     *
+     * @throws IllegalArgumentException if a sort column is binary or the
+     *                                  budget is not positive.
+     * @throws RuntimeException         if spilling a run fails.
+     */
+    TableSorter(Table table,
+                int[] columnIndices,
+                long memoryBudget,
+                IntPredicate rowFilter) {
+        if (memoryBudget <= 0L) {
+            throw new IllegalArgumentException(
+                    "The memory budget must be positive: " + memoryBudget +
+                    ".");
+        }
+
+        for (int columnIndex : columnIndices) {
+            if (table.getTableColumnDescriptor(columnIndex).getTableCellType()
+                    == TableCellType.TYPE_BINARY) {
+                throw new IllegalArgumentException(
+                        "Binary columns have no natural order.");
+            }
+        }
+
+        this.numberOfCells = table.tableColumnDescriptorList.size();
+        this.comparator = createComparator(columnIndices);
+        this.runQueue = new PriorityQueue<>(
+                (run1, run2) -> {
+                    int cmp = comparator.compare(run1.head, run2.head);
+                    return cmp != 0 ?
+                            cmp :
+                            Integer.compare(run1.runIndex, run2.runIndex);
+                });
+
+        List<TableRow> tableRowList = new ArrayList<>();
+        long runSize = 0L;
+
+        try {
+            for (int row = 0; row < table.getNumberOfRows(); ++row) {
+                if (rowFilter != null && !rowFilter.test(row)) {
+                    continue;
+                }
+
+                TableRow tableRow = table.getTableRow(row).copy();
+                tableRowList.add(tableRow);
+                runSize += tableRow.getSerializationLength();
+
+                if (runSize >= memoryBudget) {
+                    tableRowList.sort(comparator);
+                    spill(tableRowList);
+                    tableRowList.clear();
+                    runSize = 0L;
+                }
+            }
+
+            tableRowList.sort(comparator);
+            addRun(new Run(runFileList.size(), tableRowList.iterator()));
+        } catch (IOException ex) {
+            close();
+            throw new RuntimeException("Spilling a sorted run failed.", ex);
+        } catch (RuntimeException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the comparator ordering rows by the given columns, nulls first.
+     *
+     * @param columnIndices the indices of the sort columns.
+     * @return the row comparator.
+     */
+    @SuppressWarnings("unchecked")
+    static Comparator<TableRow> createComparator(int[] columnIndices) {
+        return (tableRow1, tableRow2) -> {
+            for (int columnIndex : columnIndices) {
+                Object value1 = tableRow1.get(columnIndex).getValue();
+                Object value2 = tableRow2.get(columnIndex).getValue();
+                int cmp;
+
+                if (value1 == null || value2 == null) {
+                    cmp = Boolean.compare(value1 != null, value2 != null);
+                } else {
+                    cmp = ((Comparable<Object>) value1).compareTo(value2);
+                }
+
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+
+            return 0;
+        };
+    }
+
+    /**
+     * Returns the number of runs spilled to disk.
+     *
+     * @return the number of spilled runs.
+     */
+    int getNumberOfSpilledRuns() {
+        return runFileList.size();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !runQueue.isEmpty();
+    }
+
+    @Override
+    public TableRow next() {
+        Run run = runQueue.poll();
+
+        if (run == null) {
+            throw new NoSuchElementException("No more rows to iterate.");
+        }
+
+        TableRow tableRow = run.head;
+
+        try {
+            addRun(run);
+        } catch (IOException ex) {
+            close();
+            throw new RuntimeException("Reading a sorted run failed.", ex);
+        }
+
+        return tableRow;
+    }
+
+    /**
+     * Deletes the temporary files of the spilled runs.
+     */
+    @Override
+    public void close() {
+        for (Run run : runQueue) {
+            run.close();
+        }
+
+        runQueue.clear();
+
+        for (File runFile : runFileList) {
+            runFile.delete();
+        }
+    }
+
+    /**
+     * Advances the given run and puts it back into the queue unless it is
+     * exhausted.
+     */
+    private void addRun(Run run) throws IOException {
+        if (run.advance()) {
+            runQueue.add(run);
+        } else {
+            run.close();
+        }
+    }
+
+    private void spill(List<TableRow> tableRowList) throws IOException {
+        File runFile = File.createTempFile("javadb-sort-", ".run");
+        runFileList.add(runFile);
+
+        try (FileChannel fileChannel =
+                    FileChannel.open(runFile.toPath(),
+                                     StandardOpenOption.WRITE);
+             BufferedChannelWriter writer =
+                    new BufferedChannelWriter(fileChannel,
+                                              RUN_BUFFER_CAPACITY)) {
+            for (TableRow tableRow : tableRowList) {
+                int length = tableRow.getSerializationLength();
+                ByteBuffer byteBuffer = writer.getBuffer(Integer.BYTES + length);
+                byteBuffer.putInt(length);
+                tableRow.serialize(byteBuffer);
+            }
+        }
+
+        addRun(new Run(runFileList.size() - 1, runFile));
+    }
+
+    /**
+     * A sorted run, either held in memory or spilled to a file. Each spilled
+     * row is preceded by its length.
+     */
+    private final class Run {
+
+        final int runIndex;
+        TableRow head;
+        private Iterator<TableRow> iterator;
+        private FileChannel fileChannel;
+        private ByteBuffer byteBuffer;
+
+        Run(int runIndex, Iterator<TableRow> iterator) {
+            this.runIndex = runIndex;
+            this.iterator = iterator;
+        }
+
+        Run(int runIndex, File runFile) throws IOException {
+            this.runIndex = runIndex;
+            this.fileChannel = FileChannel.open(runFile.toPath(),
+                                                StandardOpenOption.READ);
+            this.byteBuffer = ByteBuffer.allocate(RUN_BUFFER_CAPACITY)
+                                        .order(ByteOrder.LITTLE_ENDIAN);
+            this.byteBuffer.limit(0);
+        }
+
+        /**
+         * Loads the next row of this run into {@code head}.
+         *
+         * @return {@code false} if this run is exhausted.
+         */
+        boolean advance() throws IOException {
+            if (iterator != null) {
+                head = iterator.hasNext() ? iterator.next() : null;
+                return head != null;
+            }
+
+            if (!fill(Integer.BYTES)) {
+                head = null;
+                return false;
+            }
+
+            int length = byteBuffer.getInt();
+
+            if (!fill(length)) {
+                throw new BadDataFormatException(
+                        "A sorted run ends in the middle of a row.");
+            }
+
+            head = TableRow.deserialize(byteBuffer, numberOfCells);
+            return true;
+        }
+
+        /**
+         * Makes sure at least {@code length} bytes are buffered.
+         *
+         * @return {@code false} if the run ends before.
+         */
+        private boolean fill(int length) throws IOException {
+            if (byteBuffer.remaining() >= length) {
+                return true;
+            }
+
+            if (length > byteBuffer.capacity()) {
+                byteBuffer = ByteBuffer.allocate(length)
+                                       .order(ByteOrder.LITTLE_ENDIAN)
+                                       .put(byteBuffer);
+            } else {
+                byteBuffer.compact();
+            }
+
+            while (byteBuffer.position() < length) {
+                if (fileChannel.read(byteBuffer) < 0) {
+                    break;
+                }
+            }
+
+            byteBuffer.flip();
+            return byteBuffer.remaining() >= length;
+        }
+
+        void close() {
+            if (fileChannel != null) {
+                try {
+                    fileChannel.close();
+                } catch (IOException ex) {
+                    // The run has been read, the file is deleted next.
+                }
+            }
+        }
+    }
+}
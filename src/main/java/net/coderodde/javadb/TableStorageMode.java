@@ -0,0 +1,22 @@
+package net.coderodde.javadb;
+
+/**
+ * This enumeration communicates how a table lays out its data in main memory.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public enum TableStorageMode {
+
+    /**
+     * Each row is a {@link TableRow} object holding a list of
+     * {@link TableCell} objects, each of which holds a boxed value.
+     */
+    ROW_ORIENTED,
+
+    /**
+     * Each column is backed by a primitive array and a null bitmap. Table rows
+     * and table cells are lightweight views over a row index.
+     */
+    COLUMNAR;
+}
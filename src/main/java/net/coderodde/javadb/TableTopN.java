@@ -0,0 +1,246 @@
+package net.coderodde.javadb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * This class implements the selection of the first rows of a table in the
+ * order of some of its columns, that is, {@code ORDER BY ... LIMIT n}. The
+ * selected rows are kept in a bounded binary heap of row indices whose root
+ * is the worst selected row, so that a row better than the root replaces it.
+ * Thus, the memory taken is proportional to the limit rather than to the
+ * number of rows. A large table is scanned in parallel: each fork/join worker
+ * fills a heap of its own, and the heaps are merged.
+ * <p>
+ * A single sort column having a tree index is not scanned at all: the rows
+ * are read from the end of the index, as long as no null cells would be
+ * selected.
+ * <p>
+ * The rows are ordered as by {@link Table#orderBy(String...)}: null cells
+ * precede the other values, and the rows holding equal values are listed in
+ * their natural order. In the descending order, the values are reversed but
+ * the rows holding equal values are still listed in their natural order.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class TableTopN {
+
+    /**
+     * The table whose rows are selected.
+     */
+    private final Table table;
+
+    /**
+     * The indices of the sort columns, most significant first.
+     */
+    private final int[] columnIndices;
+
+    /**
+     * Whether the values are in descending order.
+     */
+    private final boolean descending;
+
+    TableTopN(Table table, int[] columnIndices, boolean descending) {
+        for (int columnIndex : columnIndices) {
+            if (table.getTableColumnDescriptor(columnIndex).getTableCellType()
+                    == TableCellType.TYPE_BINARY) {
+                throw new IllegalArgumentException(
+                        "Binary columns have no natural order.");
+            }
+        }
+
+        this.table = table;
+        this.columnIndices = columnIndices;
+        this.descending = descending;
+    }
+
+    /**
+     * Returns the view of the first {@code limit} rows in the sort order.
+     *
+     * @param limit the maximum number of rows.
+     * @return the view of the detached copies of the rows.
+     *
+     * @throws IllegalArgumentException if the limit is negative.
+     */
+    TableView select(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException(
+                    "The limit is negative: " + limit + ".");
+        }
+
+        limit = Math.min(limit, table.getNumberOfRows());
+        int[] rows = findIndexedRows(limit);
+
+        if (rows == null) {
+            rows = findRows(limit);
+        }
+
+        TableView tableView =
+                new TableView(new ArrayList<>(table.tableColumnDescriptorList));
+
+        for (int row : rows) {
+            tableView.addTableRow(table.getTableRow(row).copy());
+        }
+
+        return tableView;
+    }
+
+    /**
+     * Returns the selected rows read from a tree index, or {@code null} if
+     * no index applies.
+     */
+    private int[] findIndexedRows(int limit) {
+        if (columnIndices.length != 1) {
+            return null;
+        }
+
+        TableTreeIndex tableTreeIndex =
+                table.getTableTreeIndex(columnIndices[0]);
+
+        if (tableTreeIndex == null) {
+            return null;
+        }
+
+        // The null cells are not indexed. They come last in the descending
+        // order, but first in the ascending order:
+        if (descending ?
+                tableTreeIndex.size() < limit :
+                tableTreeIndex.size() < table.getNumberOfRows()) {
+            return null;
+        }
+
+        return tableTreeIndex.scanEnd(limit, descending);
+    }
+
+    private int[] findRows(int limit) {
+        IntStream rows = IntStream.range(0, table.getNumberOfRows());
+        RowHeap rowHeap;
+
+        if (table.getNumberOfRows() >= TableSelection.PARALLEL_SCAN_THRESHOLD) {
+            // Decoding the rows of a lazily loaded table is not thread-safe:
+            table.loadAllTableRows();
+            rowHeap = rows.parallel().collect(() -> new RowHeap(limit),
+                                              RowHeap::offer,
+                                              RowHeap::merge);
+        } else {
+            rowHeap = new RowHeap(limit);
+            rows.forEach(rowHeap::offer);
+        }
+
+        return rowHeap.toSortedArray();
+    }
+
+    /**
+     * Compares two rows in the sort order.
+     */
+    private int compare(int row1, int row2) {
+        for (int columnIndex : columnIndices) {
+            Comparable<Object> value1 =
+                    table.getComparableCellValue(row1, columnIndex);
+            Object value2 = table.getCellValue(row2, columnIndex);
+            int cmp;
+
+            if (value1 == null || value2 == null) {
+                cmp = Boolean.compare(value1 != null, value2 != null);
+            } else {
+                cmp = value1.compareTo(value2);
+            }
+
+            if (cmp != 0) {
+                return descending ? -cmp : cmp;
+            }
+        }
+
+        return Integer.compare(row1, row2);
+    }
+
+    /**
+     * A binary heap of at most {@code capacity} row indices whose root is the
+     * row latest in the sort order.
+     */
+    private final class RowHeap {
+
+        private final int[] rows;
+        private int size;
+
+        RowHeap(int capacity) {
+            this.rows = new int[capacity];
+        }
+
+        /**
+         * Adds the given row if the heap is not full or the row precedes the
+         * root, which is then evicted.
+         */
+        void offer(int row) {
+            if (size < rows.length) {
+                rows[size] = row;
+                siftUp(size++);
+            } else if (size > 0 && compare(row, rows[0]) < 0) {
+                rows[0] = row;
+                siftDown(0, size);
+            }
+        }
+
+        void merge(RowHeap other) {
+            for (int i = 0; i < other.size; ++i) {
+                offer(other.rows[i]);
+            }
+        }
+
+        /**
+         * Sorts the rows in place by repeatedly moving the root past the end
+         * of the heap, and returns them.
+         */
+        int[] toSortedArray() {
+            for (int end = size - 1; end > 0; --end) {
+                int tmp = rows[0];
+                rows[0] = rows[end];
+                rows[end] = tmp;
+                siftDown(0, end);
+            }
+
+            return Arrays.copyOf(rows, size);
+        }
+
+        private void siftUp(int index) {
+            int row = rows[index];
+
+            while (index > 0) {
+                int parentIndex = (index - 1) >>> 1;
+
+                if (compare(rows[parentIndex], row) >= 0) {
+                    break;
+                }
+
+                rows[index] = rows[parentIndex];
+                index = parentIndex;
+            }
+
+            rows[index] = row;
+        }
+
+        private void siftDown(int index, int size) {
+            int row = rows[index];
+
+            while (2 * index + 1 < size) {
+                int childIndex = 2 * index + 1;
+
+                if (childIndex + 1 < size
+                        && compare(rows[childIndex + 1], rows[childIndex]) > 0) {
+                    ++childIndex;
+                }
+
+                if (compare(row, rows[childIndex]) >= 0) {
+                    break;
+                }
+
+                rows[index] = rows[childIndex];
+                index = childIndex;
+            }
+
+            rows[index] = row;
+        }
+    }
+}
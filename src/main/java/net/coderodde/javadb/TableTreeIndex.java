@@ -0,0 +1,1020 @@
+package net.coderodde.javadb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class implements an ordered index over a single table column as a
+ * B+-tree. The tree holds one entry per indexed row: the non-null value of the
+ * cell paired with the row index. The entries are sorted by the value and then
+ * by the row index, so that the rows holding equal values are listed in their
+ * natural order. The leaves are linked, which lets range scans and ordered
+ * iteration proceed leaf by leaf, and the minimum and the maximum are found by
+ * descending the leftmost and the rightmost paths of the tree.
+ * <p>
+ * The values of the numeric and boolean columns are stored as primitive
+ * {@code long}s whose signed order is the natural order of the values, and
+ * strings are stored as they are. Binary columns have no natural order and
+ * cannot be indexed.
+ * <p>
+ * A composite index over several columns stores the keys as arrays of cell
+ * values, which are ordered lexicographically with nulls first. Thus, the
+ * rows sharing the values of a prefix of the columns form a contiguous run of
+ * entries, ordered by the next column, and are found by a single scan.
+ * <p>
+ * Nodes emptied by removals are unlinked from the tree, but underfull nodes
+ * are not merged with their siblings. Thus, the height of the tree is
+ * logarithmic in the largest number of entries the tree has ever held.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class TableTreeIndex extends TableIndex {
+
+    /**
+     * The maximum number of entries in a leaf and the maximum number of
+     * separators in an internal node.
+     */
+    static final int NODE_CAPACITY = 64;
+
+    /**
+     * Number of bytes used to encode a size count.
+     */
+    private static final int SIZE_BYTES = 4;
+
+    /**
+     * The composite key components bounding scans. {@code LOWEST} precedes
+     * and {@code HIGHEST} follows all the values, and {@code ABOVE_NULL}
+     * follows null but precedes all the non-null values.
+     */
+    private static final Object LOWEST = new Object();
+    private static final Object ABOVE_NULL = new Object();
+    private static final Object HIGHEST = new Object();
+
+    /**
+     * The type of the indexed column, or {@code null} for a composite index.
+     */
+    private final TableCellType tableCellType;
+
+    /**
+     * The order of the keys that are not stored as primitives.
+     */
+    private final Comparator<Object> comparator;
+
+    /**
+     * Whether the keys are stored as primitive {@code long}s.
+     */
+    private final boolean primitive;
+
+    /**
+     * Whether this index is saved along with its table.
+     */
+    private final boolean persistent;
+
+    /**
+     * The root node of the tree.
+     */
+    private Node root;
+
+    /**
+     * The number of entries in the tree.
+     */
+    private int size;
+
+    /**
+     * The separator handed to the parent by the latest node split.
+     */
+    private long splitKey;
+    private Object splitObjectKey;
+    private int splitRow;
+
+    TableTreeIndex(TableCellType tableCellType,
+                   int columnIndex,
+                   boolean persistent) {
+        super(columnIndex);
+        this.tableCellType = checkOrderable(tableCellType);
+        this.primitive = tableCellType != TableCellType.TYPE_STRING;
+        this.comparator = TableTreeIndex::compareComponents;
+        this.persistent = persistent;
+        this.root = new Node(true, primitive);
+    }
+
+    /**
+     * Constructs a composite index over the given columns.
+     *
+     * @param tableCellTypes the types of the columns.
+     * @param columnIndices  the indices of the columns, in key order.
+     */
+    TableTreeIndex(TableCellType[] tableCellTypes, int[] columnIndices) {
+        super(columnIndices);
+
+        for (TableCellType tableCellType : tableCellTypes) {
+            checkOrderable(tableCellType);
+        }
+
+        this.tableCellType = null;
+        this.primitive = false;
+        this.comparator = TableTreeIndex::compareKeys;
+        this.persistent = false;
+        this.root = new Node(true, false);
+    }
+
+    /**
+     * Returns {@code true} if this index is saved along with its table.
+     *
+     * @return {@code true} if persistent.
+     */
+    boolean isPersistent() {
+        return persistent;
+    }
+
+    /**
+     * Returns the number of entries in this index.
+     *
+     * @return the number of indexed rows.
+     */
+    int size() {
+        return size;
+    }
+
+    @Override
+    void add(Object value, int row) {
+        long key = primitive ? toKey(value) : 0L;
+        Object objectKey = primitive ? null : value;
+        Node right = insert(root, key, objectKey, row);
+
+        if (right != null) {
+            Node newRoot = new Node(false, primitive);
+            newRoot.setEntry(0, splitKey, splitObjectKey, splitRow);
+            newRoot.children[0] = root;
+            newRoot.children[1] = right;
+            newRoot.size = 1;
+            root = newRoot;
+        }
+
+        ++size;
+    }
+
+    @Override
+    void remove(Object value, int row) {
+        long key = primitive ? toKey(value) : 0L;
+        Object objectKey = primitive ? null : value;
+
+        if (remove(root, key, objectKey, row)) {
+            root = new Node(true, primitive);
+        }
+
+        while (!root.leaf && root.size == 0) {
+            root = root.children[0];
+        }
+
+        --size;
+    }
+
+    @Override
+    void shiftRows(int fromRow, int delta) {
+        shiftRows(root, fromRow, delta);
+    }
+
+    /**
+     * Returns the smallest indexed value, or {@code null} if the index is
+     * empty. Runs in time logarithmic in the size of the index.
+     *
+     * @return the minimum value.
+     */
+    Object getMinimumValue() {
+        if (size == 0) {
+            return null;
+        }
+
+        Node node = root;
+
+        while (!node.leaf) {
+            node = node.children[0];
+        }
+
+        return getValue(node, 0);
+    }
+
+    /**
+     * Returns the largest indexed value, or {@code null} if the index is
+     * empty. Runs in time logarithmic in the size of the index.
+     *
+     * @return the maximum value.
+     */
+    Object getMaximumValue() {
+        if (size == 0) {
+            return null;
+        }
+
+        Node node = root;
+
+        while (!node.leaf) {
+            node = node.children[node.size];
+        }
+
+        return getValue(node, node.size - 1);
+    }
+
+    /**
+     * Returns the indices of the rows whose values are within the given
+     * bounds, ordered by the value and then by the row index.
+     *
+     * @param low  the inclusive lower bound, or {@code null} for no bound.
+     * @param high the inclusive upper bound, or {@code null} for no bound.
+     * @return the row indices.
+     */
+    int[] scan(Object low, Object high) {
+        Node node = root;
+        int position = 0;
+
+        if (low == null) {
+            while (!node.leaf) {
+                node = node.children[0];
+            }
+        } else {
+            long key = primitive ? toKey(low) : 0L;
+            Object objectKey = primitive ? null : low;
+
+            while (!node.leaf) {
+                node = node.children[upperBound(node,
+                                                key,
+                                                objectKey,
+                                                Integer.MIN_VALUE)];
+            }
+
+            position = lowerBound(node, key, objectKey, Integer.MIN_VALUE);
+        }
+
+        long highKey = high != null && primitive ? toKey(high) : 0L;
+        int[] rows = new int[16];
+        int count = 0;
+
+        for (; node != null; node = node.next, position = 0) {
+            for (; position < node.size; ++position) {
+                if (high != null && compare(node, position, highKey, high) > 0) {
+                    return Arrays.copyOf(rows, count);
+                }
+
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, 2 * count);
+                }
+
+                rows[count++] = node.rows[position];
+            }
+        }
+
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Returns the indices of the rows holding the {@code limit} smallest
+     * entries, ordered as by {@link #scan(Object, Object)}, or the rows
+     * holding the {@code limit} largest entries, ordered by the value in
+     * descending order and then by the row index. Runs in time proportional
+     * to the height of the tree plus the number of entries returned and the
+     * number of entries sharing the value of the last one.
+     *
+     * @param limit      the maximum number of rows to return.
+     * @param descending whether to return the largest entries.
+     * @return the row indices.
+     */
+    int[] scanEnd(int limit, boolean descending) {
+        Node node = root;
+
+        while (!node.leaf) {
+            node = node.children[descending ? node.size : 0];
+        }
+
+        int[] rows = new int[Math.min(limit, size)];
+        int count = 0;
+
+        if (rows.length == 0) {
+            return rows;
+        }
+
+        if (!descending) {
+            for (; node != null && count < rows.length; node = node.next) {
+                int length = Math.min(node.size, rows.length - count);
+                System.arraycopy(node.rows, 0, rows, count, length);
+                count += length;
+            }
+
+            return rows;
+        }
+
+        // The entries are visited backwards, so each run of equal values is
+        // reversed to list its rows in their natural order:
+        int runStart = 0;
+        long lastKey = 0L;
+        Object lastObjectKey = null;
+
+        for (; node != null; node = node.previous) {
+            for (int position = node.size - 1; position >= 0; --position) {
+                if (count > 0 && compare(node,
+                                         position,
+                                         lastKey,
+                                         lastObjectKey) != 0) {
+                    reverse(rows, runStart, count);
+
+                    if (count >= limit) {
+                        return Arrays.copyOf(rows, limit);
+                    }
+
+                    runStart = count;
+                }
+
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, 2 * count);
+                }
+
+                rows[count++] = node.rows[position];
+
+                if (primitive) {
+                    lastKey = node.keys[position];
+                } else {
+                    lastObjectKey = node.objectKeys[position];
+                }
+            }
+        }
+
+        reverse(rows, runStart, count);
+        return Arrays.copyOf(rows, Math.min(limit, count));
+    }
+
+    /**
+     * Returns the indices of the rows of a composite index whose key begins
+     * with {@code prefix}, ordered by the key and then by the row index. If
+     * {@code ranged} is set, the key component following the prefix must also
+     * be non-null and lie within the given bounds.
+     *
+     * @param prefix the values of the leading key components.
+     * @param ranged whether to restrict the component after the prefix.
+     * @param low    the inclusive lower bound, or {@code null} for no bound.
+     * @param high   the inclusive upper bound, or {@code null} for no bound.
+     * @return the row indices.
+     */
+    int[] scanPrefix(Object[] prefix, boolean ranged, Object low, Object high) {
+        Object[] lowKey = new Object[columnIndices.length];
+        Object[] highKey = new Object[columnIndices.length];
+        System.arraycopy(prefix, 0, lowKey, 0, prefix.length);
+        System.arraycopy(prefix, 0, highKey, 0, prefix.length);
+        int component = prefix.length;
+
+        if (ranged) {
+            lowKey[component] = low != null ? low : ABOVE_NULL;
+            highKey[component] = high != null ? high : HIGHEST;
+            ++component;
+        }
+
+        Arrays.fill(lowKey, component, lowKey.length, LOWEST);
+        Arrays.fill(highKey, component, highKey.length, HIGHEST);
+        return scan(lowKey, highKey);
+    }
+
+    /**
+     * Captures the entries of this index in order, so that they may be
+     * serialized later while this index keeps changing.
+     *
+     * @return the image of this index.
+     */
+    Image createImage() {
+        Image image = new Image(this);
+        int index = 0;
+        Node node = root;
+
+        while (!node.leaf) {
+            node = node.children[0];
+        }
+
+        for (; node != null; node = node.next) {
+            if (primitive) {
+                System.arraycopy(node.keys, 0, image.keys, index, node.size);
+            } else {
+                System.arraycopy(node.objectKeys, 0,
+                                 image.objectKeys, index,
+                                 node.size);
+            }
+
+            System.arraycopy(node.rows, 0, image.rows, index, node.size);
+            index += node.size;
+        }
+
+        return image;
+    }
+
+    /**
+     * Deserializes a persistent index written by
+     * {@link Image#serialize(BufferedChannelWriter)}. The tree is built
+     * bottom-up from the sorted entries, in linear time.
+     *
+     * @param byteBuffer    the buffer holding the index block.
+     * @param tableCellType the type of the indexed column.
+     * @param columnIndex   the index of the indexed column.
+     * @param numberOfRows  the number of rows in the table.
+     * @param formatVersion the format version of the index block. Up to
+     *                      version 4, the string keys take two bytes per
+     *                      character.
+     * @return the index.
+     */
+    static TableTreeIndex deserialize(ByteBuffer byteBuffer,
+                                      TableCellType tableCellType,
+                                      int columnIndex,
+                                      int numberOfRows,
+                                      int formatVersion) {
+        TableTreeIndex tableTreeIndex =
+                new TableTreeIndex(tableCellType, columnIndex, true);
+        boolean primitive = tableTreeIndex.primitive;
+        int count = byteBuffer.getInt();
+
+        if (count < 0 || count > numberOfRows) {
+            throw new BadDataFormatException(
+                    "Invalid number of index entries: " + count + ".");
+        }
+
+        long[] keys = primitive ? new long[count] : null;
+        Object[] objectKeys = primitive ? null : new Object[count];
+        int[] rows = new int[count];
+
+        for (int i = 0; i < count; ++i) {
+            if (primitive) {
+                keys[i] = byteBuffer.getLong();
+            } else if (formatVersion >= 5) {
+                objectKeys[i] = Utf8.deserialize(byteBuffer);
+            } else {
+                int stringLength = byteBuffer.getInt();
+                StringBuilder sb = new StringBuilder(stringLength);
+
+                for (int j = 0; j < stringLength; ++j) {
+                    sb.append(byteBuffer.getChar());
+                }
+
+                objectKeys[i] = sb.toString();
+            }
+
+            rows[i] = byteBuffer.getInt();
+
+            if (rows[i] < 0 || rows[i] >= numberOfRows) {
+                throw new BadDataFormatException(
+                        "Invalid row index in an index entry: " + rows[i] +
+                        ".");
+            }
+
+            if (i > 0 && tableTreeIndex.compareEntries(keys, objectKeys,
+                                                       rows, i - 1, i) >= 0) {
+                throw new BadDataFormatException(
+                        "The index entries are not sorted.");
+            }
+        }
+
+        tableTreeIndex.bulkLoad(keys, objectKeys, rows, count);
+        return tableTreeIndex;
+    }
+
+    private static TableCellType checkOrderable(TableCellType tableCellType) {
+        Objects.requireNonNull(tableCellType, "Table cell type is null.");
+
+        if (tableCellType == TableCellType.TYPE_BINARY) {
+            throw new IllegalArgumentException(
+                    "Binary columns have no natural order.");
+        }
+
+        return tableCellType;
+    }
+
+    private Node insert(Node node, long key, Object objectKey, int row) {
+        if (node.leaf) {
+            int position = lowerBound(node, key, objectKey, row);
+
+            if (position < node.size
+                    && compareEntry(node, position, key, objectKey, row) == 0) {
+                throw new IllegalStateException(
+                        "Row " + row + " is already indexed under the value.");
+            }
+
+            node.insertEntry(position, key, objectKey, row);
+            return node.size > NODE_CAPACITY ? splitLeaf(node) : null;
+        }
+
+        int childIndex = upperBound(node, key, objectKey, row);
+        Node right = insert(node.children[childIndex], key, objectKey, row);
+
+        if (right == null) {
+            return null;
+        }
+
+        node.insertEntry(childIndex, splitKey, splitObjectKey, splitRow);
+        System.arraycopy(node.children, childIndex + 1,
+                         node.children, childIndex + 2,
+                         node.size - childIndex - 1);
+        node.children[childIndex + 1] = right;
+        return node.size > NODE_CAPACITY ? splitInternal(node) : null;
+    }
+
+    /**
+     * Removes the entry from the subtree rooted at {@code node}. Returns
+     * {@code true} if the node became empty and must be unlinked by its
+     * parent.
+     */
+    private boolean remove(Node node, long key, Object objectKey, int row) {
+        if (node.leaf) {
+            int position = lowerBound(node, key, objectKey, row);
+
+            if (position == node.size
+                    || compareEntry(node, position, key, objectKey, row) != 0) {
+                throw new IllegalStateException(
+                        "Row " + row + " is not indexed under the value.");
+            }
+
+            node.removeEntry(position);
+
+            if (node.size > 0) {
+                return false;
+            }
+
+            if (node.previous != null) {
+                node.previous.next = node.next;
+            }
+
+            if (node.next != null) {
+                node.next.previous = node.previous;
+            }
+
+            return true;
+        }
+
+        int childIndex = upperBound(node, key, objectKey, row);
+
+        if (!remove(node.children[childIndex], key, objectKey, row)) {
+            return false;
+        }
+
+        if (node.size == 0) {
+            // The only child is gone:
+            return true;
+        }
+
+        node.removeEntry(childIndex > 0 ? childIndex - 1 : 0);
+        System.arraycopy(node.children, childIndex + 1,
+                         node.children, childIndex,
+                         node.size + 1 - childIndex);
+        node.children[node.size + 1] = null;
+        return false;
+    }
+
+    private Node splitLeaf(Node node) {
+        Node right = new Node(true, primitive);
+        int leftSize = node.size / 2;
+        right.size = node.size - leftSize;
+        node.copyEntries(leftSize, right, 0, right.size);
+        node.truncate(leftSize);
+
+        right.next = node.next;
+        right.previous = node;
+
+        if (node.next != null) {
+            node.next.previous = right;
+        }
+
+        node.next = right;
+        setSplit(right, 0);
+        return right;
+    }
+
+    private Node splitInternal(Node node) {
+        Node right = new Node(false, primitive);
+        int middle = node.size / 2;
+        right.size = node.size - middle - 1;
+        setSplit(node, middle);
+        node.copyEntries(middle + 1, right, 0, right.size);
+        System.arraycopy(node.children, middle + 1,
+                         right.children, 0,
+                         right.size + 1);
+        Arrays.fill(node.children, middle + 1, node.size + 1, null);
+        node.truncate(middle);
+        return right;
+    }
+
+    private void setSplit(Node node, int index) {
+        splitKey = primitive ? node.keys[index] : 0L;
+        splitObjectKey = primitive ? null : node.objectKeys[index];
+        splitRow = node.rows[index];
+    }
+
+    private void shiftRows(Node node, int fromRow, int delta) {
+        for (int i = 0; i < node.size; ++i) {
+            if (node.rows[i] >= fromRow) {
+                node.rows[i] += delta;
+            }
+        }
+
+        if (!node.leaf) {
+            for (int i = 0; i <= node.size; ++i) {
+                shiftRows(node.children[i], fromRow, delta);
+            }
+        }
+    }
+
+    private void bulkLoad(long[] keys,
+                          Object[] objectKeys,
+                          int[] rows,
+                          int count) {
+        if (count == 0) {
+            return;
+        }
+
+        List<Node> level = new ArrayList<>();
+        Node previous = null;
+
+        for (int from = 0; from < count; from += NODE_CAPACITY) {
+            Node leaf = new Node(true, primitive);
+            leaf.size = Math.min(NODE_CAPACITY, count - from);
+
+            if (primitive) {
+                System.arraycopy(keys, from, leaf.keys, 0, leaf.size);
+            } else {
+                System.arraycopy(objectKeys, from,
+                                 leaf.objectKeys, 0,
+                                 leaf.size);
+            }
+
+            System.arraycopy(rows, from, leaf.rows, 0, leaf.size);
+            leaf.previous = previous;
+
+            if (previous != null) {
+                previous.next = leaf;
+            }
+
+            previous = leaf;
+            level.add(leaf);
+        }
+
+        // The leftmost leaf of each node on the current level; its first
+        // entry separates the node from its left sibling:
+        List<Node> leftmostLeaves = new ArrayList<>(level);
+
+        while (level.size() > 1) {
+            List<Node> parents = new ArrayList<>();
+            List<Node> parentLeftmostLeaves = new ArrayList<>();
+
+            for (int from = 0; from < level.size(); from += NODE_CAPACITY + 1) {
+                int to = Math.min(from + NODE_CAPACITY + 1, level.size());
+                Node parent = new Node(false, primitive);
+                parent.children[0] = level.get(from);
+
+                for (int i = from + 1; i < to; ++i) {
+                    leftmostLeaves.get(i).copyEntries(0, parent, i - from - 1, 1);
+                    parent.children[i - from] = level.get(i);
+                }
+
+                parent.size = to - from - 1;
+                parents.add(parent);
+                parentLeftmostLeaves.add(leftmostLeaves.get(from));
+            }
+
+            level = parents;
+            leftmostLeaves = parentLeftmostLeaves;
+        }
+
+        root = level.get(0);
+        size = count;
+    }
+
+    /**
+     * Returns the index of the first entry of the node that is not less than
+     * the given entry.
+     */
+    private int lowerBound(Node node, long key, Object objectKey, int row) {
+        int low = 0;
+        int high = node.size;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (compareEntry(node, middle, key, objectKey, row) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns the index of the first entry of the node that is greater than
+     * the given entry. For an internal node, this is the index of the child
+     * whose subtree covers the given entry.
+     */
+    private int upperBound(Node node, long key, Object objectKey, int row) {
+        int low = 0;
+        int high = node.size;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (compareEntry(node, middle, key, objectKey, row) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private int compareEntry(Node node,
+                             int index,
+                             long key,
+                             Object objectKey,
+                             int row) {
+        int cmp = compare(node, index, key, objectKey);
+        return cmp != 0 ? cmp : Integer.compare(node.rows[index], row);
+    }
+
+    private int compare(Node node, int index, long key, Object objectKey) {
+        return primitive ?
+                Long.compare(node.keys[index], key) :
+                comparator.compare(node.objectKeys[index], objectKey);
+    }
+
+    private int compareEntries(long[] keys,
+                               Object[] objectKeys,
+                               int[] rows,
+                               int index1,
+                               int index2) {
+        int cmp = primitive ?
+                Long.compare(keys[index1], keys[index2]) :
+                comparator.compare(objectKeys[index1], objectKeys[index2]);
+
+        return cmp != 0 ? cmp : Integer.compare(rows[index1], rows[index2]);
+    }
+
+    /**
+     * Compares two composite keys lexicographically.
+     */
+    private static int compareKeys(Object key1, Object key2) {
+        Object[] components1 = (Object[]) key1;
+        Object[] components2 = (Object[]) key2;
+
+        for (int i = 0; i < components1.length; ++i) {
+            int cmp = compareComponents(components1[i], components2[i]);
+
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Compares two key components. Null precedes all the other values.
+     */
+    @SuppressWarnings("unchecked")
+    private static int compareComponents(Object component1,
+                                         Object component2) {
+        int rank1 = getRank(component1);
+        int rank2 = getRank(component2);
+
+        if (rank1 != rank2) {
+            return Integer.compare(rank1, rank2);
+        }
+
+        return component1 == component2 || rank1 != 3 ?
+                0 :
+                ((Comparable<Object>) component1).compareTo(component2);
+    }
+
+    private static int getRank(Object component) {
+        if (component == LOWEST) {
+            return 0;
+        } else if (component == null) {
+            return 1;
+        } else if (component == ABOVE_NULL) {
+            return 2;
+        } else if (component == HIGHEST) {
+            return 4;
+        }
+
+        return 3;
+    }
+
+    private static void reverse(int[] array, int fromIndex, int toIndex) {
+        for (int i = fromIndex, j = toIndex - 1; i < j; ++i, --j) {
+            int tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    private Object getValue(Node node, int index) {
+        return primitive ? fromKey(node.keys[index]) : node.objectKeys[index];
+    }
+
+    /**
+     * Converts a non-null cell value to a key whose signed order is the
+     * natural order of the values. The floating point values are ordered as
+     * by {@code Float.compare} and {@code Double.compare}.
+     */
+    private long toKey(Object value) {
+        switch (tableCellType) {
+            case TYPE_INT:
+                return (Integer) value;
+
+            case TYPE_LONG:
+                return (Long) value;
+
+            case TYPE_FLOAT:
+                int intBits = Float.floatToIntBits((Float) value);
+                return intBits ^ ((intBits >> 31) & Integer.MAX_VALUE);
+
+            case TYPE_DOUBLE:
+                long longBits = Double.doubleToLongBits((Double) value);
+                return longBits ^ ((longBits >> 63) & Long.MAX_VALUE);
+
+            case TYPE_BOOLEAN:
+                return ((Boolean) value) ? 1L : 0L;
+
+            default:
+                throw new IllegalStateException("Unknown table cell type.");
+        }
+    }
+
+    private Object fromKey(long key) {
+        switch (tableCellType) {
+            case TYPE_INT:
+                return (int) key;
+
+            case TYPE_LONG:
+                return key;
+
+            case TYPE_FLOAT:
+                int intBits = (int) key;
+                return Float.intBitsToFloat(
+                        intBits ^ ((intBits >> 31) & Integer.MAX_VALUE));
+
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(
+                        key ^ ((key >> 63) & Long.MAX_VALUE));
+
+            case TYPE_BOOLEAN:
+                return key != 0L;
+
+            default:
+                throw new IllegalStateException("Unknown table cell type.");
+        }
+    }
+
+    /**
+     * A node of the tree. A leaf holds the entries; an internal node holds
+     * {@code size} separators and {@code size + 1} children, where the
+     * {@code i}th separator is not greater than the entries of the child
+     * {@code i + 1} and greater than the entries of the child {@code i}. The
+     * arrays have room for one extra entry, so that a node is split only
+     * after it has overflowed.
+     */
+    private static final class Node {
+
+        final boolean leaf;
+        int size;
+        final long[] keys;
+        final Object[] objectKeys;
+        final int[] rows;
+        final Node[] children;
+        Node previous;
+        Node next;
+
+        Node(boolean leaf, boolean primitive) {
+            this.leaf = leaf;
+            this.keys = primitive ? new long[NODE_CAPACITY + 1] : null;
+            this.objectKeys = primitive ? null : new Object[NODE_CAPACITY + 1];
+            this.rows = new int[NODE_CAPACITY + 1];
+            this.children = leaf ? null : new Node[NODE_CAPACITY + 2];
+        }
+
+        void setEntry(int index, long key, Object objectKey, int row) {
+            if (keys != null) {
+                keys[index] = key;
+            } else {
+                objectKeys[index] = objectKey;
+            }
+
+            rows[index] = row;
+        }
+
+        void copyEntries(int fromIndex, Node target, int toIndex, int length) {
+            if (keys != null) {
+                System.arraycopy(keys, fromIndex, target.keys, toIndex, length);
+            } else {
+                System.arraycopy(objectKeys, fromIndex,
+                                 target.objectKeys, toIndex,
+                                 length);
+            }
+
+            System.arraycopy(rows, fromIndex, target.rows, toIndex, length);
+        }
+
+        void insertEntry(int index, long key, Object objectKey, int row) {
+            copyEntries(index, this, index + 1, size - index);
+            setEntry(index, key, objectKey, row);
+            ++size;
+        }
+
+        void removeEntry(int index) {
+            copyEntries(index + 1, this, index, size - index - 1);
+            truncate(size - 1);
+        }
+
+        void truncate(int newSize) {
+            if (objectKeys != null) {
+                Arrays.fill(objectKeys, newSize, size, null);
+            }
+
+            size = newSize;
+        }
+    }
+
+    /**
+     * A frozen, flat copy of the entries of a tree index, taken when a
+     * snapshot of the owner table is taken and written along with the
+     * table.
+     */
+    static final class Image {
+
+        private final TableCellType tableCellType;
+        private final int columnIndex;
+        private final int size;
+        private final long[] keys;
+        private final Object[] objectKeys;
+        private final int[] rows;
+
+        private Image(TableTreeIndex tableTreeIndex) {
+            this.tableCellType = tableTreeIndex.tableCellType;
+            this.columnIndex = tableTreeIndex.columnIndices[0];
+            this.size = tableTreeIndex.size;
+            this.keys = tableTreeIndex.primitive ? new long[size] : null;
+            this.objectKeys =
+                    tableTreeIndex.primitive ? null : new Object[size];
+            this.rows = new int[size];
+        }
+
+        int getColumnIndex() {
+            return columnIndex;
+        }
+
+        TableCellType getTableCellType() {
+            return tableCellType;
+        }
+
+        long getSerializationLength() {
+            long serializationLength = SIZE_BYTES;
+
+            for (int i = 0; i < size; ++i) {
+                serializationLength += getEntrySerializationLength(i);
+            }
+
+            return serializationLength;
+        }
+
+        void serialize(ByteBuffer byteBuffer) {
+            byteBuffer.putInt(size);
+
+            for (int i = 0; i < size; ++i) {
+                serializeEntry(byteBuffer, i);
+            }
+        }
+
+        void serialize(BufferedChannelWriter bufferedChannelWriter)
+                throws IOException {
+            bufferedChannelWriter.getBuffer(SIZE_BYTES).putInt(size);
+
+            for (int i = 0; i < size; ++i) {
+                serializeEntry(bufferedChannelWriter.getBuffer(
+                        getEntrySerializationLength(i)), i);
+            }
+        }
+
+        private int getEntrySerializationLength(int index) {
+            return keys != null ?
+                    Long.BYTES + Integer.BYTES :
+                    Utf8.getSerializationLength((String) objectKeys[index])
+                    + Integer.BYTES;
+        }
+
+        private void serializeEntry(ByteBuffer byteBuffer, int index) {
+            if (keys != null) {
+                byteBuffer.putLong(keys[index]);
+            } else {
+                Utf8.serialize(byteBuffer, (String) objectKeys[index]);
+            }
+
+            byteBuffer.putInt(rows[index]);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package net.coderodde.javadb;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements a read-only version of a table, opened by
+ * {@link Table#openSnapshot()} or as a part of a
+ * {@link Database#openSnapshot()}. The version keeps showing the rows as they
+ * were when it was opened, no matter how the table is modified meanwhile. The
+ * rows it returns are detached copies.
+ * <p>
+ * The table keeps the old versions of the data it modifies for as long as the
+ * version is open, so a version should be closed as soon as it is not needed.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class TableVersion implements Iterable<TableRow>, AutoCloseable {
+
+    /**
+     * The underlying table snapshot, or {@code null} once closed.
+     */
+    private volatile TableSnapshot tableSnapshot;
+
+    TableVersion(TableSnapshot tableSnapshot) {
+        this.tableSnapshot = tableSnapshot;
+    }
+
+    /**
+     * Returns the name the table had when this version was opened.
+     *
+     * @return the table name.
+     */
+    public String getTableName() {
+        return getTableSnapshot().getTableName();
+    }
+
+    /**
+     * Returns the columns the table had when this version was opened.
+     *
+     * @return the unmodifiable list of the column descriptors.
+     */
+    public List<TableColumnDescriptor> getTableColumnDescriptorList() {
+        return getTableSnapshot().getTableColumnDescriptorList();
+    }
+
+    public int getNumberOfRows() {
+        return getTableSnapshot().getNumberOfRows();
+    }
+
+    /**
+     * Returns a copy of the {@code index}th row of this version.
+     *
+     * @param index the index of the row.
+     * @return the detached copy of the row.
+     *
+     * @throws IndexOutOfBoundsException if the index is invalid.
+     * @throws IllegalStateException     if this version is closed.
+     */
+    public TableRow getTableRow(int index) {
+        TableSnapshot tableSnapshot = getTableSnapshot();
+
+        if (index < 0 || index >= tableSnapshot.getNumberOfRows()) {
+            throw new IndexOutOfBoundsException(
+                    "The row index " + index + " is out of bounds. Must be " +
+                    "within [0, " + tableSnapshot.getNumberOfRows() + ").");
+        }
+
+        return tableSnapshot.copyTableRow(index);
+    }
+
+    @Override
+    public Iterator<TableRow> iterator() {
+        int numberOfRows = getNumberOfRows();
+
+        return new Iterator<TableRow>() {
+
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < numberOfRows;
+            }
+
+            @Override
+            public TableRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException(
+                            "No more rows to iterate.");
+                }
+
+                return getTableSnapshot().copyTableRow(index++);
+            }
+        };
+    }
+
+    /**
+     * Closes this version, so that the table stops keeping old data for it.
+     * Closing a closed version does nothing.
+     */
+    @Override
+    public void close() {
+        TableSnapshot tableSnapshot = this.tableSnapshot;
+
+        if (tableSnapshot != null) {
+            this.tableSnapshot = null;
+            tableSnapshot.release();
+        }
+    }
+
+    private TableSnapshot getTableSnapshot() {
+        TableSnapshot tableSnapshot = this.tableSnapshot;
+
+        if (tableSnapshot == null) {
+            throw new IllegalStateException("The table version is closed.");
+        }
+
+        return tableSnapshot;
+    }
+}
@@ -1,5 +1,11 @@
 package net.coderodde.javadb;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -24,6 +30,20 @@ public final class TableView {
         }
     }
     
+    /**
+     * Constructs a view over detached rows holding exactly the cells of the 
+     * given columns, in the same order.
+     * 
+     * @param tableColumnDescriptorList the columns of the rows.
+     */
+    TableView(List<TableColumnDescriptor> tableColumnDescriptorList) {
+        this.tableColumnDescriptorList = tableColumnDescriptorList;
+        
+        for (int i = 0; i < tableColumnDescriptorList.size(); ++i) {
+            cellMap.put(tableColumnDescriptorList.get(i), i);
+        }
+    }
+    
     public void addTableRow(TableRow tableRow) {
         tableRowList.add(Objects.requireNonNull(tableRow, "Table row is null."));
     }
@@ -36,6 +56,60 @@ public final class TableView {
         return tableRowList.get(index);
     }
     
+    public int getNumberOfRows() {
+        return tableRowList.size();
+    }
+    
+    /**
+     * Writes the rows of this view to the given file as CSV, replacing the 
+     * file.
+     * 
+     * @param file   the target file.
+     * @param header whether to write the column names as the first record.
+     * 
+     * @see #exportCsv(Writer, boolean)
+     */
+    public void exportCsv(File file, boolean header) {
+        Objects.requireNonNull(file, "The file is null.");
+        
+        try (Writer writer = new OutputStreamWriter(
+                Files.newOutputStream(file.toPath()), 
+                StandardCharsets.UTF_8)) {
+            exportCsv(writer, header);
+        } catch (IOException ex) {
+            throw new RuntimeException("Exporting the table view to \"" + 
+                    file.getAbsolutePath() + "\" failed.", ex);
+        }
+    }
+    
+    /**
+     * Writes the rows of this view to the given writer as CSV, without 
+     * building the whole text in memory as {@link #toString()} does. See 
+     * {@link TableCsv} for the format.
+     * 
+     * @param writer the writer to write to. It is flushed but not closed.
+     * @param header whether to write the column names as the first record.
+     */
+    public void exportCsv(Writer writer, boolean header) {
+        Objects.requireNonNull(writer, "The writer is null.");
+        int[] cellIndices = new int[tableColumnDescriptorList.size()];
+        
+        for (int i = 0; i < cellIndices.length; ++i) {
+            cellIndices[i] = cellMap.get(tableColumnDescriptorList.get(i));
+        }
+        
+        try {
+            TableCsv.exportCsv(writer, 
+                               tableColumnDescriptorList, 
+                               cellIndices, 
+                               tableRowList, 
+                               header);
+        } catch (IOException ex) {
+            throw new RuntimeException("Exporting the table view failed.", 
+                                       ex);
+        }
+    }
+    
     @Override
     public String toString() {
         Map<TableColumnDescriptor, Integer> columnWidthMap =
@@ -157,7 +231,8 @@ public final class TableView {
             int maxColumnWidth = columnLengthMap.get(tableColumnDescriptor);
             
             for (TableRow tableRow : tableRowList) {
-                String cellContent = tableRow.get(index).getValue().toString();
+                Object value = tableRow.get(index).getValue();
+                String cellContent = value == null ? "NULL" : value.toString();
                 int cellContentWidth = cellContent.length();
                 maxColumnWidth = Math.max(maxColumnWidth, cellContentWidth);
             }
@@ -0,0 +1,406 @@
+package net.coderodde.javadb;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This class implements a transaction over the tables of a database, begun by
+ * {@link Database#beginTransaction()}. The transaction buffers row insertions,
+ * row removals and cell updates, which are applied only on {@link #commit()}.
+ * The commit locks each affected table once, validates all the changes before
+ * applying any of them, and appends them to the write-ahead log as a single
+ * record, so that the locking and the logging costs are paid once per
+ * transaction rather than once per change. If applying the changes fails
+ * anyway, the changes applied so far are undone.
+ * <p>
+ * The table and column names and the row indices of a change are resolved on
+ * commit, and each row index refers to the table as modified by the preceding
+ * changes of the transaction. In the concurrent mode, the threads locking the
+ * tables, such as the queries and the snapshots, observe either none or all
+ * of the changes. A transaction is to be used by a single thread.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class Transaction implements AutoCloseable {
+
+    /**
+     * The kinds of the buffered changes.
+     */
+    private enum ChangeType {
+        PUT_ROW,
+        REMOVE_ROW,
+        UPDATE_CELL
+    }
+
+    /**
+     * A buffered change.
+     */
+    private static final class Change {
+
+        final ChangeType changeType;
+        final String tableName;
+        final int rowIndex;
+        final String columnName;
+        final Object[] values;
+
+        Change(ChangeType changeType,
+               String tableName,
+               int rowIndex,
+               String columnName,
+               Object[] values) {
+            this.changeType = changeType;
+            this.tableName = tableName;
+            this.rowIndex = rowIndex;
+            this.columnName = columnName;
+            this.values = values;
+        }
+    }
+
+    /**
+     * The database this transaction modifies.
+     */
+    private final Database database;
+
+    /**
+     * The buffered changes in order.
+     */
+    private final List<Change> changeList = new ArrayList<>();
+
+    /**
+     * Whether this transaction is committed or rolled back.
+     */
+    private boolean finished;
+
+    Transaction(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Appends a new row to the given table on commit.
+     *
+     * @param tableName the name of the table.
+     * @param values    the cell values of the row.
+     */
+    public void putTableRow(String tableName, Object... values) {
+        putTableRowAt(tableName, -1, values);
+    }
+
+    /**
+     * Inserts a new row into the given table on commit.
+     *
+     * @param tableName the name of the table.
+     * @param index     the index at which to insert the row, or {@code -1} to
+     *                  append it.
+     * @param values    the cell values of the row.
+     */
+    public void putTableRowAt(String tableName, int index, Object... values) {
+        Objects.requireNonNull(values, "The values are null.");
+        addChange(new Change(ChangeType.PUT_ROW,
+                             tableName,
+                             index,
+                             null,
+                             values.clone()));
+    }
+
+    /**
+     * Removes a row from the given table on commit.
+     *
+     * @param tableName the name of the table.
+     * @param index     the index of the row to remove.
+     */
+    public void removeRow(String tableName, int index) {
+        addChange(new Change(ChangeType.REMOVE_ROW,
+                             tableName,
+                             index,
+                             null,
+                             null));
+    }
+
+    /**
+     * Sets the value of a cell of the given table on commit.
+     *
+     * @param tableName  the name of the table.
+     * @param rowIndex   the index of the row of the cell.
+     * @param columnName the name of the column of the cell.
+     * @param value      the new value of the cell, or {@code null}.
+     */
+    public void setValue(String tableName,
+                         int rowIndex,
+                         String columnName,
+                         Object value) {
+        Objects.requireNonNull(columnName, "The column name is null.");
+        addChange(new Change(ChangeType.UPDATE_CELL,
+                             tableName,
+                             rowIndex,
+                             columnName,
+                             new Object[]{ value }));
+    }
+
+    /**
+     * Returns the number of changes buffered in this transaction.
+     *
+     * @return the number of changes.
+     */
+    public int getNumberOfChanges() {
+        return changeList.size();
+    }
+
+    /**
+     * Validates and applies all the buffered changes. If any of them is
+     * invalid or applying them fails, none of them is applied. Either way,
+     * this transaction is finished.
+     *
+     * @throws IllegalStateException     if this transaction is finished or a
+     *                                   change refers to a missing table.
+     * @throws IllegalArgumentException  if a change refers to a missing column
+     *                                   or holds a value of a wrong type.
+     * @throws IndexOutOfBoundsException if a change refers to a missing row.
+     */
+    public void commit() {
+        checkNotFinished();
+        finished = true;
+        long databaseStamp = database.lockForReading();
+
+        try {
+            Table[] tables = getTables();
+            List<Table> tableList = getLockOrderedTableList(tables);
+            long[] stamps = new long[tableList.size()];
+            int numberOfLockedTables = 0;
+
+            try {
+                for (Table table : tableList) {
+                    stamps[numberOfLockedTables] = table.lockForWriting();
+                    ++numberOfLockedTables;
+                }
+
+                apply(tables, validate(tables), tableList);
+            } finally {
+                for (int i = numberOfLockedTables - 1; i >= 0; --i) {
+                    tableList.get(i).unlockForWriting(stamps[i]);
+                }
+            }
+        } finally {
+            database.unlockForReading(databaseStamp);
+        }
+    }
+
+    /**
+     * Discards all the buffered changes and finishes this transaction.
+     *
+     * @throws IllegalStateException if this transaction is finished.
+     */
+    public void rollback() {
+        checkNotFinished();
+        finished = true;
+        changeList.clear();
+    }
+
+    /**
+     * Rolls this transaction back unless it is finished.
+     */
+    @Override
+    public void close() {
+        if (!finished) {
+            rollback();
+        }
+    }
+
+    private void addChange(Change change) {
+        Objects.requireNonNull(change.tableName, "The table name is null.");
+        checkNotFinished();
+        changeList.add(change);
+    }
+
+    /**
+     * Returns the table of each change. Must be called while the table map is
+     * locked for reading.
+     */
+    private Table[] getTables() {
+        Table[] tables = new Table[changeList.size()];
+
+        for (int i = 0; i < tables.length; ++i) {
+            String tableName = changeList.get(i).tableName;
+            tables[i] = database.tableMap.get(tableName);
+
+            if (tables[i] == null) {
+                throw new IllegalStateException(
+                        "The table with name \"" + tableName + "\" is not " +
+                        "in this database.");
+            }
+        }
+
+        return tables;
+    }
+
+    private static List<Table> getLockOrderedTableList(Table[] tables) {
+        Set<Table> tableSet =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+        Collections.addAll(tableSet, tables);
+        List<Table> tableList = new ArrayList<>(tableSet);
+        tableList.sort(Comparator.comparingLong(Table::getLockOrder));
+        return tableList;
+    }
+
+    /**
+     * Checks every change against the tables as modified by the preceding
+     * changes without modifying anything.
+     *
+     * @return the row index of each change, with the appends resolved.
+     */
+    private int[] validate(Table[] tables) {
+        Map<Table, Integer> numberOfRowsMap = new IdentityHashMap<>();
+        int[] rowIndices = new int[tables.length];
+
+        for (int i = 0; i < tables.length; ++i) {
+            Table table = tables[i];
+            Change change = changeList.get(i);
+            int numberOfRows = numberOfRowsMap.computeIfAbsent(
+                    table,
+                    Table::getNumberOfRows);
+            int rowIndex = change.rowIndex;
+
+            switch (change.changeType) {
+                case PUT_ROW:
+                    if (rowIndex == -1) {
+                        rowIndex = numberOfRows;
+                    }
+
+                    checkRowIndex(i, rowIndex, numberOfRows + 1);
+                    checkValues(table, change.values);
+                    ++numberOfRows;
+                    break;
+
+                case REMOVE_ROW:
+                    checkRowIndex(i, rowIndex, numberOfRows);
+                    --numberOfRows;
+                    break;
+
+                case UPDATE_CELL:
+                    checkRowIndex(i, rowIndex, numberOfRows);
+                    table.checkValueType(
+                            change.values[0],
+                            table.getTableColumnDescriptor(
+                                    table.getColumnIndex(change.columnName)));
+                    break;
+            }
+
+            numberOfRowsMap.put(table, numberOfRows);
+            rowIndices[i] = rowIndex;
+        }
+
+        return rowIndices;
+    }
+
+    private static void checkRowIndex(int changeIndex,
+                                      int rowIndex,
+                                      int bound) {
+        if (rowIndex < 0 || rowIndex >= bound) {
+            throw new IndexOutOfBoundsException(
+                    "The row index " + rowIndex + " of the change " +
+                    changeIndex + " is out of bounds. Must be within [0, " +
+                    bound + ").");
+        }
+    }
+
+    private static void checkValues(Table table, Object[] values) {
+        if (values.length > table.tableColumnDescriptorList.size()) {
+            throw new IllegalArgumentException(
+                    "More values (" + values.length + ") than number of " +
+                    "columns (" + table.tableColumnDescriptorList.size() +
+                    ").");
+        }
+
+        for (int i = 0; i < values.length; ++i) {
+            table.checkValueType(values[i],
+                                 table.tableColumnDescriptorList.get(i));
+        }
+    }
+
+    /**
+     * Applies the validated changes while collecting their log records in a
+     * single batch, and logs the batch. If anything fails, the changes
+     * applied so far are undone in reverse order.
+     */
+    private void apply(Table[] tables,
+                       int[] rowIndices,
+                       List<Table> tableList) {
+        WriteAheadLog.Batch batch = database.createLogBatch();
+        List<Runnable> undoList = new ArrayList<>(tables.length);
+
+        for (Table table : tableList) {
+            table.logBatch = batch;
+        }
+
+        try {
+            for (int i = 0; i < tables.length; ++i) {
+                undoList.add(
+                        apply(tables[i], changeList.get(i), rowIndices[i]));
+            }
+
+            if (batch != null) {
+                database.logBatch(batch);
+            }
+        } catch (RuntimeException | Error ex) {
+            // The undone changes go to the discarded batch:
+            Collections.reverse(undoList);
+
+            for (Runnable undo : undoList) {
+                undo.run();
+            }
+
+            throw ex;
+        } finally {
+            for (Table table : tableList) {
+                table.logBatch = null;
+            }
+        }
+    }
+
+    /**
+     * Applies a single change.
+     *
+     * @return the action undoing the change.
+     */
+    private static Runnable apply(Table table, Change change, int rowIndex) {
+        switch (change.changeType) {
+            case PUT_ROW:
+                table.putTableRowAt(rowIndex, change.values);
+                return () -> table.removeRow(rowIndex);
+
+            case REMOVE_ROW:
+                TableRow tableRow = table.getTableRow(rowIndex);
+                Object[] values = new Object[tableRow.getNumberOfCells()];
+
+                for (int i = 0; i < values.length; ++i) {
+                    values[i] = tableRow.get(i).getValue();
+                }
+
+                table.removeRow(rowIndex);
+                return () -> table.putTableRowAt(rowIndex, values);
+
+            default:
+                int columnIndex = table.getColumnIndex(change.columnName);
+                TableCell tableCell =
+                        table.getTableRow(rowIndex).get(columnIndex);
+                Object oldValue = tableCell.getValue();
+                tableCell.setValue(change.values[0]);
+                return () -> table.getTableRow(rowIndex)
+                                  .get(columnIndex)
+                                  .setValue(oldValue);
+        }
+    }
+
+    private void checkNotFinished() {
+        if (finished) {
+            throw new IllegalStateException(
+                    "The transaction is already finished.");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package net.coderodde.javadb;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class implements the encoding of strings in the database file format
+ * as of version 5: an int byte count followed by the UTF-8 bytes of the
+ * string. The bytes are copied in bulk rather than one character at a time.
+ * As with {@link String#getBytes(java.nio.charset.Charset)}, an unpaired
+ * surrogate character is encoded as {@code '?'}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class Utf8 {
+
+    /**
+     * Number of bytes used to encode the byte count of a string.
+     */
+    private static final int SIZE_BYTES = 4;
+
+    private Utf8() {}
+
+    /**
+     * Returns the number of UTF-8 bytes encoding the given string, without
+     * encoding it.
+     *
+     * @param string the string.
+     * @return the number of bytes.
+     */
+    static int getEncodedLength(String string) {
+        int length = string.length();
+        int encodedLength = length;
+
+        for (int i = 0; i < length; ++i) {
+            char c = string.charAt(i);
+
+            if (c < 0x80) {
+                continue;
+            }
+
+            if (c < 0x800) {
+                encodedLength += 1;
+            } else if (Character.isHighSurrogate(c)
+                    && i + 1 < length
+                    && Character.isLowSurrogate(string.charAt(i + 1))) {
+                // Four bytes for the two characters of the pair:
+                encodedLength += 2;
+                ++i;
+            } else if (!Character.isSurrogate(c)) {
+                encodedLength += 2;
+            }
+        }
+
+        return encodedLength;
+    }
+
+    /**
+     * Returns the number of bytes {@link #serialize(ByteBuffer, String)}
+     * writes for the given string.
+     *
+     * @param string the string.
+     * @return the serialization length in bytes.
+     */
+    static int getSerializationLength(String string) {
+        return SIZE_BYTES + getEncodedLength(string);
+    }
+
+    static void serialize(ByteBuffer byteBuffer, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        byteBuffer.putInt(bytes.length).put(bytes);
+    }
+
+    static String deserialize(ByteBuffer byteBuffer) {
+        int length = byteBuffer.getInt();
+
+        if (length < 0 || length > byteBuffer.remaining()) {
+            throw new BadDataFormatException(
+                    "Invalid string length: " + length + ".");
+        }
+
+        String string;
+
+        if (byteBuffer.hasArray()) {
+            string = new String(byteBuffer.array(),
+                                byteBuffer.arrayOffset()
+                                        + byteBuffer.position(),
+                                length,
+                                StandardCharsets.UTF_8);
+            byteBuffer.position(byteBuffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            byteBuffer.get(bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return string;
+    }
+
+    static void skip(ByteBuffer byteBuffer) {
+        int length = byteBuffer.getInt();
+        byteBuffer.position(byteBuffer.position() + length);
+    }
+}
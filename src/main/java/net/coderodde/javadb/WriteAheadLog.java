@@ -0,0 +1,1003 @@
+package net.coderodde.javadb;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * This class implements an append-only write-ahead log of database mutations.
+ * Each mutation is encoded as a compact binary record:
+ *
+ * <pre>
+ * int payload length, long log sequence number, byte record type, payload,
+ * int CRC32 of everything from the log sequence number up to the checksum
+ * </pre>
+ *
+ * Appending a record only copies it into an in-memory buffer. A background
+ * flusher thread writes the buffered records to the log file and forces them
+ * to the disk with a single {@code fsync}, so that all the records appended
+ * during one group commit interval share the cost of the {@code fsync}. A
+ * record becomes durable at most one interval after it was appended, or as
+ * soon as {@link #sync()} returns.
+ * <p>
+ * On recovery, the records with log sequence numbers larger than the one
+ * stored in the database file are replayed in order. A torn or corrupted
+ * record at the end of the log, left by a crash in the middle of a write,
+ * ends the replay.
+ * <p>
+ * The row mutations of a transaction are collected in a {@link Batch} and
+ * appended as a single {@code TRANSACTION} record holding the type and the
+ * payload of each mutation, so that they are replayed either all or none.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class WriteAheadLog implements Closeable {
+
+    static final byte CREATE_TABLE  = 1;
+    static final byte DELETE_TABLE  = 2;
+    static final byte RENAME_TABLE  = 3;
+    static final byte ADD_COLUMN    = 4;
+    static final byte REMOVE_COLUMN = 5;
+    static final byte PUT_ROW       = 6;
+    static final byte REMOVE_ROW    = 7;
+    static final byte UPDATE_CELL   = 8;
+    static final byte TRANSACTION   = 9;
+
+    /**
+     * The default maximum time a record waits before being forced to the
+     * disk.
+     */
+    static final long DEFAULT_GROUP_COMMIT_INTERVAL_MILLIS = 10L;
+
+    /**
+     * The length of the record fields preceding the payload.
+     */
+    static final int RECORD_HEADER_LENGTH =
+            Integer.BYTES + Long.BYTES + 1;
+
+    /**
+     * The length of the record checksum following the payload.
+     */
+    static final int RECORD_TRAILER_LENGTH = Integer.BYTES;
+
+    /**
+     * The amount of pending bytes at which the flusher stops waiting for more
+     * records to join the group commit.
+     */
+    private static final int FLUSH_THRESHOLD = 1 << 20;
+
+    /**
+     * The amount of pending bytes at which appending blocks until the flusher
+     * catches up.
+     */
+    private static final int MAX_PENDING_BYTES = 8 * FLUSH_THRESHOLD;
+
+    /**
+     * The initial capacity of the record buffers.
+     */
+    private static final int INITIAL_BUFFER_CAPACITY = 1 << 16;
+
+    /**
+     * Number of bytes used to encode a size count.
+     */
+    private static final int SIZE_BYTES = 4;
+
+    /**
+     * The log file.
+     */
+    private final File logFile;
+
+    /**
+     * The log file channel. Replaced when a prefix of the log is discarded.
+     */
+    private FileChannel fileChannel;
+
+    /**
+     * The maximum time a record waits before being forced to the disk.
+     */
+    private final long groupCommitIntervalMillis;
+
+    /**
+     * The thread writing the pending records to the log file.
+     */
+    private final Thread flusherThread;
+
+    /**
+     * Computes the record checksums. Guarded by {@code this}.
+     */
+    private final CRC32 crc32 = new CRC32();
+
+    /**
+     * Holds the records appended but not yet written. Guarded by
+     * {@code this}.
+     */
+    private ByteBuffer pendingBuffer = allocate(INITIAL_BUFFER_CAPACITY);
+
+    /**
+     * Holds the records being written by the flusher. Swapped with
+     * {@code pendingBuffer} at the beginning of each group commit.
+     */
+    private ByteBuffer writeBuffer = allocate(INITIAL_BUFFER_CAPACITY);
+
+    /**
+     * The offset of the record being appended in {@code pendingBuffer}.
+     */
+    private int recordStart;
+
+    /**
+     * The log sequence number of the last appended record.
+     */
+    private long lastLogSequenceNumber;
+
+    /**
+     * The log sequence number of the last record forced to the disk.
+     */
+    private long durableLogSequenceNumber;
+
+    /**
+     * The size of the log in bytes including the records not yet written.
+     */
+    private long size;
+
+    /**
+     * Whether a thread waits in {@link #sync()}.
+     */
+    private boolean syncRequested;
+
+    /**
+     * Whether this log is closed.
+     */
+    private boolean closed;
+
+    /**
+     * The exception that stopped the flusher, if any.
+     */
+    private IOException failure;
+
+    private WriteAheadLog(File logFile,
+                          FileChannel fileChannel,
+                          long logSequenceNumber,
+                          long groupCommitIntervalMillis) {
+        this.logFile = logFile;
+        this.fileChannel = fileChannel;
+        this.lastLogSequenceNumber = logSequenceNumber;
+        this.durableLogSequenceNumber = logSequenceNumber;
+        this.groupCommitIntervalMillis = groupCommitIntervalMillis;
+        this.flusherThread = new Thread(this::runFlusher,
+                                        "write-ahead-log-flusher");
+        this.flusherThread.setDaemon(true);
+        this.flusherThread.start();
+    }
+
+    /**
+     * Creates an empty log in the given file. Any previous contents of the
+     * file are discarded, so the database must be saved before.
+     *
+     * @param logFile                   the log file.
+     * @param logSequenceNumber         the log sequence number of the saved
+     *                                  database.
+     * @param groupCommitIntervalMillis the group commit interval.
+     * @return the log.
+     * @throws IOException if the file cannot be opened.
+     */
+    static WriteAheadLog create(File logFile,
+                                long logSequenceNumber,
+                                long groupCommitIntervalMillis)
+            throws IOException {
+        FileChannel fileChannel = FileChannel.open(logFile.toPath(),
+                                                   StandardOpenOption.CREATE,
+                                                   StandardOpenOption.READ,
+                                                   StandardOpenOption.WRITE);
+        fileChannel.truncate(0L);
+        fileChannel.force(true);
+        return new WriteAheadLog(logFile,
+                                 fileChannel,
+                                 logSequenceNumber,
+                                 groupCommitIntervalMillis);
+    }
+
+    /**
+     * Returns the log file of the given database file.
+     *
+     * @param file the database file.
+     * @return the log file.
+     */
+    static File getLogFile(File file) {
+        return new File(file.getAbsolutePath() + ".wal");
+    }
+
+    long getGroupCommitIntervalMillis() {
+        return groupCommitIntervalMillis;
+    }
+
+    /**
+     * Returns the size of this log in bytes, including the records appended
+     * but not yet written.
+     *
+     * @return the size of the log.
+     */
+    synchronized long getSize() {
+        return size;
+    }
+
+    long logCreateTable(Table table) {
+        String tableName = table.getTableName();
+        int length = getSerializationLength(tableName) + 1 + SIZE_BYTES;
+
+        for (TableColumnDescriptor tableColumnDescriptor
+                : table.tableColumnDescriptorList) {
+            length += tableColumnDescriptor.getSerializationLength();
+        }
+
+        synchronized (this) {
+            ByteBuffer byteBuffer = beginRecord(CREATE_TABLE, length);
+            serializeString(byteBuffer, tableName);
+            byteBuffer.put((byte) table.getStorageMode().ordinal());
+            byteBuffer.putInt(table.tableColumnDescriptorList.size());
+
+            for (TableColumnDescriptor tableColumnDescriptor
+                    : table.tableColumnDescriptorList) {
+                tableColumnDescriptor.serialize(byteBuffer);
+            }
+
+            return endRecord();
+        }
+    }
+
+    long logDeleteTable(String tableName) {
+        synchronized (this) {
+            serializeString(beginRecord(DELETE_TABLE,
+                                        getSerializationLength(tableName)),
+                            tableName);
+            return endRecord();
+        }
+    }
+
+    long logRenameTable(String oldTableName, String newTableName) {
+        int length = getSerializationLength(oldTableName)
+                   + getSerializationLength(newTableName);
+
+        synchronized (this) {
+            ByteBuffer byteBuffer = beginRecord(RENAME_TABLE, length);
+            serializeString(byteBuffer, oldTableName);
+            serializeString(byteBuffer, newTableName);
+            return endRecord();
+        }
+    }
+
+    long logAddColumn(String tableName,
+                      TableColumnDescriptor tableColumnDescriptor) {
+        int length = getSerializationLength(tableName)
+                   + tableColumnDescriptor.getSerializationLength();
+
+        synchronized (this) {
+            ByteBuffer byteBuffer = beginRecord(ADD_COLUMN, length);
+            serializeString(byteBuffer, tableName);
+            tableColumnDescriptor.serialize(byteBuffer);
+            return endRecord();
+        }
+    }
+
+    long logRemoveColumn(String tableName, int columnIndex) {
+        int length = getSerializationLength(tableName) + SIZE_BYTES;
+
+        synchronized (this) {
+            ByteBuffer byteBuffer = beginRecord(REMOVE_COLUMN, length);
+            serializeString(byteBuffer, tableName);
+            byteBuffer.putInt(columnIndex);
+            return endRecord();
+        }
+    }
+
+    long logPutRow(String tableName, int rowIndex, TableRow tableRow) {
+        int length = getPutRowLength(tableName, tableRow);
+
+        synchronized (this) {
+            serializePutRow(beginRecord(PUT_ROW, length),
+                            tableName,
+                            rowIndex,
+                            tableRow);
+            return endRecord();
+        }
+    }
+
+    long logRemoveRow(String tableName, int rowIndex) {
+        int length = getRemoveRowLength(tableName);
+
+        synchronized (this) {
+            serializeRemoveRow(beginRecord(REMOVE_ROW, length),
+                               tableName,
+                               rowIndex);
+            return endRecord();
+        }
+    }
+
+    long logUpdateCell(String tableName,
+                       int rowIndex,
+                       int columnIndex,
+                       TableCellType tableCellType,
+                       Object value) {
+        int length = getUpdateCellLength(tableName, tableCellType, value);
+
+        synchronized (this) {
+            serializeUpdateCell(beginRecord(UPDATE_CELL, length),
+                                tableName,
+                                rowIndex,
+                                columnIndex,
+                                tableCellType,
+                                value);
+            return endRecord();
+        }
+    }
+
+    /**
+     * Appends the mutations collected in the given batch as a single record.
+     *
+     * @param batch the batch of mutations.
+     * @return the log sequence number of the record.
+     */
+    long logBatch(Batch batch) {
+        ByteBuffer batchBuffer = batch.byteBuffer;
+        int length = SIZE_BYTES + batchBuffer.position();
+
+        synchronized (this) {
+            ByteBuffer byteBuffer = beginRecord(TRANSACTION, length);
+            byteBuffer.putInt(batch.numberOfRecords);
+            byteBuffer.put(batchBuffer.array(), 0, batchBuffer.position());
+            return endRecord();
+        }
+    }
+
+    /**
+     * Blocks until all the records appended so far are forced to the disk.
+     * Threads calling this method concurrently share a single {@code fsync}.
+     *
+     * @throws IOException if writing the log failed.
+     */
+    synchronized void sync() throws IOException {
+        long targetLogSequenceNumber = lastLogSequenceNumber;
+
+        while (durableLogSequenceNumber < targetLogSequenceNumber) {
+            checkNoFailure();
+            syncRequested = true;
+            notifyAll();
+            await();
+        }
+
+        checkNoFailure();
+    }
+
+    /**
+     * Discards the first {@code length} bytes of this log. Must be called only
+     * after a database file reflecting all the records within them has been
+     * saved. The remaining records are moved to the beginning of a new log
+     * file that atomically replaces the old one.
+     *
+     * @param length the number of bytes to discard, as returned by
+     *               {@link #getSize()} when the records were reflected.
+     * @throws IOException if rewriting the log fails.
+     */
+    synchronized void discardPrefix(long length) throws IOException {
+        if (length <= 0L) {
+            return;
+        }
+
+        // Wait for the flusher to write everything. Since this thread holds
+        // the lock, the flusher cannot start another write until we are done:
+        while (durableLogSequenceNumber < lastLogSequenceNumber) {
+            checkNoFailure();
+            syncRequested = true;
+            notifyAll();
+            await();
+        }
+
+        checkNoFailure();
+
+        if (length >= size) {
+            fileChannel.truncate(0L);
+            fileChannel.position(0L);
+            fileChannel.force(true);
+            size = 0L;
+            return;
+        }
+
+        File temporaryFile = new File(logFile.getAbsolutePath() + ".tmp");
+
+        try (FileChannel tailChannel =
+                FileChannel.open(temporaryFile.toPath(),
+                                 StandardOpenOption.CREATE,
+                                 StandardOpenOption.WRITE,
+                                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = length;
+
+            while (position < size) {
+                position += fileChannel.transferTo(position,
+                                                   size - position,
+                                                   tailChannel);
+            }
+
+            tailChannel.force(true);
+        }
+
+        Database.moveAtomically(temporaryFile, logFile);
+        fileChannel.close();
+        size -= length;
+        fileChannel = FileChannel.open(logFile.toPath(),
+                                       StandardOpenOption.READ,
+                                       StandardOpenOption.WRITE);
+        fileChannel.position(size);
+    }
+
+    /**
+     * Forces all the pending records to the disk and closes the log file.
+     *
+     * @throws IOException if writing the log fails.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            notifyAll();
+        }
+
+        try {
+            flusherThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted while closing the write-ahead log.");
+        } finally {
+            fileChannel.close();
+        }
+
+        checkNoFailure();
+    }
+
+    /**
+     * Replays the log in the given file against the database. The records
+     * whose log sequence numbers do not exceed that of the database are
+     * already reflected in it and are skipped.
+     *
+     * @param database   the database to replay the log against.
+     * @param logFile    the log file.
+     * @param tableNames if not {@code null}, the records concerning tables not
+     *                   in the database are ignored, since only these tables
+     *                   were read.
+     * @throws IOException if reading the log fails.
+     */
+    static void replay(Database database, File logFile, Set<String> tableNames)
+            throws IOException {
+        if (!logFile.exists()) {
+            return;
+        }
+
+        try (FileChannel fileChannel =
+                FileChannel.open(logFile.toPath(), StandardOpenOption.READ)) {
+            LogReader logReader = new LogReader(fileChannel);
+            ByteBuffer record;
+
+            while ((record = logReader.nextRecord()) != null) {
+                long logSequenceNumber = record.getLong();
+                byte recordType = record.get();
+
+                if (logSequenceNumber <= database.getLogSequenceNumber()) {
+                    continue;
+                }
+
+                if (recordType == TRANSACTION) {
+                    int numberOfRecords = record.getInt();
+
+                    for (int i = 0; i < numberOfRecords; ++i) {
+                        applyRecord(database, record.get(), record, tableNames);
+                    }
+                } else {
+                    applyRecord(database, recordType, record, tableNames);
+                }
+
+                database.setLogSequenceNumber(logSequenceNumber);
+            }
+        }
+    }
+
+    private static void applyRecord(Database database,
+                                    byte recordType,
+                                    ByteBuffer record,
+                                    Set<String> tableNames) {
+        String tableName = deserializeString(record);
+
+        if (recordType == CREATE_TABLE) {
+            TableStorageMode tableStorageMode =
+                    TableStorageMode.values()[record.get()];
+            TableColumnDescriptor[] tableColumnDescriptors =
+                    new TableColumnDescriptor[record.getInt()];
+
+            for (int i = 0; i < tableColumnDescriptors.length; ++i) {
+                tableColumnDescriptors[i] =
+                        TableColumnDescriptor.deserialize(record);
+            }
+
+            if (tableNames == null || tableNames.contains(tableName)) {
+                database.createTable(tableName,
+                                     tableStorageMode,
+                                     tableColumnDescriptors);
+            }
+
+            return;
+        }
+
+        Table table = database.tableMap.get(tableName);
+
+        if (table == null) {
+            if (tableNames != null) {
+                return;
+            }
+
+            throw new BadDataFormatException(
+                    "The write-ahead log refers to a missing table \"" +
+                    tableName + "\".");
+        }
+
+        switch (recordType) {
+            case DELETE_TABLE:
+                database.deleteTable(tableName);
+                break;
+
+            case RENAME_TABLE:
+                table.setTableName(deserializeString(record));
+                break;
+
+            case ADD_COLUMN:
+                table.addTableColumnDescriptor(
+                        TableColumnDescriptor.deserialize(record));
+                break;
+
+            case REMOVE_COLUMN:
+                table.removeTableColumnDescriptor(record.getInt());
+                break;
+
+            case PUT_ROW:
+                int rowIndex = record.getInt();
+                Object[] values = new Object[record.getInt()];
+
+                for (int i = 0; i < values.length; ++i) {
+                    values[i] = TableCell.deserialize(record).getValue();
+                }
+
+                table.putTableRowAt(rowIndex, values);
+                break;
+
+            case REMOVE_ROW:
+                table.removeRow(record.getInt());
+                break;
+
+            case UPDATE_CELL:
+                TableRow tableRow = table.getTableRow(record.getInt());
+                TableCell tableCell = tableRow.get(record.getInt());
+                tableCell.setValue(TableCell.deserialize(record).getValue());
+                break;
+
+            default:
+                throw new BadDataFormatException(
+                        "Unknown write-ahead log record type: " +
+                        recordType + ".");
+        }
+    }
+
+    /**
+     * Reserves room for a record in the pending buffer and writes the record
+     * header. Must be called while holding the lock of this log.
+     *
+     * @param recordType    the type of the record.
+     * @param payloadLength the length of the record payload.
+     * @return the buffer to serialize the payload into.
+     */
+    private ByteBuffer beginRecord(byte recordType, int payloadLength) {
+        checkNotClosed();
+
+        while (pendingBuffer.position() >= MAX_PENDING_BYTES
+                && failure == null) {
+            notifyAll();
+
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (failure != null) {
+            throw new UncheckedIOException(
+                    "The write-ahead log is not writable.", failure);
+        }
+
+        int recordLength = RECORD_HEADER_LENGTH
+                         + payloadLength
+                         + RECORD_TRAILER_LENGTH;
+
+        if (pendingBuffer.remaining() < recordLength) {
+            int capacity = pendingBuffer.capacity();
+
+            while (capacity - pendingBuffer.position() < recordLength) {
+                capacity *= 2;
+            }
+
+            ByteBuffer newPendingBuffer = allocate(capacity);
+            pendingBuffer.flip();
+            newPendingBuffer.put(pendingBuffer);
+            pendingBuffer = newPendingBuffer;
+        }
+
+        recordStart = pendingBuffer.position();
+        pendingBuffer.putInt(payloadLength)
+                     .putLong(lastLogSequenceNumber + 1)
+                     .put(recordType);
+        return pendingBuffer;
+    }
+
+    /**
+     * Appends the checksum of the record just serialized and wakes up the
+     * flusher.
+     *
+     * @return the log sequence number of the record.
+     */
+    private long endRecord() {
+        int end = pendingBuffer.position();
+        crc32.reset();
+        crc32.update(pendingBuffer.array(),
+                     recordStart + Integer.BYTES,
+                     end - recordStart - Integer.BYTES);
+        pendingBuffer.putInt((int) crc32.getValue());
+        size += pendingBuffer.position() - recordStart;
+        notifyAll();
+        return ++lastLogSequenceNumber;
+    }
+
+    private void runFlusher() {
+        try {
+            while (flushOnce()) {}
+        } catch (IOException ex) {
+            synchronized (this) {
+                failure = ex;
+                notifyAll();
+            }
+        } catch (InterruptedException ex) {
+            synchronized (this) {
+                failure = new InterruptedIOException(
+                        "The write-ahead log flusher was interrupted.");
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes one group of pending records and forces them to the disk.
+     *
+     * @return {@code false} if the log is closed and has nothing to write.
+     */
+    private boolean flushOnce() throws IOException, InterruptedException {
+        ByteBuffer byteBuffer;
+        FileChannel fileChannel;
+        long logSequenceNumber;
+
+        synchronized (this) {
+            while (pendingBuffer.position() == 0) {
+                if (closed) {
+                    return false;
+                }
+
+                wait();
+            }
+
+            // Give the other writers a chance to join this group commit:
+            long deadline = System.currentTimeMillis()
+                          + groupCommitIntervalMillis;
+
+            while (!closed
+                    && !syncRequested
+                    && pendingBuffer.position() < FLUSH_THRESHOLD) {
+                long timeout = deadline - System.currentTimeMillis();
+
+                if (timeout <= 0L) {
+                    break;
+                }
+
+                wait(timeout);
+            }
+
+            byteBuffer = pendingBuffer;
+            pendingBuffer = writeBuffer;
+            writeBuffer = byteBuffer;
+            fileChannel = this.fileChannel;
+            logSequenceNumber = lastLogSequenceNumber;
+            syncRequested = false;
+            notifyAll();
+        }
+
+        byteBuffer.flip();
+
+        while (byteBuffer.hasRemaining()) {
+            fileChannel.write(byteBuffer);
+        }
+
+        fileChannel.force(false);
+        byteBuffer.clear();
+
+        synchronized (this) {
+            durableLogSequenceNumber = logSequenceNumber;
+            notifyAll();
+        }
+
+        return true;
+    }
+
+    private void await() throws IOException {
+        try {
+            wait();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted while waiting for the write-ahead log.");
+        }
+    }
+
+    private void checkNoFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Writing the write-ahead log failed.",
+                                  failure);
+        }
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException(
+                    "The write-ahead log is closed.");
+        }
+    }
+
+    private static int getPutRowLength(String tableName, TableRow tableRow) {
+        return getSerializationLength(tableName) + 2 * SIZE_BYTES
+             + tableRow.getSerializationLength();
+    }
+
+    private static void serializePutRow(ByteBuffer byteBuffer,
+                                        String tableName,
+                                        int rowIndex,
+                                        TableRow tableRow) {
+        serializeString(byteBuffer, tableName);
+        byteBuffer.putInt(rowIndex);
+        byteBuffer.putInt(tableRow.getNumberOfCells());
+        tableRow.serialize(byteBuffer);
+    }
+
+    private static int getRemoveRowLength(String tableName) {
+        return getSerializationLength(tableName) + SIZE_BYTES;
+    }
+
+    private static void serializeRemoveRow(ByteBuffer byteBuffer,
+                                           String tableName,
+                                           int rowIndex) {
+        serializeString(byteBuffer, tableName);
+        byteBuffer.putInt(rowIndex);
+    }
+
+    private static int getUpdateCellLength(String tableName,
+                                           TableCellType tableCellType,
+                                           Object value) {
+        return getSerializationLength(tableName) + 2 * SIZE_BYTES
+             + TableCell.getSerializationLength(tableCellType, value);
+    }
+
+    private static void serializeUpdateCell(ByteBuffer byteBuffer,
+                                            String tableName,
+                                            int rowIndex,
+                                            int columnIndex,
+                                            TableCellType tableCellType,
+                                            Object value) {
+        serializeString(byteBuffer, tableName);
+        byteBuffer.putInt(rowIndex);
+        byteBuffer.putInt(columnIndex);
+        TableCell.serializeValue(byteBuffer, tableCellType, value);
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int getSerializationLength(String string) {
+        return SIZE_BYTES + Character.BYTES * string.length();
+    }
+
+    private static void serializeString(ByteBuffer byteBuffer, String string) {
+        byteBuffer.putInt(string.length());
+
+        for (char c : string.toCharArray()) {
+            byteBuffer.putChar(c);
+        }
+    }
+
+    private static String deserializeString(ByteBuffer byteBuffer) {
+        int stringLength = byteBuffer.getInt();
+        StringBuilder sb = new StringBuilder(stringLength);
+
+        for (int i = 0; i < stringLength; ++i) {
+            sb.append(byteBuffer.getChar());
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * This class collects the row mutations of a transaction in memory until
+     * they are appended to the log by {@link #logBatch(Batch)}.
+     */
+    static final class Batch {
+
+        private ByteBuffer byteBuffer = allocate(INITIAL_BUFFER_CAPACITY);
+        private int numberOfRecords;
+
+        boolean isEmpty() {
+            return numberOfRecords == 0;
+        }
+
+        void addPutRow(String tableName, int rowIndex, TableRow tableRow) {
+            serializePutRow(reserve(PUT_ROW,
+                                    getPutRowLength(tableName, tableRow)),
+                            tableName,
+                            rowIndex,
+                            tableRow);
+        }
+
+        void addRemoveRow(String tableName, int rowIndex) {
+            serializeRemoveRow(reserve(REMOVE_ROW,
+                                       getRemoveRowLength(tableName)),
+                               tableName,
+                               rowIndex);
+        }
+
+        void addUpdateCell(String tableName,
+                           int rowIndex,
+                           int columnIndex,
+                           TableCellType tableCellType,
+                           Object value) {
+            serializeUpdateCell(reserve(UPDATE_CELL,
+                                        getUpdateCellLength(tableName,
+                                                            tableCellType,
+                                                            value)),
+                                tableName,
+                                rowIndex,
+                                columnIndex,
+                                tableCellType,
+                                value);
+        }
+
+        /**
+         * Makes room for a mutation and writes its type.
+         *
+         * @return the buffer to serialize the payload into.
+         */
+        private ByteBuffer reserve(byte recordType, int payloadLength) {
+            if (byteBuffer.remaining() < 1 + payloadLength) {
+                int capacity = byteBuffer.capacity();
+
+                while (capacity - byteBuffer.position() < 1 + payloadLength) {
+                    capacity *= 2;
+                }
+
+                ByteBuffer newByteBuffer = allocate(capacity);
+                byteBuffer.flip();
+                newByteBuffer.put(byteBuffer);
+                byteBuffer = newByteBuffer;
+            }
+
+            ++numberOfRecords;
+            return byteBuffer.put(recordType);
+        }
+    }
+
+    /**
+     * This class reads the records of a log file one at a time through a
+     * buffer, so that replaying does not need memory proportional to the
+     * size of the log.
+     */
+    private static final class LogReader {
+
+        private final FileChannel fileChannel;
+        private final CRC32 crc32 = new CRC32();
+        private ByteBuffer byteBuffer = allocate(INITIAL_BUFFER_CAPACITY);
+        private boolean endOfFile;
+
+        LogReader(FileChannel fileChannel) {
+            this.fileChannel = fileChannel;
+            byteBuffer.flip();
+        }
+
+        /**
+         * Returns the next intact record positioned at its log sequence
+         * number, or {@code null} if there are no more intact records.
+         */
+        ByteBuffer nextRecord() throws IOException {
+            if (!fill(Integer.BYTES)) {
+                return null;
+            }
+
+            int payloadLength = byteBuffer.getInt(byteBuffer.position());
+
+            if (payloadLength < 0) {
+                return null;
+            }
+
+            int recordLength = RECORD_HEADER_LENGTH
+                             + payloadLength
+                             + RECORD_TRAILER_LENGTH;
+
+            if (!fill(recordLength)) {
+                return null;
+            }
+
+            int start = byteBuffer.position();
+            int checksumOffset = start + recordLength - RECORD_TRAILER_LENGTH;
+            crc32.reset();
+            crc32.update(byteBuffer.array(),
+                         start + Integer.BYTES,
+                         checksumOffset - start - Integer.BYTES);
+
+            if ((int) crc32.getValue() != byteBuffer.getInt(checksumOffset)) {
+                return null;
+            }
+
+            ByteBuffer record = byteBuffer.duplicate()
+                                          .order(ByteOrder.LITTLE_ENDIAN);
+            record.position(start + Integer.BYTES);
+            record.limit(checksumOffset);
+            byteBuffer.position(start + recordLength);
+            return record;
+        }
+
+        /**
+         * Makes sure at least {@code length} unread bytes are in the buffer.
+         *
+         * @return {@code false} if the file ends before that.
+         */
+        private boolean fill(int length) throws IOException {
+            if (byteBuffer.remaining() >= length) {
+                return true;
+            }
+
+            if (byteBuffer.capacity() < length) {
+                // Guard against a garbage length in a torn record:
+                if (length > fileChannel.size()) {
+                    return false;
+                }
+
+                ByteBuffer newByteBuffer = allocate(length);
+                newByteBuffer.put(byteBuffer);
+                byteBuffer = newByteBuffer;
+            } else {
+                byteBuffer.compact();
+            }
+
+            while (!endOfFile && byteBuffer.position() < length) {
+                if (fileChannel.read(byteBuffer) < 0) {
+                    endOfFile = true;
+                }
+            }
+
+            byteBuffer.flip();
+            return byteBuffer.remaining() >= length;
+        }
+    }
+}
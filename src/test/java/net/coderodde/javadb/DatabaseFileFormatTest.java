@@ -0,0 +1,129 @@
+package net.coderodde.javadb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class DatabaseFileFormatTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testHeaderAndTrailer() {
+        ByteBuffer bb = createDatabase().serialize();
+
+        assertEquals(DatabaseFileFormat.MAGIC, bb.getInt(0));
+        assertEquals(DatabaseFileFormat.FORMAT_VERSION, bb.getInt(4));
+        assertEquals(DatabaseFileFormat.MAGIC, bb.getInt(bb.limit() - 4));
+    }
+
+    @Test
+    public void testReadsOriginalFormat() throws IOException {
+        Database db = createDatabase();
+        File file = temporaryFolder.newFile("v1.dat");
+        Files.write(file.toPath(), serializeVersion1(db));
+
+        assertEquals(db, Database.read(file));
+        assertEquals(db, Database.open(file));
+
+        ByteBuffer bb = ByteBuffer.wrap(serializeVersion1(db))
+                                  .order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(db, Database.deserialize(bb));
+    }
+
+    @Test
+    public void testReadSelectedTables() throws IOException {
+        Database db = createDatabase();
+        File file = temporaryFolder.newFile("db.dat");
+        db.save(file);
+
+        Database partial = Database.read(file, "second");
+        db.deleteTable("first");
+        db.deleteTable("third");
+
+        assertEquals(db, partial);
+    }
+
+    @Test
+    public void testOpenMapsTablesSeparately() throws IOException {
+        Database db = createDatabase();
+        File file = temporaryFolder.newFile("db.dat");
+        db.save(file);
+
+        Database opened = Database.open(file);
+
+        assertEquals(db.getTable("third").getTableRow(1),
+                     opened.getTable("third").getTableRow(1));
+        assertEquals(db, opened);
+    }
+
+    @Test(expected = BadDataFormatException.class)
+    public void testRejectsUnknownVersion() {
+        ByteBuffer bb = createDatabase().serialize();
+        bb.putInt(4, DatabaseFileFormat.FORMAT_VERSION + 1);
+        bb.position(0);
+        DatabaseFileFormat.deserialize(bb, false);
+    }
+
+    private static Database createDatabase() {
+        Database db = new Database("format_db");
+
+        for (String tableName : new String[]{ "first", "second", "third" }) {
+            Table table = db.createTable(tableName,
+                    new TableColumnDescriptor("key", TableCellType.TYPE_INT),
+                    new TableColumnDescriptor("value",
+                                              TableCellType.TYPE_STRING));
+
+            for (int i = 0; i < 10; ++i) {
+                table.putTableRow(i, tableName + i);
+            }
+        }
+
+        return db;
+    }
+
+    private static byte[] serializeVersion1(Database db) {
+        ByteBuffer bb = ByteBuffer.allocate(10000)
+                                  .order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(db.getDatabaseName().length());
+
+        for (char c : db.getDatabaseName().toCharArray()) {
+            bb.putChar(c);
+        }
+
+        bb.putInt(db.tableMap.size());
+
+        for (Table table : db.tableMap.values()) {
+            bb.putInt(table.getTableName().length());
+
+            for (char c : table.getTableName().toCharArray()) {
+                bb.putChar(c);
+            }
+
+            bb.putInt(table.tableColumnDescriptorList.size());
+
+            for (TableColumnDescriptor tableColumnDescriptor
+                    : table.tableColumnDescriptorList) {
+                tableColumnDescriptor.serialize(bb);
+            }
+
+            bb.putInt(table.getNumberOfRows());
+
+            for (int i = 0; i < table.getNumberOfRows(); ++i) {
+                table.getTableRow(i).serialize(bb);
+            }
+        }
+
+        byte[] bytes = new byte[bb.position()];
+        bb.flip();
+        bb.get(bytes);
+        return bytes;
+    }
+}
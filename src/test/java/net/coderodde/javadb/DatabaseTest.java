@@ -1,11 +1,21 @@
 package net.coderodde.javadb;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import static org.junit.Assert.*;
 
 public class DatabaseTest {
     
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
     @Test
     public void testSerializeDeserialize() {
         Database db = new Database("hello_db");
@@ -125,4 +135,93 @@ public class DatabaseTest {
                 null,
                 new TableColumnDescriptor("col3", TableCellType.TYPE_FLOAT));
     }
+
+    @Test
+    public void testSaveAndRead() throws IOException {
+        Database db = createSampleDatabase();
+        File file = temporaryFolder.newFile("db.dat");
+        
+        db.save(file);
+        
+        assertEquals(db, Database.read(file));
+        assertFalse(new File(file.getAbsolutePath() + ".tmp").exists());
+        
+        db.getTable("msg").putTableRow(12, 1L, "Again!");
+        db.save();
+        
+        assertEquals(db, Database.read(file));
+    }
+    
+    @Test
+    public void testStreamingSerializationMatchesBufferSerialization() 
+            throws IOException {
+        Database db = createSampleDatabase();
+        db.getTable("person").putTableRow(3, "Big", "Blob", new byte[100]);
+        File file = temporaryFolder.newFile("stream.dat");
+        
+        try (FileChannel fileChannel = 
+                FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+             BufferedChannelWriter writer = 
+                     new BufferedChannelWriter(fileChannel, 16)) {
+            DatabaseFileFormat.write(db, writer);
+        }
+        
+        byte[] expected = db.serialize().array();
+        assertArrayEquals(expected, Files.readAllBytes(file.toPath()));
+    }
+    
+    @Test
+    public void testOpenLazily() throws IOException {
+        Database db = createSampleDatabase();
+        File file = temporaryFolder.newFile("lazy.dat");
+        db.save(file);
+        
+        Database lazy = Database.open(file);
+        Table person = lazy.getTable("person");
+        
+        assertEquals(2, person.getNumberOfRows());
+        assertEquals("Violetta", 
+                     person.getTableRow(1).get("first_name").getStringValue());
+        
+        // Saving over the mapped file copies the rows not yet decoded as is:
+        person.getTableRow(1).get("last_name").setStringValue("E.");
+        lazy.save();
+        
+        db.getTable("person").getTableRow(1).get("last_name")
+                             .setStringValue("E.");
+        assertEquals(db, lazy);
+        assertEquals(db, Database.read(file));
+        
+        Database lazy2 = Database.open(file);
+        lazy2.getTable("msg").removeRow(0);
+        db.getTable("msg").removeRow(0);
+        assertEquals(db, lazy2);
+    }
+    
+    private static Database createSampleDatabase() {
+        Database db = new Database("sample_db");
+        
+        Table person = db.createTable("person",
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT),
+                new TableColumnDescriptor("first_name", 
+                                          TableCellType.TYPE_STRING),
+                new TableColumnDescriptor("last_name", 
+                                          TableCellType.TYPE_STRING),
+                new TableColumnDescriptor("photo", TableCellType.TYPE_BINARY));
+        
+        Table msg = db.createTable("msg", 
+                TableStorageMode.COLUMNAR,
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT),
+                new TableColumnDescriptor("person_id", 
+                                          TableCellType.TYPE_LONG),
+                new TableColumnDescriptor("msg", TableCellType.TYPE_STRING));
+        
+        person.putTableRow(1, "Rodion", "Efremov");
+        person.putTableRow(2, "Violetta", "Ervasti", new byte[]{ 1, 2 });
+        
+        msg.putTableRow(10, 1L, "Hello!");
+        msg.putTableRow(11, 2L, "Bye!");
+        msg.putTableRow(null, null, null);
+        return db;
+    }
 }
@@ -0,0 +1,164 @@
+package net.coderodde.javadb;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static net.coderodde.javadb.TableAggregate.*;
+import static net.coderodde.javadb.TablePredicate.*;
+
+public class TableAggregationTest {
+
+    @Test
+    public void testAggregatesSkipNulls() {
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Table table = createTable(tableStorageMode);
+            table.putTableRow("a", 3, 5L, 1.5f, 2.0);
+            table.putTableRow("b", null, null, null, null);
+            table.putTableRow("a", -1, 7L, Float.NaN, -0.0);
+
+            TableRow tableRow = table.aggregate(count(),
+                                                count("id"),
+                                                sum("id"),
+                                                sum("value"),
+                                                min("id"),
+                                                max("small"),
+                                                min("value"),
+                                                avg("score"),
+                                                max("name"));
+
+            assertEquals(3L, tableRow.get(0).getValue());
+            assertEquals(2L, tableRow.get(1).getValue());
+            assertEquals(2L, tableRow.get(2).getValue());
+            assertEquals(2.0, tableRow.get(3).getDoubleValue(), 0.0);
+            assertEquals(-1, tableRow.get(4).getValue());
+            assertEquals(Float.NaN, tableRow.get(5).getValue());
+            assertEquals(-0.0, tableRow.get(6).getValue());
+            assertEquals(6.0, tableRow.get(7).getDoubleValue(), 0.0);
+            assertEquals("b", tableRow.get(8).getValue());
+        }
+    }
+
+    @Test
+    public void testEmptyTable() {
+        Table table = createTable(TableStorageMode.COLUMNAR);
+        TableRow tableRow = table.aggregate(count(), sum("id"), avg("value"));
+
+        assertEquals(0L, tableRow.get(0).getValue());
+        assertNull(tableRow.get(1).getValue());
+        assertNull(tableRow.get(2).getValue());
+        assertEquals(0, table.groupBy("name")
+                             .aggregate(count())
+                             .getNumberOfRows());
+    }
+
+    @Test
+    public void testGroupByAndWhere() {
+        Table table = createTable(TableStorageMode.ROW_ORIENTED);
+        table.putTableRow("b", 1, 10L, 1.0f, 1.0);
+        table.putTableRow("a", 2, 20L, 2.0f, 2.0);
+        table.putTableRow(null, 3, 30L, 3.0f, 3.0);
+        table.putTableRow("b", 4, 40L, 4.0f, 4.0);
+        table.putTableRow("a", 5, 50L, 5.0f, 5.0);
+
+        TableView tableView = table.groupBy("name")
+                                   .aggregate(count(), sum("score"));
+
+        assertEquals(3, tableView.getNumberOfRows());
+        assertEquals("b", tableView.getTableRow(0).get(0).getValue());
+        assertEquals(2L, tableView.getTableRow(0).get(1).getValue());
+        assertEquals(50L, tableView.getTableRow(0).get(2).getValue());
+        assertEquals("a", tableView.getTableRow(1).get(0).getValue());
+        assertEquals(70L, tableView.getTableRow(1).get(2).getValue());
+        assertNull(tableView.getTableRow(2).get(0).getValue());
+
+        tableView = table.groupBy("name")
+                         .where(greaterThan("id", 1))
+                         .aggregate(max("id"));
+
+        assertEquals(3, tableView.getNumberOfRows());
+        assertEquals("a", tableView.getTableRow(0).get(0).getValue());
+        assertEquals(5, tableView.getTableRow(0).get(1).getValue());
+        assertEquals("b", tableView.getTableRow(2).get(0).getValue());
+        assertEquals(4, tableView.getTableRow(2).get(1).getValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnSumOfStrings() {
+        createTable(TableStorageMode.ROW_ORIENTED).aggregate(sum("name"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnUnknownColumn() {
+        createTable(TableStorageMode.ROW_ORIENTED).aggregate(min("nope"));
+    }
+
+    @Test
+    public void testRowOrientedParallelGroupBy() {
+        testParallelGroupBy(TableStorageMode.ROW_ORIENTED);
+    }
+
+    @Test
+    public void testColumnarParallelGroupBy() {
+        testParallelGroupBy(TableStorageMode.COLUMNAR);
+    }
+
+    private static void testParallelGroupBy(TableStorageMode tableStorageMode) {
+        Random random = new Random(19L);
+        Table table = createTable(tableStorageMode);
+        Map<String, long[]> expected = new HashMap<>();
+        int numberOfRows = TableSelection.PARALLEL_SCAN_THRESHOLD + 5000;
+
+        for (int i = 0; i < numberOfRows; ++i) {
+            String name = "g" + random.nextInt(50);
+            int id = random.nextInt(1000);
+            Long score = random.nextInt(5) == 0 ? null : (long) id * 3;
+            float parity = id % 2;
+            table.putTableRow(name, id, score, parity, null);
+
+            long[] stats = expected.computeIfAbsent(
+                    name + "/" + parity,
+                    (key) -> new long[]{ 0L, 0L, Long.MAX_VALUE });
+
+            ++stats[0];
+
+            if (score != null) {
+                stats[1] += score;
+                stats[2] = Math.min(stats[2], score);
+            }
+        }
+
+        TableView tableView = table.groupBy("name", "small")
+                                   .aggregate(count(),
+                                              sum("score"),
+                                              min("score"));
+
+        assertEquals(expected.size(), tableView.getNumberOfRows());
+
+        for (int i = 0; i < tableView.getNumberOfRows(); ++i) {
+            TableRow tableRow = tableView.getTableRow(i);
+            long[] stats = expected.get(tableRow.get(0).getValue() + "/" +
+                                        tableRow.get(1).getValue());
+
+            assertEquals(stats[0], tableRow.get(2).getValue());
+            assertEquals(stats[1], tableRow.get(3).getValue());
+            assertEquals(stats[2], tableRow.get(4).getValue());
+        }
+    }
+
+    private static Table createTable(TableStorageMode tableStorageMode) {
+        Table table = new Table("aggregated", tableStorageMode);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("score", TableCellType.TYPE_LONG));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("small", TableCellType.TYPE_FLOAT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("value", TableCellType.TYPE_DOUBLE));
+        return table;
+    }
+}
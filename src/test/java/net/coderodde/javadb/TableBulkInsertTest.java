@@ -0,0 +1,164 @@
+package net.coderodde.javadb;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class TableBulkInsertTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testPrimitiveColumns() {
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Table table = createTable(tableStorageMode);
+            Table expected = createTable(tableStorageMode);
+            table.putTableRow(0, 0L, 0.0f, 0.0, false, "zero", null);
+            expected.putTableRow(0, 0L, 0.0f, 0.0, false, "zero", null);
+            table.ensureCapacity(1000);
+
+            int[] ints = new int[1000];
+            long[] longs = new long[1000];
+            float[] floats = new float[1000];
+            double[] doubles = new double[1000];
+            boolean[] booleans = new boolean[1000];
+            String[] strings = new String[1000];
+            byte[][] binaries = new byte[1000][];
+
+            for (int i = 0; i < 1000; ++i) {
+                ints[i] = i;
+                longs[i] = 3L * i;
+                floats[i] = i / 2.0f;
+                doubles[i] = i / 4.0;
+                booleans[i] = i % 3 == 0;
+                strings[i] = i % 5 == 0 ? null : "s" + i;
+                binaries[i] = i % 7 == 0 ? null : new byte[]{ (byte) i };
+                expected.putTableRow(ints[i],
+                                     longs[i],
+                                     floats[i],
+                                     doubles[i],
+                                     booleans[i],
+                                     strings[i],
+                                     binaries[i]);
+            }
+
+            table.putTableRows(ints,
+                               longs,
+                               floats,
+                               doubles,
+                               booleans,
+                               strings,
+                               binaries);
+
+            assertEquals(expected, table);
+        }
+    }
+
+    @Test
+    public void testBoxedAndMissingColumns() {
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Table table = createTable(tableStorageMode);
+            table.putTableRows(new Integer[]{ 1, null, 3 },
+                               new Long[]{ null, 2L, 3L });
+
+            assertEquals(3, table.getNumberOfRows());
+            assertNull(table.getTableRow(1).get(0).getValue());
+            assertEquals(2L, table.getTableRow(1).get(1).getValue());
+            assertEquals(3, table.getTableRow(2).get(0).getValue());
+            assertNull(table.getTableRow(2).get(5).getValue());
+            assertNull(table.getTableRow(0).get(6).getValue());
+        }
+    }
+
+    @Test
+    public void testEmptyBatch() {
+        Table table = createTable(TableStorageMode.COLUMNAR);
+        table.putTableRows(new int[0], new long[0]);
+        table.putTableRows();
+        assertEquals(0, table.getNumberOfRows());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnTypeMismatch() {
+        createTable(TableStorageMode.ROW_ORIENTED).putTableRows(new long[1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnLengthMismatch() {
+        createTable(TableStorageMode.COLUMNAR).putTableRows(new int[2],
+                                                            new long[3]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnTooManyColumns() {
+        Table table = new Table("bulk");
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.putTableRows(new int[1], new int[1]);
+    }
+
+    @Test
+    public void testIndicesAreUpdated() {
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Table table = createTable(tableStorageMode);
+            table.createHashIndex("id");
+            table.createTreeIndex("name");
+            table.putTableRow(7, 1L);
+            table.putTableRows(new int[]{ 5, 7, 9 },
+                               new long[3],
+                               new float[3],
+                               new double[3],
+                               new boolean[3],
+                               new String[]{ "b", "a", null });
+
+            assertEquals(2, table.findRows("id", 7).size());
+            assertEquals(1, table.findRows("name", "b").size());
+            assertEquals(5, table.findRows("name", "b").get(0)
+                                 .get(0).getValue());
+        }
+    }
+
+    @Test
+    public void testBatchIsLogged() throws IOException {
+        File file = temporaryFolder.newFile("bulk.dat");
+        Database db = new Database("bulk_db");
+        Table table = db.createTable(
+                "bulk",
+                TableStorageMode.COLUMNAR,
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT),
+                new TableColumnDescriptor("key", TableCellType.TYPE_LONG));
+        db.save(file);
+        db.enableWriteAheadLog(1L);
+
+        table.putTableRows(new int[]{ 1, 2, 3 },
+                           new long[]{ 4L, 5L, 6L });
+        table.putTableRows(new int[]{ 4 });
+
+        db.sync();
+        assertEquals(2L, db.getLogSequenceNumber());
+        assertEquals(db, Database.read(file));
+    }
+
+    private static Table createTable(TableStorageMode tableStorageMode) {
+        Table table = new Table("bulk", tableStorageMode);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("key", TableCellType.TYPE_LONG));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("f", TableCellType.TYPE_FLOAT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("d", TableCellType.TYPE_DOUBLE));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("b", TableCellType.TYPE_BOOLEAN));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("bin", TableCellType.TYPE_BINARY));
+        return table;
+    }
+}
@@ -0,0 +1,234 @@
+package net.coderodde.javadb;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class TableChecksumTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testIntactDatabaseIsRead() throws IOException {
+        Database db = createDatabase();
+        File file = temporaryFolder.newFile();
+        db.save(file);
+
+        assertEquals(db, Database.read(file));
+        assertEquals(db, Database.open(file));
+
+        ByteBuffer byteBuffer = db.serialize();
+        byteBuffer.position(0);
+        assertEquals(db, DatabaseFileFormat.deserialize(byteBuffer, false));
+    }
+
+    @Test
+    public void testDamagedTableIsNamed() throws IOException {
+        Database db = createDatabase();
+        File file = temporaryFolder.newFile();
+        db.save(file);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        flip(bytes, indexOf(bytes, "second row 5"));
+        Files.write(file.toPath(), bytes);
+
+        try {
+            Database.read(file);
+            fail("A damaged table was read.");
+        } catch (RuntimeException ex) {
+            assertTrue(ex.getCause() instanceof BadDataFormatException);
+            assertTrue(ex.getCause().getMessage(),
+                       ex.getCause().getMessage().contains("\"second\""));
+        }
+
+        // The undamaged tables remain readable:
+        Database partial = Database.read(file, "first", "third");
+        db.deleteTable("second");
+        assertEquals(db, partial);
+    }
+
+    @Test
+    public void testDamagedTreeIndexIsDetected() {
+        Database db = createDatabase();
+        db.getTable("first").createTreeIndex("key", true);
+        ByteBuffer byteBuffer = db.serialize();
+        byte[] bytes = byteBuffer.array();
+        // The tree index block of the first table follows its last row:
+        flip(bytes, indexOf(bytes, "first row 9") + "first row 9".length());
+
+        try {
+            byteBuffer.position(0);
+            DatabaseFileFormat.deserialize(byteBuffer, false);
+            fail("A damaged tree index was read.");
+        } catch (BadDataFormatException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("\"first\""));
+        }
+    }
+
+    @Test
+    public void testDamagedDirectoryIsDetected() throws IOException {
+        Database db = createDatabase();
+        File file = temporaryFolder.newFile();
+        db.save(file);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        flip(bytes, lastIndexOf(bytes, "value") + 1);
+        Files.write(file.toPath(), bytes);
+
+        for (boolean open : new boolean[]{ false, true }) {
+            try {
+                if (open) {
+                    Database.open(file);
+                } else {
+                    Database.read(file);
+                }
+
+                fail("A damaged directory was read.");
+            } catch (RuntimeException ex) {
+                assertTrue(ex.getCause() instanceof BadDataFormatException);
+                assertTrue(ex.getCause().getMessage(),
+                           ex.getCause().getMessage().contains("directory"));
+            }
+        }
+    }
+
+    @Test(expected = BadDataFormatException.class)
+    public void testTruncatedFileIsRejected() throws IOException {
+        Database db = createDatabase();
+        File file = temporaryFolder.newFile();
+        db.save(file);
+
+        try (RandomAccessFile randomAccessFile =
+                new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(file.length() - 20);
+        }
+
+        try {
+            Database.read(file);
+        } catch (RuntimeException ex) {
+            throw ex.getCause() instanceof BadDataFormatException ?
+                    (BadDataFormatException) ex.getCause() :
+                    ex;
+        }
+    }
+
+    @Test
+    public void testDecodingFailureOfUncheckedBlockIsNamed() {
+        Database db = createDatabase();
+        ByteBuffer byteBuffer = db.serialize();
+        byte[] bytes = byteBuffer.array();
+        // A version 8 file has no checksums, so the damage surfaces while
+        // decoding:
+        byteBuffer.putInt(Integer.BYTES, 8);
+        int stringLengthIndex = indexOf(bytes, "first row 0") - 4;
+        byteBuffer.putInt(stringLengthIndex, Integer.MAX_VALUE);
+        rewriteVersion8Directory(byteBuffer);
+
+        try {
+            DatabaseFileFormat.deserialize(byteBuffer, false);
+            fail("A damaged table was read.");
+        } catch (BadDataFormatException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("\"first\""));
+        }
+    }
+
+    /**
+     * Rewrites the directory of the given version 9 database buffer in the
+     * version 8 layout, which lacks the checksums.
+     */
+    private static void rewriteVersion8Directory(ByteBuffer byteBuffer) {
+        byte[] bytes = byteBuffer.array();
+        int directoryEnd =
+                byteBuffer.limit() - DatabaseFileFormat.TRAILER_LENGTH - 4;
+        int directoryOffset = (int) byteBuffer.getLong(directoryEnd + 4);
+        ByteBuffer directory = byteBuffer.duplicate()
+                                         .order(byteBuffer.order());
+        directory.position(directoryOffset);
+        Utf8.deserialize(directory);
+        directory.getLong();
+        int numberOfTables = directory.getInt();
+        ByteBuffer target = ByteBuffer.allocate(byteBuffer.limit())
+                                      .order(byteBuffer.order());
+        target.put(bytes, 0, directory.position());
+
+        for (int i = 0; i < numberOfTables; ++i) {
+            int start = directory.position();
+            TableDirectoryEntry entry =
+                    TableDirectoryEntry.deserialize(directory, 9);
+            // Drop the checksum following the name, offset and length:
+            int checksumIndex = start
+                    + Utf8.getSerializationLength(entry.getTableName())
+                    + 2 * Long.BYTES;
+            target.put(bytes, start, checksumIndex - start);
+            target.put(bytes,
+                       checksumIndex + 4,
+                       directory.position() - checksumIndex - 4);
+        }
+
+        target.putLong(directoryOffset).putInt(DatabaseFileFormat.MAGIC);
+        target.flip();
+        byteBuffer.clear();
+        byteBuffer.put(target);
+        byteBuffer.flip();
+    }
+
+    private static Database createDatabase() {
+        Database db = new Database("checksum_db");
+
+        for (String tableName : new String[]{ "first", "second", "third" }) {
+            Table table = db.createTable(tableName,
+                    new TableColumnDescriptor("key", TableCellType.TYPE_INT),
+                    new TableColumnDescriptor("value",
+                                              TableCellType.TYPE_STRING));
+
+            for (int i = 0; i < 10; ++i) {
+                table.putTableRow(i, tableName + " row " + i);
+            }
+        }
+
+        return db;
+    }
+
+    private static void flip(byte[] bytes, int index) {
+        assertTrue(index >= 0);
+        bytes[index] ^= 0x01;
+    }
+
+    private static int indexOf(byte[] bytes, String text) {
+        byte[] pattern = text.getBytes(StandardCharsets.UTF_8);
+
+        for (int i = 0; i + pattern.length <= bytes.length; ++i) {
+            if (matches(bytes, i, pattern)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] bytes, String text) {
+        byte[] pattern = text.getBytes(StandardCharsets.UTF_8);
+
+        for (int i = bytes.length - pattern.length; i >= 0; --i) {
+            if (matches(bytes, i, pattern)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean matches(byte[] bytes, int index, byte[] pattern) {
+        return Arrays.equals(Arrays.copyOfRange(bytes,
+                                                index,
+                                                index + pattern.length),
+                             pattern);
+    }
+}
@@ -0,0 +1,183 @@
+package net.coderodde.javadb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class TableColumnLayoutTest {
+
+    private static final int NUMBER_OF_ROWS =
+            2 * TableColumnCodec.BLOCK_SIZE + 123;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testAllTypesSurviveRoundTrip() throws IOException {
+        Database db = new Database("db");
+        Table table = createTable(new Random(1L));
+        db.addTable(table);
+        File file = temporaryFolder.newFile();
+        db.save(file);
+
+        for (Database read : new Database[]{ Database.read(file),
+                                             Database.open(file) }) {
+            Table readTable = read.getTable("mixed");
+            assertEquals(table, readTable);
+            assertEquals(TableStorageMode.COLUMNAR,
+                         readTable.getStorageMode());
+        }
+
+        assertEquals(table, roundTrip(table));
+    }
+
+    @Test
+    public void testStreamedBlocksMatchBuffer() throws IOException {
+        Table table = createTable(new Random(3L));
+        File file = temporaryFolder.newFile();
+
+        // The blocks are written one at a time through a tiny buffer:
+        try (FileChannel fileChannel =
+                FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+             BufferedChannelWriter bufferedChannelWriter =
+                     new BufferedChannelWriter(fileChannel, 64)) {
+            table.serialize(bufferedChannelWriter);
+        }
+
+        assertArrayEquals(table.serialize().array(),
+                          Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void testMonotonicColumnsArePacked() {
+        Table table = new Table("events", TableStorageMode.COLUMNAR);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("time", TableCellType.TYPE_LONG));
+        Random random = new Random(2L);
+        int[] ids = new int[NUMBER_OF_ROWS];
+        long[] times = new long[NUMBER_OF_ROWS];
+        long time = 1_700_000_000_000L;
+
+        for (int i = 0; i < NUMBER_OF_ROWS; ++i) {
+            ids[i] = i;
+            time += 1000 + random.nextInt(50);
+            times[i] = time;
+        }
+
+        table.putTableRows(ids, times);
+
+        // The ids take no bits at all, and the times 6 bits each:
+        assertTrue(table.getSerializationLength() < NUMBER_OF_ROWS);
+        assertEquals(table, roundTrip(table));
+    }
+
+    @Test
+    public void testExtremeIntegers() {
+        Table table = new Table("extremes", TableStorageMode.COLUMNAR);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("i", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("l", TableCellType.TYPE_LONG));
+        int[] ints = { Integer.MIN_VALUE, Integer.MAX_VALUE, 0, -1, 1 };
+        long[] longs = { Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L, 1L };
+
+        for (int i = 0; i < 100; ++i) {
+            table.putTableRow(ints[i % ints.length], longs[i % longs.length]);
+            table.putTableRow(ints[i % ints.length], Long.MIN_VALUE + i);
+        }
+
+        assertEquals(table, roundTrip(table));
+    }
+
+    @Test
+    public void testZigZagAndVarLong() {
+        long[] values = { 0L, 1L, -1L, 63L, -64L, 64L, Long.MIN_VALUE,
+                          Long.MAX_VALUE };
+        ByteBuffer byteBuffer = ByteBuffer.allocate(128);
+
+        for (long value : values) {
+            assertEquals(value, TableColumnCodec.unZigZag(
+                    TableColumnCodec.zigZag(value)));
+            TableColumnCodec.putVarLong(byteBuffer,
+                                        TableColumnCodec.zigZag(value));
+        }
+
+        byteBuffer.flip();
+
+        for (long value : values) {
+            int position = byteBuffer.position();
+            long zigZag = TableColumnCodec.getVarLong(byteBuffer);
+            assertEquals(value, TableColumnCodec.unZigZag(zigZag));
+            assertEquals(TableColumnCodec.getVarLongLength(zigZag),
+                         byteBuffer.position() - position);
+        }
+    }
+
+    private static Table roundTrip(Table table) {
+        ByteBuffer byteBuffer = table.serialize();
+        Table deserialized = Table.deserialize(byteBuffer);
+        assertFalse(byteBuffer.hasRemaining());
+        return deserialized;
+    }
+
+    private static Table createTable(Random random) {
+        Table table = new Table("mixed", TableStorageMode.COLUMNAR);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("i", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("l", TableCellType.TYPE_LONG));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("f", TableCellType.TYPE_FLOAT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("d", TableCellType.TYPE_DOUBLE));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("b", TableCellType.TYPE_BOOLEAN));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("color",
+                                          TableCellType.TYPE_STRING));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("blob", TableCellType.TYPE_BINARY));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("empty", TableCellType.TYPE_INT));
+        String[] colors = { "red", "green", "blue", "" };
+
+        for (int row = 0; row < NUMBER_OF_ROWS; ++row) {
+            byte[] blob = new byte[random.nextInt(4)];
+            random.nextBytes(blob);
+            // The first block has no nulls:
+            boolean maybeNull = row >= TableColumnCodec.BLOCK_SIZE;
+            table.putTableRow(
+                    nullOr(random, maybeNull, random.nextInt()),
+                    nullOr(random, maybeNull, random.nextLong() >> 20),
+                    nullOr(random, maybeNull, random.nextFloat()),
+                    nullOr(random, maybeNull, row % 100 == 0 ?
+                                              Double.NaN :
+                                              random.nextDouble()),
+                    nullOr(random, maybeNull, random.nextBoolean()),
+                    nullOr(random, maybeNull, colors[row % colors.length]),
+                    nullOr(random, maybeNull, "näme " + row),
+                    nullOr(random, maybeNull, blob),
+                    null);
+        }
+
+        return table;
+    }
+
+    private static Object nullOr(Random random,
+                                 boolean maybeNull,
+                                 Object value) {
+        return maybeNull && random.nextInt(5) == 0 ? null : value;
+    }
+}
@@ -0,0 +1,96 @@
+package net.coderodde.javadb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TableColumnStorageTest {
+
+    @Test
+    public void testInsertAndRemoveAgainstList() {
+        Random random = new Random(13L);
+
+        for (TableCellType tableCellType : TableCellType.values()) {
+            TableColumnStorage storage =
+                    TableColumnStorage.create(tableCellType, 0);
+            List<Object> list = new ArrayList<>();
+
+            for (int i = 0; i < 2000; ++i) {
+                if (list.isEmpty() || random.nextInt(3) != 0) {
+                    int index = random.nextInt(list.size() + 1);
+                    Object value = random.nextInt(4) == 0 ?
+                                   null :
+                                   randomValue(tableCellType, random);
+                    storage.insert(index, value);
+                    list.add(index, value);
+                } else {
+                    int index = random.nextInt(list.size());
+                    storage.remove(index);
+                    list.remove(index);
+                }
+
+                assertEquals(list.size(), storage.size());
+            }
+
+            for (int i = 0; i < list.size(); ++i) {
+                assertEquals(list.get(i) == null, storage.isNull(i));
+
+                if (tableCellType == TableCellType.TYPE_BINARY) {
+                    assertArrayEquals((byte[]) list.get(i),
+                                      (byte[]) storage.get(i));
+                } else {
+                    assertEquals(list.get(i), storage.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAppendNulls() {
+        TableColumnStorage storage =
+                TableColumnStorage.create(TableCellType.TYPE_LONG, 0);
+
+        storage.append(1L);
+        storage.appendNulls(100);
+        storage.append(2L);
+
+        assertEquals(102, storage.size());
+        assertEquals(1L, storage.get(0));
+        assertEquals(2L, storage.get(101));
+
+        for (int i = 1; i <= 100; ++i) {
+            assertTrue(storage.isNull(i));
+        }
+    }
+
+    private static Object randomValue(TableCellType tableCellType,
+                                      Random random) {
+        switch (tableCellType) {
+            case TYPE_INT:
+                return random.nextInt();
+
+            case TYPE_LONG:
+                return random.nextLong();
+
+            case TYPE_FLOAT:
+                return random.nextFloat();
+
+            case TYPE_DOUBLE:
+                return random.nextDouble();
+
+            case TYPE_BOOLEAN:
+                return random.nextBoolean();
+
+            case TYPE_STRING:
+                return "s" + random.nextInt(100);
+
+            case TYPE_BINARY:
+                return new byte[]{ (byte) random.nextInt() };
+
+            default:
+                throw new IllegalStateException();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package net.coderodde.javadb;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TableCompositeIndexTest {
+
+    private static final TableColumnDescriptor CITY =
+            new TableColumnDescriptor("city", TableCellType.TYPE_STRING);
+
+    private static final TableColumnDescriptor YEAR =
+            new TableColumnDescriptor("year", TableCellType.TYPE_INT);
+
+    private static final TableColumnDescriptor PRICE =
+            new TableColumnDescriptor("price", TableCellType.TYPE_DOUBLE);
+
+    @Test
+    public void testPrefixEqualityAndRange() {
+        Table table = createTable(TableStorageMode.ROW_ORIENTED);
+        table.putTableRow("Turku", 2001, 10.0);
+        table.putTableRow("Espoo", 2003, 20.0);
+        table.putTableRow("Turku", 1999, 30.0);
+        table.putTableRow(null, 2001, 40.0);
+        table.putTableRow("Turku", null, 50.0);
+        table.putTableRow("Turku", 2001, 60.0);
+        table.createCompositeIndex(CITY, YEAR);
+
+        assertTrue(table.hasCompositeIndex(CITY, YEAR));
+        assertFalse(table.hasCompositeIndex(YEAR, CITY));
+
+        List<TableRow> result =
+                table.findRows(new TableColumnDescriptor[]{ CITY, YEAR },
+                               new Object[]{ "Turku", 2001 });
+        assertEquals(2, result.size());
+        assertEquals(10.0, result.get(0).get(2).getDoubleValue(), 0.0);
+        assertEquals(60.0, result.get(1).get(2).getDoubleValue(), 0.0);
+
+        assertEquals(4, table.findRows(new TableColumnDescriptor[]{ CITY },
+                                       new Object[]{ "Turku" }).size());
+        assertEquals(1, table.findRows(new TableColumnDescriptor[]{ CITY },
+                                       new Object[]{ null }).size());
+
+        result = table.rangeScan(new TableColumnDescriptor[]{ CITY },
+                                 new Object[]{ "Turku" },
+                                 YEAR,
+                                 1990,
+                                 2001);
+        assertEquals(3, result.size());
+        assertEquals(30.0, result.get(0).get(2).getDoubleValue(), 0.0);
+        assertEquals(10.0, result.get(1).get(2).getDoubleValue(), 0.0);
+        assertEquals(60.0, result.get(2).get(2).getDoubleValue(), 0.0);
+
+        table.getTableRow(4).get(1).setIntValue(2000);
+        result = table.rangeScan(new TableColumnDescriptor[]{ CITY },
+                                 new Object[]{ "Turku" },
+                                 YEAR,
+                                 2000,
+                                 null);
+        assertEquals(3, result.size());
+        assertEquals(50.0, result.get(0).get(2).getDoubleValue(), 0.0);
+
+        table.dropCompositeIndex(CITY, YEAR);
+        assertFalse(table.hasCompositeIndex(CITY, YEAR));
+    }
+
+    @Test
+    public void testRowOrientedTableIndex() {
+        testTableIndex(TableStorageMode.ROW_ORIENTED);
+    }
+
+    @Test
+    public void testColumnarTableIndex() {
+        testTableIndex(TableStorageMode.COLUMNAR);
+    }
+
+    @Test
+    public void testIndexSurvivesColumnChanges() {
+        Table table = createTable(TableStorageMode.COLUMNAR);
+        table.putTableRow("Oulu", 2010, 1.0);
+        table.putTableRow("Oulu", 2011, 2.0);
+        table.createCompositeIndex(YEAR, PRICE);
+        table.createCompositeIndex(CITY, YEAR);
+
+        table.removeTableColumnDescriptor("city");
+        assertTrue(table.hasCompositeIndex(YEAR, PRICE));
+
+        table.putTableRowAt(0, 2011, 3.0);
+        List<TableRow> result =
+                table.rangeScan(new TableColumnDescriptor[]{ YEAR },
+                                new Object[]{ 2011 },
+                                PRICE,
+                                null,
+                                null);
+        assertEquals(2, result.size());
+        assertEquals(2.0, result.get(0).get(1).getDoubleValue(), 0.0);
+        assertEquals(3.0, result.get(1).get(1).getDoubleValue(), 0.0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testThrowsOnDuplicateIndex() {
+        Table table = createTable(TableStorageMode.ROW_ORIENTED);
+        table.createCompositeIndex(CITY, YEAR);
+        table.createCompositeIndex(CITY, YEAR);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnSingleColumn() {
+        createTable(TableStorageMode.ROW_ORIENTED).createCompositeIndex(CITY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnRepeatedColumn() {
+        createTable(TableStorageMode.ROW_ORIENTED)
+                .createCompositeIndex(CITY, YEAR, CITY);
+    }
+
+    private static void testTableIndex(TableStorageMode tableStorageMode) {
+        Random random = new Random(11L);
+        Table indexed = createTable(tableStorageMode);
+        Table plain = createTable(tableStorageMode);
+
+        for (int i = 0; i < 300; ++i) {
+            Object[] values = randomValues(random);
+            indexed.putTableRow(values);
+            plain.putTableRow(values);
+        }
+
+        indexed.createCompositeIndex(CITY, YEAR, PRICE);
+        indexed.createCompositeIndex(YEAR, CITY);
+        indexed.createTreeIndex("year");
+
+        for (int i = 0; i < 4000; ++i) {
+            int numberOfRows = plain.getNumberOfRows();
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    int index = random.nextInt(numberOfRows + 1);
+                    Object[] values = randomValues(random);
+                    indexed.putTableRowAt(index, values);
+                    plain.putTableRowAt(index, values);
+                    break;
+
+                case 1:
+                    if (numberOfRows > 0) {
+                        int row = random.nextInt(numberOfRows);
+                        indexed.removeRow(row);
+                        plain.removeRow(row);
+                    }
+
+                    break;
+
+                default:
+                    if (numberOfRows > 0) {
+                        int row = random.nextInt(numberOfRows);
+                        int column = random.nextInt(3);
+                        Object value = randomValues(random)[column];
+                        indexed.getTableRow(row).get(column).setValue(value);
+                        plain.getTableRow(row).get(column).setValue(value);
+                    }
+
+                    break;
+            }
+        }
+
+        assertEquals(plain, indexed);
+
+        for (int i = 0; i < 5; ++i) {
+            String city = i == 0 ? null : "c" + i;
+            TableColumnDescriptor[] columns = { CITY, YEAR };
+            Object[] values = { city, 2000 + i };
+
+            assertEquals(plain.findRows(columns, values),
+                         indexed.findRows(columns, values));
+            assertEquals(plain.findRows(new TableColumnDescriptor[]{ CITY },
+                                        new Object[]{ city }),
+                         indexed.findRows(new TableColumnDescriptor[]{ CITY },
+                                          new Object[]{ city }));
+            assertEquals(plain.rangeScan(new TableColumnDescriptor[]{ CITY },
+                                         new Object[]{ city },
+                                         YEAR,
+                                         2001,
+                                         2003),
+                         indexed.rangeScan(new TableColumnDescriptor[]{ CITY },
+                                           new Object[]{ city },
+                                           YEAR,
+                                           2001,
+                                           2003));
+            assertEquals(plain.rangeScan(columns, values, PRICE, -0.5, null),
+                         indexed.rangeScan(columns, values, PRICE, -0.5, null));
+            assertEquals(plain.rangeScan(new TableColumnDescriptor[]{ YEAR },
+                                         new Object[]{ 2000 + i },
+                                         CITY,
+                                         "c2",
+                                         null),
+                         indexed.rangeScan(new TableColumnDescriptor[]{ YEAR },
+                                           new Object[]{ 2000 + i },
+                                           CITY,
+                                           "c2",
+                                           null));
+        }
+    }
+
+    private static Object[] randomValues(Random random) {
+        return new Object[]{
+            random.nextInt(10) == 0 ? null : "c" + (1 + random.nextInt(4)),
+            random.nextInt(10) == 0 ? null : 2000 + random.nextInt(5),
+            random.nextInt(10) == 0 ? null : random.nextDouble() * 2.0 - 1.0
+        };
+    }
+
+    private static Table createTable(TableStorageMode tableStorageMode) {
+        Table table = new Table("composite", tableStorageMode);
+        table.addTableColumnDescriptor(CITY);
+        table.addTableColumnDescriptor(YEAR);
+        table.addTableColumnDescriptor(PRICE);
+        return table;
+    }
+}
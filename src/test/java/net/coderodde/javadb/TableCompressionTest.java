@@ -0,0 +1,336 @@
+package net.coderodde.javadb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class TableCompressionTest {
+
+    private static final int NUMBER_OF_ROWS = 20000;
+
+    private static final String[] WORDS = {
+        "alpha", "beta", "gamma", "delta", "epsilon"
+    };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testCompressedTablesSurviveRoundTrip() throws IOException {
+        for (TableCompressionCodec codec : new TableCompressionCodec[]{
+                TableCompression.DEFLATE, TableCompression.LZ }) {
+            for (TableStorageMode tableStorageMode
+                    : TableStorageMode.values()) {
+                Database db = new Database("db");
+                Table table = createTable(tableStorageMode);
+                db.addTable(table);
+                File plain = temporaryFolder.newFile();
+                db.save(plain);
+
+                table.setCompressionCodec(codec);
+                File compressed = temporaryFolder.newFile();
+                db.save(compressed);
+
+                assertTrue(compressed.length() < plain.length() * 4 / 5);
+
+                for (Database read : new Database[]{
+                        Database.read(compressed),
+                        Database.open(compressed) }) {
+                    Table readTable = read.getTable("table");
+                    assertEquals(db, read);
+                    assertSame(codec, readTable.getCompressionCodec());
+                    assertEquals(tableStorageMode,
+                                 readTable.getStorageMode());
+                }
+
+                assertEquals(table, roundTrip(table));
+            }
+        }
+    }
+
+    @Test
+    public void testStreamedFramesMatchBuffer() throws IOException {
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Table table = createTable(tableStorageMode);
+            table.setCompressionCodec(TableCompression.LZ);
+            File file = temporaryFolder.newFile();
+
+            // Each frame is written as soon as it is full:
+            try (FileChannel fileChannel =
+                    FileChannel.open(file.toPath(),
+                                     StandardOpenOption.WRITE);
+                 BufferedChannelWriter bufferedChannelWriter =
+                         new BufferedChannelWriter(fileChannel, 64)) {
+                table.serialize(bufferedChannelWriter);
+            }
+
+            assertArrayEquals(table.serialize().array(),
+                              Files.readAllBytes(file.toPath()));
+        }
+    }
+
+    @Test
+    public void testReadsCountedFrames() {
+        Table table = createTable(TableStorageMode.ROW_ORIENTED);
+        table.setCompressionCodec(TableCompression.DEFLATE);
+        TableRowCodec tableRowCodec = table.createTableRowCodec();
+        int headerLength = Table.getHeaderSerializationLength(
+                table.getTableName(),
+                table.tableColumnDescriptorList,
+                tableRowCodec);
+        ByteBuffer byteBuffer =
+                ByteBuffer.allocate(table.getSerializationLength(
+                                            tableRowCodec))
+                          .order(ByteOrder.LITTLE_ENDIAN);
+        table.serialize(byteBuffer, tableRowCodec);
+        ByteBuffer frames = tableRowCodec.getEncodedData();
+        int numberOfFrames =
+                TableCompression.readFrames(frames.duplicate()
+                                                  .order(
+                                                   ByteOrder.LITTLE_ENDIAN),
+                                            10).size();
+        assertTrue(numberOfFrames > 1);
+
+        // Up to version 9, the frame count precedes the frames, which have
+        // no end marker:
+        ByteBuffer counted =
+                ByteBuffer.allocate(byteBuffer.capacity())
+                          .order(ByteOrder.LITTLE_ENDIAN);
+        counted.put(byteBuffer.array(), 0, headerLength)
+               .putInt(numberOfFrames)
+               .put(byteBuffer.array(),
+                    headerLength,
+                    frames.remaining() - Integer.BYTES);
+        counted.flip();
+
+        assertEquals(table, Table.deserialize(counted, 9));
+        assertFalse(counted.hasRemaining());
+    }
+
+    @Test
+    public void testLazyTableDecompressesOnDemand() throws IOException {
+        Database db = new Database("db");
+        Table table = createTable(TableStorageMode.ROW_ORIENTED);
+        table.setCompressionCodec(TableCompression.LZ);
+        db.addTable(table);
+        File file = temporaryFolder.newFile("first.dat");
+        db.save(file);
+
+        Database opened = Database.open(file);
+        Table openedTable = opened.getTable("table");
+        assertEquals(table.getTableRow(12345), openedTable.getTableRow(12345));
+        openedTable.getTableRow(12345).get(1).setStringValue("changed");
+        table.getTableRow(12345).get(1).setStringValue("changed");
+
+        // The untouched rows are copied from the decompressed frames:
+        File second = temporaryFolder.newFile("second.dat");
+        opened.save(second);
+        assertEquals(db, Database.read(second));
+        assertEquals(db, Database.open(second));
+
+        // Dropping the compression of an opened table:
+        Database reopened = Database.open(second);
+        reopened.getTable("table").setCompressionCodec(null);
+        File third = temporaryFolder.newFile("third.dat");
+        reopened.save(third);
+        Database read = Database.read(third);
+        assertEquals(db, read);
+        assertNull(read.getTable("table").getCompressionCodec());
+        assertTrue(third.length() > second.length());
+    }
+
+    @Test
+    public void testCustomCodec() throws IOException {
+        TableCompressionCodec codec = new ReversingCodec();
+        Table table = createTable(TableStorageMode.ROW_ORIENTED);
+
+        try {
+            table.setCompressionCodec(codec);
+            fail("An unregistered codec was accepted.");
+        } catch (IllegalArgumentException ex) {
+
+        }
+
+        TableCompression.register(codec);
+        TableCompression.register(codec);
+        assertSame(codec, TableCompression.getCodec("reversing"));
+
+        try {
+            TableCompression.register(new ReversingCodec());
+            fail("A codec name was registered twice.");
+        } catch (IllegalArgumentException ex) {
+
+        }
+
+        table.setCompressionCodec(codec);
+        Database db = new Database("db");
+        db.addTable(table);
+        File file = temporaryFolder.newFile();
+        db.save(file);
+
+        assertEquals(db, Database.open(file));
+    }
+
+    @Test(expected = BadDataFormatException.class)
+    public void testUnknownCodecIsRejected() {
+        Database db = new Database("db");
+        Table table = createTable(TableStorageMode.ROW_ORIENTED);
+        table.setCompressionCodec(TableCompression.LZ);
+        db.addTable(table);
+
+        ByteBuffer byteBuffer = db.serialize();
+        byte[] name = { 2, 0, 0, 0, 'l', 'z' };
+        int index = indexOf(byteBuffer.array(), name);
+        assertTrue(index > 0);
+        byteBuffer.put(index + name.length - 1, (byte) 'q');
+        byteBuffer.position(0);
+        DatabaseFileFormat.deserialize(byteBuffer, false);
+    }
+
+    @Test
+    public void testLzCodec() {
+        Random random = new Random(3L);
+        TableCompressionCodec codec = TableCompression.LZ;
+
+        for (int length = 0; length < 300; ++length) {
+            byte[] data = new byte[length];
+
+            for (int i = 0; i < length; ++i) {
+                data[i] = (byte) (length % 3 == 0 ?
+                                  random.nextInt() :
+                                  random.nextInt(3));
+            }
+
+            assertRoundTrip(codec, data);
+        }
+
+        byte[] run = new byte[100000];
+        Arrays.fill(run, (byte) 7);
+        assertTrue(codec.compress(run, 0, run.length).length < 1000);
+        assertRoundTrip(codec, run);
+
+        byte[] text = String.join(" ", WORDS)
+                            .getBytes(StandardCharsets.UTF_8);
+        byte[] padded = new byte[text.length + 10];
+        System.arraycopy(text, 0, padded, 5, text.length);
+        byte[] compressed = codec.compress(padded, 5, text.length);
+        byte[] target = new byte[text.length];
+        codec.decompress(compressed, 0, compressed.length, target);
+        assertArrayEquals(text, target);
+    }
+
+    @Test(expected = BadDataFormatException.class)
+    public void testCorruptLzFrameIsRejected() {
+        byte[] data = new byte[1000];
+        Arrays.fill(data, (byte) 1);
+        byte[] compressed = TableCompression.LZ.compress(data, 0, 1000);
+        TableCompression.LZ.decompress(compressed,
+                                       0,
+                                       compressed.length - 1,
+                                       new byte[1000]);
+    }
+
+    @Test(expected = BadDataFormatException.class)
+    public void testCorruptDeflateFrameIsRejected() {
+        byte[] data = new byte[1000];
+        byte[] compressed = TableCompression.DEFLATE.compress(data, 0, 1000);
+        TableCompression.DEFLATE.decompress(compressed,
+                                            0,
+                                            compressed.length / 2,
+                                            new byte[1000]);
+    }
+
+    private static void assertRoundTrip(TableCompressionCodec codec,
+                                        byte[] data) {
+        byte[] compressed = codec.compress(data, 0, data.length);
+        byte[] target = new byte[data.length];
+        codec.decompress(compressed, 0, compressed.length, target);
+        assertArrayEquals(data, target);
+    }
+
+    private static Table createTable(TableStorageMode tableStorageMode) {
+        Table table = new Table("table", tableStorageMode);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("text", TableCellType.TYPE_STRING));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("value",
+                                          TableCellType.TYPE_DOUBLE));
+        Random random = new Random(1L);
+
+        for (int row = 0; row < NUMBER_OF_ROWS; ++row) {
+            table.putTableRow(
+                    row,
+                    WORDS[random.nextInt(WORDS.length)] + " and " +
+                    WORDS[random.nextInt(WORDS.length)] + " " + row % 100,
+                    row % 7 == 0 ? null : (double) (row % 10));
+        }
+
+        return table;
+    }
+
+    private static Table roundTrip(Table table) {
+        ByteBuffer byteBuffer = table.serialize();
+        Table deserialized = Table.deserialize(byteBuffer);
+        assertFalse(byteBuffer.hasRemaining());
+        return deserialized;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] pattern) {
+        for (int i = 0; i + pattern.length <= bytes.length; ++i) {
+            if (Arrays.equals(Arrays.copyOfRange(bytes,
+                                                 i,
+                                                 i + pattern.length),
+                              pattern)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * A codec that merely reverses the bytes.
+     */
+    private static final class ReversingCodec
+            implements TableCompressionCodec {
+
+        @Override
+        public String getName() {
+            return "reversing";
+        }
+
+        @Override
+        public byte[] compress(byte[] data, int offset, int length) {
+            byte[] compressedData = new byte[length];
+
+            for (int i = 0; i < length; ++i) {
+                compressedData[i] = data[offset + length - 1 - i];
+            }
+
+            return compressedData;
+        }
+
+        @Override
+        public void decompress(byte[] compressedData,
+                               int offset,
+                               int length,
+                               byte[] target) {
+            for (int i = 0; i < length; ++i) {
+                target[i] = compressedData[offset + length - 1 - i];
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package net.coderodde.javadb;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class TableConcurrencyTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Queue<Throwable> failureQueue =
+            new ConcurrentLinkedQueue<>();
+
+    @Test
+    public void testInsertsIntoDistinctTables() throws InterruptedException {
+        Database db = new Database("concurrent_db");
+        db.setConcurrent(true);
+        List<Thread> threadList = new ArrayList<>();
+        AtomicBoolean done = new AtomicBoolean();
+
+        for (int i = 0; i < 4; ++i) {
+            Table table = createTable(db,
+                                      "t" + i,
+                                      TableStorageMode.values()[i % 2]);
+            assertTrue(table.isConcurrent());
+            threadList.add(start(() -> insert(table, 0, 5000)));
+        }
+
+        Thread reader = start(() -> {
+            while (!done.get()) {
+                for (int i = 0; i < 4; ++i) {
+                    long previousId = -1L;
+
+                    for (TableRow tableRow : db.getTable("t" + i)) {
+                        long id = (Integer) tableRow.get(0).getValue();
+                        assertTrue(previousId < id);
+                        previousId = id;
+                    }
+                }
+            }
+        });
+
+        join(threadList);
+        done.set(true);
+        reader.join();
+        assertNoFailures();
+
+        for (int i = 0; i < 4; ++i) {
+            checkTable(db.getTable("t" + i), 5000);
+        }
+    }
+
+    @Test
+    public void testInsertsAndUpdatesOfOneTable() throws InterruptedException {
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Table table =
+                    createTable(new Database("db"), "t", tableStorageMode);
+            table.setConcurrent(true);
+            List<Thread> threadList = new ArrayList<>();
+
+            for (int i = 0; i < 4; ++i) {
+                int firstId = i * 2000;
+                threadList.add(start(() -> {
+                    insert(table, firstId, 2000);
+
+                    for (int j = 0; j < 1000; ++j) {
+                        TableRow tableRow = table.getTableRow(
+                                j % table.getNumberOfRows());
+                        tableRow.get(1).setLongValue((long) j);
+                    }
+                }));
+            }
+
+            threadList.add(start(() -> {
+                for (int j = 0; j < 200; ++j) {
+                    table.select("id")
+                         .where(TablePredicate.greaterThan("value", 10L));
+                    table.top(10, "value");
+                }
+            }));
+
+            join(threadList);
+            assertNoFailures();
+            assertEquals(8000, table.getNumberOfRows());
+
+            for (int id = 0; id < 8000; ++id) {
+                assertEquals(1, table.findRows("id", id).size());
+            }
+
+            for (TableRow tableRow : table) {
+                Long value = (Long) tableRow.get(1).getValue();
+                assertEquals(1, table.findRows("value", value)
+                                     .stream()
+                                     .filter((row) -> row.equals(tableRow))
+                                     .count());
+            }
+        }
+    }
+
+    @Test
+    public void testCheckpointsWhileWritingInParallel()
+            throws IOException, InterruptedException {
+        File file = temporaryFolder.newFile("concurrent.dat");
+        Database db = new Database("concurrent_db");
+        List<Table> tableList = new ArrayList<>();
+
+        for (int i = 0; i < 3; ++i) {
+            tableList.add(
+                    createTable(db, "t" + i, TableStorageMode.values()[i % 2]));
+        }
+
+        db.save(file);
+        db.enableWriteAheadLog(1L);
+        db.setCheckpointTriggers(4096L, Long.MAX_VALUE);
+        db.setConcurrent(true);
+        List<Thread> threadList = new ArrayList<>();
+
+        for (Table table : tableList) {
+            threadList.add(start(() -> {
+                insert(table, 0, 3000);
+
+                for (int j = 0; j < 500; ++j) {
+                    table.getTableRow(j).get(1).setLongValue(-1L);
+                    table.removeRow(table.getNumberOfRows() - 1);
+                }
+            }));
+        }
+
+        db.save(file);
+        join(threadList);
+        assertNoFailures();
+
+        // Waits for the checkpoint in progress:
+        db.disableWriteAheadLog();
+        assertEquals(db, Database.read(file));
+    }
+
+    @Test
+    public void testDeleteAndRenameWhileInserting()
+            throws InterruptedException {
+        Database db = new Database("concurrent_db");
+        db.setConcurrent(true);
+        Table table = createTable(db, "t", TableStorageMode.ROW_ORIENTED);
+        Thread writer = start(() -> insert(table, 0, 5000));
+
+        for (int i = 0; i < 100; ++i) {
+            createTable(db, "u" + i, TableStorageMode.COLUMNAR);
+            db.getTable("u" + i).setTableName("v" + i);
+            db.deleteTable("v" + i);
+        }
+
+        writer.join();
+        assertNoFailures();
+        checkTable(db.getTable("t"), 5000);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testReaderCannotLockForWriting() {
+        OptimisticLock optimisticLock = new OptimisticLock();
+        long stamp = optimisticLock.readLock();
+
+        try {
+            optimisticLock.writeLock();
+        } finally {
+            optimisticLock.unlockRead(stamp);
+        }
+    }
+
+    @Test
+    public void testLockIsReentrant() {
+        OptimisticLock optimisticLock = new OptimisticLock();
+        long writeStamp = optimisticLock.writeLock();
+        long stamp = optimisticLock.writeLock();
+        long readStamp = optimisticLock.readLock();
+
+        assertEquals(42, optimisticLock.readInt(() -> 42));
+        optimisticLock.unlockRead(readStamp);
+        optimisticLock.unlockWrite(stamp);
+        optimisticLock.unlockWrite(writeStamp);
+
+        long readStamp1 = optimisticLock.readLock();
+        long readStamp2 = optimisticLock.readLock();
+        assertEquals("x", optimisticLock.read(() -> "x"));
+        optimisticLock.unlockRead(readStamp2);
+        optimisticLock.unlockRead(readStamp1);
+        optimisticLock.unlockWrite(optimisticLock.writeLock());
+    }
+
+    private void insert(Table table, int firstId, int numberOfRows) {
+        for (int id = firstId; id < firstId + numberOfRows; ++id) {
+            table.putTableRow(id, (long) id % 100);
+        }
+    }
+
+    private static void checkTable(Table table, int numberOfRows) {
+        assertEquals(numberOfRows, table.getNumberOfRows());
+
+        for (int id = 0; id < numberOfRows; ++id) {
+            assertEquals(1, table.findRows("id", id).size());
+            assertEquals(id, table.getTableRow(id).get(0).getValue());
+        }
+
+        assertEquals(numberOfRows / 100,
+                     table.rangeScan("value", 7L, 7L).size());
+    }
+
+    private static Table createTable(Database db,
+                                     String tableName,
+                                     TableStorageMode tableStorageMode) {
+        Table table = db.createTable(
+                tableName,
+                tableStorageMode,
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT),
+                new TableColumnDescriptor("value", TableCellType.TYPE_LONG));
+        table.createHashIndex("id");
+        table.createTreeIndex("value");
+        return table;
+    }
+
+    private Thread start(Runnable runnable) {
+        Thread thread = new Thread(() -> {
+            try {
+                runnable.run();
+            } catch (Throwable ex) {
+                failureQueue.add(ex);
+            }
+        });
+
+        thread.start();
+        return thread;
+    }
+
+    private static void join(List<Thread> threadList)
+            throws InterruptedException {
+        for (Thread thread : threadList) {
+            thread.join();
+        }
+    }
+
+    private void assertNoFailures() {
+        if (!failureQueue.isEmpty()) {
+            throw new AssertionError(failureQueue.peek());
+        }
+    }
+}
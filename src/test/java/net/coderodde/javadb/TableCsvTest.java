@@ -0,0 +1,191 @@
+package net.coderodde.javadb;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class TableCsvTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testExportAndImportRoundTrip() throws IOException {
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Table table = createTable(tableStorageMode);
+            table.putTableRow(1, -5L, 1.5f, 2.25, true, "plain",
+                              new byte[]{ 1, 2, 3 });
+            table.putTableRow(null, Long.MIN_VALUE, null, -0.5, false,
+                              "with, comma and \"quotes\"\nand a line",
+                              new byte[0]);
+            table.putTableRow(Integer.MIN_VALUE, null, -3.0f, null, null,
+                              "", null);
+            table.putTableRow(Integer.MAX_VALUE, Long.MAX_VALUE, 0.0f, 1e300,
+                              true, null, null);
+            table.putTableRow(7, 7L, 7.0f, 7.0, false, "Юникод ✓");
+
+            File file = temporaryFolder.newFile();
+            table.exportCsv(file, true);
+
+            Table imported = createTable(tableStorageMode);
+            assertEquals(5, imported.importCsv(file, true));
+            assertEquals(table, imported);
+        }
+    }
+
+    @Test
+    public void testImportInManySmallChunks() throws IOException {
+        Table table = createTable(TableStorageMode.COLUMNAR);
+
+        for (int i = 0; i < 1000; ++i) {
+            table.putTableRow(i, (long) i * i, i / 4.0f, i / 8.0, i % 2 == 0,
+                              i % 3 == 0 ? "line\nbreak " + i : "s" + i,
+                              i % 5 == 0 ? null : new byte[]{ (byte) i });
+        }
+
+        File file = temporaryFolder.newFile();
+        table.exportCsv(file, false);
+        Table imported = createTable(TableStorageMode.ROW_ORIENTED);
+
+        try (FileChannel fileChannel =
+                FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // Most records straddle the chunk boundaries:
+            assertEquals(1000, TableCsv.importCsv(imported,
+                                                  fileChannel,
+                                                  false,
+                                                  16));
+        }
+
+        assertEquals(table.getNumberOfRows(), imported.getNumberOfRows());
+
+        for (int i = 0; i < table.getNumberOfRows(); ++i) {
+            assertEquals(table.getTableRow(i), imported.getTableRow(i));
+        }
+    }
+
+    @Test
+    public void testImportLenientRecords() throws IOException {
+        Table table = createTable(TableStorageMode.ROW_ORIENTED);
+        File file = write("id,key\r\n" +
+                          "1,2\r\n" +
+                          "\r\n" +
+                          "\"3\",,\"1.5\"\n" +
+                          "\n" +
+                          "-4,5,,,TRUE,\"a\"\"b\"");
+
+        // The empty lines are records of nulls:
+        assertEquals(5, table.importCsv(file, true));
+        assertEquals(2L, table.getTableRow(0).get(1).getValue());
+        assertNull(table.getTableRow(0).get(5).getValue());
+        assertEquals(3, table.getTableRow(2).get(0).getValue());
+        assertNull(table.getTableRow(2).get(1).getValue());
+        assertEquals(1.5f, table.getTableRow(2).get(2).getValue());
+        assertEquals(-4, table.getTableRow(4).get(0).getValue());
+        assertEquals(true, table.getTableRow(4).get(4).getValue());
+        assertEquals("a\"b", table.getTableRow(4).get(5).getValue());
+
+        for (int row : new int[]{ 1, 3 }) {
+            for (int column = 0; column < 7; ++column) {
+                assertNull(table.getTableRow(row).get(column).getValue());
+            }
+        }
+    }
+
+    @Test
+    public void testExportAndImportOneColumnWithNulls() throws IOException {
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Table table = new Table("csv", tableStorageMode);
+            table.addTableColumnDescriptor(
+                    new TableColumnDescriptor("s", TableCellType.TYPE_STRING));
+            table.putTableRow((Object) null);
+            table.putTableRow("x");
+            table.putTableRow((Object) null);
+            table.putTableRow("");
+            table.putTableRow("y");
+            table.putTableRow((Object) null);
+
+            for (boolean header : new boolean[]{ false, true }) {
+                File file = temporaryFolder.newFile();
+                table.exportCsv(file, header);
+
+                Table imported = new Table("csv", tableStorageMode);
+                imported.addTableColumnDescriptor(
+                        new TableColumnDescriptor("s",
+                                                  TableCellType.TYPE_STRING));
+                assertEquals(6, imported.importCsv(file, header));
+                assertEquals(table, imported);
+            }
+        }
+    }
+
+    @Test
+    public void testImportMalformedFiles() throws IOException {
+        checkMalformed("1,2\n3,x\n", "byte offset 6");
+        checkMalformed("1,2\n2147483648\n", "byte offset 4");
+        checkMalformed("1,2,3,4,true,s,AA==,extra\n", "More fields");
+        checkMalformed("1,\"2\n", "Unterminated quote");
+        checkMalformed("1,\"2\"3\n", "closing quote");
+        checkMalformed("1,2,3,4,yes\n", "Not a boolean");
+        checkMalformed("1,2,3,4,true,a\"b\n", "Unexpected quote");
+    }
+
+    @Test
+    public void testExportTableView() {
+        Table table = createTable(TableStorageMode.ROW_ORIENTED);
+        table.putTableRow(1, 10L, null, null, null, "one");
+        table.putTableRow(2, 20L, null, null, null, "two, too");
+        TableView tableView = table.createTableView(
+                table.getTableColumnDescriptor("s"),
+                table.getTableColumnDescriptor("id"));
+        tableView.addTableRow(table.getTableRow(0));
+        tableView.addTableRow(table.getTableRow(1));
+        StringWriter writer = new StringWriter();
+        tableView.exportCsv(writer, true);
+
+        assertEquals("s,id\none,1\n\"two, too\",2\n", writer.toString());
+    }
+
+    private void checkMalformed(String text, String messagePart)
+            throws IOException {
+        try {
+            createTable(TableStorageMode.COLUMNAR).importCsv(write(text),
+                                                             false);
+            fail("The import of a malformed file must fail.");
+        } catch (BadDataFormatException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains(messagePart));
+        }
+    }
+
+    private File write(String text) throws IOException {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static Table createTable(TableStorageMode tableStorageMode) {
+        Table table = new Table("csv", tableStorageMode);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("key", TableCellType.TYPE_LONG));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("f", TableCellType.TYPE_FLOAT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("d", TableCellType.TYPE_DOUBLE));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("b", TableCellType.TYPE_BOOLEAN));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("s", TableCellType.TYPE_STRING));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("bin", TableCellType.TYPE_BINARY));
+        return table;
+    }
+}
@@ -0,0 +1,257 @@
+package net.coderodde.javadb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TableHashIndexTest {
+
+    @Test
+    public void testAddFindRemove() {
+        TableHashIndex tableHashIndex =
+                TableHashIndex.create(TableCellType.TYPE_LONG, 0);
+
+        for (int row = 0; row < 1000; ++row) {
+            tableHashIndex.add((long) (row % 100), row);
+        }
+
+        assertEquals(100, tableHashIndex.getNumberOfKeys());
+        assertEquals(1000, tableHashIndex.getNumberOfRows());
+        assertArrayEquals(new int[]{ 7, 107, 207, 307, 407, 507, 607, 707,
+                                     807, 907 },
+                          tableHashIndex.find(7L));
+
+        for (int row = 0; row < 1000; row += 2) {
+            tableHashIndex.remove((long) (row % 100), row);
+        }
+
+        assertEquals(50, tableHashIndex.getNumberOfKeys());
+        assertEquals(0, tableHashIndex.find(8L).length);
+        assertEquals(10, tableHashIndex.find(9L).length);
+
+        for (int row = 1; row < 1000; row += 2) {
+            tableHashIndex.remove((long) (row % 100), row);
+        }
+
+        assertEquals(0, tableHashIndex.getNumberOfKeys());
+        assertEquals(0, tableHashIndex.getNumberOfRows());
+    }
+
+    @Test
+    public void testRandomOperationsAgainstScan() {
+        Random random = new Random(13L);
+        TableHashIndex tableHashIndex =
+                TableHashIndex.create(TableCellType.TYPE_INT, 0);
+        List<Integer> values = new ArrayList<>();
+
+        for (int i = 0; i < 20000; ++i) {
+            if (values.isEmpty() || random.nextInt(3) > 0) {
+                int row = random.nextInt(values.size() + 1);
+                int value = random.nextInt(500);
+                tableHashIndex.shiftRows(row, 1);
+                tableHashIndex.add(value, row);
+                values.add(row, value);
+            } else {
+                int row = random.nextInt(values.size());
+                tableHashIndex.remove(values.remove(row), row);
+                tableHashIndex.shiftRows(row + 1, -1);
+            }
+        }
+
+        for (int value = 0; value < 500; ++value) {
+            List<Integer> expected = new ArrayList<>();
+
+            for (int row = 0; row < values.size(); ++row) {
+                if (values.get(row) == value) {
+                    expected.add(row);
+                }
+            }
+
+            int[] actual = tableHashIndex.find(value);
+            assertEquals(expected.size(), actual.length);
+
+            for (int i = 0; i < actual.length; ++i) {
+                assertEquals((int) expected.get(i), actual[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testBinaryKeysAreCopied() {
+        TableHashIndex tableHashIndex =
+                TableHashIndex.create(TableCellType.TYPE_BINARY, 0);
+        byte[] key = { 1, 2, 3 };
+        tableHashIndex.add(key, 0);
+        key[0] = 9;
+
+        assertArrayEquals(new int[]{ 0 },
+                          tableHashIndex.find(new byte[]{ 1, 2, 3 }));
+        assertEquals(0, tableHashIndex.find(key).length);
+    }
+
+    @Test
+    public void testRowOrientedTableIndex() {
+        testTableIndex(TableStorageMode.ROW_ORIENTED);
+    }
+
+    @Test
+    public void testColumnarTableIndex() {
+        testTableIndex(TableStorageMode.COLUMNAR);
+    }
+
+    @Test
+    public void testIndexSurvivesColumnChanges() {
+        Table table = createTable(TableStorageMode.ROW_ORIENTED);
+        table.putTableRow(1, 10L, "a");
+        table.putTableRow(2, 20L, "b");
+        table.createHashIndex("name");
+        table.createHashIndex("id");
+
+        table.removeTableColumnDescriptor("id");
+        assertFalse(table.containsTableColumnDescriptor("id"));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+
+        assertFalse(table.hasHashIndex("id"));
+        assertTrue(table.hasHashIndex("name"));
+        assertEquals(20L, (long) table.findRows("name", "b")
+                                      .get(0).get(0).getLongValue());
+
+        table.getTableRow(0).get(1).setStringValue("b");
+        assertEquals(2, table.findRows("name", "b").size());
+    }
+
+    @Test
+    public void testIndexSurvivesStorageModeChange() {
+        Table table = createTable(TableStorageMode.ROW_ORIENTED);
+        table.putTableRow(1, 10L, "a");
+        table.putTableRow(2, 20L, "b");
+        table.createHashIndex("score");
+        table.setStorageMode(TableStorageMode.COLUMNAR);
+        table.putTableRowAt(0, 3, 20L, "c");
+
+        List<TableRow> result = table.findRows("score", 20L);
+        assertEquals(2, result.size());
+        assertEquals(3, (int) result.get(0).get(0).getIntValue());
+        assertEquals(2, (int) result.get(1).get(0).getIntValue());
+    }
+
+    @Test
+    public void testEqualBoundsUseIndex() {
+        Table table = createTable(TableStorageMode.ROW_ORIENTED);
+        table.putTableRow(1, 1000L, "a");
+        table.putTableRow(2, 2000L, "b");
+        table.putTableRow(3, 1000L, "c");
+        table.createHashIndex("score");
+
+        // Equal but distinct bounds must find the hash index as well:
+        Long low = Long.valueOf(1000L);
+        Long high = Long.valueOf(1000L);
+        assertNotSame(low, high);
+        assertArrayEquals(new int[]{ 0, 2 },
+                          table.findIndexedRows(1, low, high));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testThrowsOnDuplicateIndex() {
+        Table table = createTable(TableStorageMode.ROW_ORIENTED);
+        table.createHashIndex("id");
+        table.createHashIndex("id");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnUnknownColumn() {
+        createTable(TableStorageMode.ROW_ORIENTED).createHashIndex("nope");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnWrongValueType() {
+        Table table = createTable(TableStorageMode.ROW_ORIENTED);
+        table.createHashIndex("id");
+        table.findRows("id", 1L);
+    }
+
+    private static void testTableIndex(TableStorageMode tableStorageMode) {
+        Random random = new Random(7L);
+        Table indexed = createTable(tableStorageMode);
+        Table plain = createTable(tableStorageMode);
+
+        for (int i = 0; i < 100; ++i) {
+            Object[] values = randomValues(random);
+            indexed.putTableRow(values);
+            plain.putTableRow(values);
+        }
+
+        indexed.createHashIndex("id");
+        indexed.createHashIndex("score");
+        indexed.createHashIndex("name");
+
+        for (int i = 0; i < 3000; ++i) {
+            int numberOfRows = plain.getNumberOfRows();
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    int index = random.nextInt(numberOfRows + 1);
+                    Object[] values = randomValues(random);
+                    indexed.putTableRowAt(index, values);
+                    plain.putTableRowAt(index, values);
+                    break;
+
+                case 1:
+                    if (numberOfRows > 0) {
+                        int row = random.nextInt(numberOfRows);
+                        indexed.removeRow(row);
+                        plain.removeRow(row);
+                    }
+
+                    break;
+
+                default:
+                    if (numberOfRows > 0) {
+                        int row = random.nextInt(numberOfRows);
+                        int column = random.nextInt(3);
+                        Object value = randomValues(random)[column];
+                        indexed.getTableRow(row).get(column).setValue(value);
+                        plain.getTableRow(row).get(column).setValue(value);
+                    }
+
+                    break;
+            }
+        }
+
+        assertEquals(plain, indexed);
+
+        for (int value = 0; value < 20; ++value) {
+            assertEquals(plain.findRows("id", value),
+                         indexed.findRows("id", value));
+            assertEquals(plain.findRows("score", (long) value),
+                         indexed.findRows("score", (long) value));
+            assertEquals(plain.findRows("name", "n" + value),
+                         indexed.findRows("name", "n" + value));
+        }
+
+        assertEquals(plain.findRows("name", null),
+                     indexed.findRows("name", null));
+    }
+
+    private static Object[] randomValues(Random random) {
+        return new Object[]{
+            random.nextInt(20),
+            random.nextInt(10) == 0 ? null : (long) random.nextInt(20),
+            random.nextInt(10) == 0 ? null : "n" + random.nextInt(20)
+        };
+    }
+
+    private static Table createTable(TableStorageMode tableStorageMode) {
+        Table table = new Table("indexed", tableStorageMode);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("score", TableCellType.TYPE_LONG));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+        return table;
+    }
+}
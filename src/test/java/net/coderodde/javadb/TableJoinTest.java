@@ -0,0 +1,153 @@
+package net.coderodde.javadb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TableJoinTest {
+
+    @Test
+    public void testJoinIntWithLong() {
+        Database db = new Database("join_db");
+        Table person = db.createTable(
+                "person",
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT),
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+        Table msg = db.createTable(
+                "msg",
+                new TableColumnDescriptor("person_id", TableCellType.TYPE_LONG),
+                new TableColumnDescriptor("msg", TableCellType.TYPE_STRING));
+
+        person.putTableRow(1, "Rodion");
+        person.putTableRow(2, "Violetta");
+        person.putTableRow(null, "Nobody");
+        msg.putTableRow(2L, "Bye!");
+        msg.putTableRow(1L, "Hello!");
+        msg.putTableRow(null, "Lost");
+        msg.putTableRow(2L, "Again!");
+
+        TableView tableView = person.join(msg, "id", "person_id");
+
+        assertEquals(3, tableView.getNumberOfRows());
+        assertEquals(4, tableView.getTableRow(0).getNumberOfCells());
+        assertEquals("Hello!", tableView.getTableRow(0).get(3).getValue());
+        assertEquals("Bye!", tableView.getTableRow(1).get(3).getValue());
+        assertEquals("Again!", tableView.getTableRow(2).get(3).getValue());
+        assertEquals("Violetta", tableView.getTableRow(2).get(1).getValue());
+        assertTrue(tableView.toString().contains("msg.person_id"));
+
+        tableView = msg.join(person, "person_id", "id");
+
+        assertEquals(3, tableView.getNumberOfRows());
+        assertEquals("Bye!", tableView.getTableRow(0).get(1).getValue());
+        assertEquals("Hello!", tableView.getTableRow(1).get(1).getValue());
+    }
+
+    @Test
+    public void testSelfJoinOnBinary() {
+        Table table = new Table("blobs", TableStorageMode.COLUMNAR);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("data", TableCellType.TYPE_BINARY));
+        table.putTableRow(new byte[]{ 1 });
+        table.putTableRow(new byte[]{ 2 });
+        table.putTableRow(new byte[]{ 1 });
+
+        TableView tableView = table.join(table, "data", "data");
+
+        assertEquals(5, tableView.getNumberOfRows());
+        assertTrue(tableView.toString().contains("blobs_2.data"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnTypeMismatch() {
+        Table table = createTable("t", TableStorageMode.ROW_ORIENTED);
+        table.join(table, "key", "name");
+    }
+
+    @Test
+    public void testRandomJoinsAgainstNestedLoops() {
+        Random random = new Random(23L);
+
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            for (int[] sizes : new int[][]{ { 300, 700 }, { 700, 300 } }) {
+                Table left = createTable("left", tableStorageMode);
+                Table right = createTable("right", tableStorageMode);
+                fill(left, sizes[0], random);
+                fill(right, sizes[1], random);
+
+                checkJoin(left, right, "key", 1);
+                checkJoin(left, right, "name", 2);
+
+                right.createHashIndex("key");
+                left.createHashIndex("name");
+                checkJoin(left, right, "key", 1);
+                checkJoin(left, right, "name", 2);
+            }
+        }
+    }
+
+    private static void checkJoin(Table left,
+                                  Table right,
+                                  String columnName,
+                                  int columnIndex) {
+        List<TableRow> expected = new ArrayList<>();
+
+        for (TableRow leftRow : left) {
+            for (TableRow rightRow : right) {
+                Object value = leftRow.get(columnIndex).getValue();
+
+                if (value != null && Objects.equals(
+                        value, rightRow.get(columnIndex).getValue())) {
+                    TableRow tableRow = new TableRow(null);
+
+                    for (int i = 0; i < 3; ++i) {
+                        tableRow.add(copy(leftRow.get(i)));
+                    }
+
+                    for (int i = 0; i < 3; ++i) {
+                        tableRow.add(copy(rightRow.get(i)));
+                    }
+
+                    expected.add(tableRow);
+                }
+            }
+        }
+
+        TableView tableView = left.join(right, columnName, columnName);
+        assertEquals(expected.size(), tableView.getNumberOfRows());
+
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals(expected.get(i), tableView.getTableRow(i));
+        }
+    }
+
+    private static TableCell copy(TableCell tableCell) {
+        TableCell copy = new TableCell(tableCell.getTableCellType());
+        copy.setValue(tableCell.getValue());
+        return copy;
+    }
+
+    private static void fill(Table table, int numberOfRows, Random random) {
+        for (int i = 0; i < numberOfRows; ++i) {
+            table.putTableRow(
+                    i,
+                    random.nextInt(10) == 0 ? null : (long) random.nextInt(200),
+                    random.nextInt(10) == 0 ? null : "n" + random.nextInt(100));
+        }
+    }
+
+    private static Table createTable(String tableName,
+                                     TableStorageMode tableStorageMode) {
+        Table table = new Table(tableName, tableStorageMode);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("key", TableCellType.TYPE_LONG));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+        return table;
+    }
+}
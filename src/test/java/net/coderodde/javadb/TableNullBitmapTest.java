@@ -0,0 +1,169 @@
+package net.coderodde.javadb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class TableNullBitmapTest {
+
+    private static final int NUMBER_OF_COLUMNS = 30;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testWideTableSurvivesRoundTrip() throws IOException {
+        Database db = new Database("db");
+        Table table = createWideTable(500);
+        db.addTable(table);
+        File file = temporaryFolder.newFile();
+        db.save(file);
+
+        assertEquals(db, Database.read(file));
+
+        Database opened = Database.open(file);
+        assertEquals(db, opened);
+        assertNull(opened.getTable("wide").getTableRow(17).get(17).getValue());
+        assertEquals(table, roundTrip(table));
+    }
+
+    @Test
+    public void testCellsCarryNoTags() {
+        Table table = createWideTable(1000);
+        Table empty = createWideTable(0);
+
+        // A bitmap of 4 bytes and 4 bytes per non-null int, one null per row:
+        assertEquals(1000 * (4 + 4 * (NUMBER_OF_COLUMNS - 1)),
+                     table.getSerializationLength()
+                             - empty.getSerializationLength());
+    }
+
+    @Test
+    public void testAllTypes() {
+        Table table = new Table("types");
+        TableCellType[] tableCellTypes = TableCellType.values();
+
+        for (TableCellType tableCellType : tableCellTypes) {
+            table.addTableColumnDescriptor(
+                    new TableColumnDescriptor("c" + tableCellType.getTypeId(),
+                                              tableCellType));
+        }
+
+        Object[] values = new Object[tableCellTypes.length];
+
+        for (int i = 0; i < tableCellTypes.length; ++i) {
+            values[i] = getValue(tableCellTypes[i]);
+        }
+
+        table.putTableRow(values);
+        table.putTableRow(new Object[tableCellTypes.length]);
+        table.putTableRow(values);
+
+        assertEquals(table, roundTrip(table));
+    }
+
+    @Test
+    public void testReadsVersion6() {
+        Table table = new Table("v6");
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+        table.putTableRow(1, "one");
+        table.putTableRow(null, "två");
+        table.putTableRow(3, null);
+
+        ByteBuffer byteBuffer = ByteBuffer.allocate(1000)
+                                          .order(ByteOrder.LITTLE_ENDIAN);
+        Utf8.serialize(byteBuffer, table.getTableName());
+        byteBuffer.putInt(table.tableColumnDescriptorList.size());
+
+        for (TableColumnDescriptor tableColumnDescriptor
+                : table.tableColumnDescriptorList) {
+            tableColumnDescriptor.serializeCompact(byteBuffer);
+        }
+
+        // The row count, the row layout and two plain columns:
+        byteBuffer.putInt(3).put(TableRowCodec.ROW_LAYOUT)
+                  .put(TableRowCodec.PLAIN).put(TableRowCodec.PLAIN);
+
+        for (int row = 0; row < table.getNumberOfRows(); ++row) {
+            TableCell id = table.getTableRow(row).get(0);
+            TableCell name = table.getTableRow(row).get(1);
+            id.serialize(byteBuffer);
+
+            if (name.getValue() == null) {
+                byteBuffer.put(TableCell.STRING_NULL);
+            } else {
+                byteBuffer.put(TableCell.STRING_NOT_NULL);
+                Utf8.serialize(byteBuffer, name.getStringValue());
+            }
+        }
+
+        byteBuffer.flip();
+
+        assertEquals(table, Table.deserialize(byteBuffer, 6));
+        assertFalse(byteBuffer.hasRemaining());
+    }
+
+    private static Table createWideTable(int numberOfRows) {
+        Table table = new Table("wide");
+
+        for (int column = 0; column < NUMBER_OF_COLUMNS; ++column) {
+            table.addTableColumnDescriptor(
+                    new TableColumnDescriptor("c" + column,
+                                              TableCellType.TYPE_INT));
+        }
+
+        for (int row = 0; row < numberOfRows; ++row) {
+            Object[] values = new Object[NUMBER_OF_COLUMNS];
+
+            for (int column = 0; column < NUMBER_OF_COLUMNS; ++column) {
+                values[column] = row % NUMBER_OF_COLUMNS == column ?
+                                 null :
+                                 row * column;
+            }
+
+            table.putTableRow(values);
+        }
+
+        return table;
+    }
+
+    private static Object getValue(TableCellType tableCellType) {
+        switch (tableCellType) {
+            case TYPE_INT:
+                return -7;
+
+            case TYPE_LONG:
+                return Long.MIN_VALUE;
+
+            case TYPE_FLOAT:
+                return 1.5f;
+
+            case TYPE_DOUBLE:
+                return Double.NaN;
+
+            case TYPE_STRING:
+                return "ääk";
+
+            case TYPE_BOOLEAN:
+                return true;
+
+            default:
+                return new byte[]{ 1, 2, 3 };
+        }
+    }
+
+    private static Table roundTrip(Table table) {
+        ByteBuffer byteBuffer = table.serialize();
+        Table deserialized = Table.deserialize(byteBuffer);
+        assertFalse(byteBuffer.hasRemaining());
+        return deserialized;
+    }
+}
@@ -0,0 +1,137 @@
+package net.coderodde.javadb;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import static net.coderodde.javadb.TablePredicate.*;
+
+public class TableRowSpliteratorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testSplitsCoverAllRows() {
+        Table table = createTable(TableStorageMode.COLUMNAR, 10000);
+        Spliterator<TableRow> spliterator = table.spliterator();
+        Spliterator<TableRow> prefix = spliterator.trySplit();
+
+        assertNotNull(prefix);
+        assertEquals(5000, prefix.estimateSize());
+        assertEquals(5000, spliterator.estimateSize());
+        assertTrue(prefix.hasCharacteristics(Spliterator.SUBSIZED));
+
+        List<Integer> ids = new ArrayList<>();
+        prefix.forEachRemaining((row) -> ids.add(row.get(0).getIntValue()));
+        assertTrue(spliterator.tryAdvance(
+                (row) -> ids.add(row.get(0).getIntValue())));
+        spliterator.forEachRemaining(
+                (row) -> ids.add(row.get(0).getIntValue()));
+
+        for (int i = 0; i < ids.size(); ++i) {
+            assertEquals(i, (int) ids.get(i));
+        }
+
+        assertEquals(10000, ids.size());
+        assertNull(createTable(TableStorageMode.COLUMNAR, 100).spliterator()
+                                                                .trySplit());
+    }
+
+    @Test
+    public void testRowOrientedParallelStream() {
+        testParallelStream(createTable(TableStorageMode.ROW_ORIENTED, 50000));
+    }
+
+    @Test
+    public void testColumnarParallelStream() {
+        testParallelStream(createTable(TableStorageMode.COLUMNAR, 50000));
+    }
+
+    @Test
+    public void testLazyTableParallelStream() throws IOException {
+        Database db = new Database("parallel_db");
+        Table table = db.createTable(
+                "numbers",
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT),
+                new TableColumnDescriptor("square", TableCellType.TYPE_LONG));
+
+        for (int i = 0; i < 50000; ++i) {
+            table.putTableRow(i, (long) i * i);
+        }
+
+        File file = temporaryFolder.newFile("parallel.dat");
+        db.save(file);
+
+        testParallelStream(Database.open(file).getTable("numbers"));
+    }
+
+    @Test
+    public void testParallelWhere() {
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Table table = createTable(
+                    tableStorageMode,
+                    TableSelection.PARALLEL_SCAN_THRESHOLD + 1000);
+            TableView tableView =
+                    table.select("id").where(lessThan("square", 1000L * 1000L));
+
+            assertEquals(1000, tableView.getNumberOfRows());
+
+            for (int i = 0; i < 1000; ++i) {
+                assertEquals(i, (int) tableView.getTableRow(i)
+                                               .get(0)
+                                               .getIntValue());
+            }
+        }
+    }
+
+    private static void testParallelStream(Table table) {
+        List<Integer> ids = table.parallelStream()
+                                 .map((row) -> row.get(0).getIntValue())
+                                 .collect(Collectors.toList());
+
+        assertEquals(table.getNumberOfRows(), ids.size());
+
+        for (int i = 0; i < ids.size(); ++i) {
+            assertEquals(i, (int) ids.get(i));
+        }
+
+        long sequentialSum = table.stream()
+                                  .mapToLong((row) -> row.get(1)
+                                                         .getLongValue())
+                                  .sum();
+        long parallelSum = table.parallelStream()
+                                .mapToLong((row) -> row.get(1)
+                                                       .getLongValue())
+                                .sum();
+
+        assertEquals(sequentialSum, parallelSum);
+        assertEquals(table.stream().filter((row) -> row.get(0)
+                                                       .getIntValue() % 7 == 0)
+                                   .count(),
+                     table.parallelStream()
+                          .filter((row) -> row.get(0).getIntValue() % 7 == 0)
+                          .count());
+    }
+
+    private static Table createTable(TableStorageMode tableStorageMode,
+                                     int numberOfRows) {
+        Table table = new Table("spliterator", tableStorageMode);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("square", TableCellType.TYPE_LONG));
+
+        for (int i = 0; i < numberOfRows; ++i) {
+            table.putTableRow(i, (long) i * i);
+        }
+
+        return table;
+    }
+}
@@ -0,0 +1,203 @@
+package net.coderodde.javadb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.Predicate;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static net.coderodde.javadb.TablePredicate.*;
+
+public class TableSelectionTest {
+
+    @Test
+    public void testProjection() {
+        Table table = createTable(TableStorageMode.COLUMNAR);
+        table.putTableRow(1, 10L, 0.5, "a", true);
+        table.putTableRow(2, null, 1.5, "b", false);
+        table.putTableRow(3, 30L, null, null, null);
+
+        TableView tableView = table.select("name", "id")
+                                   .where(greaterThanOrEqualTo("id", 2));
+
+        assertEquals(2, tableView.getNumberOfRows());
+        assertEquals(2, tableView.getTableRow(0).getNumberOfCells());
+        assertEquals("b", tableView.getTableRow(0).get(0).getStringValue());
+        assertEquals(2, (int) tableView.getTableRow(0).get(1).getIntValue());
+        assertNull(tableView.getTableRow(1).get(0).getValue());
+        assertTrue(tableView.toString().contains("NULL"));
+
+        table.getTableRow(1).get("name").setStringValue("c");
+        assertEquals("b", tableView.getTableRow(0).get(0).getStringValue());
+
+        assertEquals(5, table.select()
+                             .where(isNull("score"))
+                             .getTableRow(0)
+                             .getNumberOfCells());
+    }
+
+    @Test
+    public void testNullsSatisfyNoComparison() {
+        Table table = createTable(TableStorageMode.ROW_ORIENTED);
+        table.putTableRow(1, 10L, 0.5, "a", true);
+        table.putTableRow(2, null, 1.5, "b", false);
+
+        assertEquals(1, table.select().where(notEqualTo("score", 5L))
+                                      .getNumberOfRows());
+        assertEquals(2, table.select().where(not(lessThan("score", 5L)))
+                                      .getNumberOfRows());
+        assertEquals(1, table.select().where(isNotNull("score"))
+                                      .getNumberOfRows());
+    }
+
+    @Test
+    public void testBinaryEquality() {
+        Table table = new Table("binary", TableStorageMode.COLUMNAR);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("data", TableCellType.TYPE_BINARY));
+        table.putTableRow(new byte[]{ 1, 2 });
+        table.putTableRow(new byte[]{ 3 });
+        table.putTableRow((Object) null);
+
+        assertEquals(1, table.select()
+                             .where(equalTo("data", new byte[]{ 1, 2 }))
+                             .getNumberOfRows());
+        assertEquals(1, table.select()
+                             .where(notEqualTo("data", new byte[]{ 1, 2 }))
+                             .getNumberOfRows());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBinaryColumnIsNotOrderable() {
+        Table table = new Table("binary");
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("data", TableCellType.TYPE_BINARY));
+        table.select().where(lessThan("data", new byte[0]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnWrongValueType() {
+        createTable(TableStorageMode.COLUMNAR).select()
+                                              .where(equalTo("id", 1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnUnknownColumn() {
+        createTable(TableStorageMode.ROW_ORIENTED).select("nope");
+    }
+
+    @Test
+    public void testRowOrientedPredicates() {
+        testPredicates(TableStorageMode.ROW_ORIENTED);
+    }
+
+    @Test
+    public void testColumnarPredicates() {
+        testPredicates(TableStorageMode.COLUMNAR);
+    }
+
+    private static void testPredicates(TableStorageMode tableStorageMode) {
+        Random random = new Random(17L);
+        Table plain = createTable(tableStorageMode);
+        Table indexed = createTable(tableStorageMode);
+
+        for (int i = 0; i < 2000; ++i) {
+            Object[] values = randomValues(random);
+            plain.putTableRow(values);
+            indexed.putTableRow(values);
+        }
+
+        indexed.createHashIndex("id");
+        indexed.createTreeIndex("score");
+        indexed.createCompositeIndex(indexed.getTableColumnDescriptor("name"),
+                                     indexed.getTableColumnDescriptor("id"));
+
+        TablePredicate[] tablePredicates = {
+            equalTo("id", 7),
+            lessThan("score", 40L),
+            between("score", 20L, 60L),
+            and(greaterThan("value", 0.0), equalTo("flag", true)),
+            and(equalTo("id", 3), greaterThanOrEqualTo("score", 50L)),
+            or(equalTo("name", "n3"), isNull("value")),
+            lessThanOrEqualTo("name", "n5"),
+            and(lessThan("value", -0.0), not(isNull("name"))),
+        };
+
+        List<Predicate<TableRow>> expectedPredicates = Arrays.asList(
+            (r) -> Objects.equals(r.get(0).getIntValue(), 7),
+            (r) -> r.get(1).getLongValue() != null
+                    && r.get(1).getLongValue() < 40L,
+            (r) -> r.get(1).getLongValue() != null
+                    && r.get(1).getLongValue() >= 20L
+                    && r.get(1).getLongValue() <= 60L,
+            (r) -> r.get(2).getDoubleValue() != null
+                    && r.get(2).getDoubleValue() > 0.0
+                    && Objects.equals(r.get(4).getBooleanValue(), true),
+            (r) -> Objects.equals(r.get(0).getIntValue(), 3)
+                    && r.get(1).getLongValue() != null
+                    && r.get(1).getLongValue() >= 50L,
+            (r) -> "n3".equals(r.get(3).getStringValue())
+                    || r.get(2).getDoubleValue() == null,
+            (r) -> r.get(3).getStringValue() != null
+                    && r.get(3).getStringValue().compareTo("n5") <= 0,
+            (r) -> r.get(2).getDoubleValue() != null
+                    && Double.compare(r.get(2).getDoubleValue(), -0.0) < 0
+                    && r.get(3).getStringValue() != null);
+
+        for (int p = 0; p < tablePredicates.length; ++p) {
+            List<TableRow> expected = new ArrayList<>();
+
+            for (TableRow tableRow : plain) {
+                if (expectedPredicates.get(p).test(tableRow)) {
+                    TableRow projectedRow = new TableRow(null);
+                    projectedRow.add(new TableCell(tableRow.get(0)
+                                                           .getIntValue()));
+                    projectedRow.add(new TableCell(tableRow.get(3)
+                                                           .getStringValue()));
+                    expected.add(projectedRow);
+                }
+            }
+
+            TableView plainView =
+                    plain.select("id", "name").where(tablePredicates[p]);
+            TableView indexedView =
+                    indexed.select("id", "name").where(tablePredicates[p]);
+
+            assertFalse(expected.isEmpty());
+            assertEquals(expected.size(), plainView.getNumberOfRows());
+            assertEquals(expected.size(), indexedView.getNumberOfRows());
+
+            for (int i = 0; i < expected.size(); ++i) {
+                assertEquals(expected.get(i), plainView.getTableRow(i));
+                assertEquals(expected.get(i), indexedView.getTableRow(i));
+            }
+        }
+    }
+
+    private static Object[] randomValues(Random random) {
+        return new Object[]{
+            random.nextInt(10) == 0 ? null : random.nextInt(10),
+            random.nextInt(10) == 0 ? null : (long) random.nextInt(100),
+            random.nextInt(10) == 0 ? null : random.nextDouble() * 2.0 - 1.0,
+            random.nextInt(10) == 0 ? null : "n" + random.nextInt(10),
+            random.nextInt(10) == 0 ? null : random.nextBoolean()
+        };
+    }
+
+    private static Table createTable(TableStorageMode tableStorageMode) {
+        Table table = new Table("selection", tableStorageMode);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("score", TableCellType.TYPE_LONG));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("value", TableCellType.TYPE_DOUBLE));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("flag", TableCellType.TYPE_BOOLEAN));
+        return table;
+    }
+}
@@ -0,0 +1,141 @@
+package net.coderodde.javadb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class TableSnapshotTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testRowOrientedSnapshotIsFrozen() throws IOException {
+        testSnapshotIsFrozen(TableStorageMode.ROW_ORIENTED);
+    }
+
+    @Test
+    public void testColumnarSnapshotIsFrozen() throws IOException {
+        testSnapshotIsFrozen(TableStorageMode.COLUMNAR);
+    }
+
+    @Test
+    public void testSnapshotWrittenWhileTableChanges() throws Exception {
+        Table table = createTable(TableStorageMode.ROW_ORIENTED, 20000);
+        byte[] expected = serialize(table);
+        TableSnapshot tableSnapshot = table.createTableSnapshot();
+        AtomicReference<byte[]> actual = new AtomicReference<>();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        Thread writer = new Thread(() -> {
+            try {
+                actual.set(serialize(tableSnapshot));
+            } catch (Exception ex) {
+                failure.set(ex);
+            }
+        });
+
+        writer.start();
+
+        for (int i = 0; i < 5000; ++i) {
+            table.getTableRow(i * 3).get(1).setStringValue("changed");
+            table.putTableRowAt(i, -i, "inserted");
+        }
+
+        writer.join();
+        tableSnapshot.release();
+
+        assertNull(failure.get());
+        assertArrayEquals(expected, actual.get());
+    }
+
+    @Test
+    public void testReleasedSnapshotAllowsNewSnapshot() {
+        Table table = createTable(TableStorageMode.COLUMNAR, 3);
+        table.createTableSnapshot().release();
+        table.createTableSnapshot().release();
+    }
+
+    @Test
+    public void testSeveralSnapshotsAtATime() throws IOException {
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Table table = createTable(tableStorageMode, 10);
+            byte[] expected1 = serialize(table);
+            TableSnapshot tableSnapshot1 = table.createTableSnapshot();
+            table.getTableRow(1).get(1).setStringValue("first");
+            byte[] expected2 = serialize(table);
+            TableSnapshot tableSnapshot2 = table.createTableSnapshot();
+            TableSnapshot tableSnapshot3 = table.createTableSnapshot();
+            table.getTableRow(1).get(1).setStringValue("second");
+            table.getTableRow(2).get(1).setStringValue("second");
+            tableSnapshot3.release();
+            table.removeRow(0);
+
+            assertArrayEquals(expected1, serialize(tableSnapshot1));
+            assertArrayEquals(expected2, serialize(tableSnapshot2));
+            tableSnapshot1.release();
+            tableSnapshot2.release();
+        }
+    }
+
+    private void testSnapshotIsFrozen(TableStorageMode tableStorageMode)
+            throws IOException {
+        Table table = createTable(tableStorageMode, 10);
+        byte[] expected = serialize(table);
+        TableSnapshot tableSnapshot = table.createTableSnapshot();
+
+        TableRow tableRow = table.getTableRow(2);
+        tableRow.get(0).setIntValue(100);
+        table.putTableRowAt(0, 200, "first");
+        table.removeRow(5);
+        table.getTableRow(1).get("name").nullify();
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("extra", TableCellType.TYPE_LONG));
+        table.getTableRow(3).get(2).setLongValue(300L);
+        table.removeTableColumnDescriptor(1);
+        table.setTableName("renamed");
+        tableRow.get(0).setIntValue(400);
+
+        assertArrayEquals(expected, serialize(tableSnapshot));
+        tableSnapshot.release();
+    }
+
+    private static Table createTable(TableStorageMode tableStorageMode,
+                                     int numberOfRows) {
+        Table table = new Table("snapshot", tableStorageMode);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+
+        for (int i = 0; i < numberOfRows; ++i) {
+            table.putTableRow(i, "name" + i);
+        }
+
+        return table;
+    }
+
+    private static byte[] serialize(Table table) {
+        return table.serialize().array();
+    }
+
+    private byte[] serialize(TableSnapshot tableSnapshot) throws IOException {
+        File file = temporaryFolder.newFile();
+
+        try (FileChannel fileChannel =
+                FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+             BufferedChannelWriter bufferedChannelWriter =
+                     new BufferedChannelWriter(fileChannel, 64)) {
+            tableSnapshot.serialize(bufferedChannelWriter);
+        }
+
+        return Files.readAllBytes(file.toPath());
+    }
+}
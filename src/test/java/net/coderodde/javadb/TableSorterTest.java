@@ -0,0 +1,164 @@
+package net.coderodde.javadb;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TableSorterTest {
+
+    @Test
+    public void testSpilledSortIsStable() {
+        Random random = new Random(29L);
+        Table table = createTable("sorted", TableStorageMode.ROW_ORIENTED);
+        fill(table, 5000, random);
+
+        List<TableRow> expected = new ArrayList<>();
+
+        for (TableRow tableRow : table) {
+            expected.add(tableRow.copy());
+        }
+
+        // List.sort is stable:
+        expected.sort(TableSorter.createComparator(new int[]{ 2, 1 }));
+
+        try (TableSorter tableSorter =
+                new TableSorter(table, new int[]{ 2, 1 }, 4096L, null)) {
+            assertTrue(tableSorter.getNumberOfSpilledRuns() > 10);
+
+            for (TableRow tableRow : expected) {
+                assertTrue(tableSorter.hasNext());
+                assertEquals(tableRow, tableSorter.next());
+            }
+
+            assertFalse(tableSorter.hasNext());
+        }
+    }
+
+    @Test
+    public void testOrderByPutsNullsFirst() {
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Table table = createTable("t", tableStorageMode);
+            table.putTableRow(1, 3L, "c");
+            table.putTableRow(2, null, "a");
+            table.putTableRow(3, 1L, null);
+            table.putTableRow(4, 3L, "a");
+
+            TableView tableView = table.orderBy("key", "name");
+
+            assertEquals(4, tableView.getNumberOfRows());
+            assertEquals(2, tableView.getTableRow(0).get(0).getValue());
+            assertEquals(3, tableView.getTableRow(1).get(0).getValue());
+            assertEquals(4, tableView.getTableRow(2).get(0).getValue());
+            assertEquals(1, tableView.getTableRow(3).get(0).getValue());
+
+            tableView = table.orderBy(16L, "name");
+
+            assertEquals(3, tableView.getTableRow(0).get(0).getValue());
+            assertEquals(2, tableView.getTableRow(1).get(0).getValue());
+            assertEquals(4, tableView.getTableRow(2).get(0).getValue());
+            assertEquals(1, tableView.getTableRow(3).get(0).getValue());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnBinaryColumn() {
+        Table table = new Table("blobs", TableStorageMode.ROW_ORIENTED);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("data", TableCellType.TYPE_BINARY));
+        table.orderBy("data");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnNonPositiveBudget() {
+        createTable("t", TableStorageMode.COLUMNAR).orderBy(0L, "id");
+    }
+
+    @Test
+    public void testSortMergeJoinMatchesHashJoin() {
+        Random random = new Random(31L);
+
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Table left = createTable("left", tableStorageMode);
+            Table right = createTable("right", tableStorageMode);
+            fill(left, 700, random);
+            fill(right, 400, random);
+
+            for (String columnName : new String[]{ "key", "name" }) {
+                TableView expected = left.join(right, columnName, columnName);
+                TableView actual = left.sortMergeJoin(right,
+                                                      columnName,
+                                                      columnName,
+                                                      2048L);
+
+                assertEquals(expected.getNumberOfRows(),
+                             actual.getNumberOfRows());
+                assertEquals(sortedRows(expected), sortedRows(actual));
+            }
+        }
+    }
+
+    @Test
+    public void testSortMergeJoinIntWithLong() {
+        Table person = new Table("person", TableStorageMode.COLUMNAR);
+        person.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        Table msg = createTable("msg", TableStorageMode.ROW_ORIENTED);
+
+        person.putTableRow(2);
+        person.putTableRow(1);
+        person.putTableRow((Object) null);
+        msg.putTableRow(10, 2L, "Bye!");
+        msg.putTableRow(11, 1L, "Hello!");
+        msg.putTableRow(12, null, "Lost");
+        msg.putTableRow(13, 2L, "Again!");
+
+        TableView tableView = person.sortMergeJoin(msg, "id", "key");
+
+        assertEquals(3, tableView.getNumberOfRows());
+        assertEquals("Hello!", tableView.getTableRow(0).get(3).getValue());
+        assertEquals("Bye!", tableView.getTableRow(1).get(3).getValue());
+        assertEquals("Again!", tableView.getTableRow(2).get(3).getValue());
+    }
+
+    private static List<String> sortedRows(TableView tableView) {
+        List<String> rowList = new ArrayList<>();
+
+        for (int i = 0; i < tableView.getNumberOfRows(); ++i) {
+            TableRow tableRow = tableView.getTableRow(i);
+            StringBuilder sb = new StringBuilder();
+
+            for (int j = 0; j < tableRow.getNumberOfCells(); ++j) {
+                sb.append(tableRow.get(j).getValue()).append('|');
+            }
+
+            rowList.add(sb.toString());
+        }
+
+        rowList.sort(Comparator.naturalOrder());
+        return rowList;
+    }
+
+    private static void fill(Table table, int numberOfRows, Random random) {
+        for (int i = 0; i < numberOfRows; ++i) {
+            table.putTableRow(
+                    i,
+                    random.nextInt(10) == 0 ? null : (long) random.nextInt(100),
+                    random.nextInt(10) == 0 ? null : "n" + random.nextInt(50));
+        }
+    }
+
+    private static Table createTable(String tableName,
+                                     TableStorageMode tableStorageMode) {
+        Table table = new Table(tableName, tableStorageMode);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("key", TableCellType.TYPE_LONG));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+        return table;
+    }
+}
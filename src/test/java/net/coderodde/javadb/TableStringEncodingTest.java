@@ -0,0 +1,217 @@
+package net.coderodde.javadb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class TableStringEncodingTest {
+
+    private static final String[] COLORS = { "red", "green", "blue" };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testNonAsciiStringsSurviveRoundTrip() throws IOException {
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Database db = new Database("tietokanta äö");
+            Table table = db.createTable(
+                    "pöytä",
+                    tableStorageMode,
+                    new TableColumnDescriptor("näme",
+                                              TableCellType.TYPE_STRING),
+                    new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+            table.putTableRow("Привет", 1);
+            table.putTableRow("😀 smile", 2);
+            table.putTableRow("", 3);
+            table.putTableRow(null, 4);
+            table.putTableRow("€", 5);
+            table.createTreeIndex("näme", true);
+
+            File file = temporaryFolder.newFile();
+            db.save(file);
+
+            assertEquals(db, Database.read(file));
+            assertEquals(db, Database.open(file));
+            assertEquals(1, Database.open(file)
+                                    .getTable("pöytä")
+                                    .findRows("näme",
+                                              "😀 smile")
+                                    .size());
+        }
+    }
+
+    @Test
+    public void testLowCardinalityColumnIsDictionaryEncoded() {
+        Table colors = createColorTable(10000, false);
+        Table names = createColorTable(10000, true);
+
+        // A color takes a tag byte and a one byte code:
+        assertTrue(colors.getSerializationLength() < 10000 * (4 + 5 + 2));
+        assertTrue(names.getSerializationLength() > 10000 * (4 + 5 + 8));
+
+        assertEquals(colors, Table.deserialize(colors.serialize()));
+    }
+
+    @Test
+    public void testModifiedLazyTableIsWrittenBack() throws IOException {
+        Database db = new Database("db");
+        db.addTable(createColorTable(1000, false));
+        File file = temporaryFolder.newFile("first.dat");
+        db.save(file);
+
+        // The dictionary of the block lacks the new value, and the untouched
+        // rows are copied as they are:
+        Database opened = Database.open(file);
+        Table table = opened.getTable("colors");
+        table.getTableRow(10).get(1).setStringValue("ä new color");
+        table.getTableRow(11).get(1).nullify();
+        table.getTableRow(12).get(1).setStringValue("blue");
+        File second = temporaryFolder.newFile("second.dat");
+        opened.save(second);
+
+        db.getTable("colors").getTableRow(10).get(1)
+                             .setStringValue("ä new color");
+        db.getTable("colors").getTableRow(11).get(1).nullify();
+        db.getTable("colors").getTableRow(12).get(1).setStringValue("blue");
+
+        assertEquals(db, Database.read(second));
+        assertEquals(db, Database.open(second));
+
+        Database reopened = Database.open(second);
+        reopened.getTable("colors").putTableRow(1000, "violet");
+        db.getTable("colors").putTableRow(1000, "violet");
+        File third = temporaryFolder.newFile("third.dat");
+        reopened.save(third);
+
+        assertEquals(db, Database.read(third));
+    }
+
+    @Test
+    public void testReadsVersion4() throws IOException {
+        Database db = new Database("v4 ä");
+        db.addTable(createColorTable(100, true));
+        File file = temporaryFolder.newFile("v4.dat");
+        Files.write(file.toPath(), serializeVersion4(db));
+
+        assertEquals(db, Database.read(file));
+        assertEquals(db, Database.open(file));
+
+        Database opened = Database.open(file);
+        File current = temporaryFolder.newFile("current.dat");
+        opened.save(current);
+
+        assertEquals(db, Database.read(current));
+    }
+
+    @Test
+    public void testVarInt() {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(64);
+        int[] values = { 0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE };
+
+        for (int value : values) {
+            TableRowCodec.putVarInt(byteBuffer, value);
+        }
+
+        byteBuffer.flip();
+
+        for (int value : values) {
+            int position = byteBuffer.position();
+            assertEquals(value, TableRowCodec.getVarInt(byteBuffer));
+            assertEquals(TableRowCodec.getVarIntLength(value),
+                         byteBuffer.position() - position);
+        }
+    }
+
+    private static Table createColorTable(int numberOfRows,
+                                          boolean distinct) {
+        Table table = new Table("colors");
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("color",
+                                          TableCellType.TYPE_STRING));
+
+        for (int i = 0; i < numberOfRows; ++i) {
+            table.putTableRow(i, distinct ?
+                    "color " + (1000000 + i) :
+                    COLORS[i % COLORS.length]);
+        }
+
+        return table;
+    }
+
+    /**
+     * Writes the database in format version 4, where the strings take two
+     * bytes per character.
+     */
+    private static byte[] serializeVersion4(Database db) {
+        ByteBuffer bb = ByteBuffer.allocate(100000)
+                                  .order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(DatabaseFileFormat.MAGIC).putInt(4);
+        long[] offsets = new long[db.tableMap.size()];
+        long[] lengths = new long[offsets.length];
+        int tableIndex = 0;
+
+        for (Table table : db.tableMap.values()) {
+            offsets[tableIndex] = bb.position();
+            putChars(bb, table.getTableName());
+            bb.putInt(table.tableColumnDescriptorList.size());
+
+            for (TableColumnDescriptor tableColumnDescriptor
+                    : table.tableColumnDescriptorList) {
+                tableColumnDescriptor.serialize(bb);
+            }
+
+            bb.putInt(table.getNumberOfRows());
+
+            for (int i = 0; i < table.getNumberOfRows(); ++i) {
+                table.getTableRow(i).serialize(bb);
+            }
+
+            lengths[tableIndex] = bb.position() - offsets[tableIndex];
+            ++tableIndex;
+        }
+
+        long directoryOffset = bb.position();
+        putChars(bb, db.getDatabaseName());
+        bb.putLong(0L).putInt(db.tableMap.size());
+        tableIndex = 0;
+
+        for (Table table : db.tableMap.values()) {
+            putChars(bb, table.getTableName());
+            bb.putLong(offsets[tableIndex])
+              .putLong(lengths[tableIndex])
+              .putInt(table.getNumberOfRows())
+              .putInt(table.tableColumnDescriptorList.size());
+
+            for (TableColumnDescriptor tableColumnDescriptor
+                    : table.tableColumnDescriptorList) {
+                tableColumnDescriptor.serialize(bb);
+            }
+
+            bb.putInt(0);
+            ++tableIndex;
+        }
+
+        bb.putLong(directoryOffset).putInt(DatabaseFileFormat.MAGIC);
+        byte[] bytes = new byte[bb.position()];
+        bb.flip();
+        bb.get(bytes);
+        return bytes;
+    }
+
+    private static void putChars(ByteBuffer bb, String string) {
+        bb.putInt(string.length());
+
+        for (char c : string.toCharArray()) {
+            bb.putChar(c);
+        }
+    }
+}
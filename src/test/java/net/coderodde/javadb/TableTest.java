@@ -107,4 +107,101 @@ public class TableTest {
 //        
 //        assertTrue(table1.equals(table2));
     }    
+
+    @Test
+    public void testColumnarStorageMode() {
+        TableColumnDescriptor id = 
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT);
+        TableColumnDescriptor name = 
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING);
+        
+        Table rowTable = new Table("rows");
+        Table columnarTable = new Table("cols", TableStorageMode.COLUMNAR);
+        
+        for (Table table : new Table[]{ rowTable, columnarTable }) {
+            table.addTableColumnDescriptor(id);
+            table.addTableColumnDescriptor(name);
+            table.putTableRow(1, "a");
+            table.putTableRow(3, null);
+            table.putTableRowAt(1, 2, "b");
+            table.putTableRowAt(0, 0);
+            table.removeRow(3);
+            table.addTableColumnDescriptor(
+                    new TableColumnDescriptor("flag", 
+                                              TableCellType.TYPE_BOOLEAN));
+            table.getTableRow(1).get("flag").setBooleanValue(true);
+        }
+        
+        assertEquals(rowTable, columnarTable);
+        assertEquals(3, columnarTable.getNumberOfRows());
+        assertEquals((Integer) 2, 
+                     columnarTable.getTableRow(2).get("id").getIntValue());
+        assertEquals("b", columnarTable.getTableRow(2).get(1).getStringValue());
+        assertNull(columnarTable.getTableRow(0).get("name").getValue());
+        assertNull(columnarTable.getTableRow(0).get("flag").getValue());
+        
+        TableRowCodec rowCodec = rowTable.createTableRowCodec();
+        TableRowCodec columnarCodec = columnarTable.createTableRowCodec();
+        ByteBuffer bb1 = 
+                ByteBuffer.allocate(rowTable.getSerializationLength(rowCodec));
+        ByteBuffer bb2 = 
+                ByteBuffer.allocate(
+                        columnarTable.getSerializationLength(columnarCodec));
+        
+        // Columnar tables are written in the more compact column layout:
+        assertTrue(bb2.capacity() < bb1.capacity());
+        
+        rowTable.serialize(bb1, rowCodec);
+        columnarTable.serialize(bb2, columnarCodec);
+        bb1.position(0);
+        bb2.position(0);
+        
+        Table deserialized = Table.deserialize(bb2);
+        assertEquals(rowTable, deserialized);
+        assertEquals(TableStorageMode.COLUMNAR, deserialized.getStorageMode());
+        assertEquals(TableStorageMode.ROW_ORIENTED, 
+                     Table.deserialize(bb1).getStorageMode());
+        
+        int count = 0;
+        
+        for (TableRow tableRow : columnarTable) {
+            assertEquals(rowTable.getTableRow(count++), tableRow);
+        }
+        
+        assertEquals(3, count);
+        
+        columnarTable.removeTableColumnDescriptor("name");
+        rowTable.removeTableColumnDescriptor("name");
+        assertEquals(rowTable, columnarTable);
+    }
+    
+    @Test
+    public void testStorageModeConversion() {
+        Table table = new Table("table");
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("x", TableCellType.TYPE_DOUBLE));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("y", TableCellType.TYPE_BINARY));
+        
+        for (int i = 0; i < 100; ++i) {
+            table.putTableRow(i * 0.5, i % 3 == 0 ? null : new byte[]{ 1 });
+        }
+        
+        Table copy = new Table("copy");
+        copy.addTableColumnDescriptor(table.getTableColumnDescriptor(0));
+        copy.addTableColumnDescriptor(table.getTableColumnDescriptor(1));
+        
+        for (TableRow tableRow : table) {
+            copy.putTableRow(tableRow.get(0).getValue(), 
+                             tableRow.get(1).getValue());
+        }
+        
+        table.setStorageMode(TableStorageMode.COLUMNAR);
+        assertEquals(TableStorageMode.COLUMNAR, table.getStorageMode());
+        assertEquals(copy, table);
+        
+        table.setStorageMode(TableStorageMode.ROW_ORIENTED);
+        assertEquals(TableStorageMode.ROW_ORIENTED, table.getStorageMode());
+        assertEquals(copy, table);
+    }
 }
@@ -0,0 +1,148 @@
+package net.coderodde.javadb;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TableTopNTest {
+
+    @Test
+    public void testTopAndBottom() {
+        Table table = createTable(TableStorageMode.ROW_ORIENTED);
+        table.putTableRow(0, 5L, "a");
+        table.putTableRow(1, null, "b");
+        table.putTableRow(2, 7L, "c");
+        table.putTableRow(3, 5L, "d");
+        table.putTableRow(4, 1L, "e");
+
+        assertIds(table.top(3, "score"), 2, 0, 3);
+        assertIds(table.bottom(2, "score"), 1, 4);
+        assertIds(table.top(10, "score"), 2, 0, 3, 4, 1);
+        assertIds(table.top(0, "score"));
+
+        table.createTreeIndex("score");
+
+        assertIds(table.top(3, "score"), 2, 0, 3);
+        assertIds(table.bottom(2, "score"), 1, 4);
+        assertIds(table.top(10, "score"), 2, 0, 3, 4, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnNegativeLimit() {
+        createTable(TableStorageMode.COLUMNAR).top(-1, "score");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnBinaryColumn() {
+        Table table = new Table("blobs", TableStorageMode.COLUMNAR);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("data", TableCellType.TYPE_BINARY));
+        table.bottom(1, "data");
+    }
+
+    @Test
+    public void testRandomTablesAgainstSort() {
+        Random random = new Random(37L);
+
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            for (boolean nulls : new boolean[]{ false, true }) {
+                Table table = createTable(tableStorageMode);
+                fill(table, 3000, nulls, random);
+                checkTopN(table, random);
+
+                table.createTreeIndex("score");
+                checkTopN(table, random);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelTopN() {
+        Random random = new Random(41L);
+
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Table table = createTable(tableStorageMode);
+            fill(table,
+                 TableSelection.PARALLEL_SCAN_THRESHOLD + 1000,
+                 true,
+                 random);
+
+            checkTopN(table, random);
+        }
+    }
+
+    private static void checkTopN(Table table, Random random) {
+        List<TableRow> tableRowList = new ArrayList<>();
+
+        for (TableRow tableRow : table) {
+            tableRowList.add(tableRow);
+        }
+
+        for (String[] columnNames : new String[][]{ { "score" },
+                                                    { "name", "score" } }) {
+            int[] columnIndices = new int[columnNames.length];
+
+            for (int i = 0; i < columnIndices.length; ++i) {
+                columnIndices[i] = "score".equals(columnNames[i]) ? 1 : 2;
+            }
+
+            Comparator<TableRow> comparator =
+                    TableSorter.createComparator(columnIndices);
+            int limit = 1 + random.nextInt(200);
+
+            List<TableRow> ascending = new ArrayList<>(tableRowList);
+            ascending.sort(comparator);
+            checkRows(ascending, limit, table.bottom(limit, columnNames));
+
+            List<TableRow> descending = new ArrayList<>(tableRowList);
+            descending.sort(comparator.reversed());
+            checkRows(descending, limit, table.top(limit, columnNames));
+        }
+    }
+
+    private static void checkRows(List<TableRow> expected,
+                                  int limit,
+                                  TableView tableView) {
+        assertEquals(limit, tableView.getNumberOfRows());
+
+        for (int i = 0; i < limit; ++i) {
+            assertEquals(expected.get(i), tableView.getTableRow(i));
+        }
+    }
+
+    private static void assertIds(TableView tableView, int... ids) {
+        assertEquals(ids.length, tableView.getNumberOfRows());
+
+        for (int i = 0; i < ids.length; ++i) {
+            assertEquals(ids[i], tableView.getTableRow(i).get(0).getValue());
+        }
+    }
+
+    private static void fill(Table table,
+                             int numberOfRows,
+                             boolean nulls,
+                             Random random) {
+        for (int i = 0; i < numberOfRows; ++i) {
+            table.putTableRow(
+                    i,
+                    nulls && random.nextInt(10) == 0 ?
+                            null :
+                            (long) random.nextInt(500),
+                    random.nextInt(10) == 0 ? null : "n" + random.nextInt(20));
+        }
+    }
+
+    private static Table createTable(TableStorageMode tableStorageMode) {
+        Table table = new Table("scores", tableStorageMode);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("score", TableCellType.TYPE_LONG));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+        return table;
+    }
+}
@@ -0,0 +1,270 @@
+package net.coderodde.javadb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class TableTreeIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testRandomOperationsAgainstSortedList() {
+        Random random = new Random(3L);
+        TableTreeIndex tableTreeIndex =
+                new TableTreeIndex(TableCellType.TYPE_LONG, 0, false);
+        List<Long> values = new ArrayList<>();
+
+        for (int i = 0; i < 30000; ++i) {
+            if (values.isEmpty() || random.nextInt(5) > 1) {
+                int row = random.nextInt(values.size() + 1);
+                long value = random.nextInt(1000) - 500;
+                tableTreeIndex.shiftRows(row, 1);
+                tableTreeIndex.add(value, row);
+                values.add(row, value);
+            } else {
+                int row = random.nextInt(values.size());
+                tableTreeIndex.remove(values.remove(row), row);
+                tableTreeIndex.shiftRows(row + 1, -1);
+            }
+        }
+
+        assertEquals(values.size(), tableTreeIndex.size());
+        assertArrayEquals(sortedRows(values, null, null),
+                          tableTreeIndex.scan(null, null));
+        assertArrayEquals(sortedRows(values, -100L, 250L),
+                          tableTreeIndex.scan(-100L, 250L));
+        assertArrayEquals(sortedRows(values, 7L, 7L),
+                          tableTreeIndex.scan(7L, 7L));
+        assertEquals(0, tableTreeIndex.scan(10L, 9L).length);
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+
+        for (long value : values) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        assertEquals(min, tableTreeIndex.getMinimumValue());
+        assertEquals(max, tableTreeIndex.getMaximumValue());
+
+        while (!values.isEmpty()) {
+            tableTreeIndex.remove(values.remove(0), 0);
+            tableTreeIndex.shiftRows(1, -1);
+        }
+
+        assertEquals(0, tableTreeIndex.size());
+        assertNull(tableTreeIndex.getMinimumValue());
+        assertEquals(0, tableTreeIndex.scan(null, null).length);
+    }
+
+    @Test
+    public void testFloatingPointOrder() {
+        TableTreeIndex tableTreeIndex =
+                new TableTreeIndex(TableCellType.TYPE_DOUBLE, 0, false);
+        double[] values = { 3.5, -0.0, -7.25, Double.NEGATIVE_INFINITY, 0.0,
+                            Double.NaN, -1e-300, 1e300 };
+
+        for (int row = 0; row < values.length; ++row) {
+            tableTreeIndex.add(values[row], row);
+        }
+
+        assertArrayEquals(new int[]{ 3, 2, 6, 1, 4, 0, 7, 5 },
+                          tableTreeIndex.scan(null, null));
+        assertArrayEquals(new int[]{ 6, 1, 4 },
+                          tableTreeIndex.scan(-1.0, 0.0));
+        assertEquals(Double.NEGATIVE_INFINITY,
+                     tableTreeIndex.getMinimumValue());
+        assertEquals(Double.NaN, tableTreeIndex.getMaximumValue());
+    }
+
+    @Test
+    public void testRowOrientedTableIndex() {
+        testTableIndex(TableStorageMode.ROW_ORIENTED);
+    }
+
+    @Test
+    public void testColumnarTableIndex() {
+        testTableIndex(TableStorageMode.COLUMNAR);
+    }
+
+    @Test
+    public void testPersistentIndexIsLoaded() throws IOException {
+        Database db = new Database("tree_db");
+        Table table = db.createTable("prices",
+                new TableColumnDescriptor("time", TableCellType.TYPE_LONG),
+                new TableColumnDescriptor("price", TableCellType.TYPE_DOUBLE),
+                new TableColumnDescriptor("tag", TableCellType.TYPE_STRING));
+
+        for (int i = 0; i < 1000; ++i) {
+            table.putTableRow((long) (i * 7 % 1000), i / 3.0, "t" + i % 17);
+        }
+
+        table.createTreeIndex("time", true);
+        table.createTreeIndex("tag", true);
+        table.createTreeIndex("price");
+
+        File file = temporaryFolder.newFile("tree.dat");
+        db.save(file);
+
+        for (Database loaded : new Database[]{ Database.read(file),
+                                               Database.open(file) }) {
+            Table loadedTable = loaded.getTable("prices");
+
+            assertTrue(loadedTable.hasTreeIndex("time"));
+            assertTrue(loadedTable.hasTreeIndex("tag"));
+            assertFalse(loadedTable.hasTreeIndex("price"));
+            assertEquals(table.rangeScan("time", 100L, 200L),
+                         loadedTable.rangeScan("time", 100L, 200L));
+            assertEquals(table.getTableRowsOrderedBy("tag"),
+                         loadedTable.getTableRowsOrderedBy("tag"));
+
+            loadedTable.putTableRowAt(0, 150L, 1.0, "t3");
+            loadedTable.removeRow(500);
+            assertEquals(loadedTable.rangeScan("time", 140L, 160L).size(),
+                         table.rangeScan("time", 140L, 160L).size() + 1);
+        }
+    }
+
+    @Test
+    public void testSavedIndexFollowsTheTable() {
+        Database db = new Database("tree_db");
+        Table table = db.createTable("t",
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.createTreeIndex("id", true);
+        table.putTableRow(2);
+        table.putTableRow(1);
+
+        ByteBuffer byteBuffer = db.serialize();
+        byteBuffer.position(0);
+
+        Database loaded = Database.deserialize(byteBuffer);
+        table.putTableRow(0);
+        Table loadedTable = loaded.getTable("t");
+
+        assertEquals(2, loadedTable.getNumberOfRows());
+        assertEquals(1, loadedTable.getMinimumValue("id"));
+        assertEquals(2, loadedTable.getMaximumValue("id"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBinaryColumnIsNotOrderable() {
+        Table table = new Table("binary");
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("data", TableCellType.TYPE_BINARY));
+        table.createTreeIndex("data");
+    }
+
+    private static void testTableIndex(TableStorageMode tableStorageMode) {
+        Random random = new Random(5L);
+        Table indexed = createTable(tableStorageMode);
+        Table plain = createTable(tableStorageMode);
+
+        for (int i = 0; i < 500; ++i) {
+            Object[] values = randomValues(random);
+            indexed.putTableRow(values);
+            plain.putTableRow(values);
+        }
+
+        indexed.createTreeIndex("time");
+        indexed.createTreeIndex("price");
+        indexed.createTreeIndex("name");
+        indexed.createHashIndex("time");
+
+        for (int i = 0; i < 5000; ++i) {
+            int numberOfRows = plain.getNumberOfRows();
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    int index = random.nextInt(numberOfRows + 1);
+                    Object[] values = randomValues(random);
+                    indexed.putTableRowAt(index, values);
+                    plain.putTableRowAt(index, values);
+                    break;
+
+                case 1:
+                    if (numberOfRows > 0) {
+                        int row = random.nextInt(numberOfRows);
+                        indexed.removeRow(row);
+                        plain.removeRow(row);
+                    }
+
+                    break;
+
+                default:
+                    if (numberOfRows > 0) {
+                        int row = random.nextInt(numberOfRows);
+                        int column = random.nextInt(3);
+                        Object value = randomValues(random)[column];
+                        indexed.getTableRow(row).get(column).setValue(value);
+                        plain.getTableRow(row).get(column).setValue(value);
+                    }
+
+                    break;
+            }
+        }
+
+        assertEquals(plain, indexed);
+        assertEquals(plain.rangeScan("time", 100L, 300L),
+                     indexed.rangeScan("time", 100L, 300L));
+        assertEquals(plain.rangeScan("price", null, 0.5),
+                     indexed.rangeScan("price", null, 0.5));
+        assertEquals(plain.rangeScan("name", "n3", null),
+                     indexed.rangeScan("name", "n3", null));
+        assertEquals(plain.getTableRowsOrderedBy("time"),
+                     indexed.getTableRowsOrderedBy("time"));
+        assertEquals(plain.findRows("time", 42L),
+                     indexed.findRows("time", 42L));
+
+        for (String column : new String[]{ "time", "price", "name" }) {
+            assertEquals(plain.getMinimumValue(column),
+                         indexed.getMinimumValue(column));
+            assertEquals(plain.getMaximumValue(column),
+                         indexed.getMaximumValue(column));
+        }
+    }
+
+    private static Object[] randomValues(Random random) {
+        return new Object[]{
+            random.nextInt(10) == 0 ? null : (long) random.nextInt(1000),
+            random.nextInt(10) == 0 ? null : random.nextDouble() * 2.0 - 1.0,
+            random.nextInt(10) == 0 ? null : "n" + random.nextInt(50)
+        };
+    }
+
+    private static Table createTable(TableStorageMode tableStorageMode) {
+        Table table = new Table("ordered", tableStorageMode);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("time", TableCellType.TYPE_LONG));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("price", TableCellType.TYPE_DOUBLE));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+        return table;
+    }
+
+    private static int[] sortedRows(List<Long> values, Long low, Long high) {
+        List<Integer> rows = new ArrayList<>();
+
+        for (int row = 0; row < values.size(); ++row) {
+            long value = values.get(row);
+
+            if ((low == null || value >= low)
+                    && (high == null || value <= high)) {
+                rows.add(row);
+            }
+        }
+
+        rows.sort((row1, row2) -> values.get(row1).compareTo(values.get(row2)));
+        return rows.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
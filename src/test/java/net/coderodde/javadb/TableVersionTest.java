@@ -0,0 +1,175 @@
+package net.coderodde.javadb;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class TableVersionTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testVersionIsFrozen() {
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Table table = createTable(tableStorageMode, 10);
+            List<TableRow> expected = copyRows(table);
+
+            try (TableVersion tableVersion = table.openSnapshot()) {
+                table.getTableRow(2).get(0).setIntValue(100);
+                table.putTableRowAt(0, 200, 1L, "first");
+                table.removeRow(5);
+                table.getTableRow(1).get("name").nullify();
+                table.addTableColumnDescriptor(
+                        new TableColumnDescriptor("extra",
+                                                  TableCellType.TYPE_LONG));
+                table.removeTableColumnDescriptor(1);
+                table.setTableName("renamed");
+
+                assertEquals("version", tableVersion.getTableName());
+                assertEquals(3, tableVersion.getTableColumnDescriptorList()
+                                            .size());
+                assertEquals(expected, copyRows(tableVersion));
+                assertEquals(expected.get(3), tableVersion.getTableRow(3));
+            }
+        }
+    }
+
+    @Test
+    public void testScanWhileWriting() throws InterruptedException {
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Table table = createTable(tableStorageMode, 5000);
+            table.setConcurrent(true);
+            List<TableRow> expected = copyRows(table);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+
+            try (TableVersion tableVersion = table.openSnapshot()) {
+                Thread writer = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 2000; ++i) {
+                            table.getTableRow(i * 2).get(2)
+                                 .setStringValue("changed");
+                            table.putTableRowAt(i, -i, 0L, "inserted");
+                            table.removeRow(table.getNumberOfRows() - 1);
+                        }
+                    } catch (Throwable ex) {
+                        failure.set(ex);
+                    }
+                });
+
+                writer.start();
+                List<TableRow> actual = copyRows(tableVersion);
+                writer.join();
+
+                assertNull(failure.get());
+                assertEquals(expected, actual);
+                assertEquals(expected, copyRows(tableVersion));
+            }
+        }
+    }
+
+    @Test
+    public void testDatabaseVersion() {
+        Database db = new Database("version_db");
+        Table person = db.createTable(
+                "person",
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT),
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+        Table msg = db.createTable(
+                "msg",
+                new TableColumnDescriptor("person_id", TableCellType.TYPE_INT),
+                new TableColumnDescriptor("msg", TableCellType.TYPE_STRING));
+        person.putTableRow(1, "Rodion");
+        msg.putTableRow(1, "Hello!");
+        DatabaseVersion databaseVersion = db.openSnapshot();
+
+        person.putTableRow(2, "Violetta");
+        msg.getTableRow(0).get(1).setStringValue("Bye!");
+        db.deleteTable("msg");
+
+        assertEquals("version_db", databaseVersion.getDatabaseName());
+        assertEquals(2, databaseVersion.getTableNames().size());
+        assertEquals(1, databaseVersion.getTable("person").getNumberOfRows());
+        assertEquals("Hello!",
+                     databaseVersion.getTable("msg")
+                                    .getTableRow(0)
+                                    .get(1)
+                                    .getValue());
+
+        databaseVersion.close();
+        databaseVersion.close();
+
+        try {
+            databaseVersion.getTable("person").getNumberOfRows();
+            fail("A closed version must not be readable.");
+        } catch (IllegalStateException ex) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testVersionOfLazilyLoadedTable() throws IOException {
+        File file = temporaryFolder.newFile("version.dat");
+        Database db = new Database("version_db");
+        Table table = db.createTable(
+                "version",
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT),
+                new TableColumnDescriptor("key", TableCellType.TYPE_LONG),
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+
+        for (int i = 0; i < 100; ++i) {
+            table.putTableRow(i, (long) i, "name" + i);
+        }
+
+        List<TableRow> expected = copyRows(table);
+        db.save(file);
+        table = Database.read(file).getTable("version");
+
+        try (TableVersion tableVersion = table.openSnapshot()) {
+            table.getTableRow(7).get(2).setStringValue("changed");
+            table.removeRow(3);
+            assertEquals(expected, copyRows(tableVersion));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testThrowsOnBadRowIndex() {
+        try (TableVersion tableVersion =
+                createTable(TableStorageMode.COLUMNAR, 3).openSnapshot()) {
+            tableVersion.getTableRow(3);
+        }
+    }
+
+    private static List<TableRow> copyRows(Iterable<TableRow> rows) {
+        List<TableRow> tableRowList = new ArrayList<>();
+
+        for (TableRow tableRow : rows) {
+            tableRowList.add(tableRow.copy());
+        }
+
+        return tableRowList;
+    }
+
+    private static Table createTable(TableStorageMode tableStorageMode,
+                                     int numberOfRows) {
+        Table table = new Table("version", tableStorageMode);
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("key", TableCellType.TYPE_LONG));
+        table.addTableColumnDescriptor(
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+
+        for (int i = 0; i < numberOfRows; ++i) {
+            table.putTableRow(i, (long) i % 7, "name" + i);
+        }
+
+        return table;
+    }
+}
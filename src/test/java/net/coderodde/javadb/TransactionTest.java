@@ -0,0 +1,250 @@
+package net.coderodde.javadb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class TransactionTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testCommitAppliesAllChanges() {
+        for (TableStorageMode tableStorageMode : TableStorageMode.values()) {
+            Database db = createDatabase(tableStorageMode);
+            Table person = db.getTable("person");
+            Table msg = db.getTable("msg");
+
+            try (Transaction transaction = db.beginTransaction()) {
+                transaction.putTableRow("person", 3, "Carol");
+                transaction.putTableRowAt("msg", 0, 3, "First!");
+                transaction.setValue("person", 0, "name", "Alicia");
+                transaction.removeRow("person", 1);
+                transaction.setValue("person", 1, "name", null);
+                assertEquals(5, transaction.getNumberOfChanges());
+                assertEquals(2, person.getNumberOfRows());
+
+                transaction.commit();
+            }
+
+            assertEquals(2, person.getNumberOfRows());
+            assertEquals("Alicia", person.getTableRow(0).get(1).getValue());
+            assertEquals(3, person.getTableRow(1).get(0).getValue());
+            assertNull(person.getTableRow(1).get(1).getValue());
+            assertEquals(2, msg.getNumberOfRows());
+            assertEquals("First!", msg.getTableRow(0).get(1).getValue());
+            assertEquals(1, person.findRows("id", 3).size());
+            assertEquals(0, person.findRows("id", 2).size());
+        }
+    }
+
+    @Test
+    public void testInvalidChangeAppliesNothing() {
+        Database db = createDatabase(TableStorageMode.ROW_ORIENTED);
+        Database expected = createDatabase(TableStorageMode.ROW_ORIENTED);
+        Transaction transaction = db.beginTransaction();
+        transaction.putTableRow("person", 3, "Carol");
+        transaction.removeRow("msg", 0);
+        transaction.setValue("msg", 0, "msg", "Gone");
+
+        try {
+            transaction.commit();
+            fail("The update of a removed row must fail.");
+        } catch (IndexOutOfBoundsException ex) {
+            // Expected.
+        }
+
+        assertEquals(expected, db);
+        checkFinished(transaction);
+    }
+
+    @Test
+    public void testValidationErrors() {
+        Database db = createDatabase(TableStorageMode.COLUMNAR);
+        Database expected = createDatabase(TableStorageMode.COLUMNAR);
+
+        checkFails(db, IllegalArgumentException.class,
+                   (transaction) -> transaction.putTableRow("person", "Carol"));
+        checkFails(db, IllegalArgumentException.class,
+                   (transaction) -> transaction.setValue("person",
+                                                         0,
+                                                         "age",
+                                                         30));
+        checkFails(db, IllegalArgumentException.class,
+                   (transaction) -> transaction.putTableRow("person",
+                                                            1,
+                                                            "Carol",
+                                                            "extra"));
+        checkFails(db, IllegalStateException.class,
+                   (transaction) -> transaction.removeRow("nobody", 0));
+        checkFails(db, IndexOutOfBoundsException.class,
+                   (transaction) -> transaction.putTableRowAt("msg", 3, 1));
+
+        assertEquals(expected, db);
+    }
+
+    @Test
+    public void testRollbackDiscardsChanges() {
+        Database db = createDatabase(TableStorageMode.ROW_ORIENTED);
+        Database expected = createDatabase(TableStorageMode.ROW_ORIENTED);
+
+        try (Transaction transaction = db.beginTransaction()) {
+            transaction.putTableRow("person", 3, "Carol");
+        }
+
+        Transaction transaction = db.beginTransaction();
+        transaction.removeRow("person", 0);
+        transaction.rollback();
+
+        assertEquals(expected, db);
+        checkFinished(transaction);
+    }
+
+    @Test
+    public void testTransactionIsLoggedAsOneRecord() throws IOException {
+        File file = temporaryFolder.newFile("transaction.dat");
+        Database db = createDatabase(TableStorageMode.COLUMNAR);
+        db.save(file);
+        db.enableWriteAheadLog(1L);
+
+        try (Transaction transaction = db.beginTransaction()) {
+            transaction.putTableRow("person", 3, "Carol");
+            transaction.putTableRow("msg", 3, "Hi!");
+            transaction.setValue("msg", 0, "msg", "Hello again!");
+            transaction.commit();
+        }
+
+        db.sync();
+        assertEquals(db, Database.read(file));
+        assertEquals(1L, db.getLogSequenceNumber());
+
+        Database beforeSecondTransaction = Database.read(file);
+
+        try (Transaction transaction = db.beginTransaction()) {
+            transaction.removeRow("person", 0);
+            transaction.putTableRow("msg", 2, "Bye!");
+            transaction.commit();
+        }
+
+        db.sync();
+        db.disableWriteAheadLog();
+
+        // A torn transaction record must not be replayed partially:
+        File logFile = WriteAheadLog.getLogFile(file);
+        byte[] log = Files.readAllBytes(logFile.toPath());
+        log[log.length - 5] ^= 1;
+        Files.write(logFile.toPath(), log);
+
+        assertEquals(beforeSecondTransaction, Database.read(file));
+    }
+
+    @Test
+    public void testConcurrentTransactionsAreAtomic()
+            throws InterruptedException {
+        Database db = createDatabase(TableStorageMode.ROW_ORIENTED);
+        db.setConcurrent(true);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] writers = new Thread[4];
+
+        for (int t = 0; t < writers.length; ++t) {
+            int firstId = 100 * (t + 1);
+            writers[t] = new Thread(() -> {
+                try {
+                    for (int id = firstId; id < firstId + 100; ++id) {
+                        try (Transaction transaction = db.beginTransaction()) {
+                            transaction.putTableRow("person", id, "p" + id);
+                            transaction.putTableRow("msg", id, "m" + id);
+                            transaction.commit();
+                        }
+                    }
+                } catch (Throwable ex) {
+                    failure.set(ex);
+                }
+            });
+            writers[t].start();
+        }
+
+        Thread reader = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    try (DatabaseVersion databaseVersion =
+                            db.openSnapshot()) {
+                        assertEquals(
+                                databaseVersion.getTable("person")
+                                               .getNumberOfRows(),
+                                databaseVersion.getTable("msg")
+                                               .getNumberOfRows() + 1);
+                    }
+                }
+            } catch (Throwable ex) {
+                failure.set(ex);
+            }
+        });
+
+        reader.start();
+
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        done.set(true);
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(402, db.getTable("person").getNumberOfRows());
+        assertEquals(401, db.getTable("msg").getNumberOfRows());
+    }
+
+    private interface TransactionBody {
+        void fill(Transaction transaction);
+    }
+
+    private static void checkFails(Database db,
+                                   Class<? extends RuntimeException> exClass,
+                                   TransactionBody transactionBody) {
+        try (Transaction transaction = db.beginTransaction()) {
+            transaction.putTableRow("person", 3, "Carol");
+            transactionBody.fill(transaction);
+            transaction.commit();
+            fail("The commit must fail.");
+        } catch (RuntimeException ex) {
+            assertEquals(exClass, ex.getClass());
+        }
+    }
+
+    private static void checkFinished(Transaction transaction) {
+        try {
+            transaction.commit();
+            fail("A finished transaction must not commit.");
+        } catch (IllegalStateException ex) {
+            // Expected.
+        }
+    }
+
+    private static Database createDatabase(TableStorageMode tableStorageMode) {
+        Database db = new Database("transaction_db");
+        Table person = db.createTable(
+                "person",
+                tableStorageMode,
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT),
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+        Table msg = db.createTable(
+                "msg",
+                tableStorageMode,
+                new TableColumnDescriptor("person_id", TableCellType.TYPE_INT),
+                new TableColumnDescriptor("msg", TableCellType.TYPE_STRING));
+        person.putTableRow(1, "Alice");
+        person.putTableRow(2, "Bob");
+        msg.putTableRow(1, "Hello!");
+        person.createHashIndex("id");
+        return db;
+    }
+}
@@ -0,0 +1,210 @@
+package net.coderodde.javadb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class WriteAheadLogTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Database db;
+    private File file;
+    private File logFile;
+
+    @Before
+    public void before() throws IOException {
+        db = new Database("wal_db");
+        Table table = db.createTable("person",
+                new TableColumnDescriptor("id", TableCellType.TYPE_INT),
+                new TableColumnDescriptor("name", TableCellType.TYPE_STRING));
+        table.putTableRow(1, "Alice");
+        table.putTableRow(2, "Bob");
+
+        file = temporaryFolder.newFile("wal.dat");
+        logFile = WriteAheadLog.getLogFile(file);
+        db.save(file);
+        db.enableWriteAheadLog(1L);
+    }
+
+    @After
+    public void after() {
+        db.disableWriteAheadLog();
+    }
+
+    @Test
+    public void testReplaysAllMutations() {
+        mutate();
+        db.sync();
+
+        // No save, as if the process crashed here:
+        assertTrue(logFile.length() > 0L);
+        assertEquals(db, Database.read(file));
+        assertEquals(db, Database.open(file));
+    }
+
+    @Test
+    public void testReplaysSelectedTables() {
+        mutate();
+        db.sync();
+
+        Database partial = Database.read(file, "person");
+        db.deleteTable("msg");
+
+        assertEquals(db, partial);
+    }
+
+    @Test
+    public void testSaveTruncatesLog() {
+        mutate();
+        db.save();
+
+        assertEquals(0L, logFile.length());
+        assertEquals(db, Database.read(file));
+
+        db.getTable("people").putTableRow("Eve", 30.0);
+        db.sync();
+
+        assertEquals(db, Database.read(file));
+    }
+
+    @Test
+    public void testSkipsRecordsAlreadySaved() throws IOException {
+        mutate();
+        db.sync();
+        File copy = temporaryFolder.newFile("wal.copy");
+        Files.copy(logFile.toPath(),
+                   copy.toPath(),
+                   StandardCopyOption.REPLACE_EXISTING);
+        db.save();
+
+        // As if the process crashed after saving but before emptying the log:
+        Files.copy(copy.toPath(),
+                   logFile.toPath(),
+                   StandardCopyOption.REPLACE_EXISTING);
+
+        assertEquals(db, Database.read(file));
+    }
+
+    @Test
+    public void testIgnoresTornTail() throws IOException {
+        mutate();
+        db.sync();
+        db.disableWriteAheadLog();
+
+        Files.write(logFile.toPath(),
+                    new byte[]{ 100, 0, 0, 0, 1, 2, 3 },
+                    StandardOpenOption.APPEND);
+
+        assertEquals(db, Database.read(file));
+    }
+
+    @Test
+    public void testIgnoresCorruptedRecord() throws IOException {
+        db.getTable("person").putTableRow(3, "Carol");
+        db.sync();
+        db.getTable("person").putTableRow(4, "Dave");
+        db.sync();
+        db.disableWriteAheadLog();
+
+        byte[] log = Files.readAllBytes(logFile.toPath());
+        log[log.length - 5] ^= 1;
+        Files.write(logFile.toPath(), log);
+
+        db.getTable("person").removeRow(3);
+        assertEquals(db, Database.read(file));
+    }
+
+    @Test
+    public void testSaveToAnotherFileMovesLog() throws IOException {
+        File otherFile = temporaryFolder.newFile("other.dat");
+        db.save(otherFile);
+        mutate();
+        db.sync();
+
+        assertTrue(WriteAheadLog.getLogFile(otherFile).length() > 0L);
+        assertEquals(db, Database.read(otherFile));
+    }
+
+    @Test
+    public void testCheckpointEmptiesLog() {
+        mutate();
+        db.checkpoint();
+
+        assertEquals(0L, logFile.length());
+        assertEquals(db, Database.read(file));
+    }
+
+    @Test
+    public void testCheckpointsWhileInserting() {
+        db.setCheckpointTriggers(4096L, Long.MAX_VALUE);
+        Table person = db.getTable("person");
+
+        for (int i = 0; i < 20000; ++i) {
+            person.putTableRowAt(i / 2, i, "name" + i);
+
+            if (i % 7 == 0) {
+                person.getTableRow(i / 3).get(1).setStringValue("x" + i);
+            }
+        }
+
+        // Waits for the checkpoint in progress:
+        db.disableWriteAheadLog();
+        assertEquals(db, Database.read(file));
+    }
+
+    @Test
+    public void testCheckpointKeepsRecordsLoggedMeanwhile() {
+        db.setCheckpointTriggers(1L, Long.MAX_VALUE);
+        Table msg = db.createTable("msg",
+                TableStorageMode.COLUMNAR,
+                new TableColumnDescriptor("id", TableCellType.TYPE_LONG));
+
+        for (long i = 0L; i < 5000L; ++i) {
+            msg.putTableRowAt(0, i);
+            msg.getTableRow(msg.getNumberOfRows() - 1).get(0).setLongValue(-i);
+        }
+
+        db.disableWriteAheadLog();
+        assertEquals(db, Database.read(file));
+    }
+
+    private void mutate() {
+        Table person = db.getTable("person");
+        person.putTableRowAt(0, 0, "Zed");
+        person.putTableRow(3, null);
+        person.removeRow(1);
+        person.getTableRow(1).get("name").setStringValue("Robert");
+        person.getTableRow(2).get(1).nullify();
+        person.addTableColumnDescriptor(
+                new TableColumnDescriptor("age", TableCellType.TYPE_DOUBLE));
+        person.getTableRow(0).get(2).setDoubleValue(42.0);
+        person.removeTableColumnDescriptor(0);
+        person.setTableName("people");
+
+        Table msg = db.createTable("msg",
+                TableStorageMode.COLUMNAR,
+                new TableColumnDescriptor("id", TableCellType.TYPE_LONG),
+                new TableColumnDescriptor("text", TableCellType.TYPE_STRING),
+                new TableColumnDescriptor("blob", TableCellType.TYPE_BINARY));
+        msg.putTableRow(1L, "Hi", new byte[]{ 1, 2 });
+        msg.putTableRow(2L, "Bye");
+        msg.putTableRowAt(1, 3L, "Middle", new byte[0]);
+        msg.getTableRow(2).get("text").setStringValue("Later");
+        msg.removeRow(0);
+
+        Table tmp = db.createTable("tmp",
+                new TableColumnDescriptor("flag", TableCellType.TYPE_BOOLEAN));
+        tmp.putTableRow(true);
+        db.deleteTable("tmp");
+    }
+}